@@ -0,0 +1,160 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.benchmark;
+
+import com.sun.xml.ws.api.BindingID;
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.WSBinding;
+import com.sun.xml.ws.api.message.Message;
+import com.sun.xml.ws.api.message.Messages;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.pipe.Codec;
+import com.sun.xml.ws.api.pipe.Codecs;
+import com.sun.xml.ws.api.pipe.ContentType;
+import com.sun.xml.ws.util.ByteArrayBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.ws.soap.MTOMFeature;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Encoding and decoding of SOAP envelopes with the plain XML codecs
+ * ({@code StreamSOAP11Codec} and {@code StreamSOAP12Codec}) and with
+ * {@code MtomCodec}, through streams and through NIO channels.
+ *
+ * @author WS Development Team
+ */
+@State(Scope.Thread)
+public class CodecBenchmark {
+
+    @Param({"SOAP_11", "SOAP_12"})
+    public String soapVersion;
+
+    /**
+     * "xml" benchmarks the stream codec, "mtom" the MTOM codec.
+     */
+    @Param({"xml", "mtom"})
+    public String encoding;
+
+    @Param({"10", "1000"})
+    public int items;
+
+    @Param({"16384"})
+    public int dataSize;
+
+    private SOAPVersion version;
+    private WSBinding binding;
+    private Codec codec;
+    private Payload payload;
+    private byte[] envelope;
+    private String contentType;
+    private final ByteArrayBuffer out = new ByteArrayBuffer();
+    private final WritableByteChannel outChannel = Channels.newChannel(out);
+
+    @Setup
+    public void setup() throws IOException {
+        version = SOAPVersion.valueOf(soapVersion);
+        BindingID id = (version == SOAPVersion.SOAP_11) ? BindingID.SOAP11_HTTP : BindingID.SOAP12_HTTP;
+        if ("mtom".equals(encoding)) {
+            binding = id.createBinding(new MTOMFeature(true, 0));
+            codec = Codecs.createSOAPBindingCodec(binding.getFeatures());
+        } else {
+            binding = id.createBinding();
+            codec = Codecs.createSOAPEnvelopeXmlCodec(binding);
+        }
+        payload = Payload.create(items, dataSize);
+
+        ContentType ct = encode();
+        envelope = out.toByteArray();
+        contentType = ct.getContentType();
+    }
+
+    @Benchmark
+    public ContentType encode() throws IOException {
+        out.reset();
+        Packet packet = new Packet(Messages.create(Payload.CONTEXT, payload, version));
+        packet.setMtomFeature(binding.getFeature(MTOMFeature.class));
+        return codec.encode(packet, out);
+    }
+
+    @Benchmark
+    public ContentType encodeChannel() {
+        out.reset();
+        Packet packet = new Packet(Messages.create(Payload.CONTEXT, payload, version));
+        packet.setMtomFeature(binding.getFeature(MTOMFeature.class));
+        return codec.encode(packet, outChannel);
+    }
+
+    @Benchmark
+    public int decode() throws IOException, XMLStreamException {
+        Packet packet = new Packet();
+        codec.decode(new ByteArrayBuffer(envelope).newInputStream(), contentType, packet);
+        return readPayload(packet.getMessage());
+    }
+
+    @Benchmark
+    public int decodeChannel() throws XMLStreamException {
+        Packet packet = new Packet();
+        codec.decode(Channels.newChannel(new ByteArrayBuffer(envelope).newInputStream()), contentType, packet);
+        return readPayload(packet.getMessage());
+    }
+
+    /**
+     * Reads the whole payload, since messages are parsed lazily.
+     */
+    static int readPayload(Message message) throws XMLStreamException {
+        XMLStreamReader reader = message.readPayload();
+        int events = 0;
+        while (reader.hasNext()) {
+            reader.next();
+            events++;
+        }
+        return events;
+    }
+}
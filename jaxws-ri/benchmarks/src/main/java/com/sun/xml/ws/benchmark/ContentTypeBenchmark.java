@@ -0,0 +1,95 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.benchmark;
+
+import com.sun.xml.ws.encoding.ContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.UUID;
+
+/**
+ * Parsing inbound Content-Type headers, with and without the cache of
+ * {@link ContentType#parse(String)}. MTOM content types carry a new boundary
+ * and root part id in every message.
+ *
+ * @author WS Development Team
+ */
+@State(Scope.Thread)
+public class ContentTypeBenchmark {
+
+    @Param({"xml", "mtom"})
+    public String encoding;
+
+    private String[] contentTypes;
+    private int next;
+
+    @Setup
+    public void setup() {
+        contentTypes = new String[64];
+        for (int i = 0; i < contentTypes.length; i++) {
+            if ("mtom".equals(encoding)) {
+                String uuid = UUID.randomUUID().toString();
+                contentTypes[i] = "multipart/related;start=\"<rootpart*" + uuid + "@example.jaxws.sun.com>\";"
+                        + "type=\"application/xop+xml\";boundary=\"uuid:" + uuid + "\";start-info=\"text/xml\"";
+            } else {
+                contentTypes[i] = "text/xml; charset=utf-8";
+            }
+        }
+    }
+
+    @Benchmark
+    public String construct() {
+        return new ContentType(nextContentType()).getParameter("boundary");
+    }
+
+    @Benchmark
+    public String parse() {
+        return ContentType.parse(nextContentType()).getParameter("boundary");
+    }
+
+    private String nextContentType() {
+        return contentTypes[next++ & (contentTypes.length - 1)];
+    }
+}
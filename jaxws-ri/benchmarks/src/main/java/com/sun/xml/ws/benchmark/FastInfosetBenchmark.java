@@ -0,0 +1,142 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.benchmark;
+
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.message.Messages;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.pipe.Codec;
+import com.sun.xml.ws.api.pipe.Codecs;
+import com.sun.xml.ws.api.pipe.ContentType;
+import com.sun.xml.ws.api.pipe.StreamSOAPCodec;
+import com.sun.xml.ws.encoding.fastinfoset.FastInfosetStreamSOAPCodec;
+import com.sun.xml.ws.encoding.fastinfoset.FastInfosetVocabulary;
+import com.sun.xml.ws.util.ByteArrayBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+
+/**
+ * Encoding and decoding of SOAP envelopes as plain XML, as stateless Fast
+ * Infoset and as Fast Infoset with an external vocabulary. The size of the
+ * encoded envelope is printed at the end of each trial.
+ *
+ * @author WS Development Team
+ */
+@State(Scope.Thread)
+public class FastInfosetBenchmark {
+
+    /**
+     * "xml" benchmarks the stream codec, "fi" the Fast Infoset codec and
+     * "fi-vocabulary" the Fast Infoset codec with a vocabulary built from a
+     * sample message.
+     */
+    @Param({"xml", "fi", "fi-vocabulary"})
+    public String encoding;
+
+    @Param({"1", "100"})
+    public int items;
+
+    @Param({"64"})
+    public int dataSize;
+
+    private static final SOAPVersion VERSION = SOAPVersion.SOAP_11;
+
+    private Codec codec;
+    private Payload payload;
+    private byte[] envelope;
+    private String contentType;
+    private final ByteArrayBuffer out = new ByteArrayBuffer();
+
+    @Setup
+    public void setup() throws IOException, XMLStreamException {
+        StreamSOAPCodec xml = Codecs.createSOAPEnvelopeXmlCodec(VERSION);
+        if ("xml".equals(encoding)) {
+            codec = xml;
+        } else if ("fi".equals(encoding)) {
+            codec = FastInfosetStreamSOAPCodec.create(xml, VERSION);
+        } else {
+            codec = FastInfosetStreamSOAPCodec.create(xml, VERSION, false, createVocabulary(xml));
+        }
+        payload = Payload.create(items, dataSize);
+
+        ContentType ct = encode();
+        envelope = out.toByteArray();
+        contentType = ct.getContentType();
+    }
+
+    @TearDown
+    public void report() {
+        System.out.println(encoding + " envelope: " + envelope.length + " bytes");
+    }
+
+    @Benchmark
+    public ContentType encode() throws IOException {
+        out.reset();
+        return codec.encode(new Packet(Messages.create(Payload.CONTEXT, payload, VERSION)), out);
+    }
+
+    @Benchmark
+    public int decode() throws IOException, XMLStreamException {
+        Packet packet = new Packet();
+        codec.decode(new ByteArrayBuffer(envelope).newInputStream(), contentType, packet);
+        return CodecBenchmark.readPayload(packet.getMessage());
+    }
+
+    /**
+     * Builds the vocabulary from the names of a sample message.
+     */
+    private static FastInfosetVocabulary createVocabulary(Codec xml) throws IOException, XMLStreamException {
+        ByteArrayBuffer sample = new ByteArrayBuffer();
+        xml.encode(new Packet(Messages.create(Payload.CONTEXT, Payload.create(1, 0), VERSION)), sample);
+        return new FastInfosetVocabulary.Builder("urn:benchmark:1")
+                .addSOAPNames(VERSION)
+                .addNames(XMLInputFactory.newInstance().createXMLStreamReader(sample.newInputStream()))
+                .build();
+    }
+}
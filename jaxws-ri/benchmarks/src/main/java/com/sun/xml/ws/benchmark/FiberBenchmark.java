@@ -0,0 +1,223 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.benchmark;
+
+import com.sun.istack.NotNull;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.pipe.Engine;
+import com.sun.xml.ws.api.pipe.Fiber;
+import com.sun.xml.ws.api.pipe.NextAction;
+import com.sun.xml.ws.api.pipe.Tube;
+import com.sun.xml.ws.api.pipe.TubeCloner;
+import com.sun.xml.ws.api.pipe.helper.AbstractFilterTubeImpl;
+import com.sun.xml.ws.api.pipe.helper.AbstractTubeImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Scheduling of {@link Fiber}s through a tubeline of pass-through tubes:
+ * synchronous execution, asynchronous execution on the {@link Engine}'s
+ * executor, and a suspend/resume cycle in the middle of the tubeline.
+ *
+ * <p>
+ * {@link #poolFibers} switches {@link Engine#poolFibers}. The bytes each
+ * request allocates on the benchmark thread are printed after every iteration.
+ *
+ * @author WS Development Team
+ */
+@State(Scope.Benchmark)
+public class FiberBenchmark {
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"8"})
+    public int tubes;
+
+    @Param({"false", "true"})
+    public boolean poolFibers;
+
+    private Engine engine;
+    private Tube tubeline;
+    private Tube suspendingTubeline;
+
+    @Setup
+    public void setup() {
+        Engine.virtualThreads = virtualThreads;
+        Engine.poolFibers = poolFibers;
+        engine = new Engine("benchmark");
+        tubeline = createTubeline(false);
+        suspendingTubeline = createTubeline(true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.println("peak thread count: " + ManagementFactory.getThreadMXBean().getPeakThreadCount());
+    }
+
+    private Tube createTubeline(boolean suspend) {
+        Tube t = new TerminalTube();
+        for (int i = 0; i < tubes; i++) {
+            t = (suspend && i == tubes / 2) ? new SuspendingTube(t) : new PassThroughTube(t);
+        }
+        return t;
+    }
+
+    @Benchmark
+    public Packet runSync(Allocations allocations) {
+        allocations.count();
+        Fiber fiber = engine.createFiber();
+        try {
+            return fiber.runSync(tubeline, new Packet());
+        } finally {
+            engine.recycleFiber(fiber);
+        }
+    }
+
+    @Benchmark
+    public Packet startAsync(Allocations allocations) throws InterruptedException {
+        allocations.count();
+        return runAsync(tubeline);
+    }
+
+    @Benchmark
+    public Packet suspendAndResume(Allocations allocations) throws InterruptedException {
+        allocations.count();
+        return runAsync(suspendingTubeline);
+    }
+
+    private Packet runAsync(Tube tubeline) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        final Packet[] response = new Packet[1];
+        engine.createFiber().start(tubeline, new Packet(), new Fiber.CompletionCallback() {
+            public void onCompletion(@NotNull Packet packet) {
+                response[0] = packet;
+                done.countDown();
+            }
+
+            public void onCompletion(@NotNull Throwable error) {
+                done.countDown();
+            }
+        });
+        done.await();
+        return response[0];
+    }
+
+    private static class PassThroughTube extends AbstractFilterTubeImpl {
+        PassThroughTube(Tube next) {
+            super(next);
+        }
+
+        PassThroughTube(PassThroughTube that, TubeCloner cloner) {
+            super(that, cloner);
+        }
+
+        @Override
+        public AbstractTubeImpl copy(TubeCloner cloner) {
+            return new PassThroughTube(this, cloner);
+        }
+    }
+
+    /**
+     * Suspends the fiber on the way in, and resumes it right away, so that
+     * the rest of the tubeline runs on the engine's executor.
+     */
+    private static final class SuspendingTube extends PassThroughTube {
+        SuspendingTube(Tube next) {
+            super(next);
+        }
+
+        SuspendingTube(SuspendingTube that, TubeCloner cloner) {
+            super(that, cloner);
+        }
+
+        @Override
+        public NextAction processRequest(final Packet request) {
+            final Fiber fiber = Fiber.current();
+            return doSuspend(next, new Runnable() {
+                public void run() {
+                    fiber.resume(request);
+                }
+            });
+        }
+
+        @Override
+        public AbstractTubeImpl copy(TubeCloner cloner) {
+            return new SuspendingTube(this, cloner);
+        }
+    }
+
+    private static final class TerminalTube extends AbstractTubeImpl {
+        TerminalTube() {
+        }
+
+        TerminalTube(TerminalTube that, TubeCloner cloner) {
+            super(that, cloner);
+        }
+
+        public NextAction processRequest(Packet request) {
+            return doReturnWith(request);
+        }
+
+        public NextAction processResponse(Packet response) {
+            return doReturnWith(response);
+        }
+
+        public NextAction processException(Throwable t) {
+            return doThrow(t);
+        }
+
+        public void preDestroy() {
+        }
+
+        @Override
+        public AbstractTubeImpl copy(TubeCloner cloner) {
+            return new TerminalTube(this, cloner);
+        }
+    }
+}
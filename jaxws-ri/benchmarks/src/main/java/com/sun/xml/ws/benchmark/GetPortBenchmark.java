@@ -0,0 +1,118 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.xml.namespace.QName;
+import javax.xml.ws.RespectBindingFeature;
+import javax.xml.ws.Service;
+import javax.xml.ws.WebServiceFeature;
+import javax.xml.ws.soap.SOAPBinding;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Creating and closing proxies with {@code Service.getPort()}.
+ *
+ * <p>
+ * Proxies created without features of their own copy the tubeline of the port
+ * from a template; {@link #ownFeatures} passes a feature, so that each proxy
+ * assembles its tubeline as before. The heap retained per proxy is printed at
+ * the end of each trial.
+ *
+ * @author WS Development Team
+ */
+@State(Scope.Benchmark)
+public class GetPortBenchmark {
+
+    private static final QName ECHO_SERVICE = new QName(Payload.NS, "EchoService");
+    private static final QName ECHO_PORT = new QName(Payload.NS, "EchoPort");
+
+    private static final int RETAINED_PROXIES = 1000;
+
+    @Param({"false", "true"})
+    public boolean ownFeatures;
+
+    private Service service;
+    private WebServiceFeature[] features;
+
+    @Setup
+    public void setup() {
+        service = Service.create(ECHO_SERVICE);
+        service.addPort(ECHO_PORT, SOAPBinding.SOAP11HTTP_BINDING, "http://localhost:8080/echo");
+        features = ownFeatures ? new WebServiceFeature[] {new RespectBindingFeature(false)} : new WebServiceFeature[0];
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Echo[] proxies = new Echo[RETAINED_PROXIES];
+        long before = usedHeap();
+        for (int i = 0; i < proxies.length; i++) {
+            proxies[i] = service.getPort(ECHO_PORT, Echo.class, features);
+        }
+        long after = usedHeap();
+        System.out.println("heap per proxy: " + (after - before) / proxies.length + " bytes");
+        for (Echo proxy : proxies) {
+            ((Closeable) proxy).close();
+        }
+    }
+
+    @Benchmark
+    public Echo getPort() throws IOException {
+        Echo proxy = service.getPort(ECHO_PORT, Echo.class, features);
+        ((Closeable) proxy).close();
+        return proxy;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.benchmark;
+
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.message.Header;
+import com.sun.xml.ws.api.message.HeaderList;
+import com.sun.xml.ws.api.message.Headers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.xml.namespace.QName;
+import java.util.Iterator;
+
+/**
+ * Header lookups by name in a {@link HeaderList}, as done by addressing and
+ * security tubes for every message.
+ *
+ * <p>
+ * Messages with WS-Security and WS-RM have 15-25 headers; the cost of the
+ * lookups should not grow with the number of headers.
+ *
+ * @author WS Development Team
+ */
+@State(Scope.Thread)
+public class HeaderListBenchmark {
+
+    @Param({"4", "16", "24", "64"})
+    public int headers;
+
+    private HeaderList list;
+    private QName last;
+    private QName missing;
+    private QName[] names;
+
+    @Setup
+    public void setup() {
+        list = new HeaderList(SOAPVersion.SOAP_11);
+        names = new QName[headers];
+        for (int i = 0; i < headers; i++) {
+            names[i] = new QName(Payload.NS, "header" + i);
+            list.add(Headers.create(names[i], "value" + i));
+        }
+        last = new QName(Payload.NS, "header" + (headers - 1));
+        missing = new QName(Payload.NS, "missing");
+    }
+
+    @Benchmark
+    public Header getLast() {
+        return list.get(last.getNamespaceURI(), last.getLocalPart(), false);
+    }
+
+    @Benchmark
+    public Header getMissing() {
+        return list.get(missing, false);
+    }
+
+    /**
+     * Every header looked up once by name, like the tubes of a WS-Security
+     * and WS-RM pipeline do between them.
+     */
+    @Benchmark
+    public int getEach() {
+        int found = 0;
+        for (QName name : names) {
+            if (list.get(name, false) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * A lookup after the list was modified, which pays for rebuilding the index.
+     */
+    @Benchmark
+    public Header addOrReplaceThenGet() {
+        list.addOrReplace(Headers.create(missing, "value"));
+        return list.get(last, false);
+    }
+
+    @Benchmark
+    public int iterateByName() {
+        int count = 0;
+        for (Iterator<Header> it = list.getHeaders(last.getNamespaceURI(), last.getLocalPart()); it.hasNext(); it.next()) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.benchmark;
+
+import com.sun.xml.ws.api.pipe.Engine;
+import com.sun.xml.ws.api.server.WSEndpoint;
+import com.sun.xml.ws.transport.local.InVmServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.xml.namespace.QName;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.ws.Dispatch;
+import javax.xml.ws.Service;
+import javax.xml.ws.soap.SOAPBinding;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Whole client and server round trips over the in-VM transport of
+ * {@code LocalTransportFactory}: SEI stub invocations, {@code invokeAsync}
+ * on the client, and an {@code AsyncProvider} on the server.
+ *
+ * <p>
+ * {@link #virtualThreads} switches {@link Engine#virtualThreads}, so the
+ * asynchronous benchmarks compare fibers on virtual threads with the default
+ * thread pool. The peak number of threads is printed at the end of each trial.
+ * {@link #messagePassing} compares encoding the messages with handing
+ * {@code Message} objects straight to the service. The bytes each request
+ * allocates on the benchmark thread are printed after every iteration.
+ *
+ * @author WS Development Team
+ */
+@State(Scope.Benchmark)
+public class InVmInvocationBenchmark {
+
+    private static final QName ECHO_SERVICE = new QName(Payload.NS, "EchoService");
+    private static final QName ECHO_PORT = new QName(Payload.NS, "EchoPort");
+    private static final QName ASYNC_ECHO_SERVICE = new QName(Payload.NS, "AsyncEchoService");
+    private static final QName ASYNC_ECHO_PORT = new QName(Payload.NS, "AsyncEchoPort");
+
+    private static final String REQUEST = "<ns:echo xmlns:ns=\"" + Payload.NS + "\"><arg0>hello</arg0></ns:echo>";
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"SERIALIZE", "COPY", "REFERENCE"})
+    public InVmServer.MessagePassing messagePassing;
+
+    private InVmServer server;
+    private Echo echo;
+    private Dispatch<Source> asyncEcho;
+    private Payload payload;
+
+    @Setup
+    public void setup() throws IOException {
+        Engine.virtualThreads = virtualThreads;
+
+        List<WSEndpoint> endpoints = new ArrayList<WSEndpoint>();
+        endpoints.add(Endpoints.createEcho());
+        endpoints.add(Endpoints.createAsyncEcho());
+        String id = "benchmark-" + System.nanoTime();
+        server = new InVmServer(id, endpoints);
+        server.setMessagePassing(messagePassing);
+
+        Service echoService = Service.create(ECHO_SERVICE);
+        echoService.addPort(ECHO_PORT, SOAPBinding.SOAP11HTTP_BINDING, "in-vm://" + id + "/?EchoPort");
+        echo = echoService.getPort(ECHO_PORT, Echo.class);
+
+        Service asyncEchoService = Service.create(ASYNC_ECHO_SERVICE);
+        asyncEchoService.addPort(ASYNC_ECHO_PORT, SOAPBinding.SOAP11HTTP_BINDING, "in-vm://" + id + "/?AsyncEchoPort");
+        asyncEcho = asyncEchoService.createDispatch(ASYNC_ECHO_PORT, Source.class, Service.Mode.PAYLOAD);
+
+        payload = Payload.create(10, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.undeploy();
+        System.out.println("peak thread count: " + ManagementFactory.getThreadMXBean().getPeakThreadCount());
+    }
+
+    @Benchmark
+    public String seiEcho(Allocations allocations) {
+        allocations.count();
+        return echo.echo("hello");
+    }
+
+    @Benchmark
+    public Payload seiEchoPayload(Allocations allocations) {
+        allocations.count();
+        return echo.echoPayload(payload);
+    }
+
+    @Benchmark
+    public Source asyncProvider(Allocations allocations) {
+        allocations.count();
+        return asyncEcho.invoke(new StreamSource(new StringReader(REQUEST)));
+    }
+
+    @Benchmark
+    public Source invokeAsync(Allocations allocations) throws InterruptedException, ExecutionException {
+        allocations.count();
+        return asyncEcho.invokeAsync(new StreamSource(new StringReader(REQUEST))).get();
+    }
+}
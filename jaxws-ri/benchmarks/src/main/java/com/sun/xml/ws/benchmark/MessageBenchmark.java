@@ -0,0 +1,116 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.benchmark;
+
+import com.sun.xml.ws.api.BindingID;
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.message.Message;
+import com.sun.xml.ws.api.message.Messages;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.pipe.Codec;
+import com.sun.xml.ws.api.pipe.Codecs;
+import com.sun.xml.ws.api.streaming.XMLStreamWriterFactory;
+import com.sun.xml.ws.util.ByteArrayBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+
+/**
+ * {@code JAXBMessage.writeTo} and {@code StreamMessage.copy()}.
+ *
+ * @author WS Development Team
+ */
+@State(Scope.Thread)
+public class MessageBenchmark {
+
+    @Param({"10", "1000"})
+    public int items;
+
+    private Payload payload;
+    private Codec codec;
+    private byte[] envelope;
+    private final ByteArrayBuffer out = new ByteArrayBuffer();
+
+    @Setup
+    public void setup() throws IOException {
+        payload = Payload.create(items, 0);
+        BindingID id = BindingID.SOAP11_HTTP;
+        codec = Codecs.createSOAPEnvelopeXmlCodec(id.createBinding());
+        codec.encode(new Packet(Messages.create(Payload.CONTEXT, payload, SOAPVersion.SOAP_11)), out);
+        envelope = out.toByteArray();
+    }
+
+    @Benchmark
+    public int jaxbMessageWriteTo() throws XMLStreamException {
+        out.reset();
+        XMLStreamWriter writer = XMLStreamWriterFactory.create(out);
+        Messages.create(Payload.CONTEXT, payload, SOAPVersion.SOAP_11).writeTo(writer);
+        writer.flush();
+        XMLStreamWriterFactory.recycle(writer);
+        return out.size();
+    }
+
+    /**
+     * Decodes the envelope into a {@code StreamMessage}, then copies it.
+     * Compare with {@link #streamMessageDecode()} for the cost of the copy alone.
+     */
+    @Benchmark
+    public Message streamMessageCopy() throws IOException {
+        return decode().copy();
+    }
+
+    @Benchmark
+    public Message streamMessageDecode() throws IOException {
+        return decode();
+    }
+
+    private Message decode() throws IOException {
+        Packet packet = new Packet();
+        codec.decode(new ByteArrayBuffer(envelope).newInputStream(), "text/xml; charset=utf-8", packet);
+        return packet.getMessage();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.benchmark;
+
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.message.Messages;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.model.WSDLOperationMapping;
+import com.sun.xml.ws.api.server.WSEndpoint;
+import com.sun.xml.ws.wsdl.DispatchException;
+import com.sun.xml.ws.wsdl.OperationDispatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.xml.transform.stream.StreamSource;
+import java.io.StringReader;
+
+/**
+ * Finding the operation of a request with the {@link OperationDispatcher}
+ * of an SEI endpoint.
+ *
+ * @author WS Development Team
+ */
+@State(Scope.Benchmark)
+public class OperationDispatcherBenchmark {
+
+    private WSEndpoint<EchoImpl> endpoint;
+    private OperationDispatcher dispatcher;
+    private Packet request;
+
+    @Setup
+    public void setup() {
+        endpoint = Endpoints.createEcho();
+        dispatcher = endpoint.getOperationDispatcher();
+        String payload = "<ns:echoPayload xmlns:ns=\"" + Payload.NS + "\"><arg0/></ns:echoPayload>";
+        request = new Packet(Messages.createUsingPayload(new StreamSource(new StringReader(payload)), SOAPVersion.SOAP_11));
+    }
+
+    @TearDown
+    public void tearDown() {
+        endpoint.dispose();
+    }
+
+    @Benchmark
+    public WSDLOperationMapping dispatch() throws DispatchException {
+        return dispatcher.getWSDLOperationMapping(request);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.benchmark;
+
+import com.sun.xml.ws.api.message.Packet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.xml.ws.BindingProvider;
+import java.util.Map;
+
+/**
+ * Property access by name on a {@link Packet}, as done through
+ * {@code MessageContext} and the request and response contexts.
+ *
+ * @author WS Development Team
+ */
+@State(Scope.Thread)
+public class PropertySetBenchmark {
+
+    private Packet packet;
+
+    @Setup
+    public void setup() {
+        packet = new Packet();
+        packet.soapAction = "\"urn:echo\"";
+    }
+
+    @Benchmark
+    public Object getField() {
+        return packet.get(BindingProvider.SOAPACTION_URI_PROPERTY);
+    }
+
+    @Benchmark
+    public Object getMethod() {
+        return packet.get(BindingProvider.ENDPOINT_ADDRESS_PROPERTY);
+    }
+
+    @Benchmark
+    public Object putField() {
+        return packet.put(BindingProvider.SOAPACTION_URI_PROPERTY, "\"urn:echo\"");
+    }
+
+    @Benchmark
+    public boolean supportsUnknown() {
+        return packet.supports("com.example.unknown");
+    }
+
+    @Benchmark
+    public int iterateMap() {
+        int n = 0;
+        for (Map.Entry<String, Object> e : packet.asMap().entrySet()) {
+            if (e.getValue() != null) {
+                n++;
+            }
+        }
+        return n;
+    }
+}
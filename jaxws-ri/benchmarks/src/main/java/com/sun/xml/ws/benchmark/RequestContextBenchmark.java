@@ -0,0 +1,123 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.benchmark;
+
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.client.RequestContext;
+import com.sun.xml.ws.client.Stub;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.xml.namespace.QName;
+import javax.xml.ws.BindingProvider;
+import javax.xml.ws.Service;
+import javax.xml.ws.soap.SOAPBinding;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+
+/**
+ * Filling a {@link Packet} from the request context of a proxy, and copying the
+ * request context as done for every asynchronous invocation, with a request context
+ * that doesn't change between invocations.
+ *
+ * <p>
+ * Run with {@code -prof gc} to compare the allocation rate per invocation.
+ *
+ * @author WS Development Team
+ */
+@State(Scope.Thread)
+public class RequestContextBenchmark {
+
+    private static final QName ECHO_SERVICE = new QName(Payload.NS, "EchoService");
+    private static final QName ECHO_PORT = new QName(Payload.NS, "EchoPort");
+
+    /**
+     * Number of properties set on the request context that are not
+     * known to {@link RequestContext}.
+     */
+    @Param({"0", "4", "16"})
+    public int properties;
+
+    private Echo proxy;
+    private RequestContext requestContext;
+
+    @Setup
+    public void setup() {
+        Service service = Service.create(ECHO_SERVICE);
+        service.addPort(ECHO_PORT, SOAPBinding.SOAP11HTTP_BINDING, "http://localhost:8080/echo");
+        proxy = service.getPort(ECHO_PORT, Echo.class);
+        Map<String, Object> rc = ((BindingProvider) proxy).getRequestContext();
+        rc.put(BindingProvider.SOAPACTION_USE_PROPERTY, Boolean.TRUE);
+        rc.put(BindingProvider.SOAPACTION_URI_PROPERTY, "urn:echo");
+        for (int i = 0; i < properties; i++) {
+            rc.put("com.example.property" + i, "value" + i);
+        }
+        requestContext = ((Stub) Proxy.getInvocationHandler(proxy)).requestContext;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        ((Closeable) proxy).close();
+    }
+
+    @Benchmark
+    public Packet fill() {
+        Packet packet = new Packet();
+        requestContext.fill(packet, false);
+        return packet;
+    }
+
+    @Benchmark
+    public RequestContext copy() {
+        return requestContext.copy();
+    }
+
+    @Benchmark
+    public Object copyAndGet() {
+        return requestContext.copy().get("com.example.property0");
+    }
+}
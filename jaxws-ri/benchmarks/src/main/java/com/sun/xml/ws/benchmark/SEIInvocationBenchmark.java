@@ -0,0 +1,135 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.benchmark;
+
+import com.sun.xml.ws.api.server.WSEndpoint;
+import com.sun.xml.ws.server.sei.MethodBridge;
+import com.sun.xml.ws.transport.local.InVmServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.xml.namespace.QName;
+import javax.xml.ws.Service;
+import javax.xml.ws.soap.SOAPBinding;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+
+/**
+ * Compares the two ways endpoint methods are called: through the generated
+ * {@link MethodBridge}s and through reflection, which {@link #reflective}
+ * selects for the whole server.
+ *
+ * <p>
+ * The <tt>sei</tt> benchmarks are round trips over the in-VM transport of
+ * {@code LocalTransportFactory}; the <tt>invoke</tt> ones only call
+ * {@link EchoImpl#add(int, int)} the way the server does.
+ *
+ * @author WS Development Team
+ */
+@State(Scope.Benchmark)
+public class SEIInvocationBenchmark {
+
+    private static final QName ECHO_SERVICE = new QName(Payload.NS, "EchoService");
+    private static final QName ECHO_PORT = new QName(Payload.NS, "EchoPort");
+
+    private static final String REFLECTIVE = MethodBridge.class.getName() + ".reflective";
+
+    @Param({"false", "true"})
+    public boolean reflective;
+
+    private InVmServer server;
+    private Echo echo;
+    private Payload payload;
+
+    private EchoImpl impl;
+    private Method add;
+    private MethodBridge addBridge;
+    private Object[] addArgs;
+
+    @Setup
+    public void setup() throws IOException, NoSuchMethodException {
+        System.setProperty(REFLECTIVE, Boolean.toString(reflective));
+
+        WSEndpoint endpoint = Endpoints.createEcho();
+        String id = "benchmark-" + System.nanoTime();
+        server = new InVmServer(id, Collections.singletonList(endpoint));
+
+        Service echoService = Service.create(ECHO_SERVICE);
+        echoService.addPort(ECHO_PORT, SOAPBinding.SOAP11HTTP_BINDING, "in-vm://" + id + "/?EchoPort");
+        echo = echoService.getPort(ECHO_PORT, Echo.class);
+        payload = Payload.create(10, 0);
+
+        impl = new EchoImpl();
+        add = EchoImpl.class.getMethod("add", Integer.TYPE, Integer.TYPE);
+        addBridge = reflective ? null : MethodBridge.create(add);
+        addArgs = new Object[] {1, 2};
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.undeploy();
+        System.clearProperty(REFLECTIVE);
+    }
+
+    @Benchmark
+    public String seiEcho() {
+        return echo.echo("hello");
+    }
+
+    @Benchmark
+    public Payload seiEchoPayload() {
+        return echo.echoPayload(payload);
+    }
+
+    @Benchmark
+    public Object invokeAdd() throws InvocationTargetException, IllegalAccessException {
+        if (addBridge != null) {
+            return addBridge.invoke(impl, addArgs);
+        }
+        return add.invoke(impl, addArgs);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.benchmark;
+
+import com.sun.xml.ws.spi.db.FieldGetter;
+import com.sun.xml.ws.spi.db.FieldSetter;
+import com.sun.xml.ws.spi.db.JAXBWrapperAccessor;
+import com.sun.xml.ws.spi.db.PropertyAccessor;
+import com.sun.xml.ws.spi.db.PropertyGetter;
+import com.sun.xml.ws.spi.db.PropertySetter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Field;
+
+/**
+ * Packs and unpacks a wrapper bean of 40 parameters, as done for doc/lit
+ * wrapped operations with the EclipseLink databinding, through the accessors
+ * of {@link JAXBWrapperAccessor} or through reflection.
+ *
+ * @author WS Development Team
+ */
+@State(Scope.Thread)
+public class WrapperAccessorBenchmark {
+
+    private static final int SIZE = 40;
+
+    @Param({"false", "true"})
+    public boolean reflective;
+
+    private PropertyGetter[] getters;
+    private PropertySetter[] setters;
+    private PropertyAccessor[] accessors;
+    private Object[] values;
+    private Wrapper bean;
+
+    @Setup
+    public void setup() throws NoSuchFieldException {
+        JAXBWrapperAccessor wa = new JAXBWrapperAccessor(Wrapper.class);
+        getters = new PropertyGetter[SIZE];
+        setters = new PropertySetter[SIZE];
+        accessors = new PropertyAccessor[SIZE];
+        values = new Object[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            Field f = Wrapper.class.getField("arg" + i);
+            getters[i] = new FieldGetter(f);
+            setters[i] = new FieldSetter(f);
+            accessors[i] = wa.getPropertyAccessor("", f.getName());
+            values[i] = "value" + i;
+        }
+        bean = new Wrapper();
+    }
+
+    @Benchmark
+    public Wrapper pack() {
+        Wrapper w = new Wrapper();
+        if (reflective) {
+            for (int i = 0; i < SIZE; i++) {
+                setters[i].set(w, values[i]);
+            }
+        } else {
+            for (int i = 0; i < SIZE; i++) {
+                accessors[i].set(w, values[i]);
+            }
+        }
+        return w;
+    }
+
+    @Benchmark
+    public Object[] unpack() {
+        Object[] args = new Object[SIZE];
+        if (reflective) {
+            for (int i = 0; i < SIZE; i++) {
+                args[i] = getters[i].get(bean);
+            }
+        } else {
+            for (int i = 0; i < SIZE; i++) {
+                args[i] = accessors[i].get(bean);
+            }
+        }
+        return args;
+    }
+
+    public static class Wrapper {
+        public String arg0, arg1, arg2, arg3, arg4, arg5, arg6, arg7, arg8, arg9;
+        public String arg10, arg11, arg12, arg13, arg14, arg15, arg16, arg17, arg18, arg19;
+        public String arg20, arg21, arg22, arg23, arg24, arg25, arg26, arg27, arg28, arg29;
+        public String arg30, arg31, arg32, arg33, arg34, arg35, arg36, arg37, arg38, arg39;
+    }
+}
@@ -178,7 +178,26 @@ public class FastInfosetCodec implements Codec {
      * @return a new {@link StAXDocumentSerializer} instance.
      */
     /* package */ static StAXDocumentSerializer createNewStreamWriter(OutputStream out, boolean retainState) {
-        return createNewStreamWriter(out, retainState, DEFAULT_INDEXED_STRING_SIZE_LIMIT, DEFAULT_INDEXED_STRING_MEMORY_LIMIT);
+        return createNewStreamWriter(out, retainState, null);
+    }
+
+    /**
+     * Create a new (@link StAXDocumentSerializer} instance.
+     *
+     * @param in the OutputStream to serialize to.
+     * @param retainState if true the serializer should retain the state of
+     *        vocabulary tables for multiple serializations.
+     * @param vocabulary the external vocabulary to encode with, or null.
+     * @return a new {@link StAXDocumentSerializer} instance.
+     */
+    /* package */ static StAXDocumentSerializer createNewStreamWriter(OutputStream out, boolean retainState,
+            FastInfosetVocabulary vocabulary) {
+        StAXDocumentSerializer serializer = createNewStreamWriter(out, retainState,
+                DEFAULT_INDEXED_STRING_SIZE_LIMIT, DEFAULT_INDEXED_STRING_MEMORY_LIMIT);
+        if (vocabulary != null) {
+            vocabulary.configure(serializer, retainState);
+        }
+        return serializer;
     }
     
     /**
@@ -222,6 +241,7 @@ public class FastInfosetCodec implements Codec {
     /* package */ static StAXDocumentParser createNewStreamReader(InputStream in, boolean retainState) {
         StAXDocumentParser parser = new StAXDocumentParser(in);
         parser.setStringInterning(true);
+        FastInfosetVocabulary.configure(parser);
         if (retainState) {
             /**
              * Create a parser vocabulary external to the parser.
@@ -247,6 +267,7 @@ public class FastInfosetCodec implements Codec {
         StAXDocumentParser parser = new FastInfosetStreamReaderRecyclable(in);
         parser.setStringInterning(true);
         parser.setForceStreamClose(true);
+        FastInfosetVocabulary.configure(parser);
         if (retainState) {
             /**
              * Create a parser vocabulary external to the parser.
@@ -41,6 +41,7 @@
 package com.sun.xml.ws.encoding.fastinfoset;
 
 import com.sun.xml.fastinfoset.stax.StAXDocumentParser;
+import com.sun.xml.fastinfoset.vocab.ParserVocabulary;
 import com.sun.xml.ws.api.streaming.XMLStreamReaderFactory;
 import java.io.InputStream;
 
@@ -50,6 +51,12 @@ import java.io.InputStream;
 public final class FastInfosetStreamReaderRecyclable extends StAXDocumentParser implements XMLStreamReaderFactory.RecycleAware {
     private static final FastInfosetStreamReaderFactory READER_FACTORY = FastInfosetStreamReaderFactory.getInstance();
 
+    /**
+     * True once the parser has its own vocabulary, which it then has to
+     * clear between documents.
+     */
+    private boolean _ownVocabulary;
+
     public FastInfosetStreamReaderRecyclable() {
         super();
     }
@@ -58,6 +65,19 @@ public final class FastInfosetStreamReaderRecyclable extends StAXDocumentParser
         super(in);
     }
     
+    @Override
+    public void setInputStream(InputStream s) {
+        if (_v.hasExternalVocabulary()) {
+            // Clearing the tables keeps the external vocabulary of the last
+            // document, which the next one may not refer to
+            setVocabulary(new ParserVocabulary());
+            _ownVocabulary = true;
+        } else if (_ownVocabulary) {
+            _v.clear();
+        }
+        super.setInputStream(s);
+    }
+
     public void onRecycled() {
         READER_FACTORY.doRecycle(this);
     }
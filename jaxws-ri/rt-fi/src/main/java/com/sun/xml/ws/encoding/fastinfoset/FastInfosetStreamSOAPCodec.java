@@ -46,6 +46,7 @@ import com.sun.xml.ws.api.pipe.Codec;
 import com.sun.xml.ws.api.pipe.ContentType;
 import com.sun.xml.ws.api.message.Packet;
 import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.fastinfoset.FastInfosetFeature;
 import com.sun.xml.ws.api.pipe.StreamSOAPCodec;
 import com.sun.xml.ws.message.stream.StreamHeader;
 import com.sun.xml.stream.buffer.XMLStreamBuffer;
@@ -81,18 +82,23 @@ public abstract class FastInfosetStreamSOAPCodec implements Codec {
     
     private final boolean _retainState;
     
+    private final FastInfosetVocabulary _vocabulary;
+    
     protected final ContentType _defaultContentType;
     
-    /* package */ FastInfosetStreamSOAPCodec(StreamSOAPCodec soapCodec, SOAPVersion soapVersion, boolean retainState, String mimeType) {
+    /* package */ FastInfosetStreamSOAPCodec(StreamSOAPCodec soapCodec, SOAPVersion soapVersion, boolean retainState,
+            FastInfosetVocabulary vocabulary, String mimeType) {
 //        _soapCodec = StreamSOAPCodec.create(soapVersion);
         _soapCodec = soapCodec;
         _retainState = retainState;
+        _vocabulary = vocabulary;
         _defaultContentType = new ContentTypeImpl(mimeType);
     }
     
     /* package */ FastInfosetStreamSOAPCodec(FastInfosetStreamSOAPCodec that) {
         this._soapCodec = (StreamSOAPCodec) that._soapCodec.copy();
         this._retainState = that._retainState;
+        this._vocabulary = that._vocabulary;
         this._defaultContentType = that._defaultContentType;
     }
     
@@ -140,7 +146,7 @@ public abstract class FastInfosetStreamSOAPCodec implements Codec {
             _serializer.setOutputStream(out);
             return _serializer;
         } else {
-            return _serializer = FastInfosetCodec.createNewStreamWriter(out, _retainState);
+            return _serializer = FastInfosetCodec.createNewStreamWriter(out, _retainState, _vocabulary);
         }
     }
     
@@ -179,14 +185,46 @@ public abstract class FastInfosetStreamSOAPCodec implements Codec {
      */
     public static FastInfosetStreamSOAPCodec create(StreamSOAPCodec soapCodec,
             SOAPVersion version, boolean retainState) {
+        return create(soapCodec, version, retainState, null);
+    }
+    
+    /**
+     * Creates a new {@link FastInfosetStreamSOAPCodec} instance for the
+     * {@link FastInfosetFeature} of a binding.
+     *
+     * @param version the SOAP version of the codec.
+     * @param feature the feature, or null if the binding doesn't have it.
+     * @return a new {@link FastInfosetStreamSOAPCodec} instance.
+     * @throws javax.xml.ws.WebServiceException if the vocabulary of the
+     *         feature cannot be loaded.
+     */
+    public static FastInfosetStreamSOAPCodec create(StreamSOAPCodec soapCodec,
+            SOAPVersion version, FastInfosetFeature feature) {
+        String location = (feature != null) ? feature.getVocabulary() : null;
+        return create(soapCodec, version, false,
+                (location != null) ? FastInfosetVocabulary.get(location) : null);
+    }
+    
+    /**
+     * Creates a new {@link FastInfosetStreamSOAPCodec} instance.
+     *
+     * @param version the SOAP version of the codec.
+     * @param retainState if true the Codec should retain the state of
+     *        vocabulary tables for multiple encode/decode invocations.
+     * @param vocabulary the external vocabulary that messages are encoded
+     *        with, or null.
+     * @return a new {@link FastInfosetStreamSOAPCodec} instance.
+     */
+    public static FastInfosetStreamSOAPCodec create(StreamSOAPCodec soapCodec,
+            SOAPVersion version, boolean retainState, FastInfosetVocabulary vocabulary) {
         if(version==null)
             // this decoder is for SOAP, not for XML/HTTP
             throw new IllegalArgumentException();
         switch(version) {
             case SOAP_11:
-                return new FastInfosetStreamSOAP11Codec(soapCodec, retainState);
+                return new FastInfosetStreamSOAP11Codec(soapCodec, retainState, vocabulary);
             case SOAP_12:
-                return new FastInfosetStreamSOAP12Codec(soapCodec, retainState);
+                return new FastInfosetStreamSOAP12Codec(soapCodec, retainState, vocabulary);
             default:
                 throw new AssertionError();
         }
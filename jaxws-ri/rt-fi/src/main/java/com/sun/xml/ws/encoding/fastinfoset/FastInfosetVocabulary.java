@@ -0,0 +1,383 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.encoding.fastinfoset;
+
+import com.sun.xml.fastinfoset.stax.StAXDocumentParser;
+import com.sun.xml.fastinfoset.stax.StAXDocumentSerializer;
+import com.sun.xml.fastinfoset.vocab.ParserVocabulary;
+import com.sun.xml.fastinfoset.vocab.SerializerVocabulary;
+import com.sun.xml.ws.api.SOAPVersion;
+import org.jvnet.fastinfoset.ExternalVocabulary;
+import org.jvnet.fastinfoset.Vocabulary;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.ws.WebServiceException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An external vocabulary that fast infoset documents are encoded with, so
+ * that the prefixes, namespace names and local names it contains are sent
+ * as small table indexes, starting with the first message.
+ *
+ * <p>
+ * The vocabulary is identified by its URI, which every document encoded
+ * with it refers to, so a short URI is best. A peer can only decode such
+ * documents if it has loaded a vocabulary with the same URI and the same
+ * content, so the URI must change whenever the content does. Every
+ * vocabulary that is created or loaded is available for decoding in this
+ * JVM.
+ *
+ * <p>
+ * A vocabulary is typically built once from the WSDL and schemas of a
+ * port with a {@link Builder}, {@link #save(OutputStream) saved} to a file
+ * and loaded at startup by the endpoints and clients that have
+ * {@link com.sun.xml.ws.api.fastinfoset.FastInfosetFeature#setVocabulary(String)}.
+ * The vocabulary itself is immutable and is shared by all the codecs that
+ * use it.
+ *
+ * @author WS Development Team
+ */
+public final class FastInfosetVocabulary {
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Vocabularies that documents can be decoded with, by URI.
+     */
+    private static final Map<String, ParserVocabulary> PARSER_VOCABULARIES = new ConcurrentHashMap<String, ParserVocabulary>();
+
+    /**
+     * Vocabularies that have been loaded, by location.
+     */
+    private static final ConcurrentMap<String, FastInfosetVocabulary> LOADED = new ConcurrentHashMap<String, FastInfosetVocabulary>();
+
+    private final ExternalVocabulary vocabulary;
+    private final SerializerVocabulary serializerVocabulary;
+
+    private FastInfosetVocabulary(String uri, Vocabulary vocabulary) {
+        this.vocabulary = new ExternalVocabulary(uri, vocabulary);
+        this.serializerVocabulary = new SerializerVocabulary(vocabulary, false);
+        PARSER_VOCABULARIES.put(uri, new ParserVocabulary(vocabulary));
+    }
+
+    /**
+     * URI that identifies this vocabulary.
+     */
+    public String getURI() {
+        return vocabulary.URI;
+    }
+
+    /**
+     * Makes the serializer encode documents with this vocabulary.
+     *
+     * @param retainState true if the serializer retains the state of the
+     *        vocabulary tables between documents.
+     */
+    /* package */ void configure(StAXDocumentSerializer serializer, boolean retainState) {
+        if (retainState) {
+            SerializerVocabulary v = new SerializerVocabulary();
+            v.setExternalVocabulary(vocabulary.URI, serializerVocabulary, false);
+            serializer.setVocabulary(v);
+        } else {
+            serializer.setExternalVocabulary(vocabulary);
+        }
+    }
+
+    /**
+     * Lets the parser decode documents that refer to any of the vocabularies.
+     */
+    /* package */ static void configure(StAXDocumentParser parser) {
+        parser.setExternalVocabularies(PARSER_VOCABULARIES);
+    }
+
+    /**
+     * Gets the vocabulary saved at a location, loading it the first time.
+     *
+     * @param location URL or file name of the saved vocabulary.
+     * @throws WebServiceException if the vocabulary cannot be loaded.
+     */
+    public static FastInfosetVocabulary get(String location) {
+        FastInfosetVocabulary v = LOADED.get(location);
+        if (v == null) {
+            try {
+                InputStream in;
+                try {
+                    in = new URL(location).openStream();
+                } catch (MalformedURLException e) {
+                    in = new FileInputStream(location);
+                }
+                try {
+                    v = load(in);
+                } finally {
+                    in.close();
+                }
+            } catch (IOException e) {
+                throw new WebServiceException("Cannot load the Fast Infoset vocabulary " + location, e);
+            }
+            FastInfosetVocabulary old = LOADED.putIfAbsent(location, v);
+            if (old != null) {
+                v = old;
+            }
+        }
+        return v;
+    }
+
+    /**
+     * Reads a vocabulary that was written by {@link #save(OutputStream)}.
+     */
+    public static FastInfosetVocabulary load(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unsupported Fast Infoset vocabulary format");
+        }
+        String uri = data.readUTF();
+        Vocabulary vocabulary = new Vocabulary();
+        readStrings(data, vocabulary.prefixes);
+        readStrings(data, vocabulary.namespaceNames);
+        readStrings(data, vocabulary.localNames);
+        return new FastInfosetVocabulary(uri, vocabulary);
+    }
+
+    /**
+     * Writes this vocabulary, preserving the order of its entries, which
+     * determines their indexes.
+     */
+    public void save(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(FORMAT_VERSION);
+        data.writeUTF(vocabulary.URI);
+        Vocabulary v = vocabulary.vocabulary;
+        writeStrings(data, v.prefixes);
+        writeStrings(data, v.namespaceNames);
+        writeStrings(data, v.localNames);
+        data.flush();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void readStrings(DataInputStream data, Set set) throws IOException {
+        for (int i = data.readInt(); i > 0; i--) {
+            set.add(data.readUTF());
+        }
+    }
+
+    private static void writeStrings(DataOutputStream data, Set<?> set) throws IOException {
+        data.writeInt(set.size());
+        for (Object s : set) {
+            data.writeUTF((String) s);
+        }
+    }
+
+    /**
+     * Collects the names of a vocabulary.
+     *
+     * <p>
+     * Qualified names of elements and attributes are not added as such:
+     * the fast infoset serializer adds the qualified names of a document to
+     * the vocabulary entries with the same local name, which corrupts the
+     * documents that follow.
+     *
+     * <pre>
+     * FastInfosetVocabulary.Builder builder = new FastInfosetVocabulary.Builder("urn:example:orders:1");
+     * builder.addSOAPNames(SOAPVersion.SOAP_11);
+     * builder.addSchemaNames(xif.createXMLStreamReader(new FileInputStream("orders.wsdl")));
+     * builder.build().save(new FileOutputStream("orders.fiv"));
+     * </pre>
+     */
+    public static final class Builder {
+        private static final String SOAP_PREFIX = "S";
+
+        private final String uri;
+        private final Vocabulary vocabulary = new Vocabulary();
+
+        /**
+         * @param uri URI that identifies the vocabulary.
+         */
+        public Builder(String uri) {
+            this.uri = uri;
+        }
+
+        /**
+         * Adds the names of the SOAP envelope and fault, as written by the
+         * runtime.
+         */
+        public Builder addSOAPNames(SOAPVersion version) {
+            String ns = version.nsUri;
+            for (String name : new String[] {"Envelope", "Header", "Body", "Fault", "mustUnderstand"}) {
+                addName(ns, SOAP_PREFIX, name);
+            }
+            if (version == SOAPVersion.SOAP_11) {
+                for (String name : new String[] {"faultcode", "faultstring", "faultactor", "detail"}) {
+                    addName("", "", name);
+                }
+            } else {
+                for (String name : new String[] {"Code", "Value", "Subcode", "Reason", "Text", "Node", "Role", "Detail"}) {
+                    addName(ns, SOAP_PREFIX, name);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Adds the names of the elements and attributes declared by the
+         * schemas that the document contains, such as a schema or a WSDL
+         * document. Local declarations are added unqualified unless the
+         * schema qualifies them.
+         */
+        public Builder addSchemaNames(XMLStreamReader reader) throws XMLStreamException {
+            String targetNamespace = "";
+            boolean qualifiedElements = false;
+            boolean qualifiedAttributes = false;
+            int schemaDepth = -1;
+            int depth = 0;
+            for (int event = reader.getEventType(); ; event = reader.next()) {
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    if (XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(reader.getNamespaceURI())) {
+                        String declaration = reader.getLocalName();
+                        if ("schema".equals(declaration)) {
+                            schemaDepth = depth;
+                            targetNamespace = value(reader.getAttributeValue(null, "targetNamespace"));
+                            qualifiedElements = "qualified".equals(reader.getAttributeValue(null, "elementFormDefault"));
+                            qualifiedAttributes = "qualified".equals(reader.getAttributeValue(null, "attributeFormDefault"));
+                        } else if (schemaDepth > 0 && ("element".equals(declaration) || "attribute".equals(declaration))) {
+                            String name = reader.getAttributeValue(null, "name");
+                            if (name != null) {
+                                String form = reader.getAttributeValue(null, "form");
+                                boolean qualified = (depth == schemaDepth + 1)
+                                        || (form != null ? "qualified".equals(form)
+                                        : ("element".equals(declaration) ? qualifiedElements : qualifiedAttributes));
+                                addName(qualified ? targetNamespace : "", "", name);
+                            }
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (depth == schemaDepth) {
+                        schemaDepth = -1;
+                    }
+                    depth--;
+                }
+                if (!reader.hasNext()) {
+                    break;
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Adds the names that the document contains, with their prefixes,
+         * such as the names of a sample message.
+         */
+        public Builder addNames(XMLStreamReader reader) throws XMLStreamException {
+            for (int event = reader.getEventType(); ; event = reader.next()) {
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                        addPrefix(value(reader.getNamespacePrefix(i)));
+                        addNamespace(value(reader.getNamespaceURI(i)));
+                    }
+                    addName(value(reader.getNamespaceURI()), value(reader.getPrefix()), reader.getLocalName());
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        addName(value(reader.getAttributeNamespace(i)), value(reader.getAttributePrefix(i)),
+                                reader.getAttributeLocalName(i));
+                    }
+                }
+                if (!reader.hasNext()) {
+                    break;
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Adds the prefix, namespace name and local name of an element or
+         * attribute name.
+         */
+        @SuppressWarnings("unchecked")
+        public Builder addName(String namespaceURI, String prefix, String localName) {
+            addPrefix(prefix);
+            addNamespace(namespaceURI);
+            vocabulary.localNames.add(localName);
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public FastInfosetVocabulary build() {
+            // the builder can still be changed
+            Vocabulary v = new Vocabulary();
+            v.prefixes.addAll(vocabulary.prefixes);
+            v.namespaceNames.addAll(vocabulary.namespaceNames);
+            v.localNames.addAll(vocabulary.localNames);
+            return new FastInfosetVocabulary(uri, v);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void addPrefix(String prefix) {
+            if (prefix.length() > 0) {
+                vocabulary.prefixes.add(prefix);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void addNamespace(String namespaceURI) {
+            if (namespaceURI.length() > 0) {
+                vocabulary.namespaceNames.add(namespaceURI);
+            }
+        }
+
+        private static String value(String s) {
+            return (s == null) ? "" : s;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.encoding.fastinfoset;
+
+import com.sun.xml.fastinfoset.stax.StAXDocumentParser;
+import com.sun.xml.fastinfoset.stax.StAXDocumentSerializer;
+import com.sun.xml.ws.api.SOAPVersion;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+
+import junit.framework.TestCase;
+
+/**
+ * Encodes and decodes fast infoset documents with and without a
+ * {@link FastInfosetVocabulary}.
+ *
+ * @author WS Development Team
+ */
+public class FastInfosetVocabularyTest extends TestCase {
+
+    private static final String WSDL =
+            "<definitions xmlns='http://schemas.xmlsoap.org/wsdl/'><types>"
+            + "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' targetNamespace='urn:orders'>"
+            + "<xs:element name='order'><xs:complexType><xs:sequence>"
+            + "<xs:element name='item' maxOccurs='unbounded'><xs:complexType><xs:sequence>"
+            + "<xs:element name='productName' type='xs:string'/><xs:element name='quantity' type='xs:int'/>"
+            + "</xs:sequence><xs:attribute name='sku'/></xs:complexType></xs:element>"
+            + "</xs:sequence></xs:complexType></xs:element>"
+            + "</xs:schema></types></definitions>";
+
+    private static final String SOAP_NS = SOAPVersion.SOAP_11.nsUri;
+
+    private static final String EXPECTED =
+            "{" + SOAP_NS + "}Envelope {" + SOAP_NS + "}Body {urn:orders}order "
+            + "item@a0 productName p0 quantity 0 item@a1 productName p1 quantity 1 item@a2 productName p2 quantity 2 ";
+
+    private FastInfosetVocabulary vocabulary;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        XMLStreamReader wsdl = XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(WSDL));
+        vocabulary = new FastInfosetVocabulary.Builder("urn:test:orders:1")
+                .addSOAPNames(SOAPVersion.SOAP_11)
+                .addSchemaNames(wsdl)
+                .build();
+    }
+
+    public void testRoundTripWithoutVocabulary() throws Exception {
+        byte[] doc = encode(FastInfosetCodec.createNewStreamWriter(null, false, null), 3);
+        assertEquals(EXPECTED, decode(FastInfosetCodec.createNewStreamReaderRecyclable(null, false), doc));
+    }
+
+    public void testRoundTripWithVocabulary() throws Exception {
+        StAXDocumentSerializer serializer = FastInfosetCodec.createNewStreamWriter(null, false, vocabulary);
+        byte[] doc = encode(serializer, 3);
+        assertEquals(EXPECTED, decode(FastInfosetCodec.createNewStreamReaderRecyclable(null, false), doc));
+
+        // the serializer is used again for the next message
+        assertEquals(EXPECTED, decode(FastInfosetCodec.createNewStreamReaderRecyclable(null, false), encode(serializer, 3)));
+
+        byte[] plain = encode(FastInfosetCodec.createNewStreamWriter(null, false, null), 3);
+        assertTrue(doc.length + " < " + plain.length, doc.length < plain.length);
+    }
+
+    public void testRecycledParser() throws Exception {
+        byte[] withVocabulary = encode(FastInfosetCodec.createNewStreamWriter(null, false, vocabulary), 3);
+        byte[] plain = encode(FastInfosetCodec.createNewStreamWriter(null, false, null), 3);
+
+        StAXDocumentParser parser = FastInfosetCodec.createNewStreamReaderRecyclable(null, false);
+        assertEquals(EXPECTED, decode(parser, withVocabulary));
+        // must not resolve the indexes of a plain document against the vocabulary
+        assertEquals(EXPECTED, decode(parser, plain));
+        assertEquals(EXPECTED, decode(parser, withVocabulary));
+        assertEquals(EXPECTED, decode(parser, withVocabulary));
+        assertEquals(EXPECTED, decode(parser, plain));
+        assertEquals(EXPECTED, decode(parser, plain));
+    }
+
+    public void testRetainedState() throws Exception {
+        StAXDocumentSerializer serializer = FastInfosetCodec.createNewStreamWriter(null, true, vocabulary);
+        StAXDocumentParser parser = FastInfosetCodec.createNewStreamReader(null, true);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(EXPECTED, decode(parser, encode(serializer, 3)));
+        }
+    }
+
+    public void testSaveAndLoad() throws Exception {
+        ByteArrayOutputStream saved = new ByteArrayOutputStream();
+        vocabulary.save(saved);
+        FastInfosetVocabulary loaded = FastInfosetVocabulary.load(new ByteArrayInputStream(saved.toByteArray()));
+        assertEquals(vocabulary.getURI(), loaded.getURI());
+
+        byte[] doc = encode(FastInfosetCodec.createNewStreamWriter(null, false, loaded), 3);
+        assertEquals(EXPECTED, decode(FastInfosetCodec.createNewStreamReaderRecyclable(null, false), doc));
+        assertEquals(encode(FastInfosetCodec.createNewStreamWriter(null, false, vocabulary), 3).length, doc.length);
+    }
+
+    private static byte[] encode(StAXDocumentSerializer w, int items) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        w.setOutputStream(out);
+        w.writeStartDocument();
+        w.writeStartElement("S", "Envelope", SOAP_NS);
+        w.writeNamespace("S", SOAP_NS);
+        w.writeStartElement("S", "Body", SOAP_NS);
+        w.writeStartElement("ns2", "order", "urn:orders");
+        w.writeNamespace("ns2", "urn:orders");
+        for (int i = 0; i < items; i++) {
+            w.writeStartElement("", "item", "");
+            w.writeAttribute("sku", "a" + i);
+            w.writeStartElement("", "productName", "");
+            w.writeCharacters("p" + i);
+            w.writeEndElement();
+            w.writeStartElement("", "quantity", "");
+            w.writeCharacters(Integer.toString(i));
+            w.writeEndElement();
+            w.writeEndElement();
+        }
+        w.writeEndElement();
+        w.writeEndElement();
+        w.writeEndElement();
+        w.writeEndDocument();
+        w.flush();
+        return out.toByteArray();
+    }
+
+    private static String decode(StAXDocumentParser r, byte[] doc) throws Exception {
+        r.setInputStream(new ByteArrayInputStream(doc));
+        StringBuilder sb = new StringBuilder();
+        while (r.hasNext()) {
+            int event = r.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                sb.append(r.getName());
+                if (r.getAttributeCount() > 0) {
+                    sb.append('@').append(r.getAttributeValue(0));
+                }
+                sb.append(' ');
+            } else if (event == XMLStreamConstants.CHARACTERS) {
+                sb.append(r.getText()).append(' ');
+            }
+        }
+        return sb.toString();
+    }
+}
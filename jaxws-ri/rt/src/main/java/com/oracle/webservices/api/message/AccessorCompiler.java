@@ -0,0 +1,326 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.oracle.webservices.api.message;
+
+import com.oracle.webservices.api.message.BasePropertySet.Accessor;
+import com.oracle.webservices.api.message.BasePropertySet.FieldAccessor;
+import com.oracle.webservices.api.message.BasePropertySet.MethodAccessor;
+import com.sun.istack.Nullable;
+import com.sun.xml.ws.model.GeneratedClassInjector;
+import com.sun.xml.ws.org.objectweb.asm.ClassWriter;
+import com.sun.xml.ws.org.objectweb.asm.Label;
+import com.sun.xml.ws.org.objectweb.asm.MethodVisitor;
+import com.sun.xml.ws.org.objectweb.asm.Type;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.sun.xml.ws.org.objectweb.asm.Opcodes.*;
+
+/**
+ * Generates {@link Accessor}s that access the {@link PropertySet.Property}
+ * fields and methods directly, instead of through reflection.
+ *
+ * <p>
+ * The accessor classes are defined in the package and the class loader of
+ * the class declaring the property, so they can access anything but private
+ * members. Properties that can't be accessed that way, of primitive types,
+ * or whose methods throw checked exceptions keep using the reflective
+ * {@link FieldAccessor} and {@link MethodAccessor}; so does everything if
+ * classes can't be defined, or if the
+ * <tt>com.oracle.webservices.api.message.BasePropertySet.reflectiveAccessors</tt>
+ * system property is set.
+ *
+ * @author WS Development Team
+ */
+final class AccessorCompiler {
+
+    private static final Logger LOGGER = Logger.getLogger(AccessorCompiler.class.getName());
+
+    private static final String ACCESSOR = Type.getInternalName(Accessor.class);
+    private static final String PROPERTY_SET = Type.getInternalName(PropertySet.class);
+    private static final String GET_DESC = "(L" + PROPERTY_SET + ";)Ljava/lang/Object;";
+    private static final String SET_DESC = "(L" + PROPERTY_SET + ";Ljava/lang/Object;)V";
+
+    /**
+     * Whether accessor classes are generated at all.
+     */
+    private static final boolean ENABLED;
+
+    static {
+        boolean enabled = false;
+        try {
+            enabled = !Boolean.getBoolean(BasePropertySet.class.getName() + ".reflectiveAccessors")
+                    && GeneratedClassInjector.isAvailable();
+        } catch (Throwable t) {
+            LOGGER.log(Level.FINE, "Unable to define accessor classes, using reflection", t);
+        }
+        ENABLED = enabled;
+    }
+
+    private AccessorCompiler() {
+    }
+
+    /**
+     * Creates the accessor of a field, falling back to {@link FieldAccessor}.
+     */
+    static Accessor compile(Field f, String name) {
+        Accessor a = null;
+        if (ENABLED && isCompilable(f, f.getType()) && !Modifier.isFinal(f.getModifiers())) {
+            String className = f.getDeclaringClass().getName() + "$$PropertyAccessor$F$" + f.getName();
+            a = create(f.getDeclaringClass(), className, fieldAccessorImage(className, f), name);
+        }
+        return (a != null) ? a : new FieldAccessor(f, name);
+    }
+
+    /**
+     * Creates the accessor of a getter and an optional setter, falling back to
+     * {@link MethodAccessor}.
+     */
+    static Accessor compile(Method getter, @Nullable Method setter, String name) {
+        Accessor a = null;
+        if (ENABLED && isCompilable(getter, getter.getReturnType())
+                && !throwsCheckedException(getter)
+                && (setter == null || (isCompilable(setter, setter.getParameterTypes()[0])
+                        && isSamePackage(getter, setter) && !throwsCheckedException(setter)))) {
+            Class<?> owner = getter.getDeclaringClass();
+            String className = owner.getName() + "$$PropertyAccessor$M$" + getter.getName();
+            if (setter == null) {
+                className += "$RO";
+            } else if (setter.getDeclaringClass() != owner) {
+                className += "$" + Integer.toHexString(setter.getDeclaringClass().getName().hashCode());
+            }
+            a = create(owner, className, methodAccessorImage(className, getter, setter), name);
+        }
+        return (a != null) ? a : new MethodAccessor(getter, setter, name);
+    }
+
+    private static boolean isCompilable(Member m, Class<?> type) {
+        int mod = m.getModifiers();
+        return !Modifier.isPrivate(mod) && !Modifier.isStatic(mod) && !type.isPrimitive()
+                && m.getDeclaringClass().getClassLoader() != null;
+    }
+
+    private static boolean isSamePackage(Member a, Member b) {
+        Class<?> ca = a.getDeclaringClass();
+        Class<?> cb = b.getDeclaringClass();
+        return ca.getClassLoader() == cb.getClassLoader()
+                && packageOf(ca.getName()).equals(packageOf(cb.getName()));
+    }
+
+    private static String packageOf(String className) {
+        int i = className.lastIndexOf('.');
+        return (i < 0) ? "" : className.substring(0, i);
+    }
+
+    private static boolean throwsCheckedException(Method m) {
+        for (Class<?> e : m.getExceptionTypes()) {
+            if (!RuntimeException.class.isAssignableFrom(e) && !Error.class.isAssignableFrom(e)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static @Nullable Accessor create(Class<?> owner, String className, byte[] image, String name) {
+        try {
+            Class<?> c = GeneratedClassInjector.inject(owner, className, image);
+            return (Accessor) c.getConstructor(String.class).newInstance(name);
+        } catch (Throwable t) {
+            // e.g. a sealed package; reflection still works
+            LOGGER.log(Level.FINE, "Unable to define " + className + ", using reflection", t);
+            return null;
+        }
+    }
+
+    private static byte[] fieldAccessorImage(String className, Field f) {
+        String owner = Type.getInternalName(f.getDeclaringClass());
+        String type = Type.getInternalName(f.getType());
+        String desc = Type.getDescriptor(f.getType());
+        ClassWriter cw = startClass(className);
+
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "get", GET_DESC, null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitTypeInsn(CHECKCAST, owner);
+        mv.visitFieldInsn(GETFIELD, owner, f.getName(), desc);
+        mv.visitInsn(ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(ACC_PUBLIC, "set", SET_DESC, null, null);
+        mv.visitCode();
+        checkArgument(mv, type);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitTypeInsn(CHECKCAST, owner);
+        mv.visitVarInsn(ALOAD, 2);
+        mv.visitTypeInsn(CHECKCAST, type);
+        mv.visitFieldInsn(PUTFIELD, owner, f.getName(), desc);
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static byte[] methodAccessorImage(String className, Method getter, @Nullable Method setter) {
+        ClassWriter cw = startClass(className);
+
+        String owner = Type.getInternalName(getter.getDeclaringClass());
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "get", GET_DESC, null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitTypeInsn(CHECKCAST, owner);
+        mv.visitMethodInsn(INVOKEVIRTUAL, owner, getter.getName(), Type.getMethodDescriptor(getter));
+        mv.visitInsn(ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(ACC_PUBLIC, "set", SET_DESC, null, null);
+        mv.visitCode();
+        if (setter == null) {
+            String exception = Type.getInternalName(ReadOnlyPropertyException.class);
+            mv.visitTypeInsn(NEW, exception);
+            mv.visitInsn(DUP);
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitFieldInsn(GETFIELD, toInternalName(className), "name", "Ljava/lang/String;");
+            mv.visitMethodInsn(INVOKESPECIAL, exception, "<init>", "(Ljava/lang/String;)V");
+            mv.visitInsn(ATHROW);
+        } else {
+            String setterOwner = Type.getInternalName(setter.getDeclaringClass());
+            String type = Type.getInternalName(setter.getParameterTypes()[0]);
+            checkArgument(mv, type);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitTypeInsn(CHECKCAST, setterOwner);
+            mv.visitVarInsn(ALOAD, 2);
+            mv.visitTypeInsn(CHECKCAST, type);
+            mv.visitMethodInsn(INVOKEVIRTUAL, setterOwner, setter.getName(), Type.getMethodDescriptor(setter));
+            Class<?> returnType = setter.getReturnType();
+            if (returnType == Long.TYPE || returnType == Double.TYPE) {
+                mv.visitInsn(POP2);
+            } else if (returnType != Void.TYPE) {
+                mv.visitInsn(POP);
+            }
+            mv.visitInsn(RETURN);
+        }
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /**
+     * Starts an accessor class with the name field, its constructor,
+     * {@link Accessor#getName()} and {@link Accessor#hasValue(PropertySet)}.
+     */
+    private static ClassWriter startClass(String className) {
+        String internalName = toInternalName(className);
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(V1_5, ACC_PUBLIC + ACC_FINAL + ACC_SUPER + ACC_SYNTHETIC, internalName, null,
+                "java/lang/Object", new String[] {ACCESSOR});
+        cw.visitField(ACC_PRIVATE + ACC_FINAL, "name", "Ljava/lang/String;", null, null).visitEnd();
+
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "(Ljava/lang/String;)V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitFieldInsn(PUTFIELD, internalName, "name", "Ljava/lang/String;");
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(ACC_PUBLIC, "getName", "()Ljava/lang/String;", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETFIELD, internalName, "name", "Ljava/lang/String;");
+        mv.visitInsn(ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(ACC_PUBLIC, "hasValue", "(L" + PROPERTY_SET + ";)Z", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitMethodInsn(INVOKEVIRTUAL, internalName, "get", GET_DESC);
+        Label isNull = new Label();
+        mv.visitJumpInsn(IFNULL, isNull);
+        mv.visitInsn(ICONST_1);
+        mv.visitInsn(IRETURN);
+        mv.visitLabel(isNull);
+        mv.visitInsn(ICONST_0);
+        mv.visitInsn(IRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        return cw;
+    }
+
+    /**
+     * Throws {@link IllegalArgumentException} like reflection does if the value
+     * isn't of the property's type.
+     */
+    private static void checkArgument(MethodVisitor mv, String type) {
+        Label ok = new Label();
+        mv.visitVarInsn(ALOAD, 2);
+        mv.visitJumpInsn(IFNULL, ok);
+        mv.visitVarInsn(ALOAD, 2);
+        mv.visitTypeInsn(INSTANCEOF, type);
+        mv.visitJumpInsn(IFNE, ok);
+        mv.visitTypeInsn(NEW, "java/lang/IllegalArgumentException");
+        mv.visitInsn(DUP);
+        mv.visitLdcInsn("argument type mismatch");
+        mv.visitMethodInsn(INVOKESPECIAL, "java/lang/IllegalArgumentException", "<init>", "(Ljava/lang/String;)V");
+        mv.visitInsn(ATHROW);
+        mv.visitLabel(ok);
+    }
+
+    private static String toInternalName(String className) {
+        return className.replace('.', '/');
+    }
+}
@@ -86,6 +86,9 @@ public abstract class BasePropertySet implements PropertySet {
         // by their caching instead of iterating through the original (immutable) map each time
         transient PropertyMapEntry[] cachedEntries = null;
 
+        // lookups go to this table instead of the HashMap, see LookupTable
+        transient volatile LookupTable lookupTable = null;
+
         PropertyMapEntry[] getPropertyMapEntries() {
             if (cachedEntries == null) {
                 cachedEntries = createPropertyMapEntries();
@@ -93,6 +96,49 @@ public abstract class BasePropertySet implements PropertySet {
             return cachedEntries;
         }
 
+        @Override
+        public Accessor get(Object key) {
+            LookupTable t = lookupTable;
+            if (t == null) {
+                lookupTable = t = new LookupTable(this);
+            }
+            return t.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Accessor put(String key, Accessor value) {
+            invalidate();
+            return super.put(key, value);
+        }
+
+        @Override
+        public void putAll(Map<? extends String, ? extends Accessor> m) {
+            invalidate();
+            super.putAll(m);
+        }
+
+        @Override
+        public Accessor remove(Object key) {
+            invalidate();
+            return super.remove(key);
+        }
+
+        @Override
+        public void clear() {
+            invalidate();
+            super.clear();
+        }
+
+        private void invalidate() {
+            cachedEntries = null;
+            lookupTable = null;
+        }
+
         private PropertyMapEntry[] createPropertyMapEntries() {
             final PropertyMapEntry[] modelEntries = new PropertyMapEntry[size()];
             int i = 0;
@@ -104,6 +150,99 @@ public abstract class BasePropertySet implements PropertySet {
 
     }
 
+    /**
+     * Open addressing table over the property names of a {@link PropertyMap}.
+     *
+     * <p>
+     * The set of names is fixed once the model is parsed, so the table is built
+     * to be collision free if one of a few hash multipliers achieves that, and
+     * a lookup of a known name then takes a single probe. Property names are
+     * usually passed as the same constant {@link String} instance that the
+     * {@link Property} annotation holds, which the identity check catches
+     * before {@link String#equals(Object)}.
+     */
+    static final class LookupTable {
+        private static final int[] MULTIPLIERS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F, 0x165667B1};
+
+        private final String[] keys;
+        private final Accessor[] values;
+        private final int multiplier;
+        private final int shift;
+
+        LookupTable(Map<String, Accessor> map) {
+            int bits = 1;
+            while ((1 << bits) < map.size() * 2) {
+                bits++;
+            }
+            int m = findPerfectMultiplier(map, bits);
+            // look for a perfect hash in tables of up to 8 times the size
+            for (int b = bits + 1; m == 0 && b <= bits + 2; b++) {
+                m = findPerfectMultiplier(map, b);
+                if (m != 0) {
+                    bits = b;
+                }
+            }
+            keys = new String[1 << bits];
+            values = new Accessor[1 << bits];
+            multiplier = (m != 0) ? m : MULTIPLIERS[0];
+            shift = 32 - bits;
+            fill(map);
+        }
+
+        /**
+         * Returns a multiplier that hashes all names to different slots of a table
+         * of the given size, or 0 if none does.
+         */
+        private static int findPerfectMultiplier(Map<String, Accessor> map, int bits) {
+            for (int m : MULTIPLIERS) {
+                if (isPerfect(map, m, 32 - bits)) {
+                    return m;
+                }
+            }
+            return 0;
+        }
+
+        private static boolean isPerfect(Map<String, Accessor> map, int m, int shift) {
+            boolean[] used = new boolean[1 << (32 - shift)];
+            for (String key : map.keySet()) {
+                int i = (key.hashCode() * m) >>> shift;
+                if (used[i]) {
+                    return false;
+                }
+                used[i] = true;
+            }
+            return true;
+        }
+
+        private void fill(Map<String, Accessor> map) {
+            int mask = keys.length - 1;
+            for (Entry<String, Accessor> e : map.entrySet()) {
+                int i = (e.getKey().hashCode() * multiplier) >>> shift;
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = e.getKey();
+                values[i] = e.getValue();
+            }
+        }
+
+        Accessor get(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            int mask = keys.length - 1;
+            int i = (key.hashCode() * multiplier) >>> shift;
+            String k;
+            while ((k = keys[i]) != null) {
+                if (k == key || k.equals(key)) {
+                    return values[i];
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+    }
+
     /**
      * PropertyMapEntry represents a Map.Entry in the PropertyMap with more efficient access.
      */
@@ -137,6 +276,10 @@ public abstract class BasePropertySet implements PropertySet {
 
     /**
      * This method parses a class for fields and methods with {@link PropertySet.Property}.
+     *
+     * <p>
+     * The properties are accessed through classes generated here, see
+     * {@link AccessorCompiler}.
      */
     protected static PropertyMap parse(final Class clazz) {
         // make all relevant fields and methods accessible.
@@ -150,7 +293,7 @@ public abstract class BasePropertySet implements PropertySet {
                         Property cp = f.getAnnotation(Property.class);
                         if(cp!=null) {
                             for(String value : cp.value()) {
-                                props.put(value, new FieldAccessor(f, value));
+                                props.put(value, AccessorCompiler.compile(f, value));
                             }
                         }
                     }
@@ -169,7 +312,7 @@ public abstract class BasePropertySet implements PropertySet {
                                 setter = null; // no setter
                             }
                             for(String value : cp.value()) {
-                                props.put(value, new MethodAccessor(m, setter, value));
+                                props.put(value, AccessorCompiler.compile(m, setter, value));
                             }
                         }
                     }
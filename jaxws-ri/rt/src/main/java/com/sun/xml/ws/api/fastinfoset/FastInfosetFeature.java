@@ -61,6 +61,9 @@ import org.glassfish.gmbal.ManagedData;
  * <p>
  * If this feature is not present on a Web service then the default behaviour
  * is equivalent to this feature being present and enabled.
+ * <p>
+ * Messages can be encoded with a pre-built vocabulary of the names they
+ * contain, see {@link #setVocabulary(String)}.
  * @author Paul.Sandoz@Sun.Com
  */
 @ManagedData
@@ -70,6 +73,8 @@ public class FastInfosetFeature extends WebServiceFeature {
      */
     public static final String ID = "http://java.sun.com/xml/ns/jaxws/fastinfoset";
 
+    private String vocabulary;
+
     /**
      * Create a {@link FastInfosetFeature}. The instance created will be enabled.
      */
@@ -95,4 +100,25 @@ public class FastInfosetFeature extends WebServiceFeature {
     public String getID() {
         return ID;
     }
+
+    /**
+     * Location of the external vocabulary that messages are encoded with,
+     * null if there is none.
+     */
+    @ManagedAttribute
+    public String getVocabulary() {
+        return vocabulary;
+    }
+
+    /**
+     * Encodes messages with the external vocabulary saved at the location,
+     * a URL or a file name, so that the names it contains are sent as small
+     * indexes even in the first messages. The peer must have loaded the same
+     * vocabulary to decode them.
+     *
+     * @see com.sun.xml.ws.encoding.fastinfoset.FastInfosetVocabulary
+     */
+    public void setVocabulary(String vocabulary) {
+        this.vocabulary = vocabulary;
+    }
 }
@@ -80,6 +80,13 @@ import java.util.Arrays;
  * expected to preserve the order of headers in the input
  * message as much as possible.
  *
+ * <p>
+ * Lookups by name ({@link #get(String, String, boolean)}, {@link #remove(QName)},
+ * {@link #addOrReplace(Header)}, {@link #isUnderstood(QName)}, ...) don't scan
+ * the list once a message has more than a few headers; they use an index
+ * of header names that is built on the first lookup after the list changed.
+ * Like {@link ArrayList}, this class is not synchronized.
+ *
  *
  * <a name="MU"></a>
  * <h3>MustUnderstand Processing</h3>
@@ -145,6 +152,24 @@ public class HeaderList extends ArrayList<Header> implements MessageHeaders {
     private BitSet moreUnderstoodBits = null;
 
     private SOAPVersion soapVersion;
+
+    /**
+     * Lookups by name use {@link #nameIndex} when there are more headers than this.
+     * Scanning a handful of headers is cheaper than hashing.
+     */
+    private static final int INDEX_THRESHOLD = 8;
+
+    /**
+     * Open-addressed index from a header name to the position+1 of the
+     * first header with that name; 0 marks an empty slot. The length is a
+     * power of two, at least twice the number of headers.
+     * <p>
+     * Built lazily by the first lookup by name, and rebuilt when the
+     * list has been structurally modified since ({@link #modCount}
+     * changed) or a header has been {@link #set(int, Header) set}.
+     */
+    private transient int[] nameIndex;
+    private transient int nameIndexModCount;
     
     /**
      * This method is deprecated - instead use this one: 
@@ -227,6 +252,76 @@ public class HeaderList extends ArrayList<Header> implements MessageHeaders {
         return super.get(index);
     }
 
+    /**
+     * Replaces the {@link Header} at the specified index.
+     */
+    @Override
+    public Header set(int index, Header header) {
+        nameIndex = null;
+        return super.set(index, header);
+    }
+
+    /**
+     * Returns the position of the first {@link Header} of the specified name,
+     * or -1 if there is none.
+     */
+    private int indexOf(String nsUri, String localName) {
+        int len = size();
+        if (len <= INDEX_THRESHOLD) {
+            for (int i = 0; i < len; i++) {
+                Header h = get(i);
+                if (h.getLocalPart().equals(localName) && h.getNamespaceURI().equals(nsUri)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int[] index = nameIndex;
+        if (index == null || nameIndexModCount != modCount) {
+            index = buildNameIndex(len);
+        }
+        int mask = index.length - 1;
+        for (int slot = hash(nsUri, localName) & mask; ; slot = (slot + 1) & mask) {
+            int pos = index[slot];
+            if (pos == 0) {
+                return -1;
+            }
+            Header h = get(pos - 1);
+            if (h.getLocalPart().equals(localName) && h.getNamespaceURI().equals(nsUri)) {
+                return pos - 1;
+            }
+        }
+    }
+
+    private int[] buildNameIndex(int len) {
+        int[] index = new int[Integer.highestOneBit((len << 1) - 1) << 1];
+        int mask = index.length - 1;
+        for (int i = 0; i < len; i++) {
+            Header h = get(i);
+            String nsUri = h.getNamespaceURI();
+            String localName = h.getLocalPart();
+            for (int slot = hash(nsUri, localName) & mask; ; slot = (slot + 1) & mask) {
+                int pos = index[slot];
+                if (pos == 0) {
+                    index[slot] = i + 1;
+                    break;
+                }
+                Header first = get(pos - 1);
+                if (first.getLocalPart().equals(localName) && first.getNamespaceURI().equals(nsUri)) {
+                    break;      // keep the first one of duplicates
+                }
+            }
+        }
+        nameIndex = index;
+        nameIndexModCount = modCount;
+        return index;
+    }
+
+    private static int hash(String nsUri, String localName) {
+        int h = localName.hashCode() * 31 + nsUri.hashCode();
+        return h ^ (h >>> 16);
+    }
+
     /**
      * Marks the {@link Header} at the specified index as
      * <a href="#MU">"understood"</a>.
@@ -303,17 +398,14 @@ public class HeaderList extends ArrayList<Header> implements MessageHeaders {
      */
     @Override
     public @Nullable Header get(@NotNull String nsUri, @NotNull String localName, boolean markAsUnderstood) {
-        int len = size();
-        for (int i = 0; i < len; i++) {
-            Header h = get(i);
-            if (h.getLocalPart().equals(localName) && h.getNamespaceURI().equals(nsUri)) {
-                if (markAsUnderstood) {
-                    understood(i);
-                }
-                return h;
-            }
+        int i = indexOf(nsUri, localName);
+        if (i < 0) {
+            return null;
         }
-        return null;
+        if (markAsUnderstood) {
+            understood(i);
+        }
+        return get(i);
     }
 
     /**
@@ -403,6 +495,13 @@ public class HeaderList extends ArrayList<Header> implements MessageHeaders {
             }
 
             private void fetch() {
+                if (idx == 0) {
+                    // skip to the first one, the rest are usually not there
+                    idx = indexOf(nsUri, localName);
+                    if (idx < 0) {
+                        idx = size();
+                    }
+                }
                 while (idx < size()) {
                     Header h = get(idx++);
                     if (h.getLocalPart().equals(localName) && h.getNamespaceURI().equals(nsUri)) {
@@ -668,14 +767,8 @@ public class HeaderList extends ArrayList<Header> implements MessageHeaders {
     @Nullable
     @Override
     Header remove(@NotNull String nsUri, @NotNull String localName) {
-        int len = size();
-        for (int i = 0; i < len; i++) {
-            Header h = get(i);
-            if (h.getLocalPart().equals(localName) && h.getNamespaceURI().equals(nsUri)) {
-                return remove(i);
-            }
-        }
-        return null;
+        int i = indexOf(nsUri, localName);
+        return (i < 0) ? null : remove(i);
     }
     
     /**
@@ -691,35 +784,27 @@ public class HeaderList extends ArrayList<Header> implements MessageHeaders {
      */
     @Override
     public boolean addOrReplace(Header header) {
-        for (int i=0; i < size(); i++) {
-          Header hdr = get(i);
-          if (hdr.getNamespaceURI().equals(header.getNamespaceURI()) &&
-              hdr.getLocalPart().equals(header.getLocalPart())) {
+        int i = indexOf(header.getNamespaceURI(), header.getLocalPart());
+        if (i >= 0) {
             // Put the new header in the old position. Call super versions
             // internally to avoid UnsupportedOperationException
             removeInternal(i);
             addInternal(i, header);
             return true;
-          }
         }
         return add(header);
     }
     
     @Override
     public void replace(Header old, Header header) {
-        for (int i=0; i < size(); i++) {
-            Header hdr = get(i);
-            if (hdr.getNamespaceURI().equals(header.getNamespaceURI()) &&
-                hdr.getLocalPart().equals(header.getLocalPart())) {
-              // Put the new header in the old position. Call super versions
-              // internally to avoid UnsupportedOperationException
-              removeInternal(i);
-              addInternal(i, header);
-              return;
-            }
-          }
-        
-          throw new IllegalArgumentException();
+        int i = indexOf(header.getNamespaceURI(), header.getLocalPart());
+        if (i < 0) {
+            throw new IllegalArgumentException();
+        }
+        // Put the new header in the old position. Call super versions
+        // internally to avoid UnsupportedOperationException
+        removeInternal(i);
+        addInternal(i, header);
     }
 
     protected void addInternal(int index, Header header) {
@@ -914,13 +999,8 @@ public class HeaderList extends ArrayList<Header> implements MessageHeaders {
     
     @Override
     public boolean isUnderstood(String nsUri, String localName) {
-        for (int i = 0; i < size(); i++) {
-            Header h = get(i);
-            if (h.getLocalPart().equals(localName) && h.getNamespaceURI().equals(nsUri)) {
-                return isUnderstood(i);
-            }
-        }
-        return false;
+        int i = indexOf(nsUri, localName);
+        return (i >= 0) && isUnderstood(i);
     }
     
     @Override
@@ -73,7 +73,6 @@ import com.sun.xml.ws.message.RelatesToHeader;
 import com.sun.xml.ws.message.StringHeader;
 import com.sun.xml.ws.util.DOMUtil;
 import com.sun.xml.ws.util.xml.XmlUtil;
-import com.sun.xml.ws.wsdl.DispatchException;
 import com.sun.xml.ws.wsdl.OperationDispatcher;
 import com.sun.xml.ws.resources.AddressingMessages;
 
@@ -296,12 +295,8 @@ public final class Packet
         }
         //OpDispatcher is null when there is no WSDLModel
         if (opDispatcher != null) {
-            try {
-                wsdlOperationMapping = opDispatcher.getWSDLOperationMapping(this);
-            } catch (DispatchException e) {
-                //Ignore, this might be a protocol message which may not have a wsdl operation
-                //LOGGER.info("Cannot resolve wsdl operation that this Packet is targeted for.");
-            }
+            //null if this is a protocol message which may not have a wsdl operation
+            wsdlOperationMapping = opDispatcher.findWSDLOperationMapping(this);
         }
         return wsdlOperationMapping;        
     }
@@ -147,8 +147,8 @@ public interface Codec {
      * that writes to NIO {@link ByteBuffer}.
      *
      * <p>
-     * TODO: for the convenience of implementation, write
-     * an adapter that wraps {@link WritableByteChannel} to {@link OutputStream}.
+     * {@link com.sun.xml.ws.util.ChannelOutputStream} adapts the channel to an
+     * {@link OutputStream} that writes through a pooled direct {@link ByteBuffer}.
      */
     ContentType encode( Packet packet, WritableByteChannel buffer );
 
@@ -238,6 +238,12 @@ public interface Codec {
     void decode( InputStream in, String contentType, Packet response ) throws IOException;
 
     /**
+     * The version of {@link #decode(InputStream,String,Packet)}
+     * that reads from a {@link ReadableByteChannel}.
+     *
+     * <p>
+     * {@link com.sun.xml.ws.util.ChannelInputStream} adapts the channel to an
+     * {@link InputStream} that reads through a pooled direct {@link ByteBuffer}.
      *
      * @see #decode(InputStream, String, Packet)
      */
@@ -44,23 +44,62 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import com.sun.istack.NotNull;
 import com.sun.xml.ws.api.message.Packet;
 import com.sun.xml.ws.api.server.Container;
 import com.sun.xml.ws.api.server.ContainerResolver;
+import com.sun.xml.ws.util.Pool;
 
 /**
  * Collection of {@link Fiber}s.
  * Owns an {@link Executor} to run them.
  *
+ * <p>
+ * If no {@link Executor} is given, fibers run on a cached pool of daemon threads.
+ * When {@link #virtualThreads} is set (or the system property of the same name,
+ * prefixed with this class name) and the JVM supports it, each fiber runs on a
+ * virtual thread instead, so that bursts of asynchronous requests don't create
+ * as many platform threads.
+ *
  * @author Kohsuke Kawaguchi
  * @author Jitendra Kotamraju
  */
 public class Engine {
+    private static final Logger LOGGER = Logger.getLogger(Engine.class.getName());
+
+    /**
+     * Set this boolean to true to run fibers on virtual threads in engines
+     * created without an {@link Executor}. Has no effect on engines that already
+     * started running fibers, or if virtual threads aren't available.
+     */
+    public static volatile boolean virtualThreads = Boolean.getBoolean(Engine.class.getName() + ".virtualThreads");
+
+    /**
+     * Set this boolean to false to allocate a new {@link Fiber} for every
+     * {@link #createFiber()}, instead of reusing the ones handed back
+     * through {@link #recycleFiber(Fiber)}.
+     */
+    public static volatile boolean poolFibers = !Boolean.getBoolean(Engine.class.getName() + ".disableFiberPool");
+
     private volatile Executor threadPool;
     public final String id;
     private final Container container;
 
+    /**
+     * Fibers handed back through {@link #recycleFiber(Fiber)}. Idle fibers are
+     * small, so they are kept without a timeout rather than reading the clock
+     * on every recycle.
+     */
+    private final Pool<Fiber> fibers = new Pool<Fiber>(0, 256, 0) {
+        @Override
+        protected Fiber create() {
+            return new Fiber(Engine.this);
+        }
+    };
+
     String getId() { return id; }
     Container getContainer() { return container; }
     Executor getExecutor() { return threadPool; }
@@ -88,12 +127,44 @@ public class Engine {
     }
 
     void addRunnable(Fiber fiber) {
-        if(threadPool==null) {
+        Executor ex = threadPool;
+        if(ex==null) {
             synchronized(this) {
-                threadPool = wrap(Executors.newCachedThreadPool(new DaemonThreadFactory()));
+                ex = threadPool;
+                if(ex==null) {
+                    threadPool = ex = wrap(createDefaultExecutor());
+                }
+            }
+        }
+        ex.execute(fiber);
+    }
+
+    private static Executor createDefaultExecutor() {
+        if (virtualThreads) {
+            Executor ex = createVirtualThreadExecutor();
+            if (ex != null) {
+                return ex;
             }
         }
-        threadPool.execute(fiber);
+        return Executors.newCachedThreadPool(new DaemonThreadFactory());
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread for each fiber, or
+     * returns null if the JVM has no virtual threads.
+     */
+    private static Executor createVirtualThreadExecutor() {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            String namePrefix = "jaxws-engine-" + DaemonThreadFactory.poolNumber.getAndIncrement() + "-virtual-";
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 1L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (Executor) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+        } catch (Exception e) {
+            LOGGER.log(Level.CONFIG, "Virtual threads are not available, fibers run on a thread pool", e);
+            return null;
+        }
     }
     
     private Executor wrap(Executor ex) {
@@ -107,10 +178,35 @@ public class Engine {
      * To start the returned fiber, call {@link Fiber#start(Tube,Packet,Fiber.CompletionCallback)}.
      * It will start executing the given {@link Tube} with the given {@link Packet}.
      *
+     * <p>
+     * The fiber may be one that was {@link #recycleFiber(Fiber) recycled}
+     * before, in which case it starts out just like a new one.
+     *
      * @return new Fiber
      */
     public Fiber createFiber() {
-        return new Fiber(this);
+        if (!poolFibers) {
+            return new Fiber(this);
+        }
+        Fiber fiber = fibers.take();
+        fiber.setContextClassLoader(Thread.currentThread().getContextClassLoader());
+        return fiber;
+    }
+
+    /**
+     * Hands back a fiber obtained from {@link #createFiber()} once the caller
+     * is done with it, so that it can be reused for another request.
+     *
+     * <p>
+     * Only fibers that ran through {@link Fiber#runSync(Tube, Packet)} and
+     * were never suspended are reused. Others are left to the garbage
+     * collector, as whoever resumed them may still hold a reference.
+     * Either way, the caller must not use the fiber afterwards.
+     */
+    public void recycleFiber(@NotNull Fiber fiber) {
+        if (poolFibers && fiber.owner == this && fiber.reset()) {
+            fibers.recycle(fiber);
+        }
     }
 
     private static class DaemonThreadFactory implements ThreadFactory {
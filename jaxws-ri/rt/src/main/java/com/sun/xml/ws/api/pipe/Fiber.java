@@ -56,6 +56,8 @@ import com.sun.xml.ws.api.server.Container;
 import com.sun.xml.ws.api.server.ContainerResolver;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
@@ -120,6 +122,14 @@ import javax.xml.ws.WebServiceException;
  * with more than one running threads is very tricky, and this switch will
  * prevent that. This can be also enabled by setting the system property on.
  * See the source code.
+ * <p/>
+ * <h2>Virtual Threads</h2>
+ * <p/>
+ * A fiber can run on a virtual thread (see {@link Engine#virtualThreads}).
+ * Whenever a fiber blocks its thread, it does so through a
+ * {@link ReentrantLock} and its {@link Condition}, never while holding the
+ * monitor of the fiber, which only guards short updates of its fields. So a
+ * virtual thread running a fiber doesn't pin its carrier thread.
  *
  * @author Kohsuke Kawaguchi
  * @author Jitendra Kotamraju
@@ -146,7 +156,11 @@ public final class Fiber implements Runnable, Cancelable, ComponentRegistry {
         public void fiberResumed(Fiber fiber);
     }
 
-    private final List<Listener> _listeners = new ArrayList<Listener>();
+    /**
+     * Created by the first {@link #addListener(Listener)}, as most fibers never have any.
+     * Guarded by the monitor of this fiber.
+     */
+    private List<Listener> _listeners;
 
     /**
      * Adds suspend/resume callback listener
@@ -155,7 +169,10 @@ public final class Fiber implements Runnable, Cancelable, ComponentRegistry {
      * @deprecated
      */
     public void addListener(Listener listener) {
-        synchronized(_listeners) {
+        synchronized(this) {
+            if (_listeners == null) {
+                _listeners = new ArrayList<Listener>();
+            }
             if (!_listeners.contains(listener)) {
                 _listeners.add(listener);
             }
@@ -169,20 +186,25 @@ public final class Fiber implements Runnable, Cancelable, ComponentRegistry {
      * @deprecated
      */
     public void removeListener(Listener listener) {
-        synchronized(_listeners) {
-            _listeners.remove(listener);
+        synchronized(this) {
+            if (_listeners != null) {
+                _listeners.remove(listener);
+            }
         }
     }
 
     List<Listener> getCurrentListeners() {
-      synchronized(_listeners) {
+      synchronized(this) {
+         if (_listeners == null || _listeners.isEmpty()) {
+             return Collections.emptyList();
+         }
          return new ArrayList<Listener>(_listeners);
       }
     }
 
     private void clearListeners() {
-        synchronized(_listeners) {
-            _listeners.clear();
+        synchronized(this) {
+            _listeners = null;
         }
     }
 
@@ -190,9 +212,17 @@ public final class Fiber implements Runnable, Cancelable, ComponentRegistry {
      * {@link Tube}s whose {@link Tube#processResponse(Packet)} method needs
      * to be invoked on the way back.
      */
-    private Tube[] conts = new Tube[16];
+    private Tube[] conts = EMPTY_CONTS;
     private int contsSize;
 
+    private static final Tube[] EMPTY_CONTS = new Tube[0];
+
+    /**
+     * True if {@link #conts} was given to us by {@link #resetCont(Tube[], int)},
+     * in which case it isn't ours to clear.
+     */
+    private boolean contsShared;
+
     /**
      * If this field is non-null, the next instruction to execute is
      * to call its {@link Tube#processRequest(Packet)}. Otherwise
@@ -241,7 +271,13 @@ public final class Fiber implements Runnable, Cancelable, ComponentRegistry {
 
     private boolean interrupted;
 
-    private final int id;
+    private int id;
+
+    /**
+     * Set once this fiber has been suspended. Whoever resumes it may keep a
+     * reference to it, so such a fiber is never {@link #reset() recycled}.
+     */
+    private boolean wasSuspended;
 
     /**
      * Active {@link FiberContextSwitchInterceptor}s for this fiber.
@@ -275,7 +311,13 @@ public final class Fiber implements Runnable, Cancelable, ComponentRegistry {
      * unlocking for resume use cases
      */
     private final ReentrantLock lock = new ReentrantLock();
-    private final Condition condition = lock.newCondition();
+
+    /**
+     * Signalled when a synchronously running fiber is resumed or completes.
+     * Only needed once such a fiber actually blocks, so it's created
+     * by {@link #isReady(List)}. Guarded by {@link #lock}.
+     */
+    private Condition condition;
 
     private volatile boolean isCanceled;
     
@@ -496,7 +538,7 @@ public final class Fiber implements Runnable, Cancelable, ComponentRegistry {
                         }
         
                         if(synchronous) {
-                            condition.signalAll();
+                            signalAll();
                         } else if (forceSync || startedSync) {
                             run();
                         } else {
@@ -642,6 +684,7 @@ public final class Fiber implements Runnable, Cancelable, ComponentRegistry {
             }
         }
 
+        wasSuspended = true;
         List<Listener> listeners = getCurrentListeners();
         if (++suspendedCount == 1) {
             isInsideSuspendCallbacks = true;
@@ -862,11 +905,12 @@ public final class Fiber implements Runnable, Cancelable, ComponentRegistry {
             // save the current continuation, so that we return runSync() without executing them.
             final Tube[] oldCont = conts;
             final int oldContSize = contsSize;
+            final boolean oldContsShared = contsShared;
             final boolean oldSynchronous = synchronous;
             final Tube oldNext = next;
     
             if (oldContSize > 0) {
-                conts = new Tube[16];
+                conts = EMPTY_CONTS;
                 contsSize = 0;
             }
     
@@ -893,6 +937,7 @@ public final class Fiber implements Runnable, Cancelable, ComponentRegistry {
             } finally {
                 conts = oldCont;
                 contsSize = oldContSize;
+                contsShared = oldContsShared;
                 synchronous = oldSynchronous;
                 next = oldNext;
                 if(interrupted) {
@@ -907,6 +952,52 @@ public final class Fiber implements Runnable, Cancelable, ComponentRegistry {
         }
     }
 
+    /**
+     * Clears the state of the last run, so that {@link Engine#createFiber()}
+     * can hand this fiber out again.
+     *
+     * @return
+     *      false if this fiber must not be reused, because it is still running,
+     *      or because it was started asynchronously, suspended or cancelled,
+     *      in which case others may still hold a reference to it.
+     */
+    boolean reset() {
+        // tryLock() would also succeed if we were called from within this fiber
+        if (!lock.tryLock()) {
+            return false;
+        }
+        try {
+            if (lock.getHoldCount() != 1 || started || startedSync || wasSuspended || isCanceled
+                    || synchronous || next != null || contsSize != 0) {
+                return false;
+            }
+            synchronized(this) {
+                if (currentThread != null) {
+                    return false;
+                }
+                interceptors = null;
+                _listeners = null;
+                components = null;
+            }
+            // don't keep the tubes and packets of the last run reachable
+            if (contsShared) {
+                conts = EMPTY_CONTS;
+                contsShared = false;
+            } else {
+                Arrays.fill(conts, null);
+            }
+            packet = null;
+            throwable = null;
+            completionCallback = null;
+            interrupted = false;
+            isDeliverThrowableInPacket = false;
+            id = iotaGen.incrementAndGet();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     private void completionCheck() {
         lock.lock();
         try {
@@ -915,7 +1006,7 @@ public final class Fiber implements Runnable, Cancelable, ComponentRegistry {
                 if(isTraceEnabled())
                     LOGGER.log(Level.FINE, "{0} completed", getName());
                 clearListeners();
-                condition.signalAll();
+                signalAll();
                 if (completionCallback != null) {
                     if (throwable != null) {
                         if (isDeliverThrowableInPacket) {
@@ -932,6 +1023,14 @@ public final class Fiber implements Runnable, Cancelable, ComponentRegistry {
         }
     }
 
+    private void signalAll() {
+        assert lock.isHeldByCurrentThread();
+        // nobody can be waiting if the condition wasn't created yet
+        if (condition != null) {
+            condition.signalAll();
+        }
+    }
+
     /**
      * Invokes all registered {@link InterceptorHandler}s and then call into
      * {@link Fiber#__doRun()}.
@@ -1214,22 +1313,28 @@ public final class Fiber implements Runnable, Cancelable, ComponentRegistry {
             // we'll be back when this fiber is resumed.
 
         } finally {
-            CURRENT_FIBER.set(old);
+            // don't leave an entry behind in threads that were not running a fiber
+            if (old == null) {
+                CURRENT_FIBER.remove();
+            } else {
+                CURRENT_FIBER.set(old);
+            }
         }
         
         return false;
     }
 
     private void pushCont(Tube tube) {
-        conts[contsSize++] = tube;
-
         // expand if needed
         int len = conts.length;
         if (contsSize == len) {
-            Tube[] newBuf = new Tube[len * 2];
+            Tube[] newBuf = new Tube[Math.max(len * 2, 16)];
             System.arraycopy(conts, 0, newBuf, 0, len);
             conts = newBuf;
+            contsShared = false;
         }
+
+        conts[contsSize++] = tube;
     }
 
     private Tube popCont() {
@@ -1252,6 +1357,7 @@ public final class Fiber implements Runnable, Cancelable, ComponentRegistry {
     public void resetCont(Tube[] conts, int contsSize) {
         this.conts = conts;
         this.contsSize = contsSize;
+        this.contsShared = true;
     }
 
     /**
@@ -1264,6 +1370,9 @@ public final class Fiber implements Runnable, Cancelable, ComponentRegistry {
                     if (isTraceEnabled()) {
                         LOGGER.log(Level.FINE, "{0} is blocking thread {1}", new Object[]{getName(), Thread.currentThread().getName()});
                     }
+                    if (condition == null) {
+                        condition = lock.newCondition();
+                    }
                     condition.await(); // the synchronized block is the whole runSync method.
                 } catch (InterruptedException e) {
                     // remember that we are interrupted, but don't respond to it
@@ -1409,11 +1518,18 @@ public final class Fiber implements Runnable, Cancelable, ComponentRegistry {
      */
     public static volatile boolean serializeExecution = Boolean.getBoolean(Fiber.class.getName() + ".serialize");
 
-    private final Set<Component> components = new CopyOnWriteArraySet<Component>();
+    /**
+     * Created by the first {@link #getComponents()}, as most fibers never have any.
+     */
+    private volatile Set<Component> components;
     
     @Override
     public <S> S getSPI(Class<S> spiType) {
-        for (Component c : components) {
+        Set<Component> cs = components;
+        if (cs == null) {
+            return null;
+        }
+        for (Component c : cs) {
             S spi = c.getSPI(spiType);
             if (spi != null) {
                 return spi;
@@ -1424,6 +1540,15 @@ public final class Fiber implements Runnable, Cancelable, ComponentRegistry {
 
     @Override
     public Set<Component> getComponents() {
-        return components;
+        Set<Component> c = components;
+        if (c == null) {
+            synchronized(this) {
+                c = components;
+                if (c == null) {
+                    components = c = new CopyOnWriteArraySet<Component>();
+                }
+            }
+        }
+        return c;
     }
 }
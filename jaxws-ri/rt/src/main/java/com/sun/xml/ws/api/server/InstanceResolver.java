@@ -47,6 +47,7 @@ import com.sun.xml.ws.resources.ServerMessages;
 import com.sun.xml.ws.resources.WsservletMessages;
 import com.sun.xml.ws.server.ServerRtException;
 import com.sun.xml.ws.server.SingletonResolver;
+import com.sun.xml.ws.server.sei.MethodBridge;
 
 import javax.xml.ws.Provider;
 import javax.xml.ws.WebServiceContext;
@@ -54,6 +55,8 @@ import javax.xml.ws.WebServiceException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -230,11 +233,19 @@ public abstract class InstanceResolver<T> {
 
     /**
      * Wraps this {@link InstanceResolver} into an {@link Invoker}.
+     *
+     * <p>
+     * The endpoint methods are called through the {@link MethodBridge}s
+     * created when the {@link Invoker} is started, and through reflection
+     * for the methods that don't have one.
      */
     public @NotNull Invoker createInvoker() {
         return new Invoker() {
+            private volatile Map<Method, MethodBridge> bridges = Collections.emptyMap();
+
             @Override
             public void start(@NotNull WSWebServiceContext wsc, @NotNull WSEndpoint endpoint) {
+                bridges = MethodBridge.create(endpoint.getSEIModel());
                 InstanceResolver.this.start(wsc,endpoint);
             }
 
@@ -247,6 +258,10 @@ public abstract class InstanceResolver<T> {
             public Object invoke(Packet p, Method m, Object... args) throws InvocationTargetException, IllegalAccessException {
                 T t = resolve(p);
                 try {
+                    MethodBridge bridge = bridges.get(m);
+                    if (bridge != null) {
+                        return bridge.invoke(t, args);
+                    }
                     return m.invoke(t, args );
                 } finally {
                     postInvoke(p,t);
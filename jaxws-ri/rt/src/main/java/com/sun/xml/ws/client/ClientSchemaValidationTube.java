@@ -76,31 +76,17 @@ public class ClientSchemaValidationTube extends AbstractSchemaValidationTube {
     public ClientSchemaValidationTube(WSBinding binding, WSDLPort port, Tube next) {
         super(binding, next);
         this.port = port;
+        Schema schema = null;
         if (port != null) {
             String primaryWsdl = port.getOwner().getParent().getLocation().getSystemId();
             MetadataResolverImpl mdresolver = new MetadataResolverImpl();
             Map<String, SDDocument> docs = MetadataUtil.getMetadataClosure(primaryWsdl, mdresolver, true);
             mdresolver = new MetadataResolverImpl(docs.values());
-            Source[] sources = getSchemaSources(docs.values(), mdresolver);
-            for(Source source : sources) {
-                LOGGER.fine("Constructing client validation schema from = "+source.getSystemId());
-                //printDOM((DOMSource)source);
-            }
-            if (sources.length != 0) {
-                noValidation = false;
-                sf.setResourceResolver(mdresolver);
-                try {
-                    schema = sf.newSchema(sources);
-                } catch(SAXException e) {
-                    throw new WebServiceException(e);
-                }
-                validator = schema.newValidator();
-                return;
-            }
+            schema = getSchema(docs.values(), mdresolver);
         }
-        noValidation = true;
-        schema = null;
-        validator = null;
+        this.schema = schema;
+        noValidation = (schema == null);
+        validator = (schema == null) ? null : schema.newValidator();
     }
 
     protected Validator getValidator() {
@@ -115,7 +101,7 @@ public class ClientSchemaValidationTube extends AbstractSchemaValidationTube {
         super(that,cloner);
         this.port = that.port;
         this.schema = that.schema;
-        this.validator = schema.newValidator();
+        this.validator = (schema == null) ? null : schema.newValidator();
         this.noValidation = that.noValidation;
     }
 
@@ -141,6 +127,11 @@ public class ClientSchemaValidationTube extends AbstractSchemaValidationTube {
         if (isNoValidation() || !feature.isInbound() || response.getMessage() == null || !response.getMessage().hasPayload() || response.getMessage().isFault()) {
             return super.processResponse(response);
         }
+        if (feature.isStreaming()) {
+            // validated while the response is read, failing the invocation
+            doStreamingProcess(response, schema);
+            return super.processResponse(response);
+        }
         try {
             doProcess(response);
         } catch(SAXException se) {
@@ -41,7 +41,9 @@
 package com.sun.xml.ws.client;
 
 import com.sun.xml.ws.api.model.wsdl.WSDLService;
+import com.sun.xml.ws.api.pipe.Tube;
 import com.sun.xml.ws.api.server.Container;
+import com.sun.xml.ws.util.Pool;
 
 import java.util.Map;
 
@@ -95,6 +97,9 @@ public final class MonitorRootClient extends com.sun.xml.ws.server.MonitorBase {
     @ManagedAttribute
     private WSDLService wsdlService() { return stub.owner.getWsdlService(); }
 
+    @Override
+    protected Pool<Tube> getTubePool() { return stub.getTubes(); }
+
     
         
 }
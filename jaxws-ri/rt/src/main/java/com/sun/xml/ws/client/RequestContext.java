@@ -47,8 +47,9 @@ import com.sun.xml.ws.api.message.Packet;
 import com.sun.xml.ws.transport.Headers;
 
 import javax.xml.ws.BindingProvider;
+import java.util.AbstractMap;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -91,7 +92,10 @@ import static javax.xml.ws.handler.MessageContext.HTTP_REQUEST_HEADERS;
  * in a way that all the strongly typed properties are reflected to the fields
  * right away. Any additional (extending) properties can be added by client as well;
  * those would be processed using iterating the {@link MapView} and their processing,
- * of course, would be slower.
+ * of course, would be slower. To keep that off the invocation path, the extending
+ * properties are kept in an immutable snapshot, taken when a {@link Packet} is filled
+ * or the context is copied, and discarded when the map is changed; {@link #copy()}
+ * shares the snapshot with the copy until either of them is changed.
  * <p>
  * The previous implementation with fallback mode has been removed to simplify
  * the code and remove the bugs.
@@ -241,18 +245,166 @@ public final class RequestContext extends BaseDistributedPropertySet {
 
     /**
      * Copy constructor.
+     *
+     * <p>
+     * The extending properties are not copied; the new {@link RequestContext}
+     * shares the {@link Snapshot} of this one until either of them is changed.
      */
     private RequestContext(RequestContext that) {
-        for (Map.Entry<String, Object> entry : that.asMapLocal().entrySet()) {
-            if (!propMap.containsKey(entry.getKey())) {
-                asMap().put(entry.getKey(), entry.getValue());
-            }
-        }
         endpointAddress = that.endpointAddress;
         soapAction = that.soapAction;
         soapActionUse = that.soapActionUse;
         contentNegotiation = that.contentNegotiation;
         that.copySatelliteInto(this);
+        snapshot = that.getSnapshot();
+        shared = true;
+    }
+
+    /**
+     * Immutable copy of the extending properties, that is the entries of
+     * {@link #asMapLocal()} that are not strongly typed properties of this class.
+     *
+     * <p>
+     * {@link #fill(Packet, boolean)} and {@link #copy()} work off the snapshot,
+     * so that a proxy invoked many times with the same request context doesn't
+     * walk the map and compute the handler scope names on every invocation.
+     */
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(Collections.<String, Object>emptyMap());
+
+        final String[] keys;
+        final Object[] values;
+        /**
+         * The extending properties default to {@code Scope.HANDLER}.
+         */
+        final Set<String> handlerScopeNames;
+        private final Map<String, Object> properties;
+
+        Snapshot(Map<String, Object> properties) {
+            this.properties = properties;
+            this.keys = properties.keySet().toArray(new String[properties.size()]);
+            this.values = new Object[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                values[i] = properties.get(keys[i]);
+            }
+            this.handlerScopeNames = Collections.unmodifiableSet(properties.keySet());
+        }
+
+        Object get(Object key) {
+            return properties.get(key);
+        }
+
+        boolean containsKey(Object key) {
+            return properties.containsKey(key);
+        }
+    }
+
+    /**
+     * Snapshot of the extending properties, or null if they have been changed
+     * since it was taken.
+     */
+    private Snapshot snapshot;
+
+    /**
+     * True if the extending properties of this {@link RequestContext} are only held
+     * by {@link #snapshot}, shared with the {@link RequestContext} it was copied from.
+     * They are copied into the map the first time the map is accessed.
+     */
+    private boolean shared;
+
+    private Snapshot getSnapshot() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            Map<String, Object> local = asMapLocal();
+            Map<String, Object> properties = null;
+            for (Map.Entry<String, Object> entry : local.entrySet()) {
+                if (!propMap.containsKey(entry.getKey())) {
+                    if (properties == null) {
+                        properties = new HashMap<String, Object>();
+                    }
+                    properties.put(entry.getKey(), entry.getValue());
+                }
+            }
+            s = properties == null ? Snapshot.EMPTY : new Snapshot(properties);
+            snapshot = s;
+        }
+        return s;
+    }
+
+    /**
+     * Copies the shared extending properties into the map of this {@link RequestContext}
+     * before the map is exposed or changed.
+     */
+    private void unshare() {
+        if (shared) {
+            shared = false;
+            Snapshot s = snapshot;
+            Map<String, Object> local = asMapLocal();
+            for (int i = 0; i < s.keys.length; i++) {
+                local.put(s.keys[i], s.values[i]);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> asMap() {
+        unshare();
+        return super.asMap();
+    }
+
+    /**
+     * Every change made through {@link #asMap()} discards the {@link #snapshot}.
+     */
+    @Override
+    protected Map<String, Object> createView() {
+        final Map<String, Object> view = super.createView();
+        return new AbstractMap<String, Object>() {
+            @Override
+            public Object get(Object key) {
+                return view.get(key);
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return view.containsKey(key);
+            }
+
+            @Override
+            public int size() {
+                return view.size();
+            }
+
+            @Override
+            public Set<Entry<String, Object>> entrySet() {
+                return view.entrySet();
+            }
+
+            @Override
+            public Object put(String key, Object value) {
+                snapshot = null;
+                return view.put(key, value);
+            }
+
+            @Override
+            public Object remove(Object key) {
+                snapshot = null;
+                return view.remove(key);
+            }
+
+            @Override
+            public void clear() {
+                snapshot = null;
+                view.clear();
+            }
+        };
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (shared && snapshot.containsKey(key)) {
+            return true;
+        }
+        return super.containsKey(key);
     }
 
     /**
@@ -262,6 +414,8 @@ public final class RequestContext extends BaseDistributedPropertySet {
     public Object get(Object key) {
         if(supports(key)) {
             return super.get(key);
+        } else if (shared) {
+            return snapshot.get(key);
         } else {
             // use mapView to get extending property
             return asMap().get(key);
@@ -300,33 +454,25 @@ public final class RequestContext extends BaseDistributedPropertySet {
         fillSOAPAction(packet, isAddressingEnabled);
         mergeRequestHeaders(packet);
 
-        Set<String> handlerScopeNames = new HashSet<String>();
-
         copySatelliteInto(packet);
-        
-        // extending properties ...
-        for (String key : asMapLocal().keySet()) {
-
-            //if it is not standard property it defaults to Scope.HANDLER
-            if (!supportsLocal(key)) {
-                handlerScopeNames.add(key);
-            }
 
-            // to avoid slow Packet.put(), handle as small number of props as possible
-            // => only properties not from RequestContext object
-            if (!propMap.containsKey(key)) {
-                Object value = asMapLocal().get(key);
-                if (packet.supports(key)) {
-                    // very slow operation - try to avoid it!
-                    packet.put(key, value);
-                } else {
-                    packet.invocationProperties.put(key, value);
-                }
+        // extending properties ...
+        // to avoid slow Packet.put(), handle as small number of props as possible
+        // => only properties not from RequestContext object
+        Snapshot s = getSnapshot();
+        for (int i = 0; i < s.keys.length; i++) {
+            String key = s.keys[i];
+            if (packet.supports(key)) {
+                // very slow operation - try to avoid it!
+                packet.put(key, s.values[i]);
+            } else {
+                packet.invocationProperties.put(key, s.values[i]);
             }
         }
 
-        if (!handlerScopeNames.isEmpty()) {
-            packet.getHandlerScopePropertyNames(false).addAll(handlerScopeNames);
+        //if it is not standard property it defaults to Scope.HANDLER
+        if (!s.handlerScopeNames.isEmpty()) {
+            packet.getHandlerScopePropertyNames(false).addAll(s.handlerScopeNames);
         }
     }
 
@@ -335,9 +481,12 @@ public final class RequestContext extends BaseDistributedPropertySet {
         //for bug 12883765
         //retrieve headers which is set in soap message
         Headers packetHeaders = (Headers) packet.invocationProperties.get(HTTP_REQUEST_HEADERS);
+        if (packetHeaders == null) {
+            return;
+        }
         //retrieve headers from request context
-        Map<String, List<String>> myHeaders = (Map<String, List<String>>) asMap().get(HTTP_REQUEST_HEADERS);
-        if ((packetHeaders != null) && (myHeaders != null)) {
+        Map<String, List<String>> myHeaders = (Map<String, List<String>>) get(HTTP_REQUEST_HEADERS);
+        if (myHeaders != null) {
             //update the headers set in soap message with those in request context
             for (Entry<String, List<String>> entry : myHeaders.entrySet()) {
                 String key = entry.getKey();
@@ -64,6 +64,7 @@ import com.sun.xml.ws.api.message.Packet;
 import com.sun.xml.ws.api.model.SEIModel;
 import com.sun.xml.ws.api.model.wsdl.WSDLPort;
 import com.sun.xml.ws.api.pipe.ClientTubeAssemblerContext;
+import com.sun.xml.ws.api.pipe.Codec;
 import com.sun.xml.ws.api.pipe.Engine;
 import com.sun.xml.ws.api.pipe.Fiber;
 import com.sun.xml.ws.api.pipe.FiberContextSwitchInterceptorFactory;
@@ -74,6 +75,8 @@ import com.sun.xml.ws.api.pipe.TubelineAssemblerFactory;
 import com.sun.xml.ws.api.server.Container;
 import com.sun.xml.ws.api.server.ContainerResolver;
 import com.sun.xml.ws.binding.BindingImpl;
+import com.sun.xml.ws.binding.WebServiceFeatureList;
+import com.sun.xml.ws.developer.HttpConfigFeature;
 import com.sun.xml.ws.developer.JAXWSProperties;
 import com.sun.xml.ws.developer.WSBindingProvider;
 import com.sun.xml.ws.model.wsdl.WSDLDirectProperties;
@@ -93,6 +96,7 @@ import javax.xml.ws.EndpointReference;
 import javax.xml.ws.RespectBindingFeature;
 import javax.xml.ws.Response;
 import javax.xml.ws.WebServiceException;
+import javax.xml.ws.WebServiceFeature;
 import javax.xml.ws.http.HTTPBinding;
 import javax.xml.ws.wsaddressing.W3CEndpointReference;
 import java.util.ArrayList;
@@ -133,6 +137,19 @@ public abstract class Stub implements WSBindingProvider, ResponseContextReceiver
      */
     private Pool<Tube> tubes;
 
+    /**
+     * The handler configuration of {@link #binding} when the tubeline was copied
+     * from a {@link TubelineTemplate}, null if the tubeline was assembled for
+     * this stub.
+     */
+    private volatile HandlerConfiguration templateHandlerConfig;
+
+    /**
+     * The features of {@link #binding} when the tubeline was copied from a
+     * {@link TubelineTemplate}, null if the tubeline was assembled for this stub.
+     */
+    private volatile WebServiceFeatureList templateFeatures;
+
     private final Engine engine;
 
     /**
@@ -293,7 +310,7 @@ public abstract class Stub implements WSBindingProvider, ResponseContextReceiver
             } else {
                 this.requestContext.setEndpointAddress(defaultEndPointAddress);
             }
-            this.engine = new Engine(getStringId(), owner.getContainer(), owner.getExecutor());
+            this.engine = owner.getEngine();
             this.endpointReference = epr;
             wsdlProperties = (wsdlPort == null) ? new WSDLDirectProperties(owner.getServiceName(), portname) : new WSDLPortProperties(wsdlPort);
             
@@ -307,7 +324,7 @@ public abstract class Stub implements WSBindingProvider, ResponseContextReceiver
             if (master != null) {
                 this.tubes = new TubePool(master);
             } else {
-                this.tubes = new TubePool(createPipeline(portInfo, binding));
+                this.tubes = new TubePool(createTubeline(portInfo, binding));
             }
     
             addrVersion = binding.getAddressingVersion();
@@ -320,10 +337,73 @@ public abstract class Stub implements WSBindingProvider, ResponseContextReceiver
         }
     }
 
+    /**
+     * Copies the tubeline from the {@link TubelineTemplate} the owner chose for
+     * this stub, assembling the template's master first if needed. Without a
+     * template, or if this client is monitored, assembles a tubeline of its own.
+     */
+    private Tube createTubeline(WSPortInfo portInfo, BindingImpl binding) {
+        TubelineTemplate template = owner.takeTubelineTemplate(binding);
+        if (template == null || isMonitored()) {
+            return createPipeline(portInfo, binding);
+        }
+        Tube master = template.copy();
+        if (master == null) {
+            // no proxy in the context, the master must not keep this stub alive
+            master = createPipeline(portInfo, template.getBinding(), null);
+            template.setMaster(master);
+        }
+        // the copied transport is created for this stub's binding on the first request,
+        // so each proxy has its own cookie jar, as with a tubeline of its own
+        if (binding.getFeature(HttpConfigFeature.class) == null) {
+            binding.getFeatures().mergeFeatures(
+                    new WebServiceFeature[] { new HttpConfigFeature() }, false);
+        }
+        templateFeatures = new WebServiceFeatureList(binding.getFeatures());
+        templateHandlerConfig = binding.getHandlerConfig();
+        return master;
+    }
+
+    private boolean isMonitored() {
+        // The name is null when the MOM is a NOOP.
+        return managedObjectManager.getObjectName(managedObjectManager.getRoot()) != null;
+    }
+
+    /**
+     * Gets the pool to take tubelines from. The tubes copied from a template
+     * see the handlers and features of the template's binding, so once handlers,
+     * roles or features (such as MTOM) are changed on this stub's binding, it
+     * assembles a tubeline of its own.
+     */
+    private Pool<Tube> getTubePool() {
+        HandlerConfiguration hc = templateHandlerConfig;
+        if (hc != null && (hc != binding.getHandlerConfig() || !templateFeatures.equals(binding.getFeatures()))) {
+            synchronized (this) {
+                if (templateHandlerConfig != null && tubes != null) {
+                    Container old = ContainerResolver.getDefault().enterContainer(owner.getContainer());
+                    try {
+                        TubePool tp = (TubePool) tubes;
+                        tubes = new TubePool(createPipeline(portInfo, binding));
+                        templateHandlerConfig = null;
+                        templateFeatures = null;
+                        tp.takeMaster().preDestroy();
+                    } finally {
+                        ContainerResolver.getDefault().exitContainer(old);
+                    }
+                }
+            }
+        }
+        return tubes;
+    }
+
     /**
      * Creates a new pipeline for the given port name.
      */
     private Tube createPipeline(WSPortInfo portInfo, WSBinding binding) {
+        return createPipeline(portInfo, binding, this);
+    }
+
+    private Tube createPipeline(WSPortInfo portInfo, WSBinding binding, @Nullable WSBindingProvider bindingProvider) {
         //Check all required WSDL extensions are understood
         checkAllWSDLExtensionsUnderstood(portInfo, binding);
         SEIModel seiModel = null;
@@ -340,11 +420,16 @@ public abstract class Stub implements WSBindingProvider, ResponseContextReceiver
         if (assembler == null) {
             throw new WebServiceException("Unable to process bindingID=" + bindingId); // TODO: i18n
         }
-        return assembler.createClient(
-                new ClientTubeAssemblerContext(
+        Codec codec = ((BindingImpl) binding).createCodec();
+        return assembler.createClient(bindingProvider != null
+                ? new ClientTubeAssemblerContext(
+                        portInfo.getEndpointAddress(),
+                        portInfo.getPort(),
+                        bindingProvider, binding, owner.getContainer(), codec, seiModel, sei)
+                : new ClientTubeAssemblerContext(
                         portInfo.getEndpointAddress(),
                         portInfo.getPort(),
-                        this, binding, owner.getContainer(), ((BindingImpl) binding).createCodec(), seiModel, sei));
+                        owner, binding, owner.getContainer(), codec, seiModel, sei));
     }
     
     public WSDLPort getWSDLPort() {
@@ -448,7 +533,7 @@ public abstract class Stub implements WSBindingProvider, ResponseContextReceiver
         packet.isSynchronousMEP = true;
         packet.component = this;
         configureRequestPacket(packet, requestContext);
-        Pool<Tube> pool = tubes;
+        Pool<Tube> pool = getTubePool();
         if (pool == null) {
             throw new WebServiceException("close method has already been invoked"); // TODO: i18n
         } 
@@ -472,6 +557,7 @@ public abstract class Stub implements WSBindingProvider, ResponseContextReceiver
             receiver.setResponseContext(new ResponseContext(reply));
             
             pool.recycle(tube);
+            engine.recycleFiber(fiber);
         }
     }
 
@@ -530,7 +616,7 @@ public abstract class Stub implements WSBindingProvider, ResponseContextReceiver
         request.component = this;
         configureRequestPacket(request, requestContext);
 
-        final Pool<Tube> pool = tubes;
+        final Pool<Tube> pool = getTubePool();
         if (pool == null) {
             throw new WebServiceException("close method has already been invoked"); // TODO: i18n
         } 
@@ -0,0 +1,111 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.client;
+
+import com.sun.istack.NotNull;
+import com.sun.istack.Nullable;
+import com.sun.xml.ws.api.pipe.Tube;
+import com.sun.xml.ws.api.pipe.TubeCloner;
+import com.sun.xml.ws.binding.BindingImpl;
+
+/**
+ * An assembled client tubeline that proxies of the same port copy instead
+ * of assembling their own.
+ *
+ * <p>
+ * The master is assembled once, for a {@link BindingImpl} that is private to
+ * the template, and the {@link Stub}s get copies of it just like
+ * {@link com.sun.xml.ws.util.Pool.TubePool} copies a tubeline. The master is
+ * assembled without a proxy, so its transport is created for the binding of
+ * the proxy that sends the request. Since the other copied tubes see the
+ * handlers and features of the template's binding, a template is only used by
+ * proxies without handlers or features of their own; see {@link WSServiceDelegate}.
+ *
+ * @author WS Development Team
+ */
+final class TubelineTemplate {
+    private final SEIPortInfo portInfo;
+    private final Class<?> portInterface;
+    private final BindingImpl binding;
+
+    /**
+     * Never used to process messages, only copied. Null until the first
+     * proxy assembled it.
+     */
+    private Tube master;
+
+    TubelineTemplate(@NotNull SEIPortInfo portInfo, @NotNull Class<?> portInterface, @NotNull BindingImpl binding) {
+        this.portInfo = portInfo;
+        this.portInterface = portInterface;
+        this.binding = binding;
+    }
+
+    /**
+     * True if this template was created for the given port and SEI.
+     */
+    boolean isFor(SEIPortInfo portInfo, Class<?> portInterface) {
+        return this.portInfo == portInfo && this.portInterface == portInterface;
+    }
+
+    /**
+     * The binding the tubeline is assembled for.
+     */
+    @NotNull BindingImpl getBinding() {
+        return binding;
+    }
+
+    /**
+     * Returns a new copy of the master, or null if it isn't assembled yet.
+     */
+    synchronized @Nullable Tube copy() {
+        return (master != null) ? TubeCloner.clone(master) : null;
+    }
+
+    /**
+     * Keeps a copy of a tubeline assembled for {@link #getBinding()} as the master,
+     * unless another proxy got there first.
+     */
+    synchronized void setMaster(@NotNull Tube tubeline) {
+        if (master == null) {
+            master = TubeCloner.clone(tubeline);
+        }
+    }
+}
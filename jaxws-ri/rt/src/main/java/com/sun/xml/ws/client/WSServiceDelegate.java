@@ -59,6 +59,7 @@ import com.sun.xml.ws.api.model.SEIModel;
 import com.sun.xml.ws.api.model.wsdl.WSDLModel;
 import com.sun.xml.ws.api.model.wsdl.WSDLPort;
 import com.sun.xml.ws.api.model.wsdl.WSDLService;
+import com.sun.xml.ws.api.pipe.Engine;
 import com.sun.xml.ws.api.pipe.Stubs;
 import com.sun.xml.ws.api.server.Container;
 import com.sun.xml.ws.api.server.ContainerResolver;
@@ -77,6 +78,7 @@ import com.sun.xml.ws.resources.ClientMessages;
 import com.sun.xml.ws.resources.DispatchMessages;
 import com.sun.xml.ws.resources.ProviderApiMessages;
 import com.sun.xml.ws.util.JAXWSUtils;
+import com.sun.xml.ws.util.RuntimeVersion;
 import com.sun.xml.ws.util.ServiceConfigurationError;
 import com.sun.xml.ws.util.ServiceFinder;
 import com.sun.xml.ws.wsdl.parser.RuntimeWSDLParser;
@@ -113,6 +115,8 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadFactory;
 
@@ -187,6 +191,24 @@ public class WSServiceDelegate extends WSService {
     // this executor doesn't affect the already created proxies.
     private volatile Executor executor;
 
+    /**
+     * {@link Engine} shared by the proxies created from this service,
+     * for {@link #engineExecutor}.
+     */
+    private Engine engine;
+    private Executor engineExecutor;
+
+    /**
+     * Tubelines of the SEI ports, copied by proxies created without features
+     * of their own instead of assembling a tubeline each. Keyed by port name.
+     */
+    private final ConcurrentMap<QName, TubelineTemplate> tubelineTemplates = new ConcurrentHashMap<QName, TubelineTemplate>();
+
+    /**
+     * Templates handed to the {@link Stub}s being constructed, by their binding.
+     */
+    private final Map<BindingImpl, TubelineTemplate> pendingTemplates = new ConcurrentHashMap<BindingImpl, TubelineTemplate>();
+
     /**
      * The WSDL service that this {@link Service} object represents.
      * <p>
@@ -385,6 +407,27 @@ public class WSServiceDelegate extends WSService {
         this.executor = executor;
     }
 
+    /**
+     * Gets the {@link Engine} for a new proxy. Proxies share the engine, and
+     * with it the default thread pool, unless the executor changed in between.
+     */
+    /*package*/ synchronized Engine getEngine() {
+        Executor ex = executor;
+        if (engine == null || engineExecutor != ex) {
+            engine = new Engine(RuntimeVersion.VERSION + ": Stubs for " + serviceName, container, ex);
+            engineExecutor = ex;
+        }
+        return engine;
+    }
+
+    /**
+     * Gets the {@link TubelineTemplate} that {@link WSServiceDelegate} chose for
+     * the proxy of the given binding, if any.
+     */
+    /*package*/ @Nullable TubelineTemplate takeTubelineTemplate(BindingImpl binding) {
+        return pendingTemplates.remove(binding);
+    }
+
     public HandlerResolver getHandlerResolver() {
         return handlerConfigurator.getResolver();
     }
@@ -445,10 +488,12 @@ public class WSServiceDelegate extends WSService {
                     throw new IllegalArgumentException();
             }
         }
+        // only proxies that have no features of their own are alike enough to share a tubeline
+        boolean shareTubeline = features.isEmpty();
         features.addAll(this.features);
 
         SEIPortInfo spi = addSEI(portName, portInterface, features);
-        return createEndpointIFBaseProxy(wsepr,portName,portInterface,features, spi);
+        return createEndpointIFBaseProxy(wsepr,portName,portInterface,features, spi, shareTubeline);
     }
     
     @Override
@@ -803,7 +848,7 @@ public class WSServiceDelegate extends WSService {
     }
 
     private <T> T createEndpointIFBaseProxy(@Nullable WSEndpointReference epr, QName portName, Class<T> portInterface,
-                                            WebServiceFeatureList webServiceFeatures, SEIPortInfo eif) {
+                                            WebServiceFeatureList webServiceFeatures, SEIPortInfo eif, boolean shareTubeline) {
         //fail if service doesnt have WSDL
         if (wsdlService == null) {
             throw new WebServiceException(ClientMessages.INVALID_SERVICE_NO_WSDL(serviceName));
@@ -815,7 +860,18 @@ public class WSServiceDelegate extends WSService {
         }
 
         BindingImpl binding = eif.createBinding(webServiceFeatures, portInterface);
-        InvocationHandler pis = getStubHandler(binding, eif, epr);
+        TubelineTemplate template = shareTubeline ? getTubelineTemplate(eif, portInterface, binding) : null;
+        InvocationHandler pis;
+        if (template != null) {
+            pendingTemplates.put(binding, template);
+            try {
+                pis = getStubHandler(binding, eif, epr);
+            } finally {
+                pendingTemplates.remove(binding);
+            }
+        } else {
+            pis = getStubHandler(binding, eif, epr);
+        }
 
         T proxy = createProxy(portInterface, pis);
 
@@ -829,6 +885,31 @@ public class WSServiceDelegate extends WSService {
     	return new SEIStub(eif, binding, eif.model, epr);
     }
 
+    /**
+     * Returns the template for the given port, or null if the proxy needs a
+     * tubeline of its own because it has handlers.
+     */
+    private @Nullable TubelineTemplate getTubelineTemplate(SEIPortInfo eif, Class<?> portInterface, BindingImpl binding) {
+        if (!binding.getHandlerChain().isEmpty()) {
+            return null;
+        }
+        TubelineTemplate template = tubelineTemplates.get(eif.portName);
+        if (template == null) {
+            WebServiceFeatureList templateFeatures = new WebServiceFeatureList();
+            templateFeatures.addAll(this.features);
+            BindingImpl templateBinding = eif.createBinding(templateFeatures, portInterface);
+            if (!templateBinding.getHandlerChain().isEmpty()) {
+                return null;
+            }
+            TubelineTemplate t = new TubelineTemplate(eif, portInterface, templateBinding);
+            template = tubelineTemplates.putIfAbsent(eif.portName, t);
+            if (template == null) {
+                template = t;
+            }
+        }
+        return template.isFor(eif, portInterface) ? template : null;
+    }
+
     /**
      * Lists up the port names in WSDL. For error diagnostics.
      */
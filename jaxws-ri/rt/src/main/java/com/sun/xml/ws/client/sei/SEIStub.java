@@ -66,6 +66,7 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 /**
@@ -146,10 +147,40 @@ public final class SEIStub extends Stub implements InvocationHandler {
      */
     private final Map<Method, MethodHandler> methodHandlers = new HashMap<Method, MethodHandler>();
 
+    /**
+     * {@link #methodHandlers} by the {@link Method} instances the proxy passes in.
+     *
+     * <p>
+     * A proxy class passes the same {@link Method} instances on every call, so
+     * they are looked up by identity rather than through {@link Method#equals(Object)},
+     * which compares names and parameter types. Only the SEI methods, which have
+     * a handler, are kept, and no more of them than there are handlers; further
+     * instances, e.g. from another proxy class, are looked up in {@link #methodHandlers}.
+     * The map is copied on write, and is filled in as the proxy methods are first called.
+     */
+    private volatile Map<Method, MethodHandler> boundHandlers = new IdentityHashMap<Method, MethodHandler>();
+
+    private MethodHandler getMethodHandler(Method method) {
+        MethodHandler handler = boundHandlers.get(method);
+        if (handler == null) {
+            handler = methodHandlers.get(method);
+            if (handler != null && boundHandlers.size() < methodHandlers.size()) {
+                synchronized (this) {
+                    if (boundHandlers.size() < methodHandlers.size()) {
+                        Map<Method, MethodHandler> bound = new IdentityHashMap<Method, MethodHandler>(boundHandlers);
+                        bound.put(method, handler);
+                        boundHandlers = bound;
+                    }
+                }
+            }
+        }
+        return handler;
+    }
+
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
         Container old = ContainerResolver.getDefault().enterContainer(owner.getContainer());
         try {
-            MethodHandler handler = methodHandlers.get(method);
+            MethodHandler handler = getMethodHandler(method);
             if (handler != null) {
                 return handler.invoke(proxy, args);
             } else {
@@ -0,0 +1,108 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.developer;
+
+import com.sun.xml.ws.api.FeatureConstructor;
+
+import javax.xml.ws.WebServiceFeature;
+
+/**
+ * Endpoint needs to be created with this feature to limit the number of
+ * requests that it processes at the same time over HTTP.
+ *
+ * <p>
+ * A request that arrives while the endpoint is already processing
+ * {@link #getMaxRequests()} requests is answered with 503 Service
+ * Unavailable, without invoking the endpoint. Metadata (WSDL and schema)
+ * requests are not limited.
+ *
+ * <pre>
+ * for e.g.: To process at most 10 reports at a time
+ * <p>
+ *
+ * &#64;WebService
+ * &#64;ConcurrencyLimit(maxRequests=10)
+ * public class ReportService {
+ * }
+ *
+ * </pre>
+ *
+ * <p>
+ * <b>THIS feature IS EXPERIMENTAL AND IS SUBJECT TO CHANGE WITHOUT NOTICE IN FUTURE.</b>
+ *
+ * @see ConcurrencyLimit
+ *
+ * @author WS Development Team
+ */
+public final class ConcurrencyLimitFeature extends WebServiceFeature {
+    /**
+     * Constant value identifying the {@link ConcurrencyLimitFeature} feature.
+     */
+    public static final String ID = "http://jax-ws.java.net/features/concurrency-limit";
+
+    private int maxRequests;
+
+    @FeatureConstructor({"enabled","maxRequests"})
+    public ConcurrencyLimitFeature(boolean enabled, int maxRequests) {
+        this.enabled = enabled;
+        this.maxRequests = maxRequests;
+    }
+
+    public ConcurrencyLimitFeature(int maxRequests) {
+        this(true, maxRequests);
+    }
+
+    public String getID() {
+        return ID;
+    }
+
+    /**
+     * Maximum number of requests that are processed at the same time.
+     */
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    public void setMaxRequests(int maxRequests) {
+        this.maxRequests = maxRequests;
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.developer;
+
+import com.sun.xml.ws.api.FeatureConstructor;
+import com.sun.xml.ws.transport.http.client.HttpConnectionPool;
+
+import javax.xml.ws.WebServiceFeature;
+
+/**
+ * Proxy needs to be created with this feature to send its HTTP requests over
+ * an explicit pool of persistent connections, instead of opening a
+ * {@link java.net.HttpURLConnection} for every request.
+ *
+ * <p>
+ * The pool bounds the number of connections kept to each host and closes
+ * connections that stay idle longer than the idle timeout. The same feature
+ * instance can be passed to many proxies to let them share one pool.
+ * Requests to HTTPS endpoints or through a proxy server still use
+ * {@link java.net.HttpURLConnection}.
+ *
+ * <pre>
+ * for e.g.: To use at most 20 connections per host
+ * <p>
+ *
+ * HttpConnectionPoolFeature feature = new HttpConnectionPoolFeature(20, 30000);
+ * proxy = HelloService().getHelloPort(feature);
+ * ...
+ * System.out.println(feature.getConnectionPool());
+ *
+ * </pre>
+ *
+ * <p>
+ * <b>THIS feature IS EXPERIMENTAL AND IS SUBJECT TO CHANGE WITHOUT NOTICE IN FUTURE.</b>
+ *
+ * @author WS Development Team
+ */
+public final class HttpConnectionPoolFeature extends WebServiceFeature {
+    /**
+     * Constant value identifying the {@link HttpConnectionPoolFeature} feature.
+     */
+    public static final String ID = "http://jax-ws.java.net/features/http-connection-pool";
+
+    private int maxConnectionsPerHost = 20;
+    private long idleTimeout = 30000;
+
+    private HttpConnectionPool pool;      // shared object among the tubes
+
+    public HttpConnectionPoolFeature() {
+        this.enabled = true;
+    }
+
+    @FeatureConstructor({"enabled","maxConnectionsPerHost","idleTimeout"})
+    public HttpConnectionPoolFeature(boolean enabled, int maxConnectionsPerHost, long idleTimeout) {
+        this.enabled = enabled;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.idleTimeout = idleTimeout;
+    }
+
+    public HttpConnectionPoolFeature(int maxConnectionsPerHost, long idleTimeout) {
+        this(true, maxConnectionsPerHost, idleTimeout);
+    }
+
+    public String getID() {
+        return ID;
+    }
+
+    /**
+     * Maximum number of connections kept to one host. Non-positive value means
+     * no limit.
+     */
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    /**
+     * Time in milliseconds after which an idle connection is closed.
+     * Non-positive value means idle connections are kept.
+     */
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Returns the pool shared by all the proxies created with this feature.
+     * Once this is called, you cannot change the configuration.
+     */
+    public synchronized HttpConnectionPool getConnectionPool() {
+        if (pool == null) {
+            pool = new HttpConnectionPool(maxConnectionsPerHost, idleTimeout);
+        }
+        return pool;
+    }
+
+}
@@ -97,6 +97,22 @@ public interface JAXWSProperties {
      */
     public static final String HTTP_CLIENT_STREAMING_CHUNK_SIZE = "com.sun.xml.ws.transport.http.client.streaming.chunk.size";
 
+    /**
+     * Set this property on the {@link BindingProvider#getRequestContext()} to
+     * control when a request is streamed. A request that encodes to at most this
+     * many bytes is buffered and sent with a Content-Length header, so it can be
+     * resent for authentication or a redirect. Larger ones are streamed and
+     * can't be resent. Defaults to 1 MB; use {@link Integer#MAX_VALUE} to always
+     * buffer the request. This property has no effect if
+     * {@link #HTTP_CLIENT_STREAMING_CHUNK_SIZE} is set.
+     *
+     *<p>
+     * int threshold = ...;
+     * Map<String, Object> ctxt = ((BindingProvider)proxy).getRequestContext();
+     * ctxt.put(HTTP_CLIENT_STREAMING_THRESHOLD, threshold);
+     */
+    public static final String HTTP_CLIENT_STREAMING_THRESHOLD = "com.sun.xml.ws.transport.http.client.streaming.threshold";
+
 
     /**
      * Set this property on the {@link BindingProvider#getRequestContext()} to
@@ -246,5 +262,16 @@ public interface JAXWSProperties {
      * @since 2.1.4
      */
     public static final String REST_BINDING = "http://jax-ws.dev.java.net/rest";
+
+    /**
+     * Gets the {@link com.sun.xml.ws.encoding.AttachmentStore} that holds the
+     * attachments of the incoming message.
+     *
+     * The property value is available on incoming MIME messages if
+     * {@link StreamingAttachmentFeature#setOffHeap(boolean)} is enabled.
+     * Close the store to release the attachments before the garbage
+     * collector does.
+     */
+    public static final String ATTACHMENT_STORE = "com.sun.xml.ws.encoding.AttachmentStore";
     
 }
@@ -0,0 +1,128 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.developer;
+
+import com.sun.xml.ws.api.FeatureConstructor;
+
+import javax.xml.ws.WebServiceFeature;
+import java.util.zip.Deflater;
+
+/**
+ * Endpoint needs to be created with this feature to compress its HTTP
+ * responses with the gzip or deflate content coding, whichever the client
+ * prefers in its Accept-Encoding header.
+ *
+ * <p>
+ * A response is compressed only once it grows beyond the threshold, so small
+ * responses are still sent as they are, with a Content-Length header. Larger
+ * ones are compressed as they are written, and sent with chunked transfer
+ * coding (HTTP/1.1) or buffered to find out their length (HTTP/1.0).
+ * Responses that already have a Content-Encoding header are left alone.
+ *
+ * <pre>
+ * for e.g.: To compress responses larger than 8k
+ * <p>
+ *
+ * &#64;WebService
+ * &#64;ResponseCompression(threshold=8192)
+ * public class ReportService {
+ * }
+ *
+ * </pre>
+ *
+ * <p>
+ * <b>THIS feature IS EXPERIMENTAL AND IS SUBJECT TO CHANGE WITHOUT NOTICE IN FUTURE.</b>
+ *
+ * @see ResponseCompression
+ *
+ * @author WS Development Team
+ */
+public final class ResponseCompressionFeature extends WebServiceFeature {
+    /**
+     * Constant value identifying the {@link ResponseCompressionFeature} feature.
+     */
+    public static final String ID = "http://jax-ws.java.net/features/response-compression";
+
+    private int threshold = 1024;
+    private int level = Deflater.DEFAULT_COMPRESSION;
+
+    public ResponseCompressionFeature() {
+        this.enabled = true;
+    }
+
+    @FeatureConstructor({"enabled","threshold","level"})
+    public ResponseCompressionFeature(boolean enabled, int threshold, int level) {
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.level = level;
+    }
+
+    public ResponseCompressionFeature(int threshold) {
+        this(true, threshold, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    public String getID() {
+        return ID;
+    }
+
+    /**
+     * Responses of at most this many bytes are not compressed.
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Compression level from 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+}
@@ -101,6 +101,19 @@ public @interface SchemaValidation {
      */
     boolean outbound() default true;
 
+    /**
+     * Validates inbound messages while the payload is read by the databinding,
+     * so that the payload is parsed only once. By default, a copy of the
+     * message is validated before the message is passed on.
+     *
+     * <p>
+     * With streaming validation, an invalid request is detected only when the
+     * endpoint reads it, and an invalid response only when the client reads it.
+     *
+     * @since JAX-WS RI 2.2.9
+     */
+    boolean streaming() default false;
+
     /**
      * Does validation for bound headers in a SOAP message.
      *
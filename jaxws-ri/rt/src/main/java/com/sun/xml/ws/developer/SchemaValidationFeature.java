@@ -65,6 +65,7 @@ public class SchemaValidationFeature extends WebServiceFeature {
     private final Class<? extends ValidationErrorHandler> clazz;
     private final boolean inbound;
     private final boolean outbound;
+    private final boolean streaming;
 
     public SchemaValidationFeature() {
         this(true, true, DraconianValidationErrorHandler.class);
@@ -88,12 +89,20 @@ public class SchemaValidationFeature extends WebServiceFeature {
     /**
      * @since JAX-WS RI 2.2.2
      */
-    @FeatureConstructor({"inbound", "outbound", "handler"})
     public SchemaValidationFeature(boolean inbound, boolean outbound, Class<? extends ValidationErrorHandler> clazz) {
+        this(inbound, outbound, clazz, false);
+    }
+
+    /**
+     * @since JAX-WS RI 2.2.9
+     */
+    @FeatureConstructor({"inbound", "outbound", "handler", "streaming"})
+    public SchemaValidationFeature(boolean inbound, boolean outbound, Class<? extends ValidationErrorHandler> clazz, boolean streaming) {
         this.enabled = true;
         this.inbound = inbound;
         this.outbound = outbound;
         this.clazz = clazz;
+        this.streaming = streaming;
     }
 
     @ManagedAttribute
@@ -129,4 +138,14 @@ public class SchemaValidationFeature extends WebServiceFeature {
     public boolean isOutbound() {
         return outbound;
     }
+
+    /**
+     * Validates inbound messages while the payload is being read, instead
+     * of validating a copy of the message before it is read.
+     *
+     * @since JAX-WS RI 2.2.9
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
 }
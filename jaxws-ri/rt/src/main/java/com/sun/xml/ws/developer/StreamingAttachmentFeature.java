@@ -79,6 +79,7 @@ public final class StreamingAttachmentFeature extends WebServiceFeature {
     private String dir;
     private boolean parseEagerly;
     private long memoryThreshold;
+    private boolean offHeap;
 
     public StreamingAttachmentFeature() {
     }
@@ -136,4 +137,36 @@ public final class StreamingAttachmentFeature extends WebServiceFeature {
         this.memoryThreshold = memoryThreshold;
     }
 
+    /**
+     * Directory in which large attachments are stored, null for the
+     * default temporary directory
+     */
+    public @Nullable String getDir() {
+        return dir;
+    }
+
+    /**
+     * Threshold(no of bytes) after which large attachments are written
+     * to file system, -1 to keep all attachments in memory
+     */
+    public long getMemoryThreshold() {
+        return memoryThreshold;
+    }
+
+    /**
+     * Attachments of received messages are kept off the heap: in pooled
+     * direct buffers, or in files after the memory threshold. Each message
+     * has a {@link com.sun.xml.ws.encoding.AttachmentStore}, available as the
+     * {@link JAXWSProperties#ATTACHMENT_STORE} property, that reports how much
+     * its attachments hold.
+     */
+    public void setOffHeap(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    @ManagedAttribute
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
 }
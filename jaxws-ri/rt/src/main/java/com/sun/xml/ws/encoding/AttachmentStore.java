@@ -0,0 +1,615 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.encoding;
+
+import com.sun.istack.NotNull;
+import com.sun.istack.Nullable;
+import com.sun.xml.ws.developer.JAXWSProperties;
+import com.sun.xml.ws.developer.StreamingAttachmentFeature;
+import com.sun.xml.ws.developer.StreamingDataHandler;
+import com.sun.xml.ws.util.Pool;
+
+import org.jvnet.mimepull.MIMEPart;
+
+import javax.activation.DataSource;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the attachment parts of a MIME message off the heap.
+ *
+ * <p>
+ * Enabled by {@link StreamingAttachmentFeature#setOffHeap(boolean)}, one store
+ * is created for every message {@link MimeMultipartParser} parses. An attachment
+ * part is moved out of mimepull into the store the first time its content is
+ * accessed. Parts of up to {@link StreamingAttachmentFeature#getMemoryThreshold()}
+ * bytes are copied into direct buffers of the {@link Pool.DirectByteBuffer}
+ * pool, larger ones into a temporary file in {@link StreamingAttachmentFeature#getDir()}.
+ * A threshold of -1 keeps all parts in direct buffers, like mimepull keeps them
+ * all in memory.
+ *
+ * <p>
+ * The {@link javax.activation.DataHandler}s of the stored parts are
+ * {@link PartDataHandler}s, whose streams and channels read the buffers or the
+ * file directly. The store of an incoming message is available as the
+ * {@link JAXWSProperties#ATTACHMENT_STORE} property, and reports how many bytes
+ * its parts hold. {@link #close()} releases them; the server closes the store
+ * of a request once its exchange is complete, so the parts of a request can't
+ * be used afterwards unless they were moved to a file of the application.
+ * Parts that aren't released leave their buffers to the garbage collector;
+ * as a last resort, their temporary files are deleted when a later message
+ * is stored after the parts were garbage collected.
+ *
+ * @author WS Development Team
+ */
+public final class AttachmentStore {
+
+    private static final Logger LOGGER = Logger.getLogger(AttachmentStore.class.getName());
+
+    /**
+     * Temporary files of parts that were garbage collected without being released.
+     */
+    private static final ReferenceQueue<StoredPart> ABANDONED = new ReferenceQueue<StoredPart>();
+    private static final Set<SpillFile> SPILL_FILES = Collections.synchronizedSet(new HashSet<SpillFile>());
+
+    private final long threshold;
+    private final @Nullable File dir;
+    private final Pool<ByteBuffer> pool;
+
+    private final List<StoredPart> parts = new ArrayList<StoredPart>();
+    private final AtomicLong directBytes = new AtomicLong();
+    private final AtomicLong fileBytes = new AtomicLong();
+    private final AtomicLong heapBytes = new AtomicLong();
+
+    AttachmentStore(StreamingAttachmentFeature feature) {
+        this(feature.getMemoryThreshold(), (feature.getDir() != null) ? new File(feature.getDir()) : null,
+                Pool.DirectByteBuffer.getDefault());
+    }
+
+    AttachmentStore(long threshold, @Nullable File dir, Pool<ByteBuffer> pool) {
+        this.threshold = threshold;
+        this.dir = dir;
+        this.pool = pool;
+    }
+
+    /**
+     * Gets the capacity of the direct buffers the stored parts hold.
+     */
+    public long getDirectBytes() {
+        return directBytes.get();
+    }
+
+    /**
+     * Gets the size of the temporary files the stored parts hold.
+     */
+    public long getFileBytes() {
+        return fileBytes.get();
+    }
+
+    /**
+     * Gets the size of the byte arrays that parts were copied into with
+     * {@link com.sun.xml.ws.api.message.Attachment#asByteArray()}.
+     */
+    public long getHeapBytes() {
+        return heapBytes.get();
+    }
+
+    /**
+     * Releases all the stored parts. Their streams, channels and data handlers
+     * can't be used afterwards.
+     */
+    public void close() {
+        List<StoredPart> released;
+        synchronized (parts) {
+            released = new ArrayList<StoredPart>(parts);
+            parts.clear();
+        }
+        for (StoredPart part : released) {
+            part.release();
+        }
+    }
+
+    void addHeapBytes(long size) {
+        heapBytes.addAndGet(size);
+    }
+
+    /**
+     * Reads the content of a MIME part into the store.
+     */
+    @NotNull StoredPart store(MIMEPart mimePart) throws IOException {
+        deleteAbandonedFiles();
+        StoredPart part = new StoredPart(mimePart.getContentType());
+        InputStream in = mimePart.readOnce();
+        try {
+            part.read(Channels.newChannel(in));
+        } catch (IOException e) {
+            part.release();
+            throw e;
+        } catch (RuntimeException e) {
+            part.release();
+            throw e;
+        } finally {
+            in.close();
+        }
+        synchronized (parts) {
+            parts.add(part);
+        }
+        return part;
+    }
+
+    /**
+     * Content of an attachment part, in direct buffers or in a file.
+     */
+    final class StoredPart {
+        private final String contentType;
+        private List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+        private File file;
+        /**
+         * True if {@link #file} is a temporary file, rather than one the
+         * application moved the part to.
+         */
+        private boolean temporary;
+        private SpillFile spillFile;
+        private long size;
+        private boolean released;
+
+        StoredPart(String contentType) {
+            this.contentType = contentType;
+        }
+
+        String getContentType() {
+            return contentType;
+        }
+
+        synchronized long getSize() {
+            return size;
+        }
+
+        /**
+         * Reads the content into direct buffers, and moves it to a file once
+         * it exceeds the threshold.
+         */
+        void read(ReadableByteChannel in) throws IOException {
+            boolean eof = false;
+            while (!eof && (threshold < 0 || size <= threshold)) {
+                ByteBuffer buffer = pool.take();
+                buffer.clear();
+                while (buffer.hasRemaining()) {
+                    if (in.read(buffer) < 0) {
+                        eof = true;
+                        break;
+                    }
+                }
+                buffer.flip();
+                if (buffer.hasRemaining()) {
+                    addBuffer(buffer);
+                } else {
+                    pool.recycle(buffer);
+                }
+            }
+            if (threshold >= 0 && size > threshold) {
+                spill(in);
+            }
+        }
+
+        private synchronized void addBuffer(ByteBuffer buffer) {
+            buffers.add(buffer);
+            size += buffer.remaining();
+            directBytes.addAndGet(buffer.capacity());
+        }
+
+        private synchronized void spill(ReadableByteChannel in) throws IOException {
+            File f = File.createTempFile("jaxws", ".att", dir);
+            file = f;
+            temporary = true;
+            spillFile = new SpillFile(this, f);
+            RandomAccessFile raf = new RandomAccessFile(f, "rw");
+            try {
+                FileChannel out = raf.getChannel();
+                for (ByteBuffer buffer : buffers) {
+                    writeFully(buffer.duplicate(), out);
+                }
+                ByteBuffer buffer = pool.take();
+                try {
+                    buffer.clear();
+                    while (in.read(buffer) >= 0) {
+                        buffer.flip();
+                        size += buffer.remaining();
+                        writeFully(buffer, out);
+                        buffer.clear();
+                    }
+                } finally {
+                    pool.recycle(buffer);
+                }
+            } finally {
+                raf.close();
+            }
+            fileBytes.addAndGet(size);
+            recycleBuffers();
+        }
+
+        /**
+         * Opens a stream over the content. It reads the direct buffers or
+         * the file without copying them onto the heap first.
+         */
+        synchronized @NotNull InputStream newInputStream() throws IOException {
+            checkReleased();
+            if (file != null) {
+                return new FileInputStream(file);
+            }
+            return new BufferReader(buffers);
+        }
+
+        /**
+         * Opens a channel over the content; a {@link FileChannel} if it is in a file.
+         */
+        synchronized @NotNull ReadableByteChannel newChannel() throws IOException {
+            checkReleased();
+            if (file != null) {
+                return new RandomAccessFile(file, "r").getChannel();
+            }
+            return new BufferReader(buffers);
+        }
+
+        /**
+         * Writes the content, with {@link FileChannel#transferTo(long, long, WritableByteChannel)}
+         * if it is in a file.
+         */
+        void transferTo(WritableByteChannel out) throws IOException {
+            ReadableByteChannel in = newChannel();
+            try {
+                if (in instanceof FileChannel) {
+                    FileChannel fc = (FileChannel) in;
+                    long position = 0;
+                    long length = fc.size();
+                    while (position < length) {
+                        position += fc.transferTo(position, length - position, out);
+                    }
+                } else {
+                    for (ByteBuffer buffer : ((BufferReader) in).buffers) {
+                        writeFully(buffer, out);
+                    }
+                }
+            } finally {
+                in.close();
+            }
+        }
+
+        /**
+         * Moves the content to a file of the application. The temporary file
+         * is renamed if possible; the part reads the new file from then on.
+         */
+        synchronized void moveTo(File target) throws IOException {
+            checkReleased();
+            if (file != null && temporary && file.renameTo(target)) {
+                fileBytes.addAndGet(-size);
+                spillFile.dispose();
+                spillFile = null;
+            } else {
+                FileOutputStream out = new FileOutputStream(target);
+                try {
+                    transferTo(out.getChannel());
+                } finally {
+                    out.close();
+                }
+                if (file != null && temporary) {
+                    fileBytes.addAndGet(-size);
+                    deleteFile();
+                }
+                recycleBuffers();
+            }
+            file = target;
+            temporary = false;
+        }
+
+        /**
+         * Gives the buffers back to the pool and deletes the temporary file.
+         */
+        synchronized void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+            recycleBuffers();
+            if (file != null && temporary) {
+                fileBytes.addAndGet(-size);
+                deleteFile();
+            }
+        }
+
+        private void recycleBuffers() {
+            for (ByteBuffer buffer : buffers) {
+                directBytes.addAndGet(-buffer.capacity());
+                pool.recycle(buffer);
+            }
+            buffers = new ArrayList<ByteBuffer>();
+        }
+
+        private void deleteFile() {
+            spillFile.dispose();
+            spillFile = null;
+            AttachmentStore.deleteFile(file);
+        }
+
+        private void checkReleased() throws IOException {
+            if (released) {
+                throw new IOException("Attachment part released");
+            }
+        }
+    }
+
+    /**
+     * Temporary file of a part, which is deleted if nobody released the part
+     * before it was garbage collected.
+     */
+    private static final class SpillFile extends PhantomReference<StoredPart> {
+        private final File file;
+
+        SpillFile(StoredPart part, File file) {
+            super(part, ABANDONED);
+            this.file = file;
+            SPILL_FILES.add(this);
+        }
+
+        /**
+         * The part deleted or moved the file itself.
+         */
+        void dispose() {
+            SPILL_FILES.remove(this);
+            clear();
+        }
+    }
+
+    private static void deleteAbandonedFiles() {
+        Reference<? extends StoredPart> ref;
+        while ((ref = ABANDONED.poll()) != null) {
+            SpillFile spillFile = (SpillFile) ref;
+            if (SPILL_FILES.remove(spillFile)) {
+                deleteFile(spillFile.file);
+            }
+        }
+    }
+
+    private static void deleteFile(File file) {
+        if (!file.delete() && file.exists()) {
+            LOGGER.log(Level.WARNING, "Unable to delete {0}", file);
+        }
+    }
+
+    private static void writeFully(ByteBuffer buffer, WritableByteChannel out) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Reads a list of buffers, as an {@link InputStream} or a {@link ReadableByteChannel}.
+     */
+    private static final class BufferReader extends InputStream implements ReadableByteChannel {
+        private final List<ByteBuffer> buffers;
+        private int index;
+        private boolean closed;
+
+        BufferReader(List<ByteBuffer> buffers) {
+            // each reader has its own positions
+            List<ByteBuffer> duplicates = new ArrayList<ByteBuffer>(buffers.size());
+            for (ByteBuffer buffer : buffers) {
+                duplicates.add(buffer.duplicate());
+            }
+            this.buffers = duplicates;
+        }
+
+        private ByteBuffer current() throws IOException {
+            if (closed) {
+                throw new ClosedChannelException();
+            }
+            while (index < buffers.size()) {
+                ByteBuffer buffer = buffers.get(index);
+                if (buffer.hasRemaining()) {
+                    return buffer;
+                }
+                index++;
+            }
+            return null;
+        }
+
+        @Override
+        public int read() throws IOException {
+            ByteBuffer buffer = current();
+            return (buffer == null) ? -1 : buffer.get() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            ByteBuffer buffer = current();
+            if (buffer == null) {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+        public int read(ByteBuffer dst) throws IOException {
+            ByteBuffer buffer = current();
+            if (buffer == null) {
+                return -1;
+            }
+            int n = 0;
+            while (buffer != null && dst.hasRemaining()) {
+                int len = Math.min(dst.remaining(), buffer.remaining());
+                ByteBuffer slice = buffer.duplicate();
+                slice.limit(slice.position() + len);
+                dst.put(slice);
+                buffer.position(buffer.position() + len);
+                n += len;
+                buffer = current();
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = 0;
+            ByteBuffer buffer;
+            while (skipped < n && (buffer = current()) != null) {
+                int len = (int) Math.min(n - skipped, buffer.remaining());
+                buffer.position(buffer.position() + len);
+                skipped += len;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            long n = 0;
+            for (int i = index; i < buffers.size(); i++) {
+                n += buffers.get(i).remaining();
+            }
+            return (int) Math.min(n, Integer.MAX_VALUE);
+        }
+
+        public boolean isOpen() {
+            return !closed;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    /**
+     * {@link StreamingDataHandler} of a stored attachment part.
+     *
+     * <p>
+     * Besides streams, it gives {@link #getChannel() channels} over the content,
+     * and {@link #transferTo(WritableByteChannel) writes} it without copying it
+     * onto the heap.
+     */
+    public static final class PartDataHandler extends StreamingDataHandler {
+        private final StoredPart part;
+
+        PartDataHandler(final StoredPart part) {
+            super(new DataSource() {
+                public InputStream getInputStream() throws IOException {
+                    return part.newInputStream();
+                }
+
+                public OutputStream getOutputStream() throws IOException {
+                    return null;
+                }
+
+                public String getContentType() {
+                    return part.getContentType();
+                }
+
+                public String getName() {
+                    return "";
+                }
+            });
+            this.part = part;
+        }
+
+        /**
+         * Gets the size of the content in bytes.
+         */
+        public long getSize() {
+            return part.getSize();
+        }
+
+        /**
+         * Opens a channel over the content. It is a {@link FileChannel} if the
+         * part is stored in a file, which can then be mapped.
+         */
+        public @NotNull ReadableByteChannel getChannel() throws IOException {
+            return part.newChannel();
+        }
+
+        /**
+         * Writes the content to a channel, with {@link FileChannel#transferTo(long, long, WritableByteChannel)}
+         * if the part is stored in a file.
+         */
+        public void transferTo(@NotNull WritableByteChannel out) throws IOException {
+            part.transferTo(out);
+        }
+
+        @Override
+        public InputStream readOnce() throws IOException {
+            return part.newInputStream();
+        }
+
+        @Override
+        public void moveTo(File file) throws IOException {
+            part.moveTo(file);
+        }
+
+        @Override
+        public void close() throws IOException {
+            part.release();
+        }
+    }
+}
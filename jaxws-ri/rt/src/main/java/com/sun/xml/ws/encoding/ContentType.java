@@ -47,20 +47,56 @@
 package com.sun.xml.ws.encoding;
 
 import javax.xml.ws.WebServiceException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * This class represents a MIME ContentType value. It provides
  * methods to parse a ContentType string into individual components
  * and to generate a MIME style ContentType string.
  *
+ * <p>
+ * Instances are immutable. {@link #parse(String)} keeps the parsed form of
+ * the Content-Type strings it has seen, since a service usually receives only
+ * a handful of different ones. The <tt>boundary</tt> and <tt>start</tt>
+ * parameters of multipart types change with every message, so they are left
+ * out of the cache key and set on a copy of the cached instance.
+ *
  * @version 1.7, 02/03/27
  * @author  John Mani
  */
 public final class ContentType {
 
-    private String primaryType;	// primary type
-    private String subType;	// subtype
-    private ParameterList list;	// parameter list
+    /**
+     * Parameters whose values are unique to a message.
+     */
+    private static final String[] MESSAGE_PARAMETERS = {"boundary", "start"};
+
+    private static final int CACHE_SIZE;
+
+    static {
+        int size = 256;
+        try {
+            size = Integer.getInteger(ContentType.class.getName() + ".cacheSize", size);
+        } catch (SecurityException e) {
+            // use the default
+        }
+        CACHE_SIZE = size;
+    }
+
+    private static final ConcurrentMap<String, ContentType> cache = new ConcurrentHashMap<String, ContentType>();
+
+    private final String primaryType;	// primary type
+    private final String subType;	// subtype
+    private final ParameterList list;	// parameter list
+
+    /**
+     * Values of {@link #MESSAGE_PARAMETERS} that replace those of {@link #list},
+     * null for an instance parsed from the Content-Type string itself.
+     */
+    private final String[] messageParameters;
+    private ParameterList mergedList;
+    private String baseType;
 
     /**
      * Constructor that takes a Content-Type string. The String
@@ -93,8 +129,146 @@ public final class ContentType {
 
         // Finally parameters ..
         String rem = h.getRemainder();
-        if (rem != null)
-            list = new ParameterList(rem);
+        list = (rem != null) ? new ParameterList(rem) : null;
+        messageParameters = null;
+    }
+
+    private ContentType(ContentType that, String[] messageParameters) {
+        this.primaryType = that.primaryType;
+        this.subType = that.subType;
+        this.list = that.list;
+        this.baseType = that.baseType;
+        this.messageParameters = messageParameters;
+    }
+
+    /**
+     * Parses a Content-Type string like {@link #ContentType(String)} does,
+     * but returns a cached instance if the same string, up to its
+     * <tt>boundary</tt> and <tt>start</tt> parameters, has been parsed before.
+     *
+     * @param	s	the Content-Type string.
+     * @exception WebServiceException if the parse fails.
+     */
+    public static ContentType parse(String s) throws WebServiceException {
+        if (CACHE_SIZE <= 0) {
+            return new ContentType(s);
+        }
+        String[] values = null;
+        String key = s;
+        if (s.indexOf(';') >= 0) {
+            values = new String[MESSAGE_PARAMETERS.length];
+            key = stripMessageParameters(s, values);
+            if (key == null) {
+                // too unusual to be worth caching
+                return new ContentType(s);
+            }
+            if (key == s) {
+                values = null;
+            }
+        }
+        ContentType ct = cache.get(key);
+        if (ct == null) {
+            ct = new ContentType(key);
+            if (cache.size() >= CACHE_SIZE) {
+                cache.clear();
+            }
+            cache.put(key, ct);
+        }
+        return (values != null) ? new ContentType(ct, values) : ct;
+    }
+
+    /**
+     * Removes the values of the {@link #MESSAGE_PARAMETERS} from a Content-Type string.
+     *
+     * @param values
+     *      receives the removed values.
+     * @return
+     *      the string with the values replaced by <tt>""</tt>, the string itself if it
+     *      has none of these parameters, or null if the values can't be taken out
+     *      without a full parse.
+     */
+    private static String stripMessageParameters(String s, String[] values) {
+        StringBuilder key = null;
+        int copied = 0;
+        int len = s.length();
+        int i = 0;
+        while (i < len) {
+            char c = s.charAt(i++);
+            if (c == '"') {
+                // skip a quoted string of another parameter
+                while (i < len && (c = s.charAt(i++)) != '"') {
+                    if (c == '\\') {
+                        i++;
+                    }
+                }
+                continue;
+            }
+            if (c != ';') {
+                continue;
+            }
+            i = skipWhitespace(s, i);
+            int p = messageParameter(s, i);
+            if (p < 0) {
+                continue;
+            }
+            i = skipWhitespace(s, i + MESSAGE_PARAMETERS[p].length());
+            if (i == len || s.charAt(i) != '=' || values[p] != null) {
+                return null;
+            }
+            i = skipWhitespace(s, i + 1);
+            int start;
+            int end;
+            if (i < len && s.charAt(i) == '"') {
+                start = i + 1;
+                end = s.indexOf('"', start);
+                if (end < 0 || s.indexOf('\\', start) >= 0 && s.indexOf('\\', start) < end) {
+                    return null;
+                }
+                i = end + 1;
+            } else {
+                start = i;
+                while (i < len && s.charAt(i) != ';' && !Character.isWhitespace(s.charAt(i))) {
+                    if (HeaderTokenizer.MIME.indexOf(s.charAt(i)) >= 0) {
+                        return null;
+                    }
+                    i++;
+                }
+                end = i;
+                if (start == end) {
+                    return null;
+                }
+            }
+            values[p] = s.substring(start, end);
+            if (key == null) {
+                key = new StringBuilder(len);
+            }
+            key.append(s, copied, (s.charAt(start - 1) == '"') ? start - 1 : start).append("\"\"");
+            copied = (s.charAt(start - 1) == '"') ? end + 1 : end;
+        }
+        if (key == null) {
+            return s;
+        }
+        return key.append(s, copied, len).toString();
+    }
+
+    private static int skipWhitespace(String s, int i) {
+        while (i < s.length() && Character.isWhitespace(s.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int messageParameter(String s, int i) {
+        for (int p = 0; p < MESSAGE_PARAMETERS.length; p++) {
+            String name = MESSAGE_PARAMETERS[p];
+            if (s.regionMatches(true, i, name, 0, name.length())) {
+                int end = skipWhitespace(s, i + name.length());
+                if (end < s.length() && s.charAt(end) == '=') {
+                    return p;
+                }
+            }
+        }
+        return -1;
     }
 
 
@@ -122,7 +296,12 @@ public final class ContentType {
      * @return the type
      */
     public String getBaseType() {
-	    return primaryType + '/' + subType;
+        String t = baseType;
+        if (t == null) {
+            t = primaryType + '/' + subType;
+            baseType = t;
+        }
+        return t;
     }
 
     /**
@@ -133,6 +312,13 @@ public final class ContentType {
      * @return	parameter value
      */
     public String getParameter(String name) {
+        if (messageParameters != null) {
+            for (int p = 0; p < MESSAGE_PARAMETERS.length; p++) {
+                if (MESSAGE_PARAMETERS[p].equalsIgnoreCase(name.trim())) {
+                    return messageParameters[p];
+                }
+            }
+        }
         if (list == null)
             return null;
 
@@ -146,8 +332,15 @@ public final class ContentType {
      * @return	ParameterList
      */
     public ParameterList getParameterList() {
-	    return list;
+        if (messageParameters == null) {
+            return list;
+        }
+        ParameterList l = mergedList;
+        if (l == null) {
+            l = new ParameterList(list, MESSAGE_PARAMETERS, messageParameters);
+            mergedList = l;
+        }
+        return l;
     }
 
 }
-
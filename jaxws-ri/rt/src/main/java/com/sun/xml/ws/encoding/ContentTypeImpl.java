@@ -75,7 +75,7 @@ public final class ContentTypeImpl implements com.sun.xml.ws.api.pipe.ContentTyp
         if (charsetParam == null) {
             String tmpCharset = null;
             try {
-                internalContentType = new ContentType(contentType);
+                internalContentType = ContentType.parse(contentType);
                 tmpCharset = internalContentType.getParameter("charset");
             } catch(Exception e) {
                 //Ignore the parsing exception.
@@ -126,9 +126,25 @@ public final class ContentTypeImpl implements com.sun.xml.ws.api.pipe.ContentTyp
         this.accept = accept;
     }
 
+    /**
+     * Returns the MIME type without the parameters.
+     *
+     * @return null if the content type can't be parsed.
+     */
+    @Nullable String getBaseType() {
+        if (internalContentType == null) {
+            try {
+                internalContentType = ContentType.parse(contentType);
+            } catch (Exception e) {
+                return null;
+            }
+        }
+        return internalContentType.getBaseType();
+    }
+
     public String getBoundary() {
         if (boundary == null) {
-            if (internalContentType == null) internalContentType = new ContentType(contentType);
+            if (internalContentType == null) internalContentType = ContentType.parse(contentType);
             boundary = internalContentType.getParameter("boundary");
         }
         return boundary;
@@ -148,7 +164,7 @@ public final class ContentTypeImpl implements com.sun.xml.ws.api.pipe.ContentTyp
 
     public String getRootId() {
         if (rootId == null) {
-            if (internalContentType == null) internalContentType = new ContentType(contentType);
+            if (internalContentType == null) internalContentType = ContentType.parse(contentType);
             rootId = internalContentType.getParameter("start");
         }
         return rootId;
@@ -0,0 +1,142 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.encoding;
+
+import com.sun.istack.Nullable;
+import com.sun.xml.ws.util.ChannelOutputStream;
+
+import javax.activation.DataHandler;
+import javax.activation.DataSource;
+import javax.activation.FileDataSource;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes the content of {@link DataHandler}s into encoded MIME messages.
+ *
+ * <p>
+ * Content in a file, i.e. a {@link FileDataSource} or an attachment part in
+ * a file of an {@link AttachmentStore}, is sent with
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)} when the
+ * codec writes to a channel, which lets the operating system copy it without
+ * going through user space. Anything else is written with
+ * {@link DataHandler#writeTo(OutputStream)}.
+ *
+ * @author WS Development Team
+ */
+public final class DataHandlerWriter {
+
+    private DataHandlerWriter() {
+    }
+
+    /**
+     * Writes the content of a {@link DataHandler}.
+     */
+    public static void writeTo(DataHandler dh, OutputStream out) throws IOException {
+        if (dh instanceof AttachmentStore.PartDataHandler) {
+            WritableByteChannel channel = getChannel(out);
+            if (channel != null) {
+                ((AttachmentStore.PartDataHandler) dh).transferTo(channel);
+                return;
+            }
+        } else {
+            File file = getFile(dh);
+            if (file != null) {
+                WritableByteChannel channel = getChannel(out);
+                if (channel != null) {
+                    transferTo(file, channel);
+                    return;
+                }
+            }
+        }
+        dh.writeTo(out);
+    }
+
+    /**
+     * Gets the channel an {@link OutputStream} writes to, after flushing it.
+     *
+     * @return null if the stream doesn't write to a channel.
+     */
+    static @Nullable WritableByteChannel getChannel(OutputStream out) throws IOException {
+        if (out instanceof ChannelOutputStream) {
+            return ((ChannelOutputStream) out).getChannel();
+        }
+        if (out instanceof FileOutputStream) {
+            return ((FileOutputStream) out).getChannel();
+        }
+        return null;
+    }
+
+    /**
+     * Gets the file that holds the content of a {@link DataHandler}.
+     *
+     * @return null if the content isn't known to be in a file.
+     */
+    static @Nullable File getFile(DataHandler dh) {
+        DataSource ds = dh.getDataSource();
+        if (ds instanceof FileDataSource) {
+            File file = ((FileDataSource) ds).getFile();
+            if (file.isFile()) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    private static void transferTo(File file, WritableByteChannel out) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel fc = in.getChannel();
+            long position = 0;
+            long length = fc.size();
+            while (position < length) {
+                position += fc.transferTo(position, length - position, out);
+            }
+        } finally {
+            in.close();
+        }
+    }
+}
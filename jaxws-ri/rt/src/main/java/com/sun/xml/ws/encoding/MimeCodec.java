@@ -48,14 +48,19 @@ import com.sun.xml.ws.api.message.Message;
 import com.sun.xml.ws.api.message.Packet;
 import com.sun.xml.ws.api.pipe.Codec;
 import com.sun.xml.ws.api.pipe.ContentType;
+import com.sun.xml.ws.developer.JAXWSProperties;
 import com.sun.xml.ws.developer.StreamingAttachmentFeature;
+import com.sun.xml.ws.util.ChannelInputStream;
+import com.sun.xml.ws.util.ChannelOutputStream;
 import javax.activation.CommandMap;
 import javax.activation.MailcapCommandMap;
+import javax.xml.ws.WebServiceException;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Iterator;
 import java.util.UUID;
 
@@ -169,6 +174,19 @@ abstract class MimeCodec implements Codec {
         return hasAttachments ? ctImpl : primaryCt;
     }
     
+    public ContentType encode(Packet packet, WritableByteChannel buffer) {
+        ChannelOutputStream out = new ChannelOutputStream(buffer);
+        try {
+            ContentType ct = encode(packet, out);
+            out.close();
+            return ct;
+        } catch (IOException e) {
+            throw new WebServiceException(e);
+        } finally {
+            out.recycle();
+        }
+    }
+
     private void writeCustomMimeHeaders(Attachment att, OutputStream out) throws IOException {
         if (att instanceof AttachmentEx) {
             Iterator<AttachmentEx.MimeHeader> allMimeHeaders = ((AttachmentEx) att).getMimeHeaders();
@@ -219,11 +237,25 @@ abstract class MimeCodec implements Codec {
 
     public void decode(InputStream in, String contentType, Packet packet) throws IOException {
         MimeMultipartParser parser = new MimeMultipartParser(in, contentType, features.get(StreamingAttachmentFeature.class));
+        setAttachmentStore(parser, packet);
         decode(parser,packet);
     }
 
     public void decode(ReadableByteChannel in, String contentType, Packet packet) {
-        throw new UnsupportedOperationException();
+        try {
+            MimeMultipartParser parser = new MimeMultipartParser(new ChannelInputStream(in), contentType, features.get(StreamingAttachmentFeature.class));
+            setAttachmentStore(parser, packet);
+            decode(parser,packet);
+        } catch (IOException e) {
+            throw new WebServiceException(e);
+        }
+    }
+
+    private static void setAttachmentStore(MimeMultipartParser parser, Packet packet) {
+        AttachmentStore store = parser.getAttachmentStore();
+        if (store != null) {
+            packet.invocationProperties.put(JAXWSProperties.ATTACHMENT_STORE, store);
+        }
     }
 
     /**
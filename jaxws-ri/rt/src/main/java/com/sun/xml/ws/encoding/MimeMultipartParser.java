@@ -63,6 +63,8 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -81,6 +83,7 @@ public final class MimeMultipartParser {
 
     private final String start;
     private final MIMEMessage message;
+    private final AttachmentStore store;
     private Attachment root;
     private ContentTypeImpl contentType;
     
@@ -107,6 +110,7 @@ public final class MimeMultipartParser {
             st = st.substring(1, st.length()-1);
         }
         start = st;
+        store = (feature != null && feature.isOffHeap()) ? new AttachmentStore(feature) : null;
     }
 
     /**
@@ -138,7 +142,7 @@ public final class MimeMultipartParser {
                 if (part != rootPart) {
                     String cid = part.getContentId();
                     if (!attachments.containsKey(cid)) {
-                        PartAttachment attach = new PartAttachment(part);
+                        PartAttachment attach = new PartAttachment(part, store);
                         attachments.put(attach.getContentId(), attach);
                     }
                 }
@@ -160,20 +164,51 @@ public final class MimeMultipartParser {
         Attachment attach = attachments.get(contentId);
         if (attach == null) {
             MIMEPart part = message.getPart(contentId);
-            attach = new PartAttachment(part);
+            attach = new PartAttachment(part, store);
             attachments.put(contentId, attach);
         }
         return attach;
     }
 
+    /**
+     * Gets the store that keeps the attachment parts off the heap.
+     *
+     * @return null unless {@link StreamingAttachmentFeature#setOffHeap(boolean)}
+     *         is enabled
+     */
+    public @Nullable AttachmentStore getAttachmentStore() {
+        return store;
+    }
+
     static class PartAttachment implements AttachmentEx {
 
         final MIMEPart part;
+        private final AttachmentStore store;
+        private AttachmentStore.StoredPart stored;
         byte[] buf;
         private StreamingDataHandler streamingDataHandler;
 
         PartAttachment(MIMEPart part) {
+            this(part, null);
+        }
+
+        PartAttachment(MIMEPart part, @Nullable AttachmentStore store) {
             this.part = part;
+            this.store = store;
+        }
+
+        /**
+         * Moves the content of the part into the store, the first time it is accessed.
+         */
+        private AttachmentStore.StoredPart stored() {
+            if (stored == null) {
+                try {
+                    stored = store.store(part);
+                } catch (IOException ioe) {
+                    throw new WebServiceException(ioe);
+                }
+            }
+            return stored;
         }
 
         public @NotNull @Override String getContentId() {
@@ -189,7 +224,7 @@ public final class MimeMultipartParser {
             if (buf == null) {
                 ByteArrayBuffer baf = new ByteArrayBuffer();
                 try {
-                    baf.write(part.readOnce());
+                    baf.write((store != null) ? stored().newInputStream() : part.readOnce());
                 } catch(IOException ioe) {
                     throw new WebServiceException(ioe);
                 } finally {
@@ -202,6 +237,9 @@ public final class MimeMultipartParser {
                     }
                 }
                 buf = baf.toByteArray();
+                if (store != null) {
+                    store.addHeapBytes(buf.length);
+                }
             }
             return buf;
         }
@@ -209,30 +247,44 @@ public final class MimeMultipartParser {
         @Override
         public DataHandler asDataHandler() {
             if (streamingDataHandler == null) {
-                streamingDataHandler = (buf != null)
-                    ? new DataSourceStreamingDataHandler(new ByteArrayDataSource(buf,getContentType()))
-                    : new MIMEPartStreamingDataHandler(part);
+                if (buf != null) {
+                    streamingDataHandler = new DataSourceStreamingDataHandler(new ByteArrayDataSource(buf,getContentType()));
+                } else if (store != null) {
+                    streamingDataHandler = new AttachmentStore.PartDataHandler(stored());
+                } else {
+                    streamingDataHandler = new MIMEPartStreamingDataHandler(part);
+                }
             }
             return streamingDataHandler;                
         }
 
         @Override
         public Source asSource() {
-            return (buf != null)
-                ? new StreamSource(new ByteArrayInputStream(buf))
-                : new StreamSource(part.read());
+            return new StreamSource(asInputStream());
         }
 
         @Override
         public InputStream asInputStream() {
-            return (buf != null)
-                ? new ByteArrayInputStream(buf) : part.read();
+            if (buf != null) {
+                return new ByteArrayInputStream(buf);
+            }
+            if (store != null) {
+                try {
+                    return stored().newInputStream();
+                } catch (IOException ioe) {
+                    throw new WebServiceException(ioe);
+                }
+            }
+            return part.read();
         }
 
         @Override
         public void writeTo(OutputStream os) throws IOException {
             if (buf != null) {
                 os.write(buf);
+            } else if (store != null) {
+                WritableByteChannel channel = DataHandlerWriter.getChannel(os);
+                stored().transferTo(channel != null ? channel : Channels.newChannel(os));
             } else {
                 InputStream in = part.read();
                 byte[] temp = new byte[8192];
@@ -80,7 +80,6 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
-import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -236,7 +235,7 @@ public class MtomCodec extends MimeCodec {
             //build attachment frame
             writeln("--"+boundary, os);
             writeMimeHeaders(dh.getContentType(), contentId, os);
-            dh.writeTo(os);
+            DataHandlerWriter.writeTo(dh, os);
             writeln(os);
         }
     }
@@ -275,11 +274,6 @@ public class MtomCodec extends MimeCodec {
         }
     }
 
-    @Override
-    public ContentType encode(Packet packet, WritableByteChannel buffer) {
-        throw new UnsupportedOperationException();
-    }
-
     @Override
     public MtomCodec copy() {
         return new MtomCodec(version, (StreamSOAPCodec)codec.copy(), features);
@@ -110,6 +110,21 @@ final class ParameterList {
         }
     }
 
+    /**
+     * Copy constructor that replaces the values of some parameters.
+     * Null values are left out.
+     */
+    ParameterList(ParameterList that, String[] names, String[] values) {
+        list = new HashMap<String, String>(that.list);
+        for (int i = 0; i < names.length; i++) {
+            if (values[i] != null) {
+                list.put(names[i], values[i]);
+            } else {
+                list.remove(names[i]);
+            }
+        }
+    }
+
     /**
      * Return the number of parameters in this list.
      *
@@ -63,6 +63,7 @@ import javax.xml.ws.soap.MTOMFeature;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
@@ -180,7 +181,7 @@ public class SOAPBindingCodec extends MimeCodec implements com.sun.xml.ws.api.pi
         WebServiceFeature fi = features.get(FastInfosetFeature.class);
         isFastInfosetDisabled = (fi != null && !fi.isEnabled());
         if (!isFastInfosetDisabled) {
-            fiSoapCodec = getFICodec(xmlSoapCodec, version);
+            fiSoapCodec = getFICodec(xmlSoapCodec, version, (FastInfosetFeature) fi);
             if (fiSoapCodec != null) {
                 fiMimeType = fiSoapCodec.getMimeType();
                 fiSwaCodec = new SwACodec(version, features, fiSoapCodec);
@@ -298,13 +299,16 @@ public class SOAPBindingCodec extends MimeCodec implements com.sun.xml.ws.api.pi
         if (contentType == null) {
             contentType = xmlMimeType;
         }
-        packet.setContentType(new ContentTypeImpl(contentType));
+        ContentTypeImpl cti = new ContentTypeImpl(contentType);
+        packet.setContentType(cti);
         preDecode(packet);
+        String baseType = cti.getBaseType();
+        String type = (baseType != null) ? baseType : contentType;
         try {
-            if(isMultipartRelated(contentType))
+            if(isMultipartRelated(type))
                 // parse the multipart portion and then decide whether it's MTOM or SwA
                 super.decode(in, contentType, packet);
-            else if(isFastInfoset(contentType)) {
+            else if(isFastInfoset(type)) {
                 if (!ignoreContentNegotiationProperty && packet.contentNegotiation == ContentNegotiation.none)
                     throw noFastInfosetForDecoding();
 
@@ -328,10 +332,11 @@ public class SOAPBindingCodec extends MimeCodec implements com.sun.xml.ws.api.pi
         }
 
         preDecode(packet);
+        String type = getBaseType(contentType);
         try {
-            if(isMultipartRelated(contentType))
+            if(isMultipartRelated(type))
                 super.decode(in, contentType, packet);
-            else if(isFastInfoset(contentType)) {
+            else if(isFastInfoset(type)) {
                 if (packet.contentNegotiation == ContentNegotiation.none)
                     throw noFastInfosetForDecoding();
 
@@ -356,7 +361,7 @@ public class SOAPBindingCodec extends MimeCodec implements com.sun.xml.ws.api.pi
     @Override
     protected void decode(MimeMultipartParser mpp, Packet packet) throws IOException {
         // is this SwA or XOP?
-        final String rootContentType = mpp.getRootPart().getContentType();
+        final String rootContentType = getBaseType(mpp.getRootPart().getContentType());
         boolean isMTOM = isApplicationXopXml(rootContentType);
         packet.setMtomRequest(isMTOM);
         if(isMTOM) {
@@ -376,6 +381,21 @@ public class SOAPBindingCodec extends MimeCodec implements com.sun.xml.ws.api.pi
 //        checkDuplicateKnownHeaders(packet);
     }
     
+    /**
+     * Gets the MIME type without the parameters, which the decoder is chosen by.
+     * Parsed content types are cached, see {@link com.sun.xml.ws.encoding.ContentType#parse(String)}.
+     *
+     * @return
+     *      the content type itself if it can't be parsed.
+     */
+    private static String getBaseType(String contentType) {
+        try {
+            return com.sun.xml.ws.encoding.ContentType.parse(contentType).getBaseType();
+        } catch (WebServiceException e) {
+            return contentType;
+        }
+    }
+
     private boolean isMultipartRelated(String contentType) {
         return compareStrings(contentType, MimeCodec.MULTIPART_RELATED_MIME_TYPE);
     }
@@ -395,10 +415,7 @@ public class SOAPBindingCodec extends MimeCodec implements com.sun.xml.ws.api.pi
     }
     
     private boolean compareStrings(String a, String b) {
-        return a.length() >= b.length() &&
-                b.equalsIgnoreCase(
-                a.substring(0,
-                b.length()));
+        return a.regionMatches(true, 0, b, 0, b.length());
     }
     
 //    private boolean isFastInfosetAcceptable(String accept) {
@@ -486,11 +503,17 @@ public class SOAPBindingCodec extends MimeCodec implements com.sun.xml.ws.api.pi
     /**
      * Obtain an FI SOAP codec instance using reflection.
      */
-    private static Codec getFICodec(StreamSOAPCodec soapCodec, SOAPVersion version) {
+    private static Codec getFICodec(StreamSOAPCodec soapCodec, SOAPVersion version, FastInfosetFeature fi) {
         try {
             Class c = Class.forName("com.sun.xml.ws.encoding.fastinfoset.FastInfosetStreamSOAPCodec");
-            Method m = c.getMethod("create", StreamSOAPCodec.class, SOAPVersion.class);
-            return (Codec)m.invoke(null, soapCodec, version);
+            Method m = c.getMethod("create", StreamSOAPCodec.class, SOAPVersion.class, FastInfosetFeature.class);
+            return (Codec)m.invoke(null, soapCodec, version, fi);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof WebServiceException) {
+                // the vocabulary cannot be loaded
+                throw (WebServiceException) e.getCause();
+            }
+            return null;
         } catch (Exception e) {
             // TODO Log that FI cannot be loaded
             return null;
@@ -66,6 +66,8 @@ import com.sun.xml.ws.message.stream.StreamMessage;
 import com.sun.xml.ws.protocol.soap.VersionMismatchException;
 import com.sun.xml.ws.server.UnsupportedMediaException;
 import com.sun.xml.ws.streaming.XMLStreamReaderUtil;
+import com.sun.xml.ws.util.ChannelInputStream;
+import com.sun.xml.ws.util.ChannelOutputStream;
 import com.sun.xml.ws.util.ServiceFinder;
 
 import javax.xml.stream.XMLStreamConstants;
@@ -156,8 +158,16 @@ public abstract class StreamSOAPCodec implements com.sun.xml.ws.api.pipe.StreamS
     protected abstract String getDefaultContentType();
 
     public ContentType encode(Packet packet, WritableByteChannel buffer) {
-        //TODO: not yet implemented
-        throw new UnsupportedOperationException();
+        ChannelOutputStream out = new ChannelOutputStream(buffer);
+        try {
+            ContentType ct = encode(packet, out);
+            out.close();
+            return ct;
+        } catch (IOException e) {
+            throw new WebServiceException(e);
+        } finally {
+            out.recycle();
+        }
     }
 
     protected abstract List<String> getExpectedContentTypes();
@@ -222,7 +232,7 @@ public abstract class StreamSOAPCodec implements com.sun.xml.ws.api.pipe.StreamS
     }
 
     public void decode(ReadableByteChannel in, String contentType, Packet packet ) {
-        throw new UnsupportedOperationException();
+        decode(in, contentType, packet, new AttachmentSetImpl());
     }
 
     public final StreamSOAPCodec copy() {
@@ -250,7 +260,11 @@ public abstract class StreamSOAPCodec implements com.sun.xml.ws.api.pipe.StreamS
     }
 
     public void decode(ReadableByteChannel in, String contentType, Packet response, AttachmentSet att ) {
-        throw new UnsupportedOperationException();
+        try {
+            decode(new ChannelInputStream(in), contentType, response, att);
+        } catch (IOException e) {
+            throw new WebServiceException(e);
+        }
     }
 
     /*
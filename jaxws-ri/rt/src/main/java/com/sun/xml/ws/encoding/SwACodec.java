@@ -45,11 +45,9 @@ import com.sun.xml.ws.api.WSFeatureList;
 import com.sun.xml.ws.api.message.Packet;
 import com.sun.xml.ws.api.message.Attachment;
 import com.sun.xml.ws.api.pipe.Codec;
-import com.sun.xml.ws.api.pipe.ContentType;
 import com.sun.xml.ws.message.MimeAttachmentSet;
 
 import java.io.IOException;
-import java.nio.channels.WritableByteChannel;
 import java.util.Map;
 
 import javax.xml.ws.WebServiceFeature;
@@ -87,11 +85,6 @@ public final class SwACodec extends MimeCodec {
         }
     }
 
-    public ContentType encode(Packet packet, WritableByteChannel buffer) {
-        //TODO: not yet implemented
-        throw new UnsupportedOperationException();
-    }
-
     public SwACodec copy() {
         return new SwACodec(this);
     }
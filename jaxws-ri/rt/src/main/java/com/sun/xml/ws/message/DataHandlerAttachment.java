@@ -42,6 +42,7 @@ package com.sun.xml.ws.message;
 
 import com.sun.istack.NotNull;
 import com.sun.xml.ws.api.message.Attachment;
+import com.sun.xml.ws.encoding.DataHandlerWriter;
 import com.sun.xml.ws.util.ByteArrayBuffer;
 
 import javax.activation.DataHandler;
@@ -118,7 +119,7 @@ public final class DataHandlerAttachment implements Attachment {
     }
 
     public void writeTo(OutputStream os) throws IOException {
-        dh.writeTo(os);
+        DataHandlerWriter.writeTo(dh, os);
     }
 
     public void writeTo(SOAPMessage saaj) throws SOAPException {
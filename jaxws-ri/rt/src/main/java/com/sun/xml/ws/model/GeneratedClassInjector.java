@@ -0,0 +1,178 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2008-2012 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.model;
+
+import com.sun.istack.NotNull;
+import com.sun.xml.ws.org.objectweb.asm.ClassReader;
+
+import javax.xml.ws.WebServiceException;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+
+/**
+ * Defines the classes generated by the runtime to access a class directly,
+ * such as method bridges and property or wrapper accessors.
+ *
+ * <p>
+ * This is the only way {@link Injector} is reached from outside this package.
+ * It only defines the images of the runtime's own generators, each of which
+ * may only define a nested <tt>$$</tt> class of its own kind, next to the class
+ * it accesses and in that class' class loader. With a {@link SecurityManager},
+ * the code on the stack also needs the <tt>defineClassInPackage</tt>
+ * {@link RuntimePermission} for the package of that class. It is not meant to
+ * be used by applications.
+ *
+ * @author WS Development Team
+ */
+public final class GeneratedClassInjector {
+
+    /**
+     * The generators that may define classes, and what follows <tt>$$</tt>
+     * in the names of the classes each of them defines.
+     */
+    private static final String[][] GENERATORS = {
+        {"com.sun.xml.ws.server.sei.MethodBridge", "MethodBridge$"},
+        {"com.oracle.webservices.api.message.AccessorCompiler", "PropertyAccessor$"},
+        {"com.sun.xml.ws.spi.db.WrapperAccessorCompiler", "WrapperAccessor"}
+    };
+
+    /**
+     * Finds the class that called {@link #inject(Class, String, byte[])}.
+     */
+    private static final CallerContext CALLER_CONTEXT = AccessController.doPrivileged(
+            new PrivilegedAction<CallerContext>() {
+                public CallerContext run() {
+                    return new CallerContext();
+                }
+            });
+
+    private GeneratedClassInjector() {
+    }
+
+    /**
+     * Tells if classes can be defined at all, so callers with a reflective
+     * fallback don't need to generate them.
+     */
+    public static boolean isAvailable() {
+        return Injector.isAvailable();
+    }
+
+    /**
+     * Defines a class generated to access <tt>target</tt>, or returns the one
+     * already defined under that name.
+     *
+     * @param target
+     *      the class the generated class accesses. It must not belong to the
+     *      bootstrap class loader.
+     * @param className
+     *      the name of the generated class, which is the name of <tt>target</tt>
+     *      followed by <tt>$$</tt> and the suffix of the calling generator.
+     * @param image
+     *      the class file, which has to declare that same name.
+     * @throws WebServiceException
+     *      if the caller isn't one of the generators, the name isn't one of
+     *      its classes, or the class can't be defined
+     * @throws SecurityException
+     *      if the code on the stack may not define classes in the package of <tt>target</tt>
+     */
+    public static @NotNull Class<?> inject(@NotNull Class<?> target, @NotNull String className, @NotNull byte[] image) {
+        ClassLoader cl = target.getClassLoader();
+        String suffix = generatorSuffix(CALLER_CONTEXT.getCaller());
+        if (cl == null || suffix == null || !isGeneratedName(target, className, suffix)
+                || !className.replace('.', '/').equals(new ClassReader(image).getClassName())) {
+            throw new WebServiceException("Unable to inject "+className);
+        }
+        SecurityManager sm = System.getSecurityManager();
+        if (sm != null) {
+            sm.checkPermission(new RuntimePermission("defineClassInPackage." + packageOf(target.getName())));
+        }
+        return Injector.inject(cl, className, image);
+    }
+
+    /**
+     * Gets the suffix of the classes the caller may define, or null if it
+     * isn't one of the generators of the runtime.
+     */
+    private static String generatorSuffix(Class<?> caller) {
+        if (caller == null || caller.getClassLoader() != GeneratedClassInjector.class.getClassLoader()) {
+            return null;
+        }
+        for (String[] generator : GENERATORS) {
+            if (generator[0].equals(caller.getName())) {
+                return generator[1];
+            }
+        }
+        return null;
+    }
+
+    private static boolean isGeneratedName(Class<?> target, String className, String suffix) {
+        String prefix = target.getName() + "$$";
+        if (!className.startsWith(prefix)) {
+            return false;
+        }
+        String rest = className.substring(prefix.length());
+        if (suffix.endsWith("$") ? rest.startsWith(suffix) && rest.length() > suffix.length()
+                : rest.equals(suffix)) {
+            return rest.indexOf('.') < 0;
+        }
+        return false;
+    }
+
+    private static String packageOf(String className) {
+        int i = className.lastIndexOf('.');
+        return (i < 0) ? "" : className.substring(0, i);
+    }
+
+    /**
+     * Gives access to the classes on the stack, which are only available
+     * through {@link SecurityManager}; this one is never installed.
+     */
+    private static final class CallerContext extends SecurityManager {
+        Class<?> getCaller() {
+            for (Class<?> c : getClassContext()) {
+                if (c != CallerContext.class && c != GeneratedClassInjector.class) {
+                    return c;
+                }
+            }
+            return null;
+        }
+    }
+}
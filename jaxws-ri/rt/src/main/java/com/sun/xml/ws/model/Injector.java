@@ -53,6 +53,11 @@ import java.util.logging.Logger;
  * A {@link ClassLoader} used to "inject" wrapper and exception bean classes
  * into the VM.
  *
+ * <p>
+ * The generated accessor and method bridge classes are injected the same way,
+ * into the class loader of the class they access, but only through
+ * {@link GeneratedClassInjector}.
+ *
  * @author Jitendra kotamraju
  */
 final class Injector {
@@ -65,30 +70,57 @@ final class Injector {
     private static final Method definePackage;
 
     static {
+        Method dc = null;
+        Method rc = null;
+        Method gp = null;
+        Method dp = null;
         try {
-            defineClass = ClassLoader.class.getDeclaredMethod("defineClass",String.class,byte[].class,Integer.TYPE,Integer.TYPE);
-            resolveClass = ClassLoader.class.getDeclaredMethod("resolveClass",Class.class);
-            getPackage = ClassLoader.class.getDeclaredMethod("getPackage", String.class);
-            definePackage = ClassLoader.class.getDeclaredMethod("definePackage",
+            dc = ClassLoader.class.getDeclaredMethod("defineClass",String.class,byte[].class,Integer.TYPE,Integer.TYPE);
+            rc = ClassLoader.class.getDeclaredMethod("resolveClass",Class.class);
+            gp = ClassLoader.class.getDeclaredMethod("getPackage", String.class);
+            dp = ClassLoader.class.getDeclaredMethod("definePackage",
                     String.class, String.class, String.class, String.class,
                     String.class, String.class, String.class, URL.class);
-        } catch (NoSuchMethodException e) {
-            // impossible
-            throw new NoSuchMethodError(e.getMessage());
+            final Method[] methods = {dc, rc, gp, dp};
+            AccessController.doPrivileged(new PrivilegedAction<Void>() {
+                public Void run() {
+                    // TODO: check security implication
+                    // do these setAccessible allow anyone to call these methods freely?s
+                    for (Method m : methods) {
+                        m.setAccessible(true);
+                    }
+                    return null;
+                }
+            });
+        } catch (Throwable t) {
+            // e.g. a security manager or a VM that doesn't open ClassLoader to reflection
+            LOGGER.log(Level.FINE, "Unable to inject classes", t);
+            dc = rc = gp = dp = null;
         }
-        AccessController.doPrivileged(new PrivilegedAction<Void>() {
-            public Void run() {
-                // TODO: check security implication
-                // do these setAccessible allow anyone to call these methods freely?s
-                defineClass.setAccessible(true);
-                resolveClass.setAccessible(true);
-                getPackage.setAccessible(true);
-                definePackage.setAccessible(true);
-                return null;
-            }
-        });
+        defineClass = dc;
+        resolveClass = rc;
+        getPackage = gp;
+        definePackage = dp;
+    }
+
+    private Injector() {
+    }
+
+    /**
+     * Tells if {@link #inject(ClassLoader, String, byte[])} can define classes,
+     * so callers with a reflective fallback don't need to generate them.
+     */
+    static boolean isAvailable() {
+        return defineClass != null;
     }
 
+    /**
+     * Defines a class in the given class loader, or returns the one it has
+     * already loaded under that name.
+     *
+     * @throws WebServiceException
+     *      if the class can't be defined
+     */
     static synchronized Class inject(ClassLoader cl, String className, byte[] image) {
         // To avoid race conditions let us check if the classloader
         // already contains the class
@@ -97,6 +129,9 @@ final class Injector {
         } catch (ClassNotFoundException e) {
             // nothing to do
         }
+        if (!isAvailable()) {
+            throw new WebServiceException("Unable to inject "+className);
+        }
         try {
             int packIndex = className.lastIndexOf('.');
             if (packIndex != -1) {
@@ -41,17 +41,21 @@
 package com.sun.xml.ws.server;
 
 import com.sun.istack.NotNull;
+import com.sun.istack.Nullable;
 import com.sun.xml.ws.api.EndpointAddress;
 import com.sun.xml.ws.api.config.management.policy.ManagedClientAssertion;
 import com.sun.xml.ws.api.config.management.policy.ManagedServiceAssertion;
 import com.sun.xml.ws.api.config.management.policy.ManagementAssertion.Setting;
+import com.sun.xml.ws.api.pipe.Tube;
 import com.sun.xml.ws.api.server.Container;
 import com.sun.xml.ws.api.server.WSEndpoint;
 import com.sun.xml.ws.client.Stub;
+import com.sun.xml.ws.util.Pool;
 import org.glassfish.external.amx.AMXGlassfish;
 import org.glassfish.gmbal.Description;
 import org.glassfish.gmbal.InheritedAttribute;
 import org.glassfish.gmbal.InheritedAttributes;
+import org.glassfish.gmbal.ManagedAttribute;
 import org.glassfish.gmbal.ManagedData;
 import org.glassfish.gmbal.ManagedObjectManager;
 import org.glassfish.gmbal.ManagedObjectManagerFactory;
@@ -199,6 +203,49 @@ public abstract class MonitorBase {
         return createMOMLoop(rootName, 0);
     }
 
+    /**
+     * Returns the pool of tubelines used by the monitored endpoint or client,
+     * whose statistics are then exposed along with the rest.
+     */
+    protected @Nullable Pool<Tube> getTubePool() {
+        return null;
+    }
+
+    @ManagedAttribute
+    @Description("Number of requests that reused a pooled tubeline")
+    public long tubePoolHits() {
+        Pool<Tube> pool = getTubePool();
+        return (pool != null) ? pool.getHits() : 0;
+    }
+
+    @ManagedAttribute
+    @Description("Number of requests that found no pooled tubeline")
+    public long tubePoolMisses() {
+        Pool<Tube> pool = getTubePool();
+        return (pool != null) ? pool.getMisses() : 0;
+    }
+
+    @ManagedAttribute
+    @Description("Number of tubelines copied from the master tubeline")
+    public long tubePoolCreates() {
+        Pool<Tube> pool = getTubePool();
+        return (pool != null) ? pool.getCreates() : 0;
+    }
+
+    @ManagedAttribute
+    @Description("Number of pooled tubelines dropped after being idle too long")
+    public long tubePoolEvictions() {
+        Pool<Tube> pool = getTubePool();
+        return (pool != null) ? pool.getEvictions() : 0;
+    }
+
+    @ManagedAttribute
+    @Description("Number of tubelines currently in the pool")
+    public int tubePoolIdleCount() {
+        Pool<Tube> pool = getTubePool();
+        return (pool != null) ? pool.getIdleCount() : 0;
+    }
+
     @NotNull private ManagedObjectManager disabled(final String x, final String rootName) {
         final String msg = x + " monitoring disabled. " + rootName + " will not be monitored";
         logger.log(Level.CONFIG, msg);
@@ -45,8 +45,10 @@ import com.sun.xml.ws.api.BindingID;
 import com.sun.xml.ws.api.WSFeatureList;
 import com.sun.xml.ws.api.EndpointAddress;
 import com.sun.xml.ws.api.addressing.AddressingVersion;
+import com.sun.xml.ws.api.pipe.Tube;
 import com.sun.xml.ws.api.server.*;
 import com.sun.xml.ws.transport.http.HttpAdapter;
+import com.sun.xml.ws.util.Pool;
 import com.sun.xml.ws.util.RuntimeVersion;
 import org.glassfish.gmbal.AMXMetadata;
 import org.glassfish.gmbal.Description;
@@ -185,6 +187,11 @@ public final class MonitorRootService extends MonitorBase {
         return RuntimeVersion.VERSION.toString();
     }
 
+    @Override
+    protected Pool<Tube> getTubePool() {
+        return (endpoint instanceof WSEndpointImpl) ? ((WSEndpointImpl) endpoint).getTubePool() : null;
+    }
+
     //
     // Items from HttpAdapter
     //
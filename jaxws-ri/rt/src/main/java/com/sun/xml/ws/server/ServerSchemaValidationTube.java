@@ -42,6 +42,7 @@ package com.sun.xml.ws.server;
 
 import com.sun.xml.ws.api.SOAPVersion;
 import com.sun.xml.ws.api.WSBinding;
+import com.sun.xml.ws.api.message.Header;
 import com.sun.xml.ws.api.message.Message;
 import com.sun.xml.ws.api.message.Packet;
 import com.sun.xml.ws.api.model.SEIModel;
@@ -84,28 +85,14 @@ public class ServerSchemaValidationTube extends AbstractSchemaValidationTube {
         this.seiModel = seiModel;
         this.wsdlPort = wsdlPort;
 
+        Schema schema = null;
         if (endpoint.getServiceDefinition() != null) {
             MetadataResolverImpl mdresolver = new MetadataResolverImpl(endpoint.getServiceDefinition());
-            Source[] sources = getSchemaSources(endpoint.getServiceDefinition(), mdresolver);
-            for(Source source : sources) {
-                LOGGER.fine("Constructing service validation schema from = "+source.getSystemId());
-                //printDOM((DOMSource)source);
-            }
-            if (sources.length != 0) {
-                noValidation = false;
-                sf.setResourceResolver(mdresolver);
-                try {
-                    schema = sf.newSchema(sources);
-                } catch(SAXException e) {
-                    throw new WebServiceException(e);
-                }
-                validator = schema.newValidator();
-                return;
-            }
+            schema = getSchema(endpoint.getServiceDefinition(), mdresolver);
         }
-        noValidation = true;
-        schema = null;
-        validator = null;
+        this.schema = schema;
+        noValidation = (schema == null);
+        validator = (schema == null) ? null : schema.newValidator();
     }
 
     protected Validator getValidator() {
@@ -121,6 +108,11 @@ public class ServerSchemaValidationTube extends AbstractSchemaValidationTube {
         if (isNoValidation() || !feature.isInbound() || !request.getMessage().hasPayload() || request.getMessage().isFault()) {
             return super.processRequest(request);
         }
+        if (feature.isStreaming()) {
+            // validated while the invoker reads the payload, see processResponse()
+            doStreamingProcess(request, schema);
+            return super.processRequest(request);
+        }
         try {
             doProcess(request);
         } catch(SAXException se) {
@@ -139,6 +131,20 @@ public class ServerSchemaValidationTube extends AbstractSchemaValidationTube {
 
     @Override
     public NextAction processResponse(Packet response) {
+        SAXException requestError = (SAXException) response.invocationProperties.remove(STREAMING_VALIDATION_ERROR);
+        if (requestError != null && response.getMessage() != null) {
+            LOGGER.log(Level.WARNING, "Client Request doesn't pass Service's Schema Validation", requestError);
+            // Same client fault as in processRequest(), keeping the headers of the
+            // response that the endpoint created when reading the request failed
+            SOAPVersion soapVersion = binding.getSOAPVersion();
+            Message faultMsg = SOAPFaultBuilder.createSOAPFaultMessage(
+                    soapVersion, null, requestError, soapVersion.faultCodeClient);
+            for (Header h : response.getMessage().getHeaders().asList()) {
+                faultMsg.getHeaders().add(h);
+            }
+            response.setMessage(faultMsg);
+            return super.processResponse(response);
+        }
         if (isNoValidation() || !feature.isOutbound() || response.getMessage() == null || !response.getMessage().hasPayload() || response.getMessage().isFault()) {
             return super.processResponse(response);
         }
@@ -155,7 +161,7 @@ public class ServerSchemaValidationTube extends AbstractSchemaValidationTube {
         super(that,cloner);
         //this.docs = that.docs;
         this.schema = that.schema;      // Schema is thread-safe
-        this.validator = schema.newValidator();
+        this.validator = (schema == null) ? null : schema.newValidator();
         this.noValidation = that.noValidation;
         this.seiModel = that.seiModel;
         this.wsdlPort = that.wsdlPort;
@@ -284,6 +284,10 @@ public /*final*/ class WSEndpointImpl<T> extends WSEndpoint<T> implements LazyMO
         return operationDispatcher;
     }
 
+    /*package*/ Pool<Tube> getTubePool() {
+        return tubePool;
+    }
+
     public PolicyMap getPolicyMap() {
             return endpointPolicy;
     }
@@ -427,6 +431,8 @@ public /*final*/ class WSEndpointImpl<T> extends WSEndpoint<T> implements LazyMO
                         response = request.createServerResponse(faultMsg,
                                 request.endpoint.getPort(), null,
                                 request.endpoint.getBinding());
+                    } finally {
+                        engine.recycleFiber(fiber);
                     }
                     return response;
                 } finally {
@@ -0,0 +1,300 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.server.sei;
+
+import com.sun.istack.NotNull;
+import com.sun.istack.Nullable;
+import com.sun.xml.ws.api.model.JavaMethod;
+import com.sun.xml.ws.api.model.SEIModel;
+import com.sun.xml.ws.model.GeneratedClassInjector;
+import com.sun.xml.ws.org.objectweb.asm.ClassWriter;
+import com.sun.xml.ws.org.objectweb.asm.Label;
+import com.sun.xml.ws.org.objectweb.asm.MethodVisitor;
+import com.sun.xml.ws.org.objectweb.asm.Type;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.sun.xml.ws.org.objectweb.asm.Opcodes.*;
+
+/**
+ * Calls an endpoint method directly, instead of through
+ * {@link Method#invoke(Object, Object...)}.
+ *
+ * <p>
+ * The subclasses are generated when the endpoint starts, and defined in the
+ * package and the class loader of the class declaring the method. A method
+ * that can't be called that way keeps being invoked through reflection; so
+ * do all methods if the
+ * <tt>com.sun.xml.ws.server.sei.MethodBridge.reflective</tt> system property
+ * is set.
+ *
+ * @author WS Development Team
+ */
+public abstract class MethodBridge {
+
+    private static final Logger LOGGER = Logger.getLogger(MethodBridge.class.getName());
+
+    private static final String BRIDGE = Type.getInternalName(MethodBridge.class);
+    private static final String INVOKE_DESC = "(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;";
+    private static final String INVOCATION_TARGET_EXCEPTION = Type.getInternalName(InvocationTargetException.class);
+    private static final String ILLEGAL_ARGUMENT_EXCEPTION = Type.getInternalName(IllegalArgumentException.class);
+
+    protected MethodBridge() {
+    }
+
+    /**
+     * Invokes the method.
+     *
+     * @param target
+     *      the object the method is invoked on.
+     * @param args
+     *      the arguments, primitive ones boxed, as for {@link Method#invoke(Object, Object...)}.
+     * @return
+     *      the return value, boxed if primitive, or null if the method is void.
+     * @throws InvocationTargetException
+     *      wraps whatever the method throws.
+     */
+    public abstract Object invoke(Object target, Object[] args) throws InvocationTargetException;
+
+    /**
+     * Creates the bridges to the endpoint methods of an {@link SEIModel}.
+     *
+     * @return
+     *      the bridges by the {@link JavaMethod#getMethod() Method} instances of the model,
+     *      which are the ones requests are dispatched with. Methods without a bridge are
+     *      left out.
+     */
+    public static @NotNull Map<Method, MethodBridge> create(@Nullable SEIModel model) {
+        if (model == null || Boolean.getBoolean(MethodBridge.class.getName() + ".reflective")) {
+            return Collections.emptyMap();
+        }
+        Map<Method, MethodBridge> bridges = new IdentityHashMap<Method, MethodBridge>();
+        for (JavaMethod jm : model.getJavaMethods()) {
+            Method m = jm.getMethod();
+            MethodBridge bridge = create(m);
+            if (bridge != null) {
+                bridges.put(m, bridge);
+            }
+        }
+        return bridges;
+    }
+
+    /**
+     * Creates the bridge to a method.
+     *
+     * @return
+     *      null if the method has to be invoked through reflection.
+     */
+    public static @Nullable MethodBridge create(@NotNull Method m) {
+        Class<?> owner = m.getDeclaringClass();
+        int mod = m.getModifiers();
+        if (!GeneratedClassInjector.isAvailable() || Modifier.isPrivate(mod) || Modifier.isStatic(mod)
+                || owner.getClassLoader() == null || owner.isInterface()) {
+            return null;
+        }
+        // one class per method, so the class already defined under that name is always its bridge
+        String className = owner.getName() + "$$MethodBridge$" + mangle(m.getName())
+                + "$" + mangle(Type.getMethodDescriptor(m));
+        try {
+            Class<?> c = GeneratedClassInjector.inject(owner, className, image(className, m));
+            return (MethodBridge) c.newInstance();
+        } catch (Throwable t) {
+            // e.g. a sealed package, or MethodBridge isn't visible to the class loader
+            LOGGER.log(Level.FINE, "Unable to define " + className + ", using reflection", t);
+            return null;
+        }
+    }
+
+    /**
+     * Encodes a method name or descriptor in the characters of a class name,
+     * the way JNI does: <tt>'/'</tt> becomes <tt>'_'</tt> and every other
+     * character but ASCII letters and digits an escape starting with
+     * <tt>'_'</tt>. The result never contains <tt>'$'</tt>, and two strings
+     * never share one.
+     */
+    static String mangle(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 8);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                sb.append(c);
+            } else if (c == '/') {
+                sb.append('_');
+            } else if (c == '_') {
+                sb.append("_1");
+            } else if (c == ';') {
+                sb.append("_2");
+            } else if (c == '[') {
+                sb.append("_3");
+            } else {
+                String hex = Integer.toHexString(c);
+                sb.append("_0");
+                for (int j = hex.length(); j < 4; j++) {
+                    sb.append('0');
+                }
+                sb.append(hex);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static byte[] image(String className, Method m) {
+        String owner = Type.getInternalName(m.getDeclaringClass());
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(V1_5, ACC_PUBLIC + ACC_FINAL + ACC_SUPER + ACC_SYNTHETIC, className.replace('.', '/'), null,
+                BRIDGE, null);
+
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitMethodInsn(INVOKESPECIAL, BRIDGE, "<init>", "()V");
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(ACC_PUBLIC, "invoke", INVOKE_DESC, null, new String[] {INVOCATION_TARGET_EXCEPTION});
+        mv.visitCode();
+        Label castStart = new Label();
+        Label castEnd = new Label();
+        Label castHandler = new Label();
+        mv.visitTryCatchBlock(castStart, castEnd, castHandler, "java/lang/ClassCastException");
+        mv.visitTryCatchBlock(castStart, castEnd, castHandler, "java/lang/NullPointerException");
+        mv.visitLabel(castStart);
+        Class<?>[] params = m.getParameterTypes();
+        // the wrong number of arguments is reported like reflection does, where
+        // null stands for none; otherwise null fails on arraylength and is reported below
+        Label countOk = new Label();
+        if (params.length == 0) {
+            mv.visitVarInsn(ALOAD, 2);
+            mv.visitJumpInsn(IFNULL, countOk);
+        }
+        mv.visitVarInsn(ALOAD, 2);
+        mv.visitInsn(ARRAYLENGTH);
+        mv.visitLdcInsn(params.length);
+        mv.visitJumpInsn(IF_ICMPEQ, countOk);
+        mv.visitTypeInsn(NEW, ILLEGAL_ARGUMENT_EXCEPTION);
+        mv.visitInsn(DUP);
+        mv.visitLdcInsn("wrong number of arguments");
+        mv.visitMethodInsn(INVOKESPECIAL, ILLEGAL_ARGUMENT_EXCEPTION, "<init>", "(Ljava/lang/String;)V");
+        mv.visitInsn(ATHROW);
+        mv.visitLabel(countOk);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitTypeInsn(CHECKCAST, owner);
+        for (int i = 0; i < params.length; i++) {
+            mv.visitVarInsn(ALOAD, 2);
+            mv.visitLdcInsn(i);
+            mv.visitInsn(AALOAD);
+            unbox(mv, params[i]);
+        }
+        mv.visitLabel(castEnd);
+        Label start = new Label();
+        Label end = new Label();
+        Label handler = new Label();
+        mv.visitTryCatchBlock(start, end, handler, "java/lang/Throwable");
+        mv.visitLabel(start);
+        mv.visitMethodInsn(INVOKEVIRTUAL, owner, m.getName(), Type.getMethodDescriptor(m));
+        mv.visitLabel(end);
+        box(mv, m.getReturnType());
+        mv.visitInsn(ARETURN);
+
+        // a target or an argument of the wrong type, or null for a primitive,
+        // is reported like reflection does
+        mv.visitLabel(castHandler);
+        mv.visitVarInsn(ASTORE, 3);
+        mv.visitTypeInsn(NEW, ILLEGAL_ARGUMENT_EXCEPTION);
+        mv.visitInsn(DUP);
+        mv.visitVarInsn(ALOAD, 3);
+        mv.visitMethodInsn(INVOKESPECIAL, ILLEGAL_ARGUMENT_EXCEPTION, "<init>", "(Ljava/lang/Throwable;)V");
+        mv.visitInsn(ATHROW);
+
+        // wrap what the method throws, like reflection does
+        mv.visitLabel(handler);
+        mv.visitVarInsn(ASTORE, 3);
+        mv.visitTypeInsn(NEW, INVOCATION_TARGET_EXCEPTION);
+        mv.visitInsn(DUP);
+        mv.visitVarInsn(ALOAD, 3);
+        mv.visitMethodInsn(INVOKESPECIAL, INVOCATION_TARGET_EXCEPTION, "<init>", "(Ljava/lang/Throwable;)V");
+        mv.visitInsn(ATHROW);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static void unbox(MethodVisitor mv, Class<?> type) {
+        if (!type.isPrimitive()) {
+            mv.visitTypeInsn(CHECKCAST, Type.getInternalName(type));
+            return;
+        }
+        String wrapper = Type.getInternalName(wrapper(type));
+        mv.visitTypeInsn(CHECKCAST, wrapper);
+        mv.visitMethodInsn(INVOKEVIRTUAL, wrapper, type.getName() + "Value", "()" + Type.getDescriptor(type));
+    }
+
+    private static void box(MethodVisitor mv, Class<?> type) {
+        if (type == Void.TYPE) {
+            mv.visitInsn(ACONST_NULL);
+        } else if (type.isPrimitive()) {
+            String wrapper = Type.getInternalName(wrapper(type));
+            mv.visitMethodInsn(INVOKESTATIC, wrapper, "valueOf", "(" + Type.getDescriptor(type) + ")L" + wrapper + ";");
+        }
+    }
+
+    private static Class<?> wrapper(Class<?> primitive) {
+        if (primitive == Boolean.TYPE) return Boolean.class;
+        if (primitive == Byte.TYPE) return Byte.class;
+        if (primitive == Character.TYPE) return Character.class;
+        if (primitive == Short.TYPE) return Short.class;
+        if (primitive == Integer.TYPE) return Integer.class;
+        if (primitive == Long.TYPE) return Long.class;
+        if (primitive == Float.TYPE) return Float.class;
+        if (primitive == Double.TYPE) return Double.class;
+        throw new IllegalArgumentException(primitive.getName());
+    }
+}
@@ -63,6 +63,10 @@ import javax.xml.namespace.QName;
 
 /**
  * JAXBWrapperAccessor
+ *
+ * <p>
+ * The properties of the wrapper bean are accessed through a {@link WrapperBeanAccessor}
+ * generated for it, and through reflection if they can't be accessed directly.
  * 
  * @author shih-chang.chen@oracle.com
  */
@@ -101,6 +105,9 @@ public class JAXBWrapperAccessor extends WrapperAccessor {
                 publicGetters.put(key, method);
             }
         }
+        List<QName> names = new ArrayList<QName>();
+        List<PropertySetter> setters = new ArrayList<PropertySetter>();
+        List<PropertyGetter> getters = new ArrayList<PropertyGetter>();
         HashSet<String> elementLocalNames = new HashSet<String>();
         for (Field field : getAllFields(contentClass)) {
             XmlElementWrapper xmlElemWrapper = field.getAnnotation(XmlElementWrapper.class);
@@ -163,12 +170,17 @@ public class JAXBWrapperAccessor extends WrapperAccessor {
             }
             Method setMethod = publicSetters.get(fieldName);
             Method getMethod = publicGetters.get(fieldName);
-            PropertySetter setter = createPropertySetter(field, setMethod);
-            PropertyGetter getter = createPropertyGetter(field, getMethod);
-            setByQName.put(qname, setter);
-            setByLocalpart.put(localName, setter);
-            getByQName.put(qname, getter);
-            getByLocalpart.put(localName, getter);
+            names.add(qname);
+            setters.add(createPropertySetter(field, setMethod));
+            getters.add(createPropertyGetter(field, getMethod));
+        }
+        WrapperAccessorCompiler.compile(contentClass, getters, setters);
+        for (int i = 0; i < names.size(); i++) {
+            QName qname = names.get(i);
+            setByQName.put(qname, setters.get(i));
+            setByLocalpart.put(qname.getLocalPart(), setters.get(i));
+            getByQName.put(qname, getters.get(i));
+            getByLocalpart.put(qname.getLocalPart(), getters.get(i));
         }
         if (this.elementLocalNameCollision) {
             this.propertySetters = setByQName;
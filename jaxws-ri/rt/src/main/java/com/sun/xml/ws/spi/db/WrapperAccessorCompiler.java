@@ -0,0 +1,378 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.spi.db;
+
+import com.sun.xml.ws.model.GeneratedClassInjector;
+import com.sun.xml.ws.org.objectweb.asm.ClassWriter;
+import com.sun.xml.ws.org.objectweb.asm.Label;
+import com.sun.xml.ws.org.objectweb.asm.MethodVisitor;
+import com.sun.xml.ws.org.objectweb.asm.Type;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.sun.xml.ws.org.objectweb.asm.Opcodes.*;
+
+/**
+ * Generates a {@link WrapperBeanAccessor} per wrapper bean, and replaces the
+ * reflective {@link FieldGetter}s, {@link MethodGetter}s, {@link FieldSetter}s
+ * and {@link MethodSetter}s of {@link JAXBWrapperAccessor} with ones that go
+ * through it.
+ *
+ * <p>
+ * The accessor class is defined in the package and the class loader of the
+ * wrapper bean, so it can access anything but private members. Private or
+ * static members, final fields, methods that throw checked exceptions, and
+ * members of other packages that aren't public keep using reflection; so does
+ * everything if classes can't be defined, or if the
+ * <tt>com.sun.xml.ws.spi.db.JAXBWrapperAccessor.reflective</tt> system
+ * property is set.
+ *
+ * @author WS Development Team
+ */
+final class WrapperAccessorCompiler {
+
+    private static final Logger LOGGER = Logger.getLogger(WrapperAccessorCompiler.class.getName());
+
+    private static final String ACCESSOR = Type.getInternalName(WrapperBeanAccessor.class);
+    private static final String GET_DESC = "(Ljava/lang/Object;I)Ljava/lang/Object;";
+    private static final String SET_DESC = "(Ljava/lang/Object;ILjava/lang/Object;)V";
+
+    /**
+     * Whether accessor classes are generated at all.
+     */
+    private static final boolean ENABLED;
+
+    static {
+        boolean enabled = false;
+        try {
+            enabled = !Boolean.getBoolean(JAXBWrapperAccessor.class.getName() + ".reflective")
+                    && GeneratedClassInjector.isAvailable();
+        } catch (Throwable t) {
+            LOGGER.log(Level.FINE, "Unable to define wrapper accessor classes, using reflection", t);
+        }
+        ENABLED = enabled;
+    }
+
+    private WrapperAccessorCompiler() {
+    }
+
+    /**
+     * Replaces the getters and setters of the properties of a wrapper bean
+     * that can be accessed directly.
+     */
+    static void compile(Class<?> bean, List<PropertyGetter> getters, List<PropertySetter> setters) {
+        if (!ENABLED || bean.getClassLoader() == null) {
+            return;
+        }
+        List<Member> gets = new ArrayList<Member>();
+        int[] getIndexes = new int[getters.size()];
+        for (int i = 0; i < getters.size(); i++) {
+            getIndexes[i] = index(gets, member(getters.get(i)), bean, false);
+        }
+        List<Member> sets = new ArrayList<Member>();
+        int[] setIndexes = new int[setters.size()];
+        for (int i = 0; i < setters.size(); i++) {
+            setIndexes[i] = index(sets, member(setters.get(i)), bean, true);
+        }
+        if (gets.isEmpty() && sets.isEmpty()) {
+            return;
+        }
+
+        String className = bean.getName() + "$$WrapperAccessor";
+        WrapperBeanAccessor accessor;
+        try {
+            Class<?> c = GeneratedClassInjector.inject(bean, className, image(className, gets, sets));
+            accessor = (WrapperBeanAccessor) c.newInstance();
+        } catch (Throwable t) {
+            // e.g. a sealed package; reflection still works
+            LOGGER.log(Level.FINE, "Unable to define " + className + ", using reflection", t);
+            return;
+        }
+        for (int i = 0; i < getters.size(); i++) {
+            if (getIndexes[i] >= 0) {
+                getters.set(i, new Getter(getters.get(i), accessor, getIndexes[i]));
+            }
+        }
+        for (int i = 0; i < setters.size(); i++) {
+            if (setIndexes[i] >= 0) {
+                setters.set(i, new Setter(setters.get(i), accessor, setIndexes[i]));
+            }
+        }
+    }
+
+    private static Member member(Object property) {
+        if (property instanceof FieldGetter) {
+            return ((FieldGetter) property).getField();
+        }
+        if (property instanceof MethodGetter) {
+            return ((MethodGetter) property).getMethod();
+        }
+        if (property instanceof FieldSetter) {
+            return ((FieldSetter) property).getField();
+        }
+        if (property instanceof MethodSetter) {
+            return ((MethodSetter) property).getMethod();
+        }
+        return null;
+    }
+
+    /**
+     * Adds a member to the ones the accessor handles.
+     *
+     * @return
+     *      its index in the accessor, or -1 if it can't be accessed directly.
+     */
+    private static int index(List<Member> members, Member m, Class<?> bean, boolean write) {
+        if (m == null || !isAccessible(m, bean)
+                || (write && m instanceof Field && Modifier.isFinal(m.getModifiers()))) {
+            return -1;
+        }
+        int i = members.indexOf(m);
+        if (i < 0) {
+            i = members.size();
+            members.add(m);
+        }
+        return i;
+    }
+
+    private static boolean isAccessible(Member m, Class<?> bean) {
+        Class<?> owner = m.getDeclaringClass();
+        int mod = m.getModifiers();
+        if (Modifier.isPrivate(mod) || Modifier.isStatic(mod) || owner.isInterface()) {
+            return false;
+        }
+        if (m instanceof Method && throwsCheckedException((Method) m)) {
+            return false;
+        }
+        if (isSamePackage(owner, bean)) {
+            return true;
+        }
+        return Modifier.isPublic(mod) && Modifier.isPublic(owner.getModifiers());
+    }
+
+    private static boolean isSamePackage(Class<?> a, Class<?> b) {
+        return a.getClassLoader() == b.getClassLoader()
+                && packageOf(a.getName()).equals(packageOf(b.getName()));
+    }
+
+    private static String packageOf(String className) {
+        int i = className.lastIndexOf('.');
+        return (i < 0) ? "" : className.substring(0, i);
+    }
+
+    private static boolean throwsCheckedException(Method m) {
+        for (Class<?> e : m.getExceptionTypes()) {
+            if (!RuntimeException.class.isAssignableFrom(e) && !Error.class.isAssignableFrom(e)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] image(String className, List<Member> gets, List<Member> sets) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(V1_5, ACC_PUBLIC + ACC_FINAL + ACC_SUPER + ACC_SYNTHETIC, className.replace('.', '/'), null,
+                ACCESSOR, null);
+
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitMethodInsn(INVOKESPECIAL, ACCESSOR, "<init>", "()V");
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(ACC_PUBLIC, "get", GET_DESC, null, null);
+        mv.visitCode();
+        Label[] cases = switchOnIndex(mv, gets.size());
+        for (int i = 0; i < cases.length; i++) {
+            mv.visitLabel(cases[i]);
+            Member m = gets.get(i);
+            String owner = Type.getInternalName(m.getDeclaringClass());
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitTypeInsn(CHECKCAST, owner);
+            Class<?> type;
+            if (m instanceof Field) {
+                type = ((Field) m).getType();
+                mv.visitFieldInsn(GETFIELD, owner, m.getName(), Type.getDescriptor(type));
+            } else {
+                type = ((Method) m).getReturnType();
+                mv.visitMethodInsn(INVOKEVIRTUAL, owner, m.getName(), Type.getMethodDescriptor((Method) m));
+            }
+            if (type.isPrimitive()) {
+                String wrapper = Type.getInternalName(wrapper(type));
+                mv.visitMethodInsn(INVOKESTATIC, wrapper, "valueOf", "(" + Type.getDescriptor(type) + ")L" + wrapper + ";");
+            }
+            mv.visitInsn(ARETURN);
+        }
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(ACC_PUBLIC, "set", SET_DESC, null, null);
+        mv.visitCode();
+        cases = switchOnIndex(mv, sets.size());
+        for (int i = 0; i < cases.length; i++) {
+            mv.visitLabel(cases[i]);
+            Member m = sets.get(i);
+            String owner = Type.getInternalName(m.getDeclaringClass());
+            Class<?> type = (m instanceof Field) ? ((Field) m).getType() : ((Method) m).getParameterTypes()[0];
+            Label done = new Label();
+            if (type.isPrimitive()) {
+                mv.visitVarInsn(ALOAD, 3);
+                mv.visitJumpInsn(IFNULL, done);
+            }
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitTypeInsn(CHECKCAST, owner);
+            mv.visitVarInsn(ALOAD, 3);
+            if (type.isPrimitive()) {
+                String wrapper = Type.getInternalName(wrapper(type));
+                mv.visitTypeInsn(CHECKCAST, wrapper);
+                mv.visitMethodInsn(INVOKEVIRTUAL, wrapper, type.getName() + "Value", "()" + Type.getDescriptor(type));
+            } else {
+                mv.visitTypeInsn(CHECKCAST, Type.getInternalName(type));
+            }
+            if (m instanceof Field) {
+                mv.visitFieldInsn(PUTFIELD, owner, m.getName(), Type.getDescriptor(type));
+            } else {
+                mv.visitMethodInsn(INVOKEVIRTUAL, owner, m.getName(), Type.getMethodDescriptor((Method) m));
+            }
+            mv.visitLabel(done);
+            mv.visitInsn(RETURN);
+        }
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /**
+     * Switches over the index argument, throwing {@link IndexOutOfBoundsException}
+     * if it is out of range.
+     *
+     * @return
+     *      the labels of the cases.
+     */
+    private static Label[] switchOnIndex(MethodVisitor mv, int size) {
+        Label[] cases = new Label[size];
+        for (int i = 0; i < size; i++) {
+            cases[i] = new Label();
+        }
+        Label outOfRange = new Label();
+        if (size > 0) {
+            mv.visitVarInsn(ILOAD, 2);
+            mv.visitTableSwitchInsn(0, size - 1, outOfRange, cases);
+        }
+        mv.visitLabel(outOfRange);
+        mv.visitTypeInsn(NEW, "java/lang/IndexOutOfBoundsException");
+        mv.visitInsn(DUP);
+        mv.visitMethodInsn(INVOKESPECIAL, "java/lang/IndexOutOfBoundsException", "<init>", "()V");
+        mv.visitInsn(ATHROW);
+        return cases;
+    }
+
+    private static Class<?> wrapper(Class<?> primitive) {
+        if (primitive == Boolean.TYPE) return Boolean.class;
+        if (primitive == Byte.TYPE) return Byte.class;
+        if (primitive == Character.TYPE) return Character.class;
+        if (primitive == Short.TYPE) return Short.class;
+        if (primitive == Integer.TYPE) return Integer.class;
+        if (primitive == Long.TYPE) return Long.class;
+        if (primitive == Float.TYPE) return Float.class;
+        if (primitive == Double.TYPE) return Double.class;
+        throw new IllegalArgumentException(primitive.getName());
+    }
+
+    /**
+     * {@link PropertyGetter} of a property the {@link WrapperBeanAccessor} handles.
+     */
+    static final class Getter extends PropertyGetterBase {
+        private final PropertyGetter reflective;
+        private final WrapperBeanAccessor accessor;
+        private final int index;
+
+        Getter(PropertyGetter reflective, WrapperBeanAccessor accessor, int index) {
+            this.reflective = reflective;
+            this.accessor = accessor;
+            this.index = index;
+            this.type = reflective.getType();
+        }
+
+        public <A> A getAnnotation(Class<A> annotationType) {
+            return reflective.getAnnotation(annotationType);
+        }
+
+        public Object get(Object instance) {
+            return accessor.get(instance, index);
+        }
+    }
+
+    /**
+     * {@link PropertySetter} of a property the {@link WrapperBeanAccessor} handles.
+     */
+    static final class Setter extends PropertySetterBase {
+        private final PropertySetter reflective;
+        private final WrapperBeanAccessor accessor;
+        private final int index;
+
+        Setter(PropertySetter reflective, WrapperBeanAccessor accessor, int index) {
+            this.reflective = reflective;
+            this.accessor = accessor;
+            this.index = index;
+            this.type = reflective.getType();
+        }
+
+        public <A> A getAnnotation(Class<A> annotationType) {
+            return reflective.getAnnotation(annotationType);
+        }
+
+        public void set(Object instance, Object value) {
+            accessor.set(instance, index, value);
+        }
+    }
+}
@@ -41,10 +41,13 @@
 package com.sun.xml.ws.transport;
 
 import com.sun.xml.ws.api.EndpointAddress;
+import com.sun.xml.ws.api.WSBinding;
 import com.sun.xml.ws.api.message.Packet;
 import com.sun.xml.ws.api.pipe.*;
 import com.sun.xml.ws.api.pipe.helper.AbstractTubeImpl;
 import com.sun.istack.NotNull;
+import com.sun.xml.ws.binding.BindingImpl;
+import com.sun.xml.ws.developer.WSBindingProvider;
 import com.sun.xml.ws.developer.HttpConfigFeature;
 
 import javax.xml.ws.BindingProvider;
@@ -64,6 +67,11 @@ import javax.xml.ws.WebServiceFeature;
  * address, this class implements a simple cache strategy to avoid re-creating
  * transport pipes excessively.
  *
+ * <p>
+ * When the context has no {@link BindingProvider}, as for a tubeline that is
+ * assembled once and copied by many proxies, the transport is created for the
+ * binding of the {@link Packet#proxy} that sends the request.
+ *
  * @author Kohsuke Kawaguchi
  */
 public final class DeferredTransportPipe extends AbstractTubeImpl {
@@ -78,6 +86,10 @@ public final class DeferredTransportPipe extends AbstractTubeImpl {
     public DeferredTransportPipe(ClassLoader classLoader, ClientTubeAssemblerContext context) {
         this.classLoader = classLoader;
         this.context = context;
+        if (context.getBindingProvider() == null) {
+            // the binding isn't known until the first request
+            return;
+        }
         if (context.getBinding().getFeature(HttpConfigFeature.class) == null) {
             context.getBinding().getFeatures().mergeFeatures(
                     new WebServiceFeature[] { new HttpConfigFeature() }, false);
@@ -120,16 +132,32 @@ public final class DeferredTransportPipe extends AbstractTubeImpl {
 
         // otherwise find out what transport will process this.
 
-        ClientTubeAssemblerContext newContext = new ClientTubeAssemblerContext(
-            request.endpointAddress,
-            context.getWsdlModel(),
-            context.getBindingProvider(),
-            context.getBinding(),
-            context.getContainer(),
-            context.getCodec().copy(),
-            context.getSEIModel(),
-            context.getSEI()
-        );
+        ClientTubeAssemblerContext newContext;
+        if (context.getBindingProvider() == null && request.proxy instanceof WSBindingProvider) {
+            WSBindingProvider proxy = (WSBindingProvider) request.proxy;
+            WSBinding binding = (WSBinding) proxy.getBinding();
+            newContext = new ClientTubeAssemblerContext(
+                request.endpointAddress,
+                context.getWsdlModel(),
+                proxy,
+                binding,
+                context.getContainer(),
+                ((BindingImpl) binding).createCodec(),
+                context.getSEIModel(),
+                context.getSEI()
+            );
+        } else {
+            newContext = new ClientTubeAssemblerContext(
+                request.endpointAddress,
+                context.getWsdlModel(),
+                context.getBindingProvider(),
+                context.getBinding(),
+                context.getContainer(),
+                context.getCodec().copy(),
+                context.getSEIModel(),
+                context.getSEI()
+            );
+        }
 
         address = request.endpointAddress;
         transport = TransportTubeFactory.create(classLoader, newContext);
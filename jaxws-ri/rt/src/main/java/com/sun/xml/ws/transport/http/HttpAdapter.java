@@ -40,7 +40,6 @@
 
 package com.sun.xml.ws.transport.http;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -53,6 +52,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -85,6 +86,9 @@ import com.sun.xml.ws.api.server.ServiceDefinition;
 import com.sun.xml.ws.api.server.TransportBackChannel;
 import com.sun.xml.ws.api.server.WSEndpoint;
 import com.sun.xml.ws.api.server.WebServiceContextDelegate;
+import com.sun.xml.ws.developer.ConcurrencyLimitFeature;
+import com.sun.xml.ws.developer.JAXWSProperties;
+import com.sun.xml.ws.encoding.AttachmentStore;
 import com.sun.xml.ws.fault.SOAPFaultBuilder;
 import com.sun.xml.ws.resources.WsservletMessages;
 import com.sun.xml.ws.server.UnsupportedMediaException;
@@ -138,6 +142,18 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
 
     protected boolean disableJreplicaCookie = false;
 
+    /**
+     * Compresses the responses, null if the endpoint doesn't have
+     * {@link com.sun.xml.ws.developer.ResponseCompressionFeature}.
+     */
+    private final HttpCompressor compressor;
+
+    /**
+     * Permits for the requests being processed, null if the endpoint
+     * doesn't have {@link ConcurrencyLimitFeature}.
+     */
+    private final Semaphore permits;
+
     /**
      * Creates a lone {@link com.sun.xml.ws.transport.http.HttpAdapter} that does not know of any other
      * {@link com.sun.xml.ws.transport.http.HttpAdapter}s.
@@ -169,6 +185,9 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
         super(endpoint);
         this.owner = owner;
         this.urlPattern = urlPattern;
+        this.compressor = HttpCompressor.create(endpoint.getBinding());
+        ConcurrencyLimitFeature limit = endpoint.getBinding().getFeature(ConcurrencyLimitFeature.class);
+        this.permits = (limit != null && limit.getMaxRequests() > 0) ? new Semaphore(limit.getMaxRequests()) : null;
 
         initWSDLMap(endpoint.getServiceDefinition());
     }
@@ -266,15 +285,25 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
         if (handleGet(connection)) {
             return;
         }
+        if (permits != null && !permits.tryAcquire()) {
+            writeServiceUnavailable(connection);
+            return;
+        }
 
-        // Make sure the Toolkit is recycled by the same pool instance from which it was taken
-        final Pool<HttpToolkit> currentPool = getPool();
-        // normal request handling
-        final HttpToolkit tk = currentPool.take();
         try {
-            tk.handle(connection);
+            // Make sure the Toolkit is recycled by the same pool instance from which it was taken
+            final Pool<HttpToolkit> currentPool = getPool();
+            // normal request handling
+            final HttpToolkit tk = currentPool.take();
+            try {
+                tk.handle(connection);
+            } finally {
+                currentPool.recycle(tk);
+            }
         } finally {
-            currentPool.recycle(tk);
+            if (permits != null) {
+                permits.release();
+            }
         }
     }
 
@@ -346,12 +375,8 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
         packet.transportBackChannel = new Oneway(con);
         packet.webServiceContextDelegate = con.getWebServiceContextDelegate();
         packet.setState(Packet.State.ServerRequest);
-        if (dump || LOGGER.isLoggable(Level.FINER)) {
-            ByteArrayBuffer buf = new ByteArrayBuffer();
-            buf.write(in);
-            in.close();
-            dump(buf, "HTTP request", con.getRequestHeaders());
-            in = buf.newInputStream();
+        if ((dump || LOGGER.isLoggable(Level.FINER)) && HttpDump.sample(packet)) {
+            in = HttpDump.tee(in, packet, "HTTP request", con.getRequestHeaders(), dump, LOGGER);
         }
         codec.decode(in, ct, packet);
         return packet;
@@ -438,11 +463,10 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
                     con.setStatus(WSHTTPConnection.ONEWAY);
                 }
                 OutputStream os = con.getProtocol().contains("1.1") ? con.getOutput() : new Http10OutputStream(con);
-                if (dump || LOGGER.isLoggable(Level.FINER)) {
-                    ByteArrayBuffer buf = new ByteArrayBuffer();
-                    codec.encode(packet, buf);
-                    dump(buf, "HTTP response " + con.getStatus(), con.getResponseHeaders());
-                    buf.writeTo(os);
+                if (isDumped(packet)) {
+                    HttpDump.DumpOutputStream dos = HttpDump.tee(os, "HTTP response " + con.getStatus(), con.getResponseHeaders(), dump, LOGGER);
+                    codec.encode(packet, dos);
+                    dos.done();
                 } else {
                     codec.encode(packet, os);
                 }
@@ -464,11 +488,10 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
 
             if (isClientErrorStatus(con.getStatus())) {
                 OutputStream os = con.getOutput();
-                if (dump || LOGGER.isLoggable(Level.FINER)) {
-                    ByteArrayBuffer buf = new ByteArrayBuffer();
-                    writeClientError(con.getStatus(), buf, packet);
-                    dump(buf, "HTTP response " + con.getStatus(), con.getResponseHeaders());
-                    buf.writeTo(os);
+                if (isDumped(packet)) {
+                    HttpDump.DumpOutputStream dos = HttpDump.tee(os, "HTTP response " + con.getStatus(), con.getResponseHeaders(), dump, LOGGER);
+                    writeClientError(con.getStatus(), dos, packet);
+                    dos.done();
                 } else {
                     writeClientError(con.getStatus(), os, packet);
                 }
@@ -479,12 +502,11 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
             ContentType contentType = codec.getStaticContentType(packet);
             if (contentType != null) {
                 con.setContentTypeResponseHeader(contentType.getContentType());
-                OutputStream os = con.getProtocol().contains("1.1") ? con.getOutput() : new Http10OutputStream(con);
-                if (dump || LOGGER.isLoggable(Level.FINER)) {
-                    ByteArrayBuffer buf = new ByteArrayBuffer();
-                    codec.encode(packet, buf);
-                    dump(buf, "HTTP response " + con.getStatus(), con.getResponseHeaders());
-                    buf.writeTo(os);
+                OutputStream os = getResponseOutput(con);
+                if (isDumped(packet)) {
+                    HttpDump.DumpOutputStream dos = HttpDump.tee(os, "HTTP response " + con.getStatus(), con.getResponseHeaders(), dump, LOGGER);
+                    codec.encode(packet, dos);
+                    dos.done();
                 } else {
                     codec.encode(packet, os);
                 }
@@ -494,16 +516,30 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
                 ByteArrayBuffer buf = new ByteArrayBuffer();
                 contentType = codec.encode(packet, buf);
                 con.setContentTypeResponseHeader(contentType.getContentType());
-                if (dump || LOGGER.isLoggable(Level.FINER)) {
-                    dump(buf, "HTTP response " + con.getStatus(), con.getResponseHeaders());
+                if (isDumped(packet)) {
+                    HttpDump.dump(buf, "HTTP response " + con.getStatus(), con.getResponseHeaders(), dump, LOGGER);
                 }
-                OutputStream os = con.getOutput();
+                String encoding = (compressor != null && buf.size() > compressor.getThreshold())
+                        ? compressor.getEncoding(con) : null;
+                OutputStream os = (encoding != null) ? compressor.getOutput(con, encoding) : con.getOutput();
                 buf.writeTo(os);
                 os.close();
             }
         }
     }
 
+    /**
+     * Gets the stream for the response message, which compresses it if the
+     * endpoint and the client support that.
+     */
+    private OutputStream getResponseOutput(WSHTTPConnection con) throws IOException {
+        String encoding = (compressor != null) ? compressor.getEncoding(con) : null;
+        if (encoding != null) {
+            return compressor.getOutput(con, encoding);
+        }
+        return con.getProtocol().contains("1.1") ? con.getOutput() : new Http10OutputStream(con);
+    }
+
     /*
      * GlassFish Load-balancer plugin always add a header proxy-jroute on
      * request being send from load-balancer plugin to server
@@ -551,56 +587,76 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
         invokeAsync(con, NO_OP_COMPLETION_CALLBACK);
     }
 
-    public void invokeAsync(final WSHTTPConnection con, final CompletionCallback callback) throws IOException {
+    public void invokeAsync(final WSHTTPConnection con, CompletionCallback callback) throws IOException {
 
             if (handleGet(con)) {
                 callback.onCompletion();
                 return;
             }
-            final Pool<HttpToolkit> currentPool = getPool();
-            final HttpToolkit tk = currentPool.take();
-            final Packet request;
-
+            if (permits != null) {
+                if (!permits.tryAcquire()) {
+                    writeServiceUnavailable(con);
+                    callback.onCompletion();
+                    return;
+                }
+                callback = new ReleasingCompletionCallback(callback);
+            }
+            final CompletionCallback completion = callback;
+            boolean processing = false;
             try {
+                final Pool<HttpToolkit> currentPool = getPool();
+                final HttpToolkit tk = currentPool.take();
+                final Packet request;
 
-                request = decodePacket(con, tk.codec);
-            } catch (ExceptionHasMessage e) {
-                LOGGER.log(Level.SEVERE, e.getMessage(), e);
-                Packet response = new Packet();
-                response.setMessage(e.getFaultMessage());
-                encodePacket(response, con, tk.codec);
-                currentPool.recycle(tk);
-                con.close();
-                callback.onCompletion();
-                return;
-            } catch (UnsupportedMediaException e) {
-                LOGGER.log(Level.SEVERE, e.getMessage(), e);
-                Packet response = new Packet();
-                con.setStatus(WSHTTPConnection.UNSUPPORTED_MEDIA);
-                encodePacket(response, con, tk.codec);
-                currentPool.recycle(tk);
-                con.close();
-                callback.onCompletion();
-                return;
-            }
+                try {
 
-            endpoint.process(request, new WSEndpoint.CompletionCallback() {
-                @Override
-                public void onCompletion(@NotNull Packet response) {
-                    try {
+                    request = decodePacket(con, tk.codec);
+                } catch (ExceptionHasMessage e) {
+                    LOGGER.log(Level.SEVERE, e.getMessage(), e);
+                    Packet response = new Packet();
+                    response.setMessage(e.getFaultMessage());
+                    encodePacket(response, con, tk.codec);
+                    currentPool.recycle(tk);
+                    con.close();
+                    completion.onCompletion();
+                    return;
+                } catch (UnsupportedMediaException e) {
+                    LOGGER.log(Level.SEVERE, e.getMessage(), e);
+                    Packet response = new Packet();
+                    con.setStatus(WSHTTPConnection.UNSUPPORTED_MEDIA);
+                    encodePacket(response, con, tk.codec);
+                    currentPool.recycle(tk);
+                    con.close();
+                    completion.onCompletion();
+                    return;
+                }
+
+                endpoint.process(request, new WSEndpoint.CompletionCallback() {
+                    @Override
+                    public void onCompletion(@NotNull Packet response) {
                         try {
-                            encodePacket(response, con, tk.codec);
-                        } catch (IOException ioe) {
-                            LOGGER.log(Level.SEVERE, ioe.getMessage(), ioe);
-                        }
-                        currentPool.recycle(tk);
-                    } finally {
-                        con.close();
-                        callback.onCompletion();
+                            try {
+                                encodePacket(response, con, tk.codec);
+                            } catch (IOException ioe) {
+                                LOGGER.log(Level.SEVERE, ioe.getMessage(), ioe);
+                            }
+                            currentPool.recycle(tk);
+                        } finally {
+                            closeAttachmentStore(request);
+                            con.close();
+                            completion.onCompletion();
 
+                        }
                     }
+                },null);
+                processing = true;
+            } finally {
+                if (!processing) {
+                    // answered without the endpoint, or failed; the completion may
+                    // not have been called, and releasing twice is harmless
+                    releasePermit(completion);
                 }
-            },null);
+            }
 
     }
 
@@ -616,6 +672,39 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
         void onCompletion();
     }
 
+    /**
+     * Releases the permit of a request before completing it.
+     */
+    private final class ReleasingCompletionCallback implements CompletionCallback {
+        private final CompletionCallback callback;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ReleasingCompletionCallback(CompletionCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void onCompletion() {
+            release();
+            callback.onCompletion();
+        }
+
+        /**
+         * Releases the permit, only the first time it is called.
+         */
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+
+    private static void releasePermit(CompletionCallback callback) {
+        if (callback instanceof ReleasingCompletionCallback) {
+            ((ReleasingCompletionCallback) callback).release();
+        }
+    }
+
     final class AsyncTransport extends AbstractServerAsyncTransport<WSHTTPConnection> {
 
         public AsyncTransport() {
@@ -675,12 +764,7 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
                 }
 
                 if (dump || LOGGER.isLoggable(Level.FINER)) {
-                    try {
-                        ByteArrayBuffer buf = new ByteArrayBuffer();
-                        dump(buf, "HTTP response " + con.getStatus(), con.getResponseHeaders());
-                    } catch (Exception e) {
-                        throw new WebServiceException(e.toString(), e);
-                    }
+                    HttpDump.dump(new ByteArrayBuffer(), "HTTP response " + con.getStatus(), con.getResponseHeaders(), dump, LOGGER);
                 }
 
                 if (output != null) {
@@ -697,11 +781,13 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
 
     final class HttpToolkit extends Adapter.Toolkit {
         public void handle(WSHTTPConnection con) throws IOException {
+            Packet request = null;
             try {
                 boolean invoke = false;
                 Packet packet;
                 try {
                     packet = decodePacket(con, codec);
+                    request = packet;
                     invoke = true;
                 } catch(Exception e) {
                     packet = new Packet();
@@ -730,6 +816,7 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
                 }
                 encodePacket(packet, con, codec);
             } finally {
+                closeAttachmentStore(request);
                 if (!con.isClosed()) {
                     if (LOGGER.isLoggable(Level.FINE)) {
                         LOGGER.log(Level.FINE, "Closing HTTP Connection with status: {0}", con.getStatus());
@@ -807,7 +894,7 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
      * HTTP/1.0 connections require Content-Length. So just buffer to find out
      * the length.
      */
-    private final static class Http10OutputStream extends ByteArrayBuffer {
+    final static class Http10OutputStream extends ByteArrayBuffer {
         private final WSHTTPConnection con;
 
         Http10OutputStream(WSHTTPConnection con) {
@@ -840,6 +927,24 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
         out.close();
     }
 
+    /**
+     * Answers 503 Service Unavailable without processing the request, when
+     * the endpoint or the server is too busy for it.
+     *
+     * <p>
+     * The request body is not read; the connection is closed instead, so
+     * that a slow client doesn't hold up a busy server.
+     *
+     * @param con the connection of the rejected request
+     * @throws IOException when I/O errors happen
+     */
+    public void writeServiceUnavailable(@NotNull WSHTTPConnection con) throws IOException {
+        con.setResponseHeader("Connection", "close");
+        con.setStatus(HttpURLConnection.HTTP_UNAVAILABLE);
+        con.getOutput().close();
+        con.close();
+    }
+
     private void writeInternalServerError(WSHTTPConnection con) throws IOException {
         con.setStatus(HttpURLConnection.HTTP_INTERNAL_ERROR);
         con.getOutput().close();        // Sets the status code
@@ -852,40 +957,21 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
         }
     }
 
-    private static void dump(ByteArrayBuffer buf, String caption, Map<String, List<String>> headers) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        PrintWriter pw = new PrintWriter(baos, true);
-        pw.println("---["+caption +"]---");
-        if (headers != null) {
-            for (Entry<String, List<String>> header : headers.entrySet()) {
-                if (header.getValue().isEmpty()) {
-                    // I don't think this is legal, but let's just dump it,
-                    // as the point of the dump is to uncover problems.
-                    pw.println(header.getValue());
-                } else {
-                    for (String value : header.getValue()) {
-                        pw.println(header.getKey() + ": " + value);
-                    }
-                }
+    /**
+     * Releases the attachments of a request that were kept off the heap,
+     * once the exchange is complete.
+     */
+    private static void closeAttachmentStore(@Nullable Packet request) {
+        if (request != null) {
+            AttachmentStore store = (AttachmentStore) request.invocationProperties.get(JAXWSProperties.ATTACHMENT_STORE);
+            if (store != null) {
+                store.close();
             }
         }
-        if (buf.size() > dump_threshold) {
-            byte[] b = buf.getRawData();
-            baos.write(b, 0, dump_threshold);
-            pw.println();
-            pw.println(WsservletMessages.MESSAGE_TOO_LONG(HttpAdapter.class.getName() + ".dumpTreshold"));
-        } else {
-            buf.writeTo(baos);
-        }
-        pw.println("--------------------");
+    }
 
-        String msg = baos.toString();
-        if (dump) {
-          System.out.println(msg);
-        }
-        if (LOGGER.isLoggable(Level.FINER)) {
-          LOGGER.log(Level.FINER, msg);
-        }
+    private static boolean isDumped(Packet packet) {
+        return (dump || LOGGER.isLoggable(Level.FINER)) && HttpDump.isSampled(packet);
     }
 
     /*
@@ -0,0 +1,318 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http;
+
+import com.sun.istack.NotNull;
+import com.sun.istack.Nullable;
+import com.sun.xml.ws.api.WSBinding;
+import com.sun.xml.ws.developer.ResponseCompressionFeature;
+import com.sun.xml.ws.util.ByteArrayBuffer;
+import com.sun.xml.ws.util.Pool;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Compresses the responses of an endpoint that has the
+ * {@link ResponseCompressionFeature}.
+ *
+ * <p>
+ * The response is buffered until it grows beyond the threshold. A response
+ * that stays below it is sent as it is, with a Content-Length header.
+ * Otherwise the Content-Encoding header is set and the response is compressed
+ * as it is written, with {@link Deflater}s taken from a pool.
+ *
+ * @author WS Development Team
+ */
+final class HttpCompressor {
+
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+
+    private final int threshold;
+    private final Pool.Deflater gzipDeflaters;
+    private final Pool.Deflater deflateDeflaters;
+
+    HttpCompressor(ResponseCompressionFeature feature) {
+        this.threshold = Math.max(feature.getThreshold(), 0);
+        this.gzipDeflaters = new Pool.Deflater(feature.getLevel(), true);
+        this.deflateDeflaters = new Pool.Deflater(feature.getLevel(), false);
+    }
+
+    /**
+     * @return null if the binding doesn't have the {@link ResponseCompressionFeature}.
+     */
+    static @Nullable HttpCompressor create(WSBinding binding) {
+        ResponseCompressionFeature feature = binding.getFeature(ResponseCompressionFeature.class);
+        return (feature != null) ? new HttpCompressor(feature) : null;
+    }
+
+    int getThreshold() {
+        return threshold;
+    }
+
+    Pool.Deflater getPool(String encoding) {
+        return GZIP.equals(encoding) ? gzipDeflaters : deflateDeflaters;
+    }
+
+    /**
+     * Chooses the content coding for the response.
+     *
+     * @return null if the response must not be compressed.
+     */
+    @Nullable String getEncoding(@NotNull WSHTTPConnection con) {
+        Map<String, List<String>> headers = con.getResponseHeaders();
+        if (headers != null && headers.get("Content-Encoding") != null) {
+            return null;        // the application encoded it already
+        }
+        return negotiate(con.getRequestHeaders().get("Accept-Encoding"));
+    }
+
+    /**
+     * Chooses gzip or deflate from the Accept-Encoding header values. gzip is
+     * preferred when the client accepts both equally.
+     *
+     * @return null if the client accepts neither.
+     */
+    static @Nullable String negotiate(@Nullable List<String> acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        float gzip = -1;
+        float deflate = -1;
+        float any = -1;
+        for (String value : acceptEncoding) {
+            for (String coding : value.split(",")) {
+                int semi = coding.indexOf(';');
+                String name = (semi < 0 ? coding : coding.substring(0, semi)).trim().toLowerCase(Locale.ENGLISH);
+                float q = (semi < 0) ? 1 : quality(coding.substring(semi + 1));
+                if (name.equals(GZIP) || name.equals("x-gzip")) {
+                    gzip = q;
+                } else if (name.equals(DEFLATE)) {
+                    deflate = q;
+                } else if (name.equals("*")) {
+                    any = q;
+                }
+            }
+        }
+        if (gzip < 0) {
+            gzip = any;
+        }
+        if (deflate < 0) {
+            deflate = any;
+        }
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return (gzip >= deflate) ? GZIP : DEFLATE;
+    }
+
+    private static float quality(String params) {
+        for (String param : params.split(";")) {
+            param = param.trim();
+            if (param.startsWith("q=") || param.startsWith("Q=")) {
+                try {
+                    return Float.parseFloat(param.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Gets the stream to write the response body to. The response headers
+     * are sent when the stream exceeds the threshold or is closed, so the
+     * caller must set them before writing.
+     *
+     * @param encoding
+     *      the content coding returned by {@link #getEncoding(WSHTTPConnection)}.
+     */
+    OutputStream getOutput(@NotNull WSHTTPConnection con, @NotNull String encoding) {
+        return new Output(con, encoding);
+    }
+
+    private final class Output extends OutputStream {
+        private final WSHTTPConnection con;
+        private final String encoding;
+        private ByteArrayBuffer buf = new ByteArrayBuffer();
+        private OutputStream out;
+        private boolean closed;
+
+        Output(WSHTTPConnection con, String encoding) {
+            this.con = con;
+            this.encoding = encoding;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (out == null) {
+                if (buf.size() + len <= threshold) {
+                    buf.write(b, off, len);
+                    return;
+                }
+                compress();
+            }
+            out.write(b, off, len);
+        }
+
+        private void compress() throws IOException {
+            con.setResponseHeader("Content-Encoding", encoding);
+            List<String> vary = new ArrayList<String>();
+            Map<String, List<String>> headers = con.getResponseHeaders();
+            if (headers != null && headers.get("Vary") != null) {
+                vary.addAll(headers.get("Vary"));
+            }
+            vary.add("Accept-Encoding");
+            con.setResponseHeader("Vary", vary);
+
+            OutputStream os = con.getProtocol().contains("1.1") ? con.getOutput() : new HttpAdapter.Http10OutputStream(con);
+            out = new CompressedOutputStream(os, getPool(encoding), GZIP.equals(encoding));
+            buf.writeTo(out);
+            buf = null;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (out != null) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (out == null) {
+                // small enough to be sent as it is
+                con.setContentLengthResponseHeader(buf.size());
+                out = con.getOutput();
+                buf.writeTo(out);
+                buf = null;
+            }
+            out.close();
+        }
+    }
+
+    /**
+     * {@link DeflaterOutputStream} that uses a pooled {@link Deflater}, and
+     * writes the GZIP header and trailer when the deflater produces raw data.
+     */
+    static final class CompressedOutputStream extends DeflaterOutputStream {
+        private static final byte[] GZIP_HEADER = {
+            (byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0
+        };
+
+        private final Pool.Deflater pool;
+        private final CRC32 crc;
+        private boolean closed;
+
+        CompressedOutputStream(OutputStream out, Pool.Deflater pool, boolean gzip) throws IOException {
+            super(out, pool.take(), 8192);
+            this.pool = pool;
+            this.crc = gzip ? new CRC32() : null;
+            if (gzip) {
+                out.write(GZIP_HEADER);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            super.write(b, off, len);
+            if (crc != null) {
+                crc.update(b, off, len);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (!def.finished()) {
+                super.finish();
+                if (crc != null) {
+                    byte[] trailer = new byte[8];
+                    writeInt((int) crc.getValue(), trailer, 0);
+                    writeInt((int) def.getBytesRead(), trailer, 4);
+                    out.write(trailer);
+                }
+            }
+        }
+
+        private static void writeInt(int i, byte[] b, int offset) {
+            b[offset] = (byte) i;
+            b[offset + 1] = (byte) (i >> 8);
+            b[offset + 2] = (byte) (i >> 16);
+            b[offset + 3] = (byte) (i >> 24);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                finish();
+            } finally {
+                def.reset();
+                pool.recycle(def);
+                out.close();
+            }
+        }
+    }
+}
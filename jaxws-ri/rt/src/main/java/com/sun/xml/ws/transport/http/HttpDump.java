@@ -0,0 +1,517 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http;
+
+import com.oracle.webservices.api.message.BasePropertySet;
+import com.sun.istack.NotNull;
+import com.sun.istack.Nullable;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.resources.WsservletMessages;
+import com.sun.xml.ws.util.ByteArrayBuffer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Dumps the messages that go across HTTP transport, for {@link HttpAdapter}
+ * and the client HTTP transport.
+ *
+ * <p>
+ * Messages are not buffered for dumping. The streams the codec reads and
+ * writes are teed into a capture that keeps at most
+ * {@link HttpAdapter#dump_threshold} bytes, and the dump is formatted and
+ * written by a background thread. Dumps wait in a bounded queue; when the
+ * writer can't keep up, dumps are dropped rather than slowing down requests.
+ *
+ * <p>
+ * Only 1 in {@link #sampleRate} exchanges is dumped, counted per SOAPAction
+ * if {@link #perOperation} is set. The request and the response of an exchange
+ * are dumped together. Both can be set with the
+ * <tt>com.sun.xml.ws.transport.http.HttpAdapter.dumpSampleRate</tt> and
+ * <tt>com.sun.xml.ws.transport.http.HttpAdapter.dumpSamplePerOperation</tt>
+ * system properties.
+ *
+ * @author WS Development Team
+ */
+public final class HttpDump {
+
+    private static final Logger LOGGER = Logger.getLogger(HttpDump.class.getName());
+
+    /**
+     * Dump 1 in this many exchanges; 1 dumps all of them.
+     */
+    public static volatile int sampleRate = 1;
+
+    /**
+     * Count the exchanges for {@link #sampleRate} separately for each SOAPAction,
+     * so that rarely used operations get dumped, too.
+     */
+    public static volatile boolean perOperation = false;
+
+    /**
+     * At most this many operations are counted separately, the rest share a counter.
+     */
+    private static final int MAX_OPERATIONS = 256;
+
+    /**
+     * Number of dumps that can wait for the writer.
+     */
+    private static final int QUEUE_CAPACITY = 256;
+
+    private static final AtomicLong exchanges = new AtomicLong();
+    private static final ConcurrentMap<String, AtomicLong> operationExchanges = new ConcurrentHashMap<String, AtomicLong>();
+
+    private static final BlockingQueue<Record> queue = new ArrayBlockingQueue<Record>(QUEUE_CAPACITY);
+    private static final AtomicInteger dropped = new AtomicInteger();
+    private static volatile Thread writer;
+
+    static {
+        try {
+            sampleRate = Integer.getInteger(HttpAdapter.class.getName() + ".dumpSampleRate", 1);
+            perOperation = Boolean.getBoolean(HttpAdapter.class.getName() + ".dumpSamplePerOperation");
+        } catch (SecurityException se) {
+            if (LOGGER.isLoggable(Level.CONFIG)) {
+                LOGGER.log(Level.CONFIG, "Cannot read ''{0}'' property, using defaults.",
+                        new Object[] {HttpAdapter.class.getName() + ".dumpSampleRate"});
+            }
+        }
+    }
+
+    private HttpDump() {
+    }
+
+    /**
+     * Decides whether the exchange of the given request is dumped, and
+     * remembers the decision for {@link #isSampled(Packet)}.
+     */
+    public static boolean sample(@NotNull Packet request) {
+        int rate = sampleRate;
+        if (rate <= 1) {
+            return true;
+        }
+        AtomicLong counter = exchanges;
+        if (perOperation) {
+            String operation = (request.soapAction != null) ? request.soapAction : "";
+            counter = operationExchanges.get(operation);
+            if (counter == null) {
+                if (operationExchanges.size() < MAX_OPERATIONS) {
+                    AtomicLong c = new AtomicLong();
+                    counter = operationExchanges.putIfAbsent(operation, c);
+                    if (counter == null) {
+                        counter = c;
+                    }
+                } else {
+                    counter = exchanges;
+                }
+            }
+        }
+        if (counter.getAndIncrement() % rate != 0) {
+            return false;
+        }
+        if (request.getSatellite(Sampled.class) == null) {
+            request.addSatellite(new Sampled());
+        }
+        return true;
+    }
+
+    /**
+     * True if the exchange of this request or response was chosen by {@link #sample(Packet)}.
+     * The request of the exchange is dumped now if the codec didn't read it to the end.
+     */
+    public static boolean isSampled(@NotNull Packet packet) {
+        Sampled sampled = packet.getSatellite(Sampled.class);
+        if (sampled != null) {
+            Capture capture = sampled.capture;
+            if (capture != null) {
+                sampled.capture = null;
+                capture.submit();
+            }
+        }
+        return sampleRate <= 1 || sampled != null;
+    }
+
+    /**
+     * Dumps a message that is already in memory.
+     */
+    public static void dump(ByteArrayBuffer buf, String caption, @Nullable Map<String, List<String>> headers,
+                            boolean toStdout, Logger logger) {
+        Capture capture = new Capture(caption, headers, toStdout, logger);
+        capture.write(buf.getRawData(), 0, buf.size());
+        capture.submit();
+    }
+
+    /**
+     * Returns a stream that reads from the given one, and dumps what was read
+     * once the message is read or the stream is closed.
+     */
+    public static InputStream tee(InputStream in, String caption, @Nullable Map<String, List<String>> headers,
+                                  boolean toStdout, Logger logger) {
+        return new DumpInputStream(in, new Capture(caption, headers, toStdout, logger));
+    }
+
+    /**
+     * Same as {@link #tee(InputStream, String, Map, boolean, Logger)}, but the request
+     * is dumped by {@link #isSampled(Packet)} at the latest, even if it is never read
+     * to the end.
+     */
+    public static InputStream tee(InputStream in, @NotNull Packet request, String caption,
+                                  @Nullable Map<String, List<String>> headers, boolean toStdout, Logger logger) {
+        Capture capture = new Capture(caption, headers, toStdout, logger);
+        Sampled sampled = request.getSatellite(Sampled.class);
+        if (sampled == null) {
+            sampled = new Sampled();
+            request.addSatellite(sampled);
+        }
+        sampled.capture = capture;
+        return new DumpInputStream(in, capture);
+    }
+
+    /**
+     * Returns a stream that writes to the given one, and dumps what was written
+     * when {@link DumpOutputStream#done()} is called or the stream is closed.
+     */
+    public static DumpOutputStream tee(OutputStream out, String caption, @Nullable Map<String, List<String>> headers,
+                                       boolean toStdout, Logger logger) {
+        return new DumpOutputStream(out, new Capture(caption, headers, toStdout, logger));
+    }
+
+    /**
+     * {@link OutputStream} returned by {@link HttpDump#tee(OutputStream, String, Map, boolean, Logger)}.
+     */
+    public static final class DumpOutputStream extends FilterOutputStream {
+        private final Capture capture;
+
+        DumpOutputStream(OutputStream out, Capture capture) {
+            super(out);
+            this.capture = capture;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            capture.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            capture.write(b, off, len);
+        }
+
+        /**
+         * Dumps what was written so far, without closing the underlying stream.
+         */
+        public void done() {
+            capture.submit();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                capture.submit();
+            }
+        }
+    }
+
+    private static final class DumpInputStream extends FilterInputStream {
+        private final Capture capture;
+
+        DumpInputStream(InputStream in, Capture capture) {
+            super(in);
+            this.capture = capture;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b < 0) {
+                capture.submit();
+            } else {
+                capture.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n < 0) {
+                capture.submit();
+            } else {
+                capture.write(b, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // read the skipped bytes, so that they are dumped
+            byte[] b = new byte[(int) Math.min(n, 4096)];
+            long skipped = 0;
+            while (skipped < n) {
+                int len = read(b, 0, (int) Math.min(n - skipped, b.length));
+                if (len < 0) {
+                    break;
+                }
+                skipped += len;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                capture.submit();
+            }
+        }
+    }
+
+    /**
+     * Marks a sampled exchange. As a {@link Packet} satellite, it is carried
+     * over to the response packet without showing up in the properties
+     * applications see.
+     */
+    private static final class Sampled extends BasePropertySet {
+        private static final PropertyMap model = parse(Sampled.class);
+
+        /**
+         * The dump of the request, if it is still being read.
+         */
+        volatile Capture capture;
+
+        @Override
+        protected PropertyMap getPropertyMap() {
+            return model;
+        }
+    }
+
+    /**
+     * Keeps the first {@link HttpAdapter#dump_threshold} bytes of a message.
+     * Submitted to the writer once the message is complete, or as soon as
+     * it is known to be too long. {@link #isSampled(Packet)} may submit it
+     * while another thread is still reading the message, hence the locking.
+     */
+    private static final class Capture {
+        private final String caption;
+        private final Map<String, List<String>> headers;
+        private final boolean toStdout;
+        private final Logger logger;
+        private final int threshold;
+        private byte[] buf = new byte[0];
+        private int count;
+        private boolean truncated;
+        private boolean submitted;
+
+        Capture(String caption, Map<String, List<String>> headers, boolean toStdout, Logger logger) {
+            this.caption = caption;
+            this.headers = headers;
+            this.toStdout = toStdout;
+            this.logger = logger;
+            this.threshold = HttpAdapter.dump_threshold;
+        }
+
+        synchronized void write(int b) {
+            if (submitted) {
+                return;
+            }
+            if (count == threshold) {
+                truncated = true;
+                submit();
+                return;
+            }
+            ensureCapacity(count + 1);
+            buf[count++] = (byte) b;
+        }
+
+        synchronized void write(byte[] b, int off, int len) {
+            if (submitted) {
+                return;
+            }
+            int n = Math.min(len, threshold - count);
+            ensureCapacity(count + n);
+            System.arraycopy(b, off, buf, count, n);
+            count += n;
+            if (n < len) {
+                truncated = true;
+                submit();
+            }
+        }
+
+        private void ensureCapacity(int size) {
+            if (size > buf.length) {
+                byte[] newBuf = new byte[Math.min(threshold, Math.max(size, Math.max(buf.length << 1, 1024)))];
+                System.arraycopy(buf, 0, newBuf, 0, count);
+                buf = newBuf;
+            }
+        }
+
+        synchronized void submit() {
+            if (submitted) {
+                return;
+            }
+            submitted = true;
+            // headers are formatted now, the map may change after the message is sent
+            enqueue(new Record(format(caption, headers), buf, count, truncated, toStdout, logger));
+        }
+    }
+
+    private static String format(String caption, Map<String, List<String>> headers) {
+        StringWriter sw = new StringWriter();
+        PrintWriter pw = new PrintWriter(sw);
+        pw.println("---[" + caption + "]---");
+        if (headers != null) {
+            for (Entry<String, List<String>> header : headers.entrySet()) {
+                if (header.getValue().isEmpty()) {
+                    // I don't think this is legal, but let's just dump it,
+                    // as the point of the dump is to uncover problems.
+                    pw.println(header.getValue());
+                } else {
+                    for (String value : header.getValue()) {
+                        pw.println(header.getKey() + ": " + value);
+                    }
+                }
+            }
+        }
+        pw.flush();
+        return sw.toString();
+    }
+
+    private static final class Record {
+        final String head;
+        final byte[] body;
+        final int length;
+        final boolean truncated;
+        final boolean toStdout;
+        final Logger logger;
+
+        Record(String head, byte[] body, int length, boolean truncated, boolean toStdout, Logger logger) {
+            this.head = head;
+            this.body = body;
+            this.length = length;
+            this.truncated = truncated;
+            this.toStdout = toStdout;
+            this.logger = logger;
+        }
+
+        void write() {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            PrintWriter pw = new PrintWriter(baos, true);
+            pw.print(head);
+            pw.flush();
+            baos.write(body, 0, length);
+            if (truncated) {
+                pw.println();
+                pw.println(WsservletMessages.MESSAGE_TOO_LONG(HttpAdapter.class.getName() + ".dumpTreshold"));
+            }
+            pw.println("--------------------");
+
+            String msg = baos.toString();
+            if (toStdout) {
+                System.out.println(msg);
+            }
+            if (logger.isLoggable(Level.FINER)) {
+                logger.log(Level.FINER, msg);
+            }
+        }
+    }
+
+    private static void enqueue(Record record) {
+        if (writer == null) {
+            startWriter();
+        }
+        if (!queue.offer(record)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private static synchronized void startWriter() {
+        if (writer != null) {
+            return;
+        }
+        writer = new Thread(new Runnable() {
+            public void run() {
+                while (true) {
+                    try {
+                        Record record = queue.take();
+                        int d = dropped.getAndSet(0);
+                        if (d > 0) {
+                            LOGGER.log(Level.WARNING, "{0} HTTP message dumps were dropped, the writer couldn''t keep up", d);
+                        }
+                        record.write();
+                    } catch (InterruptedException e) {
+                        return;
+                    } catch (RuntimeException e) {
+                        LOGGER.log(Level.WARNING, "Failed to dump an HTTP message", e);
+                    }
+                }
+            }
+        }, "jaxws-http-dump");
+        writer.setDaemon(true);
+        writer.setContextClassLoader(null);
+        writer.start();
+    }
+}
@@ -98,7 +98,8 @@ public class HttpClientTransport {
     private HttpURLConnection httpConnection = null;
     private final EndpointAddress endpoint;
     private final Packet context;
-    private final Integer chunkSize;
+    /*package*/ Integer chunkSize;
+    /*package*/ int fixedLength = -1;
 
 
     public HttpClientTransport(@NotNull Packet packet, @NotNull Map<String,List<String>> reqHeaders) {
@@ -108,6 +109,25 @@ public class HttpClientTransport {
         chunkSize = (Integer)context.invocationProperties.get(JAXWSProperties.HTTP_CLIENT_STREAMING_CHUNK_SIZE);
     }
 
+    /*
+     * Streams the request body with chunked transfer coding, instead of
+     * buffering it to compute Content-Length. Needs to be called before
+     * getOutput()
+     */
+    void setChunkedStreamingMode(int chunkSize) {
+        this.chunkSize = chunkSize;
+        this.fixedLength = -1;
+    }
+
+    /*
+     * Sends a request body of a known length without buffering it again.
+     * Needs to be called before getOutput()
+     */
+    void setFixedLengthStreamingMode(int length) {
+        this.fixedLength = length;
+        this.chunkSize = null;
+    }
+
     /*
      * Prepare the stream for HTTP request
      */
@@ -201,6 +221,21 @@ public class HttpClientTransport {
         };
     }
 
+    /**
+     * Called once the response has been decoded. The decoded message may
+     * still read the response stream afterwards.
+     */
+    void releaseResponse() throws IOException {
+        // HttpURLConnection takes care of its socket
+    }
+
+    /**
+     * Called when the exchange failed, to let go of the connection.
+     */
+    void abort() {
+        // HttpURLConnection takes care of its socket
+    }
+
     protected void readResponseCodeAndMessage() {
         try {
             statusCode = httpConnection.getResponseCode();
@@ -294,9 +329,10 @@ public class HttpClientTransport {
             httpConnection.setConnectTimeout(connectTimeout);
         }
 
-        Integer chunkSize = (Integer)context.invocationProperties.get(JAXWSProperties.HTTP_CLIENT_STREAMING_CHUNK_SIZE);
         if (chunkSize != null) {
             httpConnection.setChunkedStreamingMode(chunkSize);
+        } else if (fixedLength >= 0 && requiresOutputStream()) {
+            httpConnection.setFixedLengthStreamingMode(fixedLength);
         }
 
         // set the properties on HttpURLConnection
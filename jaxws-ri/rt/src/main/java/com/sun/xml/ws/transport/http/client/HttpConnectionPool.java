@@ -0,0 +1,435 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http.client;
+
+import com.sun.istack.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Per-host pool of persistent HTTP/1.1 connections used by
+ * {@link PooledHttpClientTransport}.
+ *
+ * <p>
+ * Unlike {@link java.net.HttpURLConnection}, which relies on the JDK keep-alive
+ * cache heuristics, this pool explicitly bounds the number of connections
+ * opened to each host and closes connections that stay idle longer than the
+ * configured idle timeout. A single instance is shared among all the tubes
+ * that are configured with the same
+ * {@link com.sun.xml.ws.developer.HttpConnectionPoolFeature}.
+ *
+ * <p>
+ * Idle connections are evicted lazily whenever a connection to the same host
+ * is leased or released, so no housekeeping thread is needed.
+ *
+ * @author WS Development Team
+ */
+public final class HttpConnectionPool {
+
+    private static final Logger LOGGER = Logger.getLogger(HttpConnectionPool.class.getName());
+
+    private final int maxConnectionsPerHost;
+    private final long idleTimeout;
+    private final ConcurrentMap<String, HostPool> hosts = new ConcurrentHashMap<String, HostPool>();
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong closed = new AtomicLong();
+    private final AtomicLong waited = new AtomicLong();
+
+    private volatile boolean shutdown;
+
+    /**
+     * @param maxConnectionsPerHost
+     *      maximum number of connections (leased and idle) kept to one host.
+     *      Non-positive value means no limit.
+     * @param idleTimeout
+     *      time in milliseconds after which an idle connection is closed.
+     *      Non-positive value means idle connections are never evicted.
+     */
+    public HttpConnectionPool(int maxConnectionsPerHost, long idleTimeout) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Gets a connection to the host of the given address. An idle connection
+     * is reused if available, otherwise a new one is opened. If the host
+     * already has {@link #getMaxConnectionsPerHost()} connections, the caller
+     * waits for one to be released.
+     *
+     * @param connectTimeout
+     *      timeout in milliseconds for opening the socket and for waiting on
+     *      a connection from an exhausted pool. 0 means infinite.
+     */
+    @NotNull Connection lease(URI address, int connectTimeout) throws IOException {
+        if (shutdown) {
+            throw new IOException("HTTP connection pool is closed");
+        }
+        int port = address.getPort();
+        if (port == -1) {
+            port = 80;
+        }
+        String key = address.getHost() + ':' + port;
+        HostPool host = hosts.get(key);
+        if (host == null) {
+            HostPool newHost = new HostPool(address.getHost(), port);
+            host = hosts.putIfAbsent(key, newHost);
+            if (host == null) {
+                host = newHost;
+            }
+        }
+        Connection con = host.poll(connectTimeout);
+        if (con != null) {
+            reused.incrementAndGet();
+            con.useCount++;
+            return con;
+        }
+        try {
+            con = host.open(connectTimeout);
+        } catch (IOException e) {
+            host.free();
+            throw e;
+        } catch (RuntimeException e) {
+            host.free();
+            throw e;
+        }
+        created.incrementAndGet();
+        con.useCount++;
+        return con;
+    }
+
+    /**
+     * Gives the connection back to the pool.
+     *
+     * @param reusable
+     *      true if the complete response has been consumed and the server
+     *      allows keep-alive. Otherwise the connection is closed.
+     */
+    void release(@NotNull Connection con, boolean reusable) {
+        if (reusable && !shutdown) {
+            con.host.offer(con);
+        } else {
+            con.host.discard(con);
+        }
+    }
+
+    /**
+     * Closes all the idle connections. Leased connections are closed when
+     * they are released.
+     */
+    public void close() {
+        shutdown = true;
+        for (HostPool host : hosts.values()) {
+            host.closeIdle(true);
+        }
+    }
+
+    /**
+     * Closes the connections that stayed idle longer than the idle timeout.
+     */
+    public void closeIdleConnections() {
+        for (HostPool host : hosts.values()) {
+            host.closeIdle(false);
+        }
+    }
+
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Number of sockets opened by this pool.
+     */
+    public long getConnectionsCreated() {
+        return created.get();
+    }
+
+    /**
+     * Number of requests that were sent on an already opened connection.
+     */
+    public long getConnectionsReused() {
+        return reused.get();
+    }
+
+    /**
+     * Number of sockets closed by this pool, either because they expired,
+     * were not reusable, or failed.
+     */
+    public long getConnectionsClosed() {
+        return closed.get();
+    }
+
+    /**
+     * Number of times a caller had to wait for a connection because the
+     * per-host limit was reached.
+     */
+    public long getLeaseWaits() {
+        return waited.get();
+    }
+
+    /**
+     * Number of connections currently handed out to in-flight requests.
+     */
+    public int getLeasedConnections() {
+        int count = 0;
+        for (HostPool host : hosts.values()) {
+            count += host.leasedCount();
+        }
+        return count;
+    }
+
+    /**
+     * Number of open connections waiting in the pool.
+     */
+    public int getIdleConnections() {
+        int count = 0;
+        for (HostPool host : hosts.values()) {
+            count += host.idleCount();
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpConnectionPool[created=" + getConnectionsCreated()
+                + ", reused=" + getConnectionsReused()
+                + ", closed=" + getConnectionsClosed()
+                + ", waits=" + getLeaseWaits()
+                + ", leased=" + getLeasedConnections()
+                + ", idle=" + getIdleConnections() + "]";
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to close pooled HTTP connection", e);
+        }
+    }
+
+    /**
+     * Connections of one host:port. All state is guarded by the instance lock.
+     */
+    private final class HostPool {
+        private final String host;
+        private final int port;
+        private final Deque<Connection> idle = new ArrayDeque<Connection>();
+        // leased connections and connections being opened
+        private int leased;
+
+        HostPool(String host, int port) {
+            this.host = host;
+            this.port = port;
+        }
+
+        /**
+         * Takes an idle connection, or reserves a slot for a new one and
+         * returns null.
+         */
+        synchronized Connection poll(int timeout) throws IOException {
+            expire(System.currentTimeMillis());
+            long deadline = (timeout > 0) ? System.currentTimeMillis() + timeout : 0;
+            boolean counted = false;
+            while (idle.isEmpty() && maxConnectionsPerHost > 0 && leased >= maxConnectionsPerHost) {
+                if (!counted) {
+                    waited.incrementAndGet();
+                    counted = true;
+                }
+                long wait = 0;
+                if (deadline != 0) {
+                    wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0) {
+                        throw new SocketTimeoutException("Timed out waiting for a pooled connection to " + host + ':' + port);
+                    }
+                }
+                try {
+                    wait(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for a pooled connection to " + host + ':' + port);
+                }
+                if (shutdown) {
+                    throw new IOException("HTTP connection pool is closed");
+                }
+            }
+            leased++;
+            // most recently used connection is the least likely to be stale
+            return idle.pollLast();
+        }
+
+        Connection open(int timeout) throws IOException {
+            Socket socket = new Socket();
+            try {
+                socket.setTcpNoDelay(true);
+                socket.setKeepAlive(true);
+                socket.connect(new InetSocketAddress(host, port), timeout);
+                return new Connection(this, socket);
+            } catch (IOException e) {
+                closeQuietly(socket);
+                throw e;
+            }
+        }
+
+        synchronized void offer(Connection con) {
+            leased--;
+            con.lastUsed = System.currentTimeMillis();
+            idle.addLast(con);
+            expire(con.lastUsed);
+            notify();
+        }
+
+        void discard(Connection con) {
+            closed.incrementAndGet();
+            closeQuietly(con.socket);
+            free();
+        }
+
+        synchronized void free() {
+            leased--;
+            notify();
+        }
+
+        synchronized int leasedCount() {
+            return leased;
+        }
+
+        synchronized int idleCount() {
+            return idle.size();
+        }
+
+        void closeIdle(boolean all) {
+            List<Connection> expired;
+            synchronized (this) {
+                if (all) {
+                    expired = new ArrayList<Connection>(idle);
+                    idle.clear();
+                    notifyAll();
+                } else {
+                    expired = removeExpired(System.currentTimeMillis());
+                }
+            }
+            for (Connection con : expired) {
+                closed.incrementAndGet();
+                closeQuietly(con.socket);
+            }
+        }
+
+        private void expire(long now) {
+            for (Connection con : removeExpired(now)) {
+                closed.incrementAndGet();
+                closeQuietly(con.socket);
+            }
+        }
+
+        private List<Connection> removeExpired(long now) {
+            List<Connection> expired = new ArrayList<Connection>();
+            if (idleTimeout > 0) {
+                Iterator<Connection> it = idle.iterator();
+                while (it.hasNext()) {
+                    Connection con = it.next();
+                    if (now - con.lastUsed >= idleTimeout) {
+                        it.remove();
+                        expired.add(con);
+                    }
+                }
+            }
+            return expired;
+        }
+    }
+
+    /**
+     * A pooled socket along with its buffered streams.
+     */
+    static final class Connection {
+        private final HostPool host;
+        final Socket socket;
+        final InputStream in;
+        final OutputStream out;
+        private long lastUsed;
+        private int useCount;
+
+        Connection(HostPool host, Socket socket) throws IOException {
+            this.host = host;
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        String getHost() {
+            return host.host;
+        }
+
+        int getPort() {
+            return host.port;
+        }
+
+        /**
+         * True if the connection already carried an earlier request, so the
+         * server may have closed it in the meantime.
+         */
+        boolean isReused() {
+            return useCount > 1;
+        }
+    }
+}
@@ -49,10 +49,11 @@ import com.sun.xml.ws.api.pipe.*;
 import com.sun.xml.ws.api.pipe.helper.AbstractTubeImpl;
 import com.sun.xml.ws.client.ClientTransportException;
 import com.sun.xml.ws.developer.HttpConfigFeature;
+import com.sun.xml.ws.developer.HttpConnectionPoolFeature;
+import com.sun.xml.ws.developer.JAXWSProperties;
 import com.sun.xml.ws.resources.ClientMessages;
-import com.sun.xml.ws.resources.WsservletMessages;
 import com.sun.xml.ws.transport.Headers;
-import com.sun.xml.ws.transport.http.HttpAdapter;
+import com.sun.xml.ws.transport.http.HttpDump;
 import com.sun.xml.ws.util.ByteArrayBuffer;
 import com.sun.xml.ws.util.RuntimeVersion;
 import com.sun.xml.ws.util.StreamUtils;
@@ -67,7 +68,6 @@ import java.io.*;
 import java.net.CookieHandler;
 import java.net.HttpURLConnection;
 import java.util.*;
-import java.util.Map.Entry;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -84,6 +84,17 @@ public class HttpTransportPipe extends AbstractTubeImpl {
     private static final List<String> USER_AGENT = Collections.singletonList(RuntimeVersion.VERSION.toString());
     private static final Logger LOGGER = Logger.getLogger(HttpTransportPipe.class.getName());
 
+    /**
+     * Requests larger than this are streamed, unless
+     * {@link JAXWSProperties#HTTP_CLIENT_STREAMING_THRESHOLD} says otherwise.
+     */
+    private static final int DEFAULT_STREAMING_THRESHOLD = 1024 * 1024;
+
+    /**
+     * Chunk size used once a request is streamed.
+     */
+    private static final int STREAMING_CHUNK_SIZE = 8192;
+
     /**
      * Dumps what goes across HTTP transport.
      */
@@ -93,6 +104,7 @@ public class HttpTransportPipe extends AbstractTubeImpl {
     private final WSBinding binding;
     private final CookieHandler cookieJar;      // shared object among the tubes
     private final boolean sticky;
+    private final HttpConnectionPool connectionPool;    // shared object among the tubes, may be null
 
     static {
         boolean b;
@@ -113,6 +125,8 @@ public class HttpTransportPipe extends AbstractTubeImpl {
             configFeature = new HttpConfigFeature();
         }
         this.cookieJar = configFeature.getCookieHandler();
+        HttpConnectionPoolFeature poolFeature = binding.getFeature(HttpConnectionPoolFeature.class);
+        this.connectionPool = (poolFeature != null && poolFeature.isEnabled()) ? poolFeature.getConnectionPool() : null;
     }
 
     private static boolean isSticky(WSBinding binding) {
@@ -151,12 +165,16 @@ public class HttpTransportPipe extends AbstractTubeImpl {
     }
 
     protected HttpClientTransport getTransport(Packet request, Map<String, List<String>> reqHeaders) {
+        if (connectionPool != null && PooledHttpClientTransport.isSupported(request)) {
+            return new PooledHttpClientTransport(request, reqHeaders, connectionPool);
+        }
         return new HttpClientTransport(request, reqHeaders);
     }
 
     @Override
     public Packet process(Packet request) {
-        HttpClientTransport con;
+        HttpClientTransport con = null;
+        boolean done = false;
         try {
             // get transport headers from message
             Map<String, List<String>> reqHeaders = new Headers();
@@ -180,6 +198,7 @@ public class HttpTransportPipe extends AbstractTubeImpl {
 
             con = getTransport(request, reqHeaders);
             request.addSatellite(new HttpResponseProperties(con));
+            boolean dumping = (dump || LOGGER.isLoggable(Level.FINER)) && HttpDump.sample(request);
 
             ContentType ct = codec.getStaticContentType(request);
             if (ct == null) {
@@ -196,11 +215,15 @@ public class HttpTransportPipe extends AbstractTubeImpl {
                     writeSOAPAction(reqHeaders, ct.getSOAPActionHeader());
                 }
 
-                if (dump || LOGGER.isLoggable(Level.FINER)) {
-                    dump(buf, "HTTP request", reqHeaders);
+                if (dumping) {
+                    HttpDump.dump(buf, "HTTP request", reqHeaders, dump, LOGGER);
                 }
 
-                buf.writeTo(con.getOutput());
+                if (isStreamable(request, reqHeaders)) {
+                    writeBuffered(con, buf, getStreamingThreshold(request));
+                } else {
+                    buf.writeTo(con.getOutput());
+                }
             } else {
                 // Set static Content-Type
                 reqHeaders.put("Content-Type", Collections.singletonList(ct.getContentType()));
@@ -211,45 +234,90 @@ public class HttpTransportPipe extends AbstractTubeImpl {
                     writeSOAPAction(reqHeaders, ct.getSOAPActionHeader());
                 }
 
-                if(dump || LOGGER.isLoggable(Level.FINER)) {
-                    ByteArrayBuffer buf = new ByteArrayBuffer();
-                    codec.encode(request, buf);
-                    dump(buf, "HTTP request - "+request.endpointAddress, reqHeaders);
-                    OutputStream out = con.getOutput();
-                    if (out != null) {
-                        buf.writeTo(out);
+                String caption = "HTTP request - "+request.endpointAddress;
+                if (isStreamable(request, reqHeaders)) {
+                    StreamingRequestOutputStream os = new StreamingRequestOutputStream(con, getStreamingThreshold(request));
+                    if (dumping) {
+                        HttpDump.DumpOutputStream dos = HttpDump.tee(os, caption, reqHeaders, dump, LOGGER);
+                        codec.encode(request, dos);
+                        dos.done();
+                    } else {
+                        codec.encode(request, os);
                     }
+                    os.finish();
                 } else {
                     OutputStream os = con.getOutput();
                     if (os != null) {
-                        codec.encode(request, os);
+                        if (dumping) {
+                            HttpDump.DumpOutputStream dos = HttpDump.tee(os, caption, reqHeaders, dump, LOGGER);
+                            codec.encode(request, dos);
+                            dos.done();
+                        } else {
+                            codec.encode(request, os);
+                        }
                     }
                 }
             }
 
             con.closeOutput();
 
-            return createResponsePacket(request, con);
+            Packet reply = createResponsePacket(request, con, dumping);
+            con.releaseResponse();
+            done = true;
+            return reply;
         } catch(WebServiceException wex) {
             throw wex;
         } catch(Exception ex) {
             throw new WebServiceException(ex);
+        } finally {
+            if (!done && con != null) {
+                con.abort();
+            }
         }
     }
 
-    private Packet createResponsePacket(Packet request, HttpClientTransport con) throws IOException {
+    /*
+     * The transport decides how to send the body if the application asked for
+     * a chunk size, or if the body is compressed on the way out.
+     */
+    private static boolean isStreamable(Packet request, Map<String, List<String>> reqHeaders) {
+        if (request.invocationProperties.get(JAXWSProperties.HTTP_CLIENT_STREAMING_CHUNK_SIZE) != null) {
+            return false;
+        }
+        List<String> contentEncoding = reqHeaders.get("Content-Encoding");
+        return contentEncoding == null || !contentEncoding.get(0).contains("gzip");
+    }
+
+    /*
+     * Sends a request that is in memory already. Only a request beyond the
+     * threshold is sent in fixed-length streaming mode, so that the connection
+     * doesn't buffer it again. A smaller one is buffered by the connection as
+     * before, so that it can be resent for authentication or a redirect.
+     */
+    static void writeBuffered(HttpClientTransport con, ByteArrayBuffer buf, int threshold) throws IOException {
+        if (buf.size() > threshold) {
+            con.setFixedLengthStreamingMode(buf.size());
+        }
+        buf.writeTo(con.getOutput());
+    }
+
+    private static int getStreamingThreshold(Packet request) {
+        Integer threshold = (Integer) request.invocationProperties.get(JAXWSProperties.HTTP_CLIENT_STREAMING_THRESHOLD);
+        return (threshold != null) ? threshold : DEFAULT_STREAMING_THRESHOLD;
+    }
+
+    private Packet createResponsePacket(Packet request, HttpClientTransport con, boolean dumping) throws IOException {
         con.readResponseCodeAndMessage();   // throws IOE
         recordCookies(request, con);
 
         InputStream responseStream = con.getInput();
-        if (dump || LOGGER.isLoggable(Level.FINER)) {
-            ByteArrayBuffer buf = new ByteArrayBuffer();
+        if (dumping) {
+            String caption = "HTTP response - "+request.endpointAddress+" - "+con.statusCode;
             if (responseStream != null) {
-                buf.write(responseStream);
-                responseStream.close();
+                responseStream = HttpDump.tee(responseStream, caption, con.getHeaders(), dump, LOGGER);
+            } else {
+                HttpDump.dump(new ByteArrayBuffer(), caption, con.getHeaders(), dump, LOGGER);
             }
-            dump(buf,"HTTP response - "+request.endpointAddress+" - "+con.statusCode, con.getHeaders());
-            responseStream = buf.newInputStream();
         }
 
         // Check if stream contains any data
@@ -427,38 +495,80 @@ public class HttpTransportPipe extends AbstractTubeImpl {
     }
 
 
-    private void dump(ByteArrayBuffer buf, String caption, Map<String, List<String>> headers) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        PrintWriter pw = new PrintWriter(baos, true);
-        pw.println("---["+caption +"]---");
-        for (Entry<String,List<String>> header : headers.entrySet()) {
-            if(header.getValue().isEmpty()) {
-                // I don't think this is legal, but let's just dump it,
-                // as the point of the dump is to uncover problems.
-                pw.println(header.getValue());
-            } else {
-                for (String value : header.getValue()) {
-                    pw.println(header.getKey()+": "+value);
+    /**
+     * Keeps the encoded request in memory until it grows beyond the threshold,
+     * and then switches the connection to chunked streaming so that large
+     * messages aren't buffered as a whole. A request that stays within the
+     * threshold is written to the connection without a streaming mode, so the
+     * connection can still resend it for authentication or a redirect.
+     */
+    static final class StreamingRequestOutputStream extends OutputStream {
+        private final HttpClientTransport con;
+        private final int threshold;
+        private ByteArrayBuffer buf = new ByteArrayBuffer();
+        private OutputStream out;
+
+        StreamingRequestOutputStream(HttpClientTransport con, int threshold) {
+            this.con = con;
+            this.threshold = threshold;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (buf != null) {
+                if (buf.size() < threshold) {
+                    buf.write(b);
+                    return;
                 }
+                startStreaming();
+            }
+            if (out != null) {
+                out.write(b);
             }
         }
 
-        if (buf.size() > HttpAdapter.dump_threshold) {
-            byte[] b = buf.getRawData();
-            baos.write(b, 0, HttpAdapter.dump_threshold);
-            pw.println();
-            pw.println(WsservletMessages.MESSAGE_TOO_LONG(HttpAdapter.class.getName() + ".dumpTreshold"));
-        } else {
-            buf.writeTo(baos);
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (buf != null) {
+                if (len <= threshold - buf.size()) {
+                    buf.write(b, off, len);
+                    return;
+                }
+                startStreaming();
+            }
+            if (out != null) {
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (out != null) {
+                out.flush();
+            }
         }
-        pw.println("--------------------");
 
-        String msg = baos.toString();
-        if (dump) {
-            System.out.println(msg);
+        private void startStreaming() throws IOException {
+            con.setChunkedStreamingMode(STREAMING_CHUNK_SIZE);
+            writeBuffer();
         }
-        if (LOGGER.isLoggable(Level.FINER)) {
-            LOGGER.log(Level.FINER, msg);
+
+        /**
+         * Sends whatever is still buffered. The transport's output is closed
+         * by {@link HttpClientTransport#closeOutput()}.
+         */
+        void finish() throws IOException {
+            if (buf != null) {
+                writeBuffer();
+            }
+        }
+
+        private void writeBuffer() throws IOException {
+            out = con.getOutput();
+            if (out != null) {
+                buf.writeTo(out);
+            }
+            buf = null;
         }
     }
 
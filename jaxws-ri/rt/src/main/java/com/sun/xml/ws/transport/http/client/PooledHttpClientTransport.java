@@ -0,0 +1,746 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http.client;
+
+import com.sun.istack.NotNull;
+import com.sun.istack.Nullable;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.client.BindingProviderProperties;
+import com.sun.xml.ws.client.ClientTransportException;
+import com.sun.xml.ws.developer.JAXWSProperties;
+import com.sun.xml.ws.resources.ClientMessages;
+import com.sun.xml.ws.transport.Headers;
+import com.sun.xml.ws.util.ByteArrayBuffer;
+
+import javax.xml.ws.WebServiceException;
+import javax.xml.ws.handler.MessageContext;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@link HttpClientTransport} that speaks HTTP/1.1 directly over sockets
+ * taken from a {@link HttpConnectionPool}, instead of opening a
+ * {@link java.net.HttpURLConnection} per request.
+ *
+ * <p>
+ * The request body is buffered so that a request sent on a keep-alive
+ * connection the server has meanwhile closed can be replayed once on a fresh
+ * connection. If {@link JAXWSProperties#HTTP_CLIENT_STREAMING_CHUNK_SIZE} is
+ * set, or {@link HttpTransportPipe} asks for a streaming mode, the body is
+ * written straight to the connection instead, and is not replayed.
+ *
+ * <p>
+ * The connection goes back to the pool as soon as the response body has been
+ * read completely or the response stream is closed. Small responses with a
+ * known length are read eagerly so that the connection is released before
+ * the message is decoded.
+ *
+ * <p>
+ * Only plain HTTP connections without a proxy are handled;
+ * {@link HttpTransportPipe} uses the default {@link HttpClientTransport} for
+ * anything else (see {@link #isSupported(Packet)}).
+ *
+ * @author WS Development Team
+ */
+final class PooledHttpClientTransport extends HttpClientTransport {
+
+    private static final Logger LOGGER = Logger.getLogger(PooledHttpClientTransport.class.getName());
+
+    /**
+     * Responses up to this size are read before the message is decoded.
+     */
+    private static final int EAGER_READ_THRESHOLD = 64 * 1024;
+
+    /**
+     * Request bodies up to this size are kept, so that they can be replayed
+     * even if the caller knows their length up front.
+     */
+    private static final int REPLAY_THRESHOLD = 64 * 1024;
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final HttpConnectionPool pool;
+    private final Packet context;
+    private final Map<String, List<String>> reqHeaders;
+    private final URI uri;
+    private final String method;
+
+    private HttpConnectionPool.Connection con;
+    private ByteArrayBuffer body;
+    private OutputStream outputStream;
+    private Headers respHeaders;
+    private InputStream responseStream;
+
+    PooledHttpClientTransport(@NotNull Packet packet, @NotNull Map<String, List<String>> reqHeaders,
+                              @NotNull HttpConnectionPool pool) {
+        super(packet, reqHeaders);
+        this.pool = pool;
+        this.context = packet;
+        this.reqHeaders = reqHeaders;
+        this.uri = packet.endpointAddress.getURI();
+        String requestMethod = (String) packet.invocationProperties.get(MessageContext.HTTP_REQUEST_METHOD);
+        this.method = (requestMethod != null) ? requestMethod : "POST";
+    }
+
+    /**
+     * Returns true if the request can be sent over a pooled connection, i.e.
+     * it goes to a plain HTTP endpoint without a proxy.
+     */
+    static boolean isSupported(@NotNull Packet packet) {
+        if (packet.endpointAddress == null) {
+            return false;
+        }
+        URI uri = packet.endpointAddress.getURI();
+        if (!"http".equalsIgnoreCase(uri.getScheme()) || uri.getHost() == null) {
+            return false;
+        }
+        ProxySelector selector = ProxySelector.getDefault();
+        if (selector != null) {
+            List<Proxy> proxies = selector.select(uri);
+            if (proxies != null && !proxies.isEmpty() && proxies.get(0).type() != Proxy.Type.DIRECT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    void setFixedLengthStreamingMode(int length) {
+        if (length > REPLAY_THRESHOLD) {
+            super.setFixedLengthStreamingMode(length);
+        }
+    }
+
+    @Override
+    OutputStream getOutput() {
+        if (!requiresOutputStream()) {
+            return null;
+        }
+        try {
+            if (chunkSize != null) {
+                // streaming, so the request head goes out right away
+                lease();
+                writeRequestHead(-1);
+                outputStream = new BufferedOutputStream(new ChunkedOutputStream(con.out), chunkSize);
+            } else if (fixedLength >= 0) {
+                lease();
+                writeRequestHead(fixedLength);
+                outputStream = new FixedLengthOutputStream(con.out, fixedLength);
+            } else {
+                body = new ByteArrayBuffer();
+                outputStream = body;
+            }
+            List<String> contentEncoding = reqHeaders.get("Content-Encoding");
+            if (contentEncoding != null && contentEncoding.get(0).contains("gzip")) {
+                outputStream = new GZIPOutputStream(outputStream);
+            }
+        } catch (IOException ex) {
+            releaseConnection(false);
+            throw new ClientTransportException(ClientMessages.localizableHTTP_CLIENT_FAILED(ex), ex);
+        }
+        return outputStream;
+    }
+
+    @Override
+    void closeOutput() throws IOException {
+        if (outputStream != null) {
+            // writes the last chunk in streaming mode
+            outputStream.close();
+            outputStream = null;
+        }
+    }
+
+    @Override
+    protected void readResponseCodeAndMessage() {
+        try {
+            if (con == null) {
+                sendRequest();
+            } else {
+                con.out.flush();
+                readResponseHead();
+            }
+        } catch (IOException ioe) {
+            releaseConnection(false);
+            throw new WebServiceException(ioe);
+        }
+    }
+
+    /**
+     * Sends the buffered request, and replays it once on a new connection if
+     * a reused connection turns out to be closed by the server.
+     */
+    private void sendRequest() throws IOException {
+        while (true) {
+            lease();
+            try {
+                writeRequestHead((body != null) ? body.size() : -1);
+                if (body != null) {
+                    body.writeTo(con.out);
+                }
+                con.out.flush();
+                readResponseHead();
+                return;
+            } catch (IOException e) {
+                // replay only if the server didn't start to respond
+                boolean stale = con.isReused() && statusCode == 0;
+                releaseConnection(false);
+                if (!stale) {
+                    throw e;
+                }
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE, "Pooled connection to " + uri + " was closed by the server, retrying", e);
+                }
+            }
+        }
+    }
+
+    private void lease() throws IOException {
+        Integer connectTimeout = (Integer) context.invocationProperties.get(JAXWSProperties.CONNECT_TIMEOUT);
+        con = pool.lease(uri, (connectTimeout != null) ? connectTimeout : 0);
+        Integer reqTimeout = (Integer) context.invocationProperties.get(BindingProviderProperties.REQUEST_TIMEOUT);
+        con.socket.setSoTimeout((reqTimeout != null) ? reqTimeout : 0);
+    }
+
+    private void writeRequestHead(long length) throws IOException {
+        StringBuilder head = new StringBuilder(256);
+        head.append(method).append(' ');
+        String path = uri.getRawPath();
+        head.append((path == null || path.length() == 0) ? "/" : path);
+        if (uri.getRawQuery() != null) {
+            head.append('?').append(uri.getRawQuery());
+        }
+        head.append(" HTTP/1.1\r\n");
+        head.append("Host: ").append(con.getHost());
+        if (con.getPort() != 80) {
+            head.append(':').append(con.getPort());
+        }
+        head.append("\r\n");
+        for (Map.Entry<String, List<String>> entry : reqHeaders.entrySet()) {
+            String name = entry.getKey();
+            if ("Content-Length".equalsIgnoreCase(name) || "Transfer-Encoding".equalsIgnoreCase(name)
+                    || "Host".equalsIgnoreCase(name)) {
+                continue;
+            }
+            for (String value : entry.getValue()) {
+                head.append(name).append(": ").append(value).append("\r\n");
+            }
+        }
+        if (length >= 0) {
+            head.append("Content-Length: ").append(length).append("\r\n");
+        } else if (requiresOutputStream()) {
+            head.append("Transfer-Encoding: chunked\r\n");
+        }
+        head.append("\r\n");
+        con.out.write(head.toString().getBytes("ISO-8859-1"));
+    }
+
+    private void readResponseHead() throws IOException {
+        String statusLine;
+        do {
+            statusLine = readLine(con.in);
+            if (statusLine == null) {
+                throw new EOFException("Connection closed by " + uri + " before the response was received");
+            }
+            // HTTP/1.1 200 OK
+            int sp = statusLine.indexOf(' ');
+            if (!statusLine.startsWith("HTTP/") || sp < 0 || statusLine.length() < sp + 4) {
+                throw new IOException("Invalid HTTP status line: " + statusLine);
+            }
+            try {
+                statusCode = Integer.parseInt(statusLine.substring(sp + 1, sp + 4));
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid HTTP status line: " + statusLine);
+            }
+            statusMessage = (statusLine.length() > sp + 5) ? statusLine.substring(sp + 5) : "";
+            respHeaders = readHeaders(con.in);
+        } while (statusCode / 100 == 1);    // skip 100-continue and other interim responses
+
+        String connection = respHeaders.getFirst("Connection");
+        boolean keepAlive = statusLine.startsWith("HTTP/1.1")
+                ? connection == null || !connection.toLowerCase().contains("close")
+                : connection != null && connection.toLowerCase().contains("keep-alive");
+
+        String transferEncoding = respHeaders.getFirst("Transfer-Encoding");
+        String length = respHeaders.getFirst("Content-Length");
+        InputStream in;
+        if ("HEAD".equalsIgnoreCase(method) || statusCode == 204 || statusCode == 304) {
+            contentLength = 0;
+            in = new BoundedInputStream(con.in, 0);
+        } else if (transferEncoding != null && transferEncoding.toLowerCase().contains("chunked")) {
+            contentLength = -1;
+            in = new ChunkedInputStream(con.in);
+        } else if (length != null) {
+            try {
+                contentLength = Integer.parseInt(length.trim());
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid Content-Length: " + length);
+            }
+            in = new BoundedInputStream(con.in, contentLength);
+        } else {
+            // body is delimited by the end of the connection
+            contentLength = -1;
+            keepAlive = false;
+            in = con.in;
+        }
+
+        if (contentLength >= 0 && contentLength <= EAGER_READ_THRESHOLD) {
+            // one extra byte, so that hitting the end doesn't grow the buffer
+            ByteArrayBuffer buf = new ByteArrayBuffer(contentLength + 1);
+            buf.write(in);
+            releaseConnection(keepAlive);
+            responseStream = buf.newInputStream();
+        } else {
+            responseStream = new ResponseStream(in, keepAlive);
+        }
+    }
+
+    @Override
+    @Nullable InputStream getInput() {
+        InputStream in = readResponse();
+        if (in != null) {
+            String contentEncoding = respHeaders.getFirst("Content-Encoding");
+            if (contentEncoding != null && contentEncoding.contains("gzip")) {
+                try {
+                    in = new GZIPInputStream(in);
+                } catch (IOException e) {
+                    throw new ClientTransportException(ClientMessages.localizableHTTP_STATUS_CODE(statusCode, statusMessage), e);
+                }
+            }
+        }
+        return in;
+    }
+
+    @Override
+    protected @Nullable InputStream readResponse() {
+        return responseStream;
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaders() {
+        return respHeaders;
+    }
+
+    @Override
+    @Nullable String getContentType() {
+        return respHeaders.getFirst("Content-Type");
+    }
+
+    @Override
+    public int getContentLength() {
+        return contentLength;
+    }
+
+    @Override
+    boolean isSecure() {
+        return false;
+    }
+
+    private boolean requiresOutputStream() {
+        return !(method.equalsIgnoreCase("GET") || method.equalsIgnoreCase("HEAD")
+                || method.equalsIgnoreCase("DELETE"));
+    }
+
+    @Override
+    void releaseResponse() throws IOException {
+        if (responseStream instanceof ResponseStream) {
+            ((ResponseStream) responseStream).detach();
+        }
+    }
+
+    @Override
+    void abort() {
+        if (responseStream instanceof ResponseStream) {
+            ((ResponseStream) responseStream).release(false);
+        }
+        releaseConnection(false);
+    }
+
+    private void releaseConnection(boolean reusable) {
+        if (con != null) {
+            pool.release(con, reusable);
+            con = null;
+        }
+    }
+
+    private static Headers readHeaders(InputStream in) throws IOException {
+        Headers headers = new Headers();
+        String line;
+        while ((line = readLine(in)) != null && line.length() > 0) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.add(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * Reads a CRLF terminated ISO-8859-1 line, or returns null at the end of
+     * the stream.
+     */
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                int len = line.length();
+                if (len > 0 && line.charAt(len - 1) == '\r') {
+                    line.setLength(len - 1);
+                }
+                return line.toString();
+            }
+            line.append((char) b);
+        }
+        return (line.length() == 0) ? null : line.toString();
+    }
+
+    /**
+     * Response body that returns the connection to the pool once the body
+     * has been read completely, the stream is closed, or the rest of a small
+     * body has been {@link #detach() read into memory}.
+     */
+    private final class ResponseStream extends InputStream {
+        private InputStream in;
+        private final boolean keepAlive;
+        private boolean released;
+
+        ResponseStream(InputStream in, boolean keepAlive) {
+            this.in = in;
+            this.keepAlive = keepAlive;
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+            if (in == null) {
+                return -1;
+            }
+            try {
+                int b = in.read();
+                if (b == -1) {
+                    release(keepAlive);
+                }
+                return b;
+            } catch (IOException e) {
+                release(false);
+                throw e;
+            }
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) throws IOException {
+            if (in == null) {
+                return -1;
+            }
+            try {
+                int n = in.read(b, off, len);
+                if (n == -1) {
+                    release(keepAlive);
+                }
+                return n;
+            } catch (IOException e) {
+                release(false);
+                throw e;
+            }
+        }
+
+        @Override
+        public synchronized int available() throws IOException {
+            return (in == null) ? 0 : in.available();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (!released) {
+                // the unread rest of the body has to be skipped to reuse the connection,
+                // unless there is no end to wait for
+                boolean drained = false;
+                if (keepAlive) {
+                    try {
+                        byte[] buf = new byte[8192];
+                        while (in.read(buf) != -1);
+                        drained = true;
+                    } catch (IOException e) {
+                        LOGGER.log(Level.FINE, "Failed to skip the rest of the response body", e);
+                    }
+                }
+                release(drained);
+            }
+            in = null;
+        }
+
+        /**
+         * Reads the unread rest of the body into memory if it is no larger than
+         * {@link #EAGER_READ_THRESHOLD}, so that the connection goes back to the
+         * pool while the message is still read. A larger body keeps the
+         * connection until it is read completely or the stream is closed.
+         */
+        synchronized void detach() throws IOException {
+            if (released) {
+                return;
+            }
+            ByteArrayBuffer head = new ByteArrayBuffer();
+            byte[] buf = new byte[8192];
+            try {
+                while (head.size() <= EAGER_READ_THRESHOLD) {
+                    int n = in.read(buf);
+                    if (n == -1) {
+                        release(keepAlive);
+                        in = head.newInputStream();
+                        return;
+                    }
+                    head.write(buf, 0, n);
+                }
+            } catch (IOException e) {
+                release(false);
+                throw e;
+            }
+            in = new SequenceInputStream(head.newInputStream(), in);
+        }
+
+        synchronized void release(boolean reusable) {
+            if (!released) {
+                released = true;
+                releaseConnection(reusable);
+                if (!reusable) {
+                    // the socket is closed, there is nothing more to read
+                    in = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Body with a known Content-Length.
+     */
+    private static final class BoundedInputStream extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long length) {
+            this.in = in;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException("Unexpected end of HTTP response body");
+            }
+            remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n == -1) {
+                throw new EOFException("Unexpected end of HTTP response body");
+            }
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+    }
+
+    /**
+     * Body with chunked transfer coding.
+     */
+    private static final class ChunkedInputStream extends InputStream {
+        private final InputStream in;
+        private int remaining;
+        private boolean eof;
+
+        ChunkedInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextChunk()) {
+                return -1;
+            }
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException("Unexpected end of HTTP response body");
+            }
+            remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (!nextChunk()) {
+                return -1;
+            }
+            int n = in.read(b, off, Math.min(len, remaining));
+            if (n == -1) {
+                throw new EOFException("Unexpected end of HTTP response body");
+            }
+            remaining -= n;
+            return n;
+        }
+
+        private boolean nextChunk() throws IOException {
+            if (eof) {
+                return false;
+            }
+            if (remaining > 0) {
+                return true;
+            }
+            String line = readLine(in);
+            if (line != null && line.length() == 0) {
+                // CRLF that ends the previous chunk
+                line = readLine(in);
+            }
+            if (line == null) {
+                throw new EOFException("Unexpected end of HTTP response body");
+            }
+            int ext = line.indexOf(';');
+            try {
+                remaining = Integer.parseInt(((ext < 0) ? line : line.substring(0, ext)).trim(), 16);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid chunk size: " + line);
+            }
+            if (remaining == 0) {
+                // skip trailers
+                readHeaders(in);
+                eof = true;
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Writes each buffer as one chunk. It is always wrapped in a
+     * {@link BufferedOutputStream} that decides the chunk size.
+     */
+    private static final class ChunkedOutputStream extends FilterOutputStream {
+        ChunkedOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            out.write(Integer.toHexString(len).getBytes("ISO-8859-1"));
+            out.write(CRLF);
+            out.write(b, off, len);
+            out.write(CRLF);
+        }
+
+        @Override
+        public void close() throws IOException {
+            // last chunk; the socket stays open
+            out.write('0');
+            out.write(CRLF);
+            out.write(CRLF);
+            out.flush();
+        }
+    }
+
+    /**
+     * Writes a body whose length has been sent in the request head.
+     */
+    private static final class FixedLengthOutputStream extends FilterOutputStream {
+        private long remaining;
+
+        FixedLengthOutputStream(OutputStream out, long length) {
+            super(out);
+            this.remaining = length;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > remaining) {
+                throw new IOException("Request body is longer than its Content-Length");
+            }
+            out.write(b, off, len);
+            remaining -= len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            // the socket stays open
+            if (remaining != 0) {
+                throw new IOException("Request body is shorter than its Content-Length");
+            }
+            out.flush();
+        }
+    }
+}
@@ -50,6 +50,7 @@ import javax.xml.ws.spi.http.HttpHandler;
 import javax.xml.ws.spi.http.HttpExchange;
 import java.io.IOException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -91,7 +92,16 @@ final class PortableHttpHandler extends HttpHandler {
             if (executor != null) {
                 // Use application's Executor to handle request. Application may
                 // have set an executor using Endpoint.setExecutor().
-                executor.execute(new HttpHandlerRunnable(msg));
+                try {
+                    executor.execute(new HttpHandlerRunnable(msg));
+                } catch (RejectedExecutionException e) {
+                    // No thread for the request
+                    try {
+                        adapter.writeServiceUnavailable(new PortableConnectionImpl(adapter, msg));
+                    } finally {
+                        msg.close();
+                    }
+                }
             } else {
                 handleExchange(msg);
             }
@@ -193,8 +193,15 @@ final class ServerConnectionImpl extends WSHTTPConnection implements WebServiceC
 
     public @NotNull OutputStream getOutput() throws IOException {
         if (out == null) {
+            // 0 makes the server use chunked transfer coding, -1 means no body
             String lenHeader = httpExchange.getResponseHeaders().getFirst("Content-Length");
-            int length = (lenHeader != null) ? Integer.parseInt(lenHeader) : 0;
+            long length = 0;
+            if (lenHeader != null) {
+                length = Long.parseLong(lenHeader);
+                if (length == 0) {
+                    length = -1;
+                }
+            }
             httpExchange.sendResponseHeaders(getStatus(), length);
 
             // Light weight http server's OutputStream.close() throws exception if
@@ -0,0 +1,409 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http.server;
+
+import com.sun.istack.Nullable;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded executor of the HTTP servers that the runtime creates for
+ * {@link javax.xml.ws.Endpoint#publish(String)}.
+ *
+ * <p>
+ * A new request is given to an idle thread or, up to {@code maxThreads}, to
+ * a new thread. Once all the threads are busy, up to {@code queueSize}
+ * requests wait in a queue. Threads beyond {@code coreThreads} stop after
+ * staying idle for {@code keepAlive} milliseconds.
+ *
+ * <p>
+ * When the queue is full, the request is handed to a single thread that runs
+ * it in {@link #isOverloaded() overload mode}, in which {@link WSHttpHandler}
+ * only answers 503 Service Unavailable, without reading the request body.
+ * Nothing runs on the server's dispatcher thread, so that one slow client
+ * can't hold up the other connections. Once {@code rejectionQueueSize}
+ * rejected requests wait for that thread, further ones are answered on the
+ * dispatcher thread after all, as a last resort; the 503 response has no
+ * body and closes the connection, so no request is left unanswered.
+ *
+ * <p>
+ * The defaults can be changed with the
+ * {@code com.sun.xml.ws.transport.http.server.ServerExecutor.coreThreads},
+ * {@code .maxThreads}, {@code .queueSize}, {@code .rejectionQueueSize} and {@code .keepAlive} system
+ * properties. With {@code com.sun.xml.ws.transport.http.server.ServerExecutor.virtualThreads}
+ * set to true, and a JDK that supports them, each request runs in a new
+ * virtual thread instead.
+ *
+ * <p>
+ * The executor of an endpoint's server is
+ * {@code httpExchange.getHttpContext().getServer().getExecutor()}, where the
+ * {@link com.sun.net.httpserver.HttpExchange} is available from the
+ * {@link com.sun.xml.ws.developer.JAXWSProperties#HTTP_EXCHANGE} property.
+ *
+ * @author WS Development Team
+ */
+public final class ServerExecutor extends ThreadPoolExecutor {
+
+    private static final Logger LOGGER = Logger.getLogger(ServerExecutor.class.getName());
+
+    private static final int DEFAULT_CORE_THREADS;
+    private static final int DEFAULT_MAX_THREADS;
+    private static final int DEFAULT_QUEUE_SIZE;
+    private static final int REJECTION_QUEUE_SIZE;
+    private static final long DEFAULT_KEEP_ALIVE;
+    private static final boolean VIRTUAL_THREADS;
+
+    static {
+        int coreThreads = Runtime.getRuntime().availableProcessors();
+        int maxThreads = 200;
+        int queueSize = 1000;
+        int rejectionQueueSize = 100;
+        long keepAlive = 60 * 1000L;
+        boolean virtualThreads = false;
+        try {
+            String prefix = ServerExecutor.class.getName();
+            coreThreads = Integer.getInteger(prefix + ".coreThreads", coreThreads);
+            maxThreads = Integer.getInteger(prefix + ".maxThreads", maxThreads);
+            queueSize = Integer.getInteger(prefix + ".queueSize", queueSize);
+            rejectionQueueSize = Integer.getInteger(prefix + ".rejectionQueueSize", rejectionQueueSize);
+            keepAlive = Long.getLong(prefix + ".keepAlive", keepAlive);
+            virtualThreads = Boolean.getBoolean(prefix + ".virtualThreads");
+        } catch (SecurityException e) {
+            // use the defaults
+        }
+        DEFAULT_MAX_THREADS = Math.max(maxThreads, 1);
+        DEFAULT_CORE_THREADS = Math.min(Math.max(coreThreads, 0), DEFAULT_MAX_THREADS);
+        DEFAULT_QUEUE_SIZE = Math.max(queueSize, 1);
+        REJECTION_QUEUE_SIZE = Math.max(rejectionQueueSize, 1);
+        DEFAULT_KEEP_ALIVE = keepAlive;
+        VIRTUAL_THREADS = virtualThreads;
+    }
+
+    private static final ThreadLocal<Boolean> OVERLOADED = new ThreadLocal<Boolean>();
+    private static final AtomicInteger SERVERS = new AtomicInteger();
+
+    private final TaskQueue queue;
+    private final ThreadPoolExecutor rejections;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong overflow = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong waitTime = new AtomicLong();
+    private final AtomicLong maxWaitTime = new AtomicLong();
+
+    /**
+     * Creates an executor with the defaults.
+     */
+    public ServerExecutor() {
+        this(DEFAULT_CORE_THREADS, DEFAULT_MAX_THREADS, DEFAULT_QUEUE_SIZE, DEFAULT_KEEP_ALIVE);
+    }
+
+    /**
+     * @param coreThreads
+     *      number of threads that are kept when idle.
+     * @param maxThreads
+     *      maximum number of threads.
+     * @param queueSize
+     *      maximum number of requests that wait for a thread.
+     * @param keepAlive
+     *      time in milliseconds after which an idle thread beyond
+     *      {@code coreThreads} stops.
+     */
+    public ServerExecutor(int coreThreads, int maxThreads, int queueSize, long keepAlive) {
+        this(coreThreads, maxThreads, queueSize, REJECTION_QUEUE_SIZE, keepAlive);
+    }
+
+    /**
+     * @param rejectionQueueSize
+     *      maximum number of rejected requests that wait to be answered.
+     */
+    ServerExecutor(int coreThreads, int maxThreads, int queueSize, int rejectionQueueSize, long keepAlive) {
+        this(coreThreads, maxThreads, keepAlive, new TaskQueue(queueSize), rejectionQueueSize,
+                "jaxws-httpserver-" + SERVERS.incrementAndGet() + "-");
+    }
+
+    private ServerExecutor(int coreThreads, int maxThreads, long keepAlive, TaskQueue queue, int rejectionQueueSize,
+            String prefix) {
+        super(coreThreads, maxThreads, keepAlive, TimeUnit.MILLISECONDS, queue, new ServerThreadFactory(prefix),
+                new Overload());
+        this.queue = queue;
+        queue.executor = this;
+        this.rejections = new ThreadPoolExecutor(0, 1, keepAlive, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(rejectionQueueSize), new ServerThreadFactory(prefix + "rejections-"),
+                new Overflow());
+    }
+
+    /**
+     * Creates the executor for a new server.
+     */
+    static ExecutorService create() {
+        if (VIRTUAL_THREADS) {
+            ExecutorService executor = newVirtualThreadPerTaskExecutor();
+            if (executor != null) {
+                return executor;
+            }
+        }
+        return new ServerExecutor();
+    }
+
+    /**
+     * Gets {@code Executors.newVirtualThreadPerTaskExecutor()} on the JDKs
+     * that have it.
+     *
+     * @return null if virtual threads are not supported.
+     */
+    static @Nullable ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Virtual threads are not supported, using a thread pool", e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns true if the current thread runs a request that was rejected
+     * because the queue is full.
+     */
+    public static boolean isOverloaded() {
+        return OVERLOADED.get() != null;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        pending.incrementAndGet();
+        try {
+            super.execute(new Task(command));
+        } catch (RuntimeException e) {
+            pending.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        if (r instanceof Task) {
+            long wait = System.nanoTime() - ((Task) r).queued;
+            waits.incrementAndGet();
+            waitTime.addAndGet(wait);
+            long max;
+            while (wait > (max = maxWaitTime.get()) && !maxWaitTime.compareAndSet(max, wait)) {
+                // retry
+            }
+        }
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        pending.decrementAndGet();
+    }
+
+    @Override
+    protected void terminated() {
+        rejections.shutdown();
+    }
+
+    /**
+     * Number of requests that were rejected because the queue was full.
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Number of rejected requests that were answered on the dispatcher
+     * thread, because too many were already waiting to be answered.
+     */
+    public long getOverflowCount() {
+        return overflow.get();
+    }
+
+    /**
+     * Number of requests that are waiting for a thread.
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Total time in nanoseconds that the requests waited for a thread.
+     */
+    public long getQueueWaitTime() {
+        return waitTime.get();
+    }
+
+    /**
+     * Longest time in nanoseconds that a request waited for a thread.
+     */
+    public long getMaxQueueWaitTime() {
+        return maxWaitTime.get();
+    }
+
+    /**
+     * Average time in nanoseconds that a request waited for a thread.
+     */
+    public long getAverageQueueWaitTime() {
+        long n = waits.get();
+        return (n > 0) ? waitTime.get() / n : 0;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + "[queued=" + getQueuedCount() + ", rejected=" + getRejectedCount()
+                + ", overflow=" + getOverflowCount()
+                + ", averageQueueWait=" + getAverageQueueWaitTime() / 1000 + "us"
+                + ", maxQueueWait=" + getMaxQueueWaitTime() / 1000 + "us]";
+    }
+
+    /**
+     * A request with the time it was queued.
+     */
+    private static final class Task implements Runnable {
+        final Runnable command;
+        final long queued = System.nanoTime();
+
+        Task(Runnable command) {
+            this.command = command;
+        }
+
+        public void run() {
+            command.run();
+        }
+    }
+
+    /**
+     * Queue that takes a request only if no thread is idle and no more
+     * threads can be started, so that the pool grows before requests wait.
+     */
+    private static final class TaskQueue extends LinkedBlockingQueue<Runnable> {
+        ServerExecutor executor;
+
+        TaskQueue(int capacity) {
+            super(capacity);
+        }
+
+        @Override
+        public boolean offer(Runnable r) {
+            int threads = executor.getPoolSize();
+            if (executor.pending.get() <= threads || threads >= executor.getMaximumPoolSize()) {
+                return super.offer(r);
+            }
+            return false;       // start a new thread
+        }
+
+        boolean force(Runnable r) {
+            return super.offer(r);
+        }
+    }
+
+    /**
+     * Queues the request if the pool only failed to grow, otherwise hands
+     * it to the rejection thread.
+     */
+    private static final class Overload implements RejectedExecutionHandler {
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            ServerExecutor e = (ServerExecutor) executor;
+            if (!e.isShutdown() && e.queue.force(r)) {
+                return;
+            }
+            e.rejected.incrementAndGet();
+            e.pending.decrementAndGet();
+            e.rejections.execute(new Rejected(((Task) r).command));
+        }
+    }
+
+    /**
+     * A request that runs in overload mode.
+     */
+    private static final class Rejected implements Runnable {
+        final Runnable command;
+
+        Rejected(Runnable command) {
+            this.command = command;
+        }
+
+        public void run() {
+            OVERLOADED.set(Boolean.TRUE);
+            try {
+                command.run();
+            } finally {
+                OVERLOADED.remove();
+            }
+        }
+    }
+
+    /**
+     * Answers a rejected request on the calling thread when the rejection
+     * thread can't take it, rather than leaving its connection open.
+     */
+    private final class Overflow implements RejectedExecutionHandler {
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            overflow.incrementAndGet();
+            r.run();
+        }
+    }
+
+    private static final class ServerThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger threads = new AtomicInteger();
+
+        ServerThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, prefix + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -51,7 +51,6 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.logging.Logger;
 
 /**
@@ -99,7 +98,7 @@ final class ServerMgr {
                     logger.fine("Creating new HTTP Server at "+inetAddress);
                     // Creates server with default socket backlog
                     server = HttpServer.create(inetAddress, 0);
-                    server.setExecutor(Executors.newCachedThreadPool());
+                    server.setExecutor(ServerExecutor.create());
                     String path = url.toURI().getPath();
                     logger.fine("Creating HTTP Context at = "+path);
                     HttpContext context = server.createContext(path);
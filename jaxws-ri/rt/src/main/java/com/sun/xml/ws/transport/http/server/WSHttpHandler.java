@@ -50,6 +50,7 @@ import com.sun.xml.ws.transport.http.WSHTTPConnection;
 
 import java.io.IOException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -89,10 +90,17 @@ final class WSHttpHandler implements HttpHandler {
             if (fineTraceEnabled) {
                 LOGGER.log(Level.FINE, "Received HTTP request:{0}", msg.getRequestURI());
             }
-            if (executor != null) {
+            if (ServerExecutor.isOverloaded()) {
+                // The server's queue is full
+                rejectExchange(msg);
+            } else if (executor != null) {
                 // Use application's Executor to handle request. Application may
                 // have set an executor using Endpoint.setExecutor().
-                executor.execute(new HttpHandlerRunnable(msg));
+                try {
+                    executor.execute(new HttpHandlerRunnable(msg));
+                } catch (RejectedExecutionException e) {
+                    rejectExchange(msg);
+                }
             } else {
                 handleExchange(msg);
             }
@@ -121,6 +129,21 @@ final class WSHttpHandler implements HttpHandler {
         }
     }
 
+    /**
+     * Answers 503 Service Unavailable to a request that there is no
+     * thread for.
+     */
+    private void rejectExchange(HttpExchange msg) throws IOException {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Rejecting HTTP request:{0}", msg.getRequestURI());
+        }
+        try {
+            adapter.writeServiceUnavailable(new ServerConnectionImpl(adapter, msg));
+        } finally {
+            msg.close();
+        }
+    }
+
     /**
      * Wrapping the processing of request in a Runnable so that it can be
      * executed in Executor.
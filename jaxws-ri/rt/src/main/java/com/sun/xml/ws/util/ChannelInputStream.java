@@ -0,0 +1,143 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * {@link InputStream} that reads from a {@link ReadableByteChannel}
+ * through a pooled direct {@link ByteBuffer}.
+ *
+ * <p>
+ * The channel is read a buffer at a time, however small the reads of the
+ * parser are. The buffer goes back to the pool as soon as the end of the
+ * channel is reached, or when the stream is closed. Since messages are
+ * parsed lazily, that can be well after the codec has returned. A stream
+ * that is neither read to the end nor closed leaves its buffer to the garbage
+ * collector. {@link #close()} doesn't close the channel. The channel must be
+ * in blocking mode.
+ *
+ * @author WS Development Team
+ */
+public final class ChannelInputStream extends InputStream {
+    private final ReadableByteChannel channel;
+    private final Pool<ByteBuffer> pool;
+    private ByteBuffer buffer;
+
+    public ChannelInputStream(ReadableByteChannel channel) {
+        this(channel, Pool.DirectByteBuffer.getDefault());
+    }
+
+    public ChannelInputStream(ReadableByteChannel channel, Pool<ByteBuffer> pool) {
+        this.channel = channel;
+        this.pool = pool;
+        this.buffer = pool.take();
+        this.buffer.clear().limit(0);
+    }
+
+    @Override
+    public int read() throws IOException {
+        ByteBuffer buf = fill();
+        return buf != null ? buf.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if ((off | len | (b.length - off - len)) < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        ByteBuffer buf = fill();
+        if (buf == null) {
+            return -1;
+        }
+        int n = Math.min(len, buf.remaining());
+        buf.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public int available() {
+        ByteBuffer buf = buffer;
+        return buf != null ? buf.remaining() : 0;
+    }
+
+    /**
+     * Returns the buffer to the pool. The channel is left open.
+     */
+    @Override
+    public void close() {
+        ByteBuffer buf = buffer;
+        if (buf != null) {
+            buffer = null;
+            pool.recycle(buf);
+        }
+    }
+
+    /**
+     * Makes sure the buffer has bytes to read.
+     *
+     * @return
+     *      null at the end of the channel, or if the stream is closed.
+     */
+    private ByteBuffer fill() throws IOException {
+        ByteBuffer buf = buffer;
+        if (buf == null || buf.hasRemaining()) {
+            return buf;
+        }
+        buf.clear();
+        int n;
+        do {
+            n = channel.read(buf);
+        } while (n == 0);
+        if (n < 0) {
+            close();
+            return null;
+        }
+        buf.flip();
+        return buf;
+    }
+}
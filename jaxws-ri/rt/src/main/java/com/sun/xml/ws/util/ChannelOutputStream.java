@@ -0,0 +1,167 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * {@link OutputStream} that writes to a {@link WritableByteChannel}
+ * through a pooled direct {@link ByteBuffer}.
+ *
+ * <p>
+ * Bytes are collected in the buffer and written to the channel whenever it
+ * is full, on {@link #flush()} and on {@link #close()}, so the channel sees
+ * a few large writes and no intermediate {@code byte[]} is allocated.
+ * {@link #close()} returns the buffer to the pool, but it doesn't close the
+ * channel. The channel must be in blocking mode.
+ *
+ * <p>
+ * {@link #getChannel()} lets the writer bypass the buffer, e.g. for
+ * attachments in files.
+ *
+ * @author WS Development Team
+ */
+public final class ChannelOutputStream extends OutputStream {
+    private final WritableByteChannel channel;
+    private final Pool<ByteBuffer> pool;
+    private ByteBuffer buffer;
+
+    public ChannelOutputStream(WritableByteChannel channel) {
+        this(channel, Pool.DirectByteBuffer.getDefault());
+    }
+
+    public ChannelOutputStream(WritableByteChannel channel, Pool<ByteBuffer> pool) {
+        this.channel = channel;
+        this.pool = pool;
+        this.buffer = pool.take();
+        this.buffer.clear();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ByteBuffer buf = buffer();
+        if (!buf.hasRemaining()) {
+            drain(buf);
+        }
+        buf.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if ((off | len | (b.length - off - len)) < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        ByteBuffer buf = buffer();
+        while (len > 0) {
+            if (!buf.hasRemaining()) {
+                drain(buf);
+            }
+            int n = Math.min(len, buf.remaining());
+            buf.put(b, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ByteBuffer buf = buffer();
+        if (buf.position() > 0) {
+            drain(buf);
+        }
+    }
+
+    /**
+     * Writes the buffered bytes and returns the buffer to the pool.
+     * The channel is left open.
+     */
+    @Override
+    public void close() throws IOException {
+        if (buffer != null) {
+            try {
+                flush();
+            } finally {
+                recycle();
+            }
+        }
+    }
+
+    /**
+     * Writes the buffered bytes and returns the channel, so that large
+     * content, such as a file with {@link java.nio.channels.FileChannel#transferTo},
+     * can be written to it directly. Writes to the stream may follow.
+     */
+    public WritableByteChannel getChannel() throws IOException {
+        flush();
+        return channel;
+    }
+
+    /**
+     * Returns the buffer to the pool without writing the buffered bytes,
+     * for use when encoding failed. Does nothing if the stream is closed.
+     */
+    public void recycle() {
+        ByteBuffer buf = buffer;
+        if (buf != null) {
+            buffer = null;
+            pool.recycle(buf);
+        }
+    }
+
+    private ByteBuffer buffer() throws IOException {
+        ByteBuffer buf = buffer;
+        if (buf == null) {
+            throw new IOException("Stream closed");
+        }
+        return buf;
+    }
+
+    private void drain(ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+        buf.clear();
+    }
+}
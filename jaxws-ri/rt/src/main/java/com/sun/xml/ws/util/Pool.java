@@ -45,8 +45,8 @@ import com.sun.xml.ws.api.pipe.TubeCloner;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.lang.ref.WeakReference;
+import java.lang.ref.SoftReference;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * General-purpose object pool.
@@ -56,16 +56,97 @@ import java.lang.ref.WeakReference;
  * are expensive to create (such as JAXB objects, StAX parsers, {@link Tube} instances.)
  *
  * <p>
- * This class provides a default implementation of such a pool.
+ * This class provides a default implementation of such a pool. Idle objects
+ * are kept in a number of stripes, one per processor or so, and a thread
+ * always starts with the same stripe, so that threads seldom contend for the
+ * same lock. At most {@code maxSize} idle objects are kept; objects recycled
+ * into a full pool are dropped. Objects that stay idle longer than
+ * {@code idleTimeout} are dropped the next time an object is taken from or
+ * recycled into their stripe, as long as more than {@code minSize} objects
+ * are left. Objects recycled into a pool that already holds {@code minSize}
+ * are only softly reachable, so that a pool that is no longer used doesn't
+ * keep them from being garbage collected.
  *
- * TODO: improve the implementation
+ * <p>
+ * The defaults can be changed with the {@code com.sun.xml.ws.util.Pool.minSize},
+ * {@code com.sun.xml.ws.util.Pool.maxSize} and
+ * {@code com.sun.xml.ws.util.Pool.idleTimeout} (in milliseconds) system properties.
  *
  * @author Kohsuke Kawaguchi
  */
 public abstract class Pool<T> {
 
-    // volatile since multiple threads may access queue reference
-    private volatile WeakReference<ConcurrentLinkedQueue<T>> queue;
+    private static final int DEFAULT_MIN_SIZE;
+    private static final int DEFAULT_MAX_SIZE;
+    private static final long DEFAULT_IDLE_TIMEOUT;
+    private static final int STRIPES;
+
+    static {
+        int minSize = 0;
+        int maxSize = 256;
+        long idleTimeout = 5 * 60 * 1000L;
+        try {
+            minSize = Integer.getInteger(Pool.class.getName() + ".minSize", minSize);
+            maxSize = Integer.getInteger(Pool.class.getName() + ".maxSize", maxSize);
+            idleTimeout = Long.getLong(Pool.class.getName() + ".idleTimeout", idleTimeout);
+        } catch (SecurityException e) {
+            // use the defaults
+        }
+        DEFAULT_MIN_SIZE = minSize;
+        DEFAULT_MAX_SIZE = maxSize;
+        DEFAULT_IDLE_TIMEOUT = idleTimeout;
+
+        int stripes = 1;
+        while (stripes < Runtime.getRuntime().availableProcessors()) {
+            stripes <<= 1;
+        }
+        STRIPES = stripes;
+    }
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeout;
+
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong creates = new AtomicLong();
+
+    /**
+     * Creates a pool with the default sizes and idle timeout.
+     */
+    protected Pool() {
+        this(DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * @param minSize
+     *      number of idle objects that are kept regardless of the idle timeout.
+     * @param maxSize
+     *      maximum number of idle objects that are kept.
+     * @param idleTimeout
+     *      time in milliseconds after which an idle object may be dropped,
+     *      or 0 to keep idle objects forever.
+     */
+    protected Pool(int minSize, int maxSize, long idleTimeout) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize || idleTimeout < 0) {
+            throw new IllegalArgumentException("minSize=" + minSize + ", maxSize=" + maxSize + ", idleTimeout=" + idleTimeout);
+        }
+        int n = STRIPES;
+        while (n > 1 && n > maxSize) {
+            n >>= 1;
+        }
+        this.stripes = new Stripe[n];
+        for (int i = 0; i < n; i++) {
+            // spread the remainders, so that the stripes add up to the sizes
+            stripes[i] = new Stripe(maxSize / n + (i < maxSize % n ? 1 : 0),
+                    minSize / n + (i < minSize % n ? 1 : 0));
+        }
+        this.mask = n - 1;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeout = idleTimeout;
+    }
 
     /**
      * Gets a new object from the pool.
@@ -76,33 +157,97 @@ public abstract class Pool<T> {
      * @return
      *      always non-null.
      */
+    @SuppressWarnings("unchecked")
     public final T take() {
-        T t = getQueue().poll();
-        if(t==null)
-            return create();
+        long now = (idleTimeout > 0) ? System.currentTimeMillis() : 0;
+        int home = home();
+        for (int i = 0; i < stripes.length; i++) {
+            Object t = stripes[(home + i) & mask].poll(now, idleTimeout);
+            if (t != null) {
+                return (T) t;
+            }
+        }
+        misses.incrementAndGet();
+        T t = create();
+        creates.incrementAndGet();
         return t;
     }
 
-    private ConcurrentLinkedQueue<T> getQueue() {
-        WeakReference<ConcurrentLinkedQueue<T>> q = queue;
-        if (q != null) {
-            ConcurrentLinkedQueue<T> d = q.get();
-            if (d != null)
-                return d;
+    /**
+     * Returns an object back to the pool.
+     */
+    public final void recycle(T t) {
+        long now = (idleTimeout > 0) ? System.currentTimeMillis() : 0;
+        int home = home();
+        for (int i = 0; i < stripes.length; i++) {
+            if (stripes[(home + i) & mask].offer(t, now, idleTimeout)) {
+                return;
+            }
+        }
+        // the pool is full, let the object go
+    }
+
+    private int home() {
+        return (int) Thread.currentThread().getId() & mask;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Number of times {@link #take()} returned a pooled object.
+     */
+    public long getHits() {
+        long hits = 0;
+        for (Stripe stripe : stripes) {
+            hits += stripe.getHits();
         }
+        return hits;
+    }
 
-        // overwrite the queue
-        ConcurrentLinkedQueue<T> d = new ConcurrentLinkedQueue<T>();
-        queue = new WeakReference<ConcurrentLinkedQueue<T>>(d);
+    /**
+     * Number of times {@link #take()} found the pool empty.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Number of objects {@link #create() created} by this pool.
+     */
+    public long getCreates() {
+        return creates.get();
+    }
 
-        return d;
+    /**
+     * Number of objects dropped because they stayed idle too long.
+     */
+    public long getEvictions() {
+        long evictions = 0;
+        for (Stripe stripe : stripes) {
+            evictions += stripe.getEvictions();
+        }
+        return evictions;
     }
 
     /**
-     * Returns an object back to the pool.
+     * Number of objects currently in the pool.
      */
-    public final void recycle(T t) {
-        getQueue().offer(t);
+    public int getIdleCount() {
+        int idle = 0;
+        for (Stripe stripe : stripes) {
+            idle += stripe.size();
+        }
+        return idle;
     }
 
     /**
@@ -118,6 +263,93 @@ public abstract class Pool<T> {
      */
     protected abstract T create();
 
+    /**
+     * Idle objects in a ring buffer. Objects are taken from the most recently
+     * recycled end, and evicted from the other end. Objects recycled into a
+     * stripe that already holds {@code minSize} are kept in an {@link Idle}.
+     */
+    private static final class Stripe {
+        private final Object[] items;
+        private final long[] recycled;   // when each object went back to the pool
+        private final int minSize;
+        private int head;
+        private int size;
+        private long hits;
+        private long evictions;
+
+        Stripe(int maxSize, int minSize) {
+            this.items = new Object[maxSize];
+            this.recycled = new long[maxSize];
+            this.minSize = minSize;
+        }
+
+        synchronized Object poll(long now, long idleTimeout) {
+            evict(now, idleTimeout);
+            while (size > 0) {
+                size--;
+                int i = (head + size) % items.length;
+                Object t = items[i];
+                items[i] = null;
+                if (t instanceof Idle) {
+                    t = ((Idle) t).get();
+                    if (t == null) {
+                        // garbage collected
+                        evictions++;
+                        continue;
+                    }
+                }
+                hits++;
+                return t;
+            }
+            return null;
+        }
+
+        synchronized boolean offer(Object t, long now, long idleTimeout) {
+            evict(now, idleTimeout);
+            if (size == items.length) {
+                return false;
+            }
+            int i = (head + size) % items.length;
+            items[i] = (size < minSize) ? t : new Idle(t);
+            recycled[i] = now;
+            size++;
+            return true;
+        }
+
+        private void evict(long now, long idleTimeout) {
+            if (idleTimeout > 0) {
+                while (size > minSize && now - recycled[head] > idleTimeout) {
+                    items[head] = null;
+                    head = (head + 1) % items.length;
+                    size--;
+                    evictions++;
+                }
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized long getHits() {
+            return hits;
+        }
+
+        synchronized long getEvictions() {
+            return evictions;
+        }
+    }
+
+    /**
+     * An idle object beyond {@code minSize}, which the garbage collector
+     * may reclaim when memory runs low.
+     */
+    private static final class Idle extends SoftReference<Object> {
+        Idle(Object t) {
+            super(t);
+        }
+    }
+
 
     /**
      * JAXB {@link javax.xml.bind.Marshaller} pool.
@@ -161,6 +393,95 @@ public abstract class Pool<T> {
         }
     }
 
+    /**
+     * Pool of direct {@link java.nio.ByteBuffer}s of the same capacity.
+     *
+     * <p>
+     * Buffers are taken in the state they were recycled in, so users clear them
+     * first. A buffer must not be used once it is recycled.
+     */
+    public static final class DirectByteBuffer extends Pool<java.nio.ByteBuffer> {
+        private static final DirectByteBuffer DEFAULT;
+
+        static {
+            int capacity = 8192;
+            try {
+                capacity = Integer.getInteger(DirectByteBuffer.class.getName() + ".capacity", capacity);
+            } catch (SecurityException e) {
+                // use the default
+            }
+            DEFAULT = new DirectByteBuffer(capacity);
+        }
+
+        private final int capacity;
+
+        public DirectByteBuffer(int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("capacity=" + capacity);
+            }
+            this.capacity = capacity;
+        }
+
+        /**
+         * Gets the pool shared by the runtime. The capacity of its buffers can be
+         * changed with the {@code com.sun.xml.ws.util.Pool$DirectByteBuffer.capacity}
+         * system property, 8k by default.
+         */
+        public static DirectByteBuffer getDefault() {
+            return DEFAULT;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        @Override
+        protected java.nio.ByteBuffer create() {
+            return java.nio.ByteBuffer.allocateDirect(capacity);
+        }
+    }
+
+    /**
+     * Pool of {@link java.util.zip.Deflater}s with the same level and format.
+     *
+     * <p>
+     * Users {@link java.util.zip.Deflater#reset() reset} a deflater before
+     * recycling it. Deflaters dropped by the pool release their native memory
+     * when they are garbage collected.
+     */
+    public static final class Deflater extends Pool<java.util.zip.Deflater> {
+        private final int level;
+        private final boolean nowrap;
+
+        /**
+         * @param level
+         *      compression level, see {@link java.util.zip.Deflater#setLevel(int)}.
+         * @param nowrap
+         *      true to produce raw deflate data, as used in GZIP, instead
+         *      of the ZLIB format.
+         */
+        public Deflater(int level, boolean nowrap) {
+            if ((level < 0 || level > 9) && level != java.util.zip.Deflater.DEFAULT_COMPRESSION) {
+                throw new IllegalArgumentException("level=" + level);
+            }
+            this.level = level;
+            this.nowrap = nowrap;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public boolean isNowrap() {
+            return nowrap;
+        }
+
+        @Override
+        protected java.util.zip.Deflater create() {
+            return new java.util.zip.Deflater(level, nowrap);
+        }
+    }
+
     /**
      * {@link Tube} pool.
      */
@@ -73,6 +73,7 @@ import javax.xml.transform.TransformerException;
 import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
 import javax.xml.ws.WebServiceException;
@@ -80,9 +81,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
+import java.lang.ref.SoftReference;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
+import java.security.MessageDigest;
 import java.util.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -98,6 +101,23 @@ public abstract class AbstractSchemaValidationTube extends AbstractFilterTubeImp
 
     private static final Logger LOGGER = Logger.getLogger(AbstractSchemaValidationTube.class.getName());
 
+    /**
+     * Key of the {@link Packet#invocationProperties} entry that records the first
+     * {@link SAXException} reported while a payload was validated in streaming mode.
+     * As invocation properties are carried over to the response, the tube finds it
+     * there after the payload has been read.
+     */
+    protected static final String STREAMING_VALIDATION_ERROR = AbstractSchemaValidationTube.class.getName()+".streamingValidationError";
+
+    /**
+     * Compiled {@link Schema}s keyed by the digest of the documents they are created from,
+     * so that endpoints and clients with identical WSDL/XSD sets share a {@link Schema}.
+     * {@link Schema} is thread-safe. The values are soft references, so schemas nobody
+     * uses anymore can be reclaimed; the entries of reclaimed schemas are removed
+     * whenever a schema is added.
+     */
+    static final Map<String, SoftReference<Schema>> SCHEMA_CACHE = new HashMap<String, SoftReference<Schema>>();
+
     protected final WSBinding binding;
     protected final SchemaValidationFeature feature;
     protected final DocumentAddressResolver resolver = new ValidationDocumentAddressResolver();
@@ -555,8 +575,95 @@ public abstract class AbstractSchemaValidationTube extends AbstractFilterTubeImp
         };
     }
 
-    protected void doProcess(Packet packet) throws SAXException {
-        getValidator().reset();
+    /**
+     * Creates the {@link Schema} for the schema documents in the given WSDLs and
+     * schemas, or reuses the one created earlier for the same set of documents.
+     *
+     * @return null if the documents don't have any schema fragments
+     */
+    protected @Nullable Schema getSchema(Iterable<SDDocument> docs, MetadataResolverImpl mdresolver) {
+        String key = getSchemaKey(docs);
+        if (key != null) {
+            Schema schema = getCachedSchema(key);
+            if (schema != null) {
+                LOGGER.fine("Reusing the validation schema created for the same documents");
+                return schema;
+            }
+        }
+        Source[] sources = getSchemaSources(docs, mdresolver);
+        for(Source source : sources) {
+            LOGGER.fine("Constructing validation schema from = "+source.getSystemId());
+        }
+        if (sources.length == 0) {
+            return null;
+        }
+        sf.setResourceResolver(mdresolver);
+        Schema schema;
+        try {
+            schema = sf.newSchema(sources);
+        } catch(SAXException e) {
+            throw new WebServiceException(e);
+        }
+        if (key != null) {
+            cacheSchema(key, schema);
+        }
+        return schema;
+    }
+
+    static @Nullable Schema getCachedSchema(String key) {
+        synchronized (SCHEMA_CACHE) {
+            SoftReference<Schema> ref = SCHEMA_CACHE.get(key);
+            return (ref != null) ? ref.get() : null;
+        }
+    }
+
+    static void cacheSchema(String key, Schema schema) {
+        synchronized (SCHEMA_CACHE) {
+            Iterator<SoftReference<Schema>> it = SCHEMA_CACHE.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().get() == null) {
+                    it.remove();
+                }
+            }
+            SCHEMA_CACHE.put(key, new SoftReference<Schema>(schema));
+        }
+    }
+
+    /*
+     * Digest of the system id and the contents of each WSDL and schema document.
+     * Documents are sorted, so the key doesn't depend on the iteration order.
+     */
+    private @Nullable String getSchemaKey(Iterable<SDDocument> docs) {
+        List<String> digests = new ArrayList<String>();
+        try {
+            for(SDDocument doc : docs) {
+                if (!doc.isWSDL() && !doc.isSchema()) {
+                    continue;
+                }
+                ByteArrayBuffer bab = new ByteArrayBuffer();
+                doc.writeTo(null, resolver, bab);
+                MessageDigest md = MessageDigest.getInstance("SHA-1");
+                md.update(doc.getURL().toExternalForm().getBytes("UTF-8"));
+                md.update(bab.getRawData(), 0, bab.size());
+                StringBuilder sb = new StringBuilder();
+                for(byte b : md.digest()) {
+                    sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+                }
+                digests.add(sb.toString());
+            }
+        } catch(Exception e) {
+            LOGGER.log(Level.FINE, "Cannot compute the schema cache key, the schema is not cached", e);
+            return null;
+        }
+        Collections.sort(digests);
+        StringBuilder key = new StringBuilder();
+        for(String digest : digests) {
+            key.append(digest);
+        }
+        return key.toString();
+    }
+
+    private ValidationErrorHandler createErrorHandler(Packet packet) {
         Class<? extends ValidationErrorHandler> handlerClass = feature.getErrorHandler();
         ValidationErrorHandler handler;
         try {
@@ -565,7 +672,21 @@ public abstract class AbstractSchemaValidationTube extends AbstractFilterTubeImp
             throw new WebServiceException(e);
         }
         handler.setPacket(packet);
-        getValidator().setErrorHandler(handler);
+        return handler;
+    }
+
+    /**
+     * Replaces the packet's message with one that is validated against the schema
+     * while its payload is read, instead of validating a copy of it up front.
+     * The first validation error is recorded as {@link #STREAMING_VALIDATION_ERROR}.
+     */
+    protected void doStreamingProcess(Packet packet, Schema schema) {
+        packet.setMessage(new ValidatingMessage(packet.getMessage(), schema, createErrorHandler(packet), packet));
+    }
+
+    protected void doProcess(Packet packet) throws SAXException {
+        getValidator().reset();
+        getValidator().setErrorHandler(createErrorHandler(packet));
         Message msg = packet.getMessage().copy();
         Source source = msg.readPayloadAsSource();
         try {
@@ -0,0 +1,405 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.util.pipe;
+
+import com.sun.istack.NotNull;
+import com.sun.istack.Nullable;
+import com.sun.xml.bind.api.Bridge;
+import com.sun.xml.ws.api.message.FilterMessageImpl;
+import com.sun.xml.ws.api.message.Message;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.streaming.XMLStreamReaderFactory;
+import com.sun.xml.ws.developer.ValidationErrorHandler;
+import com.sun.xml.ws.message.AttachmentUnmarshallerImpl;
+import com.sun.xml.ws.spi.db.XMLBridge;
+import com.sun.xml.ws.streaming.XMLStreamReaderUtil;
+import com.sun.xml.ws.util.xml.StAXSource;
+import com.sun.xml.ws.util.xml.XMLStreamReaderFilter;
+import com.sun.xml.ws.util.xml.XMLStreamReaderToXMLStreamWriter;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.NamespaceSupport;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.soap.SOAPException;
+import javax.xml.soap.SOAPMessage;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.Source;
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+import javax.xml.validation.ValidatorHandler;
+import javax.xml.ws.WebServiceException;
+import java.io.IOException;
+import java.util.Enumeration;
+
+/**
+ * {@link Message} that validates its payload against a {@link Schema} while
+ * the payload is being read.
+ *
+ * <p>
+ * The {@link XMLStreamReader} returned by {@link #readPayload()} (and used by
+ * the <tt>readPayloadAsJAXB</tt> methods) feeds every event it reads into a
+ * {@link ValidatorHandler}, so the databinding and the validator share the one
+ * parse of the payload. The first error the {@link ValidationErrorHandler}
+ * throws is recorded in {@link Packet#invocationProperties} under
+ * {@link AbstractSchemaValidationTube#STREAMING_VALIDATION_ERROR} and
+ * reading the payload fails with it.
+ *
+ * <p>
+ * Methods that need the whole envelope, such as {@link #writeTo(XMLStreamWriter)},
+ * validate a copy of the message first as {@link AbstractSchemaValidationTube}
+ * does in non-streaming mode. {@link #copy()} returns a copy that is not validated.
+ *
+ * @author WS Development Team
+ */
+final class ValidatingMessage extends FilterMessageImpl {
+
+    private final Message delegate;
+    private final Schema schema;
+    private final ValidationErrorHandler errorHandler;
+    private final Packet packet;
+
+    ValidatingMessage(Message delegate, Schema schema, ValidationErrorHandler errorHandler, Packet packet) {
+        super(delegate);
+        this.delegate = delegate;
+        this.schema = schema;
+        this.errorHandler = errorHandler;
+        this.packet = packet;
+    }
+
+    @Override
+    public XMLStreamReader readPayload() throws XMLStreamException {
+        XMLStreamReader reader = delegate.readPayload();
+        if (reader == null)
+            return null;
+        ValidatorHandler handler = schema.newValidatorHandler();
+        handler.setErrorHandler(errorHandler);
+        return new ValidatingReader(reader, handler);
+    }
+
+    @Override
+    public Source readPayloadAsSource() {
+        if (!hasPayload())
+            return null;
+        try {
+            return new StAXSource(readPayload(), true);
+        } catch (XMLStreamException e) {
+            throw new WebServiceException(e);
+        }
+    }
+
+    @Override
+    public <T> T readPayloadAsJAXB(Unmarshaller unmarshaller) throws JAXBException {
+        if (!hasPayload())
+            return null;
+        XMLStreamReader reader = readPayloadForJAXB();
+        if (hasAttachments())
+            unmarshaller.setAttachmentUnmarshaller(new AttachmentUnmarshallerImpl(getAttachments()));
+        try {
+            return (T) unmarshaller.unmarshal(reader);
+        } finally {
+            unmarshaller.setAttachmentUnmarshaller(null);
+            close(reader);
+        }
+    }
+
+    @Override
+    public <T> T readPayloadAsJAXB(Bridge<T> bridge) throws JAXBException {
+        if (!hasPayload())
+            return null;
+        XMLStreamReader reader = readPayloadForJAXB();
+        try {
+            return bridge.unmarshal(reader,
+                hasAttachments() ? new AttachmentUnmarshallerImpl(getAttachments()) : null);
+        } finally {
+            close(reader);
+        }
+    }
+
+    @Override
+    public <T> T readPayloadAsJAXB(XMLBridge<T> bridge) throws JAXBException {
+        if (!hasPayload())
+            return null;
+        XMLStreamReader reader = readPayloadForJAXB();
+        try {
+            return bridge.unmarshal(reader,
+                hasAttachments() ? new AttachmentUnmarshallerImpl(getAttachments()) : null);
+        } finally {
+            close(reader);
+        }
+    }
+
+    private XMLStreamReader readPayloadForJAXB() throws JAXBException {
+        try {
+            return readPayload();
+        } catch (XMLStreamException e) {
+            throw new JAXBException(e);
+        }
+    }
+
+    private static void close(XMLStreamReader reader) {
+        XMLStreamReaderUtil.readRest(reader);
+        XMLStreamReaderUtil.close(reader);
+        XMLStreamReaderFactory.recycle(reader);
+    }
+
+    @Override
+    public void writePayloadTo(XMLStreamWriter sw) throws XMLStreamException {
+        XMLStreamReader reader = readPayload();
+        if (reader != null) {
+            new XMLStreamReaderToXMLStreamWriter().bridge(reader, sw);
+            close(reader);
+        }
+    }
+
+    @Override
+    public void writeTo(XMLStreamWriter sw) throws XMLStreamException {
+        validateCopy();
+        delegate.writeTo(sw);
+    }
+
+    @Override
+    public void writeTo(ContentHandler contentHandler, ErrorHandler errorHandler) throws SAXException {
+        validateCopy();
+        delegate.writeTo(contentHandler, errorHandler);
+    }
+
+    @Override
+    public Source readEnvelopeAsSource() {
+        validateCopy();
+        return delegate.readEnvelopeAsSource();
+    }
+
+    @Override
+    public SOAPMessage readAsSOAPMessage() throws SOAPException {
+        validateCopy();
+        return delegate.readAsSOAPMessage();
+    }
+
+    @Override
+    public SOAPMessage readAsSOAPMessage(Packet packet, boolean inbound) throws SOAPException {
+        validateCopy();
+        return delegate.readAsSOAPMessage(packet, inbound);
+    }
+
+    private void validateCopy() {
+        if (!hasPayload())
+            return;
+        Validator validator = schema.newValidator();
+        validator.setErrorHandler(errorHandler);
+        try {
+            validator.validate(delegate.copy().readPayloadAsSource());
+        } catch (SAXException e) {
+            throw new WebServiceException(failed(e));
+        } catch (IOException e) {
+            throw new WebServiceException(e);
+        }
+    }
+
+    /**
+     * Records the first validation error of this message.
+     */
+    private SAXException failed(SAXException e) {
+        if (!packet.invocationProperties.containsKey(AbstractSchemaValidationTube.STREAMING_VALIDATION_ERROR)) {
+            packet.invocationProperties.put(AbstractSchemaValidationTube.STREAMING_VALIDATION_ERROR, e);
+        }
+        return e;
+    }
+
+    /**
+     * Forwards the events of the payload to a {@link ValidatorHandler} as they are read.
+     */
+    private final class ValidatingReader extends XMLStreamReaderFilter {
+        private final ValidatorHandler handler;
+        private final NamespaceSupport nss = new NamespaceSupport();
+        private final AttributesImpl atts = new AttributesImpl();
+        private int depth;
+        private boolean done;
+
+        ValidatingReader(@NotNull XMLStreamReader core, @NotNull ValidatorHandler handler) throws XMLStreamException {
+            super(core);
+            this.handler = handler;
+            try {
+                handler.startDocument();
+            } catch (SAXException e) {
+                done = true;
+                throw new XMLStreamException(failed(e));
+            }
+            forward(core.getEventType());
+        }
+
+        @Override
+        public int next() throws XMLStreamException {
+            int event = reader.next();
+            if (!done)
+                forward(event);
+            return event;
+        }
+
+        @Override
+        public int nextTag() throws XMLStreamException {
+            int event = next();
+            while ((event == CHARACTERS && isWhiteSpace()) || (event == CDATA && isWhiteSpace())
+                    || event == SPACE || event == PROCESSING_INSTRUCTION || event == COMMENT) {
+                event = next();
+            }
+            if (event != START_ELEMENT && event != END_ELEMENT) {
+                throw new XMLStreamException("expected start or end tag", getLocation());
+            }
+            return event;
+        }
+
+        @Override
+        public String getElementText() throws XMLStreamException {
+            if (getEventType() != START_ELEMENT) {
+                throw new XMLStreamException("parser must be on START_ELEMENT to read next text", getLocation());
+            }
+            StringBuilder sb = new StringBuilder();
+            int event = next();
+            while (event != END_ELEMENT) {
+                if (event == CHARACTERS || event == CDATA || event == SPACE || event == ENTITY_REFERENCE) {
+                    sb.append(getText());
+                } else if (event == START_ELEMENT) {
+                    throw new XMLStreamException("element text content may not contain START_ELEMENT", getLocation());
+                } else if (event == END_DOCUMENT) {
+                    throw new XMLStreamException("unexpected end of document when reading element text content", getLocation());
+                }
+                event = next();
+            }
+            return sb.toString();
+        }
+
+        private void forward(int event) throws XMLStreamException {
+            try {
+                switch (event) {
+                    case START_ELEMENT:
+                        depth++;
+                        startElement();
+                        break;
+                    case END_ELEMENT:
+                        endElement();
+                        if (--depth == 0) {
+                            done = true;
+                            handler.endDocument();
+                        }
+                        break;
+                    case CHARACTERS:
+                    case CDATA:
+                    case SPACE:
+                        handler.characters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        break;
+                    default:
+                }
+            } catch (SAXException e) {
+                done = true;
+                throw new XMLStreamException(failed(e));
+            }
+        }
+
+        private void startElement() throws SAXException {
+            nss.pushContext();
+            for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                String prefix = fixNull(reader.getNamespacePrefix(i));
+                String uri = fixNull(reader.getNamespaceURI(i));
+                nss.declarePrefix(prefix, uri);
+                handler.startPrefixMapping(prefix, uri);
+            }
+            String prefix = fixNull(reader.getPrefix());
+            declareInscope(prefix);
+
+            atts.clear();
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                String attPrefix = fixNull(reader.getAttributePrefix(i));
+                String attNsUri = fixNull(reader.getAttributeNamespace(i));
+                String attLocal = reader.getAttributeLocalName(i);
+                String value = reader.getAttributeValue(i);
+                if (attPrefix.length() > 0)
+                    declareInscope(attPrefix);
+                if (XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI.equals(attNsUri) && "type".equals(attLocal)) {
+                    // the QName in xsi:type may use a prefix declared outside the payload
+                    int idx = value.indexOf(':');
+                    declareInscope(idx > 0 ? value.substring(0, idx).trim() : "");
+                }
+                atts.addAttribute(attNsUri, attLocal, qname(attPrefix, attLocal), "CDATA", value);
+            }
+            String localName = reader.getLocalName();
+            handler.startElement(fixNull(reader.getNamespaceURI()), localName, qname(prefix, localName), atts);
+        }
+
+        private void endElement() throws SAXException {
+            String localName = reader.getLocalName();
+            handler.endElement(fixNull(reader.getNamespaceURI()), localName, qname(fixNull(reader.getPrefix()), localName));
+            for (Enumeration e = nss.getDeclaredPrefixes(); e.hasMoreElements();) {
+                handler.endPrefixMapping((String) e.nextElement());
+            }
+            nss.popContext();
+        }
+
+        /**
+         * There is no way to enumerate inscope namespaces for XMLStreamReader, so
+         * the ones declared outside the payload (on the envelope, body etc.) are
+         * passed to the validator as they are used.
+         */
+        private void declareInscope(String prefix) throws SAXException {
+            if (nss.getURI(prefix) != null)
+                return;
+            String uri = reader.getNamespaceURI(prefix);
+            if (uri != null && (prefix.length() > 0 || uri.length() > 0)) {
+                nss.declarePrefix(prefix, uri);
+                handler.startPrefixMapping(prefix, uri);
+            }
+        }
+    }
+
+    private static String fixNull(@Nullable String s) {
+        return (s == null) ? "" : s;
+    }
+
+    private static String qname(String prefix, String localName) {
+        return (prefix.length() == 0) ? localName : prefix + ':' + localName;
+    }
+}
@@ -42,42 +42,195 @@ package com.sun.xml.ws.wsdl;
 
 import com.sun.istack.NotNull;
 import com.sun.istack.Nullable;
+import com.sun.xml.ws.api.addressing.AddressingVersion;
+import com.sun.xml.ws.api.model.wsdl.WSDLBoundOperation;
 import com.sun.xml.ws.api.model.wsdl.WSDLPort;
 import com.sun.xml.ws.api.model.SEIModel;
 import com.sun.xml.ws.api.model.WSDLOperationMapping;
+import com.sun.xml.ws.api.SOAPVersion;
 import com.sun.xml.ws.api.WSBinding;
+import com.sun.xml.ws.api.message.AddressingUtils;
 import com.sun.xml.ws.api.message.Packet;
 import com.sun.xml.ws.api.message.Message;
+import com.sun.xml.ws.api.message.Messages;
+import com.sun.xml.ws.model.AbstractSEIModelImpl;
+import com.sun.xml.ws.model.JavaMethodImpl;
+import com.sun.xml.ws.resources.AddressingMessages;
 import com.sun.xml.ws.resources.ServerMessages;
 import com.sun.xml.ws.fault.SOAPFaultBuilder;
+import com.sun.xml.ws.util.QNameMap;
 
 import javax.xml.namespace.QName;
-import java.util.List;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.text.MessageFormat;
+import java.util.logging.Logger;
 
 /**
  * This class abstracts the process of identifying the wsdl operation from a SOAP Message request.
  * This is primarily for dispatching the request messages to an endpoint method.
  *
- * Different implementations of {@link WSDLOperationFinder} are used underneath to identify the wsdl operation based on
- * if AddressingFeature is enabled or not.
- * 
+ * <p>
+ * All the dispatch keys of the port (<code>wsa:Action</code> when AddressingFeature is enabled,
+ * the SOAP payload QName and the SOAPAction) are compiled into a single index when the
+ * dispatcher is created, so resolving a request costs a few hash lookups on the strings the
+ * message already has, and no per-request objects are created on the success path.
+ * The precedence is the same as it always was: <code>wsa:Action</code> (qualified by the
+ * payload QName, then alone), then a payload QName that identifies a unique operation,
+ * then SOAPAction.
+ *
+ * <p>
+ * When a request cannot be dispatched, the fault is only built if the caller asks for it
+ * (see {@link #getWSDLOperationMapping(Packet)} vs {@link #findWSDLOperationMapping(Packet)}),
+ * and the formatted fault strings of recent misses are cached so that a stream of bad
+ * requests doesn't pay for message formatting every time.
+ *
  * @author Rama Pulavarthi
+ * @author Arun Gupta
+ * @author Jitendra Kotamraju
  */
 public class OperationDispatcher {
-    private List<WSDLOperationFinder> opFinders;
-    private WSBinding binding;
+    private static final Logger LOGGER = Logger.getLogger(OperationDispatcher.class.getName());
+
+    static final String EMPTY_PAYLOAD_LOCAL = "";
+    static final String EMPTY_PAYLOAD_NSURI = "";
+    static final QName EMPTY_PAYLOAD = new QName(EMPTY_PAYLOAD_NSURI, EMPTY_PAYLOAD_LOCAL);
+
+    /**
+     * Number of fault strings of failed dispatches that are remembered.
+     */
+    private static final int MISS_CACHE_SIZE = 64;
+
+    private final WSBinding binding;
+    private final SOAPVersion soapVersion;
+    private final @Nullable AddressingVersion av;
+
+    /**
+     * <code>wsa:Action</code> to the operations that declare it, null if addressing is not enabled.
+     */
+    private final Map<String, ActionEntry> actions;
+    /**
+     * Payload QName to the operation it identifies; the entry has no mapping if the
+     * QName is shared by more than one operation.
+     */
+    private final QNameMap<PayloadEntry> payloads = new QNameMap<PayloadEntry>();
+    private final Map<String, WSDLOperationMapping> soapActions = new HashMap<String, WSDLOperationMapping>();
+
+    final Map<String, String> recentMisses = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MISS_CACHE_SIZE;
+        }
+    };
 
     public OperationDispatcher(@NotNull WSDLPort wsdlModel, @NotNull WSBinding binding, @Nullable SEIModel seiModel) {
         this.binding = binding;
-        opFinders = new ArrayList<WSDLOperationFinder>();
-        if (binding.getAddressingVersion() != null) {
-            opFinders.add(new ActionBasedOperationFinder(wsdlModel, binding, seiModel));
+        this.soapVersion = binding.getSOAPVersion();
+        this.av = binding.getAddressingVersion();
+        this.actions = (av != null) ? new HashMap<String, ActionEntry>() : null;
+
+        if (seiModel != null) {
+            Map<JavaMethodImpl, WSDLOperationMapping> mappings = new HashMap<JavaMethodImpl, WSDLOperationMapping>();
+            for (JavaMethodImpl m : ((AbstractSEIModelImpl) seiModel).getJavaMethods()) {
+                mappings.put(m, new WSDLOperationFinder.WSDLOperationMappingImpl(m.getOperation(), m));
+            }
+            compileSEI((AbstractSEIModelImpl) seiModel, mappings);
+        } else {
+            for (WSDLBoundOperation wsdlOp : wsdlModel.getBinding().getBindingOperations()) {
+                WSDLOperationMapping mapping = new WSDLOperationFinder.WSDLOperationMappingImpl(wsdlOp, null);
+                QName payloadName = wsdlOp.getRequestPayloadName();
+                if (payloadName == null)
+                    payloadName = EMPTY_PAYLOAD;
+                if (actions != null) {
+                    addAction(wsdlOp.getOperation().getInput().getAction(), payloadName, mapping, wsdlOp.getName());
+                }
+                payloads.put(payloadName, new PayloadEntry(mapping));
+                soapActions.put(wsdlOp.getSOAPAction(), mapping);
+            }
+        }
+    }
+
+    private void compileSEI(AbstractSEIModelImpl seiModel, Map<JavaMethodImpl, WSDLOperationMapping> mappings) {
+        // wsa:Action
+        if (actions != null) {
+            for (JavaMethodImpl m : seiModel.getJavaMethods()) {
+                if (m.getMEP().isAsync)
+                    continue;
+                String action = m.getInputAction();
+                QName payloadName = m.getRequestPayloadName();
+                if (payloadName == null)
+                    payloadName = EMPTY_PAYLOAD;
+                //first look at annotations and then in wsdlmodel
+                if (action == null || action.equals("")) {
+                    if (m.getOperation() != null) action = m.getOperation().getOperation().getInput().getAction();
+                }
+                if (action != null) {
+                    addAction(action, payloadName, mappings.get(m), m.getOperationQName());
+                }
+            }
         }
-        opFinders.add(new PayloadQNameBasedOperationFinder(wsdlModel, binding, seiModel));
-        opFinders.add(new SOAPActionBasedOperationFinder(wsdlModel, binding, seiModel));
 
+        // payload QName, only the ones that identify a unique method
+        QNameMap<List<String>> unique = new QNameMap<List<String>>();
+        for (JavaMethodImpl m : seiModel.getJavaMethods()) {
+            if (m.getMEP().isAsync)
+                continue;
+            QName name = m.getRequestPayloadName();
+            if (name == null)
+                name = EMPTY_PAYLOAD;
+            List<String> methods = unique.get(name);
+            if (methods == null) {
+                methods = new ArrayList<String>();
+                unique.put(name, methods);
+            }
+            methods.add(m.getMethod().getName());
+        }
+        for (QNameMap.Entry<List<String>> e : unique.entrySet()) {
+            if (e.getValue().size() > 1) {
+                LOGGER.warning(ServerMessages.NON_UNIQUE_DISPATCH_QNAME(e.getValue(), e.createQName()));
+                payloads.put(e.nsUri, e.localName, new PayloadEntry(null));
+            }
+        }
+        for (JavaMethodImpl m : seiModel.getJavaMethods()) {
+            QName name = m.getRequestPayloadName();
+            if (name == null)
+                name = EMPTY_PAYLOAD;
+            List<String> methods = unique.get(name);
+            if (methods != null && methods.size() == 1) {
+                payloads.put(name, new PayloadEntry(mappings.get(m)));
+            }
+        }
+
+        // SOAPAction, only the ones that identify a unique method
+        Map<String, Integer> count = new HashMap<String, Integer>();
+        for (JavaMethodImpl m : seiModel.getJavaMethods()) {
+            String soapAction = m.getSOAPAction();
+            Integer c = count.get(soapAction);
+            count.put(soapAction, (c == null) ? 1 : c + 1);
+        }
+        for (JavaMethodImpl m : seiModel.getJavaMethods()) {
+            String soapAction = m.getSOAPAction();
+            if (count.get(soapAction) == 1) {
+                soapActions.put('"' + soapAction + '"', mappings.get(m));
+            }
+        }
+    }
+
+    private void addAction(String action, QName payloadName, WSDLOperationMapping mapping, QName opName) {
+        ActionEntry entry = actions.get(action);
+        if (entry == null) {
+            entry = new ActionEntry();
+            actions.put(action, entry);
+        }
+        WSDLOperationMapping old = entry.byPayload.get(payloadName);
+        if (old != null) {
+            LOGGER.warning(AddressingMessages.NON_UNIQUE_OPERATION_SIGNATURE(old, opName, action, payloadName));
+        }
+        entry.byPayload.put(payloadName, mapping);
+        entry.byAction = mapping;
     }
 
     /**
@@ -92,19 +245,125 @@ public class OperationDispatcher {
     }
 
     public @NotNull WSDLOperationMapping getWSDLOperationMapping(Packet request) throws DispatchException {
-        WSDLOperationMapping opName;
-        for(WSDLOperationFinder finder: opFinders) {
-            opName = finder.getWSDLOperationMapping(request);
-            if(opName != null)
-                return opName;
+        return dispatch(request, true);
+    }
+
+    /**
+     * Same as {@link #getWSDLOperationMapping(Packet)}, but returns null instead of
+     * building a fault message when the request cannot be dispatched. Use this when the
+     * fault would be discarded anyway, for e.g. protocol messages that don't have a
+     * wsdl operation.
+     *
+     * @param request Packet
+     * @return the operation mapping, null if a unique operation cannot be associated with this packet.
+     */
+    public @Nullable WSDLOperationMapping findWSDLOperationMapping(Packet request) {
+        try {
+            return dispatch(request, false);
+        } catch (DispatchException e) {
+            throw new AssertionError(e);    // never thrown when the fault isn't needed
+        }
+    }
+
+    private WSDLOperationMapping dispatch(Packet request, boolean needFault) throws DispatchException {
+        Message message = request.getMessage();
+        String localPart = message.getPayloadLocalPart();
+        String nsUri;
+        if (localPart == null) {
+            localPart = EMPTY_PAYLOAD_LOCAL;
+            nsUri = EMPTY_PAYLOAD_NSURI;
+        } else {
+            nsUri = message.getPayloadNamespaceURI();
+            if (nsUri == null)
+                nsUri = EMPTY_PAYLOAD_NSURI;
         }
+
+        if (av != null) {
+            String action = AddressingUtils.getAction(message.getHeaders(), av, soapVersion);
+            if (action != null) {
+                ActionEntry entry = actions.get(action);
+                if (entry != null) {
+                    WSDLOperationMapping opMapping = entry.byPayload.get(nsUri, localPart);
+                    //Seems like in Wstrust STS wsdls, the payload does not match what is specified in the wsdl leading to incorrect
+                    //  wsdl operation resolution. Use just wsa:Action to dispatch as a last resort.
+                    return (opMapping != null) ? opMapping : entry.byAction;
+                }
+                if (!needFault)
+                    return null;
+                // invalid action header
+                throw new DispatchException(Messages.create(action, av, soapVersion));
+            }
+            // Addressing is not enagaged, use other ways to dispatch.
+        }
+
+        PayloadEntry payload = payloads.get(nsUri, localPart);
+        if (payload == null) {
+            // the payload itself is incorrect, it is not accepted by any operation in the port
+            if (!needFault)
+                return null;
+            throw fault("{" + nsUri + "}" + localPart, null, nsUri, localPart);
+        }
+        if (payload.mapping != null)
+            return payload.mapping;
+
+        if (request.soapAction != null) {
+            WSDLOperationMapping opMapping = soapActions.get(request.soapAction);
+            if (opMapping != null)
+                return opMapping;
+        }
+
         //No way to dispatch this request
-        String err = MessageFormat.format("Request=[SOAPAction={0},Payload='{'{1}'}'{2}]",
-                request.soapAction, request.getMessage().getPayloadNamespaceURI(),
-                request.getMessage().getPayloadLocalPart());
-        String faultString = ServerMessages.DISPATCH_CANNOT_FIND_METHOD(err);
-        Message faultMsg = SOAPFaultBuilder.createSOAPFaultMessage(
-                binding.getSOAPVersion(), faultString, binding.getSOAPVersion().faultCodeClient);
-        throw new DispatchException(faultMsg);
+        if (!needFault)
+            return null;
+        // the payload QName as the message reports it, so a missing one reads "null" as it always did
+        String soapAction = String.valueOf(request.soapAction);
+        String payloadNsUri = String.valueOf(message.getPayloadNamespaceURI());
+        String payloadLocalPart = String.valueOf(message.getPayloadLocalPart());
+        throw fault("Request=" + soapAction + "{" + payloadNsUri + "}" + payloadLocalPart,
+                soapAction, payloadNsUri, payloadLocalPart);
+    }
+
+    /**
+     * Creates the fault for a request that cannot be dispatched.
+     *
+     * @param dispatchKey identifies the request in {@link #recentMisses}, also the
+     *        error when the payload QName isn't accepted by any operation.
+     * @param soapAction non-null when the payload and the SOAPAction together failed to
+     *        identify a unique operation.
+     */
+    private DispatchException fault(String dispatchKey, @Nullable String soapAction, String nsUri, String localPart) {
+        String faultString;
+        synchronized (recentMisses) {
+            faultString = recentMisses.get(dispatchKey);
+        }
+        if (faultString == null) {
+            String err = (soapAction == null) ? dispatchKey
+                    : MessageFormat.format("Request=[SOAPAction={0},Payload='{'{1}'}'{2}]", soapAction, nsUri, localPart);
+            faultString = ServerMessages.DISPATCH_CANNOT_FIND_METHOD(err);
+            synchronized (recentMisses) {
+                recentMisses.put(dispatchKey, faultString);
+            }
+        }
+        return new DispatchException(SOAPFaultBuilder.createSOAPFaultMessage(
+                soapVersion, faultString, soapVersion.faultCodeClient));
+    }
+
+    /**
+     * Operations that declare a <code>wsa:Action</code>.
+     */
+    private static final class ActionEntry {
+        final QNameMap<WSDLOperationMapping> byPayload = new QNameMap<WSDLOperationMapping>();
+        /**
+         * The last operation declaring the action, used when the payload doesn't match any of them.
+         */
+        WSDLOperationMapping byAction;
+    }
+
+    private static final class PayloadEntry {
+        final @Nullable WSDLOperationMapping mapping;
+
+        PayloadEntry(@Nullable WSDLOperationMapping mapping) {
+            this.mapping = mapping;
+        }
     }
 }
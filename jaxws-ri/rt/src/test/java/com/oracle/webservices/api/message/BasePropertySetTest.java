@@ -0,0 +1,171 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.oracle.webservices.api.message;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Property access through {@link BasePropertySet} with the generated accessors.
+ *
+ * @author WS Development Team
+ */
+public class BasePropertySetTest extends TestCase {
+
+    public static class Props extends BasePropertySet {
+        private static final PropertyMap model = parse(Props.class);
+
+        @Override
+        protected PropertyMap getPropertyMap() {
+            return model;
+        }
+
+        @Property({"field", "field.alias"})
+        public String field;
+
+        @Property("private.field")
+        private String privateField;
+
+        @Property("final.field")
+        public final String finalField = "final";
+
+        private Object method;
+
+        @Property("method")
+        public Object getMethod() {
+            return method;
+        }
+
+        public void setMethod(Object method) {
+            this.method = method;
+        }
+
+        @Property("readonly")
+        Integer getReadOnly() {
+            return 42;
+        }
+
+        private int primitive = 3;
+
+        @Property("primitive")
+        public int getPrimitive() {
+            return primitive;
+        }
+
+        public void setPrimitive(int primitive) {
+            this.primitive = primitive;
+        }
+    }
+
+    public void testFields() {
+        Props p = new Props();
+        p.put("field", "a");
+        assertEquals("a", p.field);
+        assertEquals("a", p.get("field.alias"));
+        p.put("private.field", "b");
+        assertEquals("b", p.get("private.field"));
+        assertEquals("final", p.get("final.field"));
+        assertEquals("a", p.remove("field"));
+        assertNull(p.field);
+        assertFalse(p.containsKey("field"));
+    }
+
+    public void testMethods() {
+        Props p = new Props();
+        p.put("method", 5);
+        assertEquals(5, p.get("method"));
+        assertEquals(42, p.get("readonly"));
+        try {
+            p.put("readonly", 1);
+            fail();
+        } catch (ReadOnlyPropertyException e) {
+            assertEquals("readonly", e.getPropertyName());
+        }
+        p.put("primitive", 7);
+        assertEquals(7, p.getPrimitive());
+    }
+
+    public void testTypeMismatch() {
+        Props p = new Props();
+        try {
+            p.put("field", 1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testUnknownProperty() {
+        Props p = new Props();
+        assertTrue(p.supports("field"));
+        assertFalse(p.supports("unknown"));
+        assertFalse(p.supports(null));
+        try {
+            p.get("unknown");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testLookupTable() {
+        Random r = new Random(1);
+        for (int n = 0; n < 100; n++) {
+            Map<String, BasePropertySet.Accessor> map = new HashMap<String, BasePropertySet.Accessor>();
+            int size = r.nextInt(64);
+            for (int i = 0; i < size; i++) {
+                String name = "p" + r.nextInt(1000) + "." + i;
+                map.put(name, new BasePropertySet.FieldAccessor(Props.class.getFields()[0], name));
+            }
+            BasePropertySet.LookupTable table = new BasePropertySet.LookupTable(map);
+            for (Map.Entry<String, BasePropertySet.Accessor> e : map.entrySet()) {
+                assertSame(e.getValue(), table.get(new String(e.getKey())));
+            }
+            for (int i = 0; i < 100; i++) {
+                String name = "p" + r.nextInt(1000) + "." + r.nextInt(70);
+                assertSame(map.get(name), table.get(name));
+            }
+        }
+    }
+}
@@ -102,6 +102,49 @@ public class HeaderListTest extends TestCase {
         }
     }
     
+    public void testIndexedLookup() throws Exception {
+        for (int i = 0; i < 25; i++) {
+            testInstance.add(Headers.create(new QName(TEST_NS, "" + i), "" + i));
+        }
+        testInstance.add(Headers.create(new QName(TEST_NS, "3"), "duplicate"));
+
+        for (int i = 0; i < 25; i++) {
+            Header h = testInstance.get(TEST_NS, "" + i, false);
+            assertNotNull(h);
+            assertEquals("" + i, h.getStringContent());
+        }
+        assertNull(testInstance.get(TEST_NS, "25", false));
+        assertNull(testInstance.get("urn:other", "1", false));
+
+        // the first one of duplicates is returned
+        assertEquals("3", testInstance.get(TEST_NS, "3", false).getStringContent());
+
+        // the index follows structural modifications
+        testInstance.remove(new QName(TEST_NS, "3"));
+        assertEquals("duplicate", testInstance.get(TEST_NS, "3", false).getStringContent());
+        testInstance.remove(0);
+        assertNull(testInstance.get(TEST_NS, "0", false));
+        assertEquals("24", testInstance.get(TEST_NS, "24", false).getStringContent());
+        testInstance.add(0, Headers.create(new QName(TEST_NS, "new"), "new"));
+        assertEquals("new", testInstance.get(TEST_NS, "new", true).getStringContent());
+        assertTrue(testInstance.isUnderstood(0));
+        assertTrue(testInstance.isUnderstood(TEST_NS, "new"));
+        assertFalse(testInstance.isUnderstood(TEST_NS, "1"));
+
+        // and replacements
+        testInstance.set(1, Headers.create(new QName(TEST_NS, "set"), "set"));
+        assertNull(testInstance.get(TEST_NS, "1", false));
+        assertEquals("set", testInstance.get(TEST_NS, "set", false).getStringContent());
+        testInstance.addOrReplace(Headers.create(new QName(TEST_NS, "2"), "replaced"));
+        assertEquals("replaced", testInstance.get(TEST_NS, "2", false).getStringContent());
+
+        int count = 0;
+        for (java.util.Iterator<Header> it = testInstance.getHeaders(TEST_NS, "3", false); it.hasNext(); it.next()) {
+            count++;
+        }
+        assertEquals(1, count);
+    }
+
     public void testUnderstoodBehavior() throws Exception {
       //a fairly complex SOAPMessage with 2 mustUnderstand=true headers, 
         //one mustUnderstand=false and one with no mustUnderstand specified
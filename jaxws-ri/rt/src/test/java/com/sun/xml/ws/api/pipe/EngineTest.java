@@ -141,6 +141,72 @@ public class EngineTest extends TestCase {
         assertEquals(testContainer, firstCall.container);
     }
     
+    public void testRecycleFiber() {
+        Engine e = new Engine("engine1");
+        Fiber f = e.createFiber();
+        TestTube testTube = new TestTube();
+        Packet request = new Packet();
+
+        assertSame(request, f.runSync(testTube, request));
+        String name = f.toString();
+        e.recycleFiber(f);
+
+        Fiber g = e.createFiber();
+        assertSame(f, g);
+        assertNull(g.getPacket());
+        assertFalse(name.equals(g.toString()));
+
+        // a recycled fiber runs just like a new one
+        Packet second = new Packet();
+        assertSame(second, g.runSync(testTube, second));
+        assertEquals(2, testTube.getCalls().size());
+    }
+
+    public void testAsyncFiberNotRecycled() {
+        Engine e = new Engine("engine1", new InlineExecutor());
+        Fiber f = e.createFiber();
+        SimpleCompletionCallback callback = new SimpleCompletionCallback();
+        f.start(new TestTube(), new Packet(), callback);
+        assertNotNull(callback.response);
+
+        e.recycleFiber(f);
+        assertNotSame(f, e.createFiber());
+    }
+
+    public void testSuspendedFiberNotRecycled() {
+        Engine e = new Engine("engine1");
+        final Fiber f = e.createFiber();
+        Tube suspending = new TestTube() {
+            @Override
+            @NotNull
+            public NextAction processRequest(@NotNull Packet request) {
+                return doSuspend(new Runnable() {
+                    public void run() {
+                        f.resume(new Packet());
+                    }
+                });
+            }
+        };
+
+        assertNotNull(f.runSync(suspending, new Packet()));
+        e.recycleFiber(f);
+        assertNotSame(f, e.createFiber());
+    }
+
+    public void testFiberPoolDisabled() {
+        Engine e = new Engine("engine1");
+        boolean old = Engine.poolFibers;
+        Engine.poolFibers = false;
+        try {
+            Fiber f = e.createFiber();
+            f.runSync(new TestTube(), new Packet());
+            e.recycleFiber(f);
+            assertNotSame(f, e.createFiber());
+        } finally {
+            Engine.poolFibers = old;
+        }
+    }
+
     static class SimpleCompletionCallback implements CompletionCallback {
         public Packet response = null;
         public Throwable error = null;
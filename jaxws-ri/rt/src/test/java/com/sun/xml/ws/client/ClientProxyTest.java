@@ -41,9 +41,19 @@
 package com.sun.xml.ws.client;
 
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.xml.ws.BindingProvider;
 import javax.xml.ws.Holder;
+import javax.xml.ws.RespectBindingFeature;
 import javax.xml.ws.WebServiceException;
+import javax.xml.ws.handler.Handler;
+import javax.xml.ws.handler.LogicalHandler;
+import javax.xml.ws.handler.LogicalMessageContext;
+import javax.xml.ws.handler.MessageContext;
+import javax.xml.ws.soap.SOAPBinding;
 
 import com.sun.xml.ws.api.BindingID;
 import com.sun.xml.ws.api.ComponentFeature;
@@ -169,4 +179,90 @@ public class ClientProxyTest extends TestCase {
             assertTrue(e instanceof WebServiceException);
         }
     }
+
+    @SuppressWarnings("unchecked")
+    public void testTubelineTemplate() throws Exception {
+        URL wsdlURL = Thread.currentThread().getContextClassLoader().getResource("etc/EchoService.wsdl");
+        final AtomicInteger assembled = new AtomicInteger();
+        EchoService srv = new EchoService(wsdlURL, new ComponentFeature(new com.sun.xml.ws.api.Component() {
+            public <S> S getSPI(Class<S> spiType) {
+                if (TubelineAssemblerFactory.class.equals(spiType)) return (S) new TubelineAssemblerFactory() {
+                    public TubelineAssembler doCreate(BindingID bindingId) {
+                        return new TubelineAssembler() {
+                            public Tube createClient(ClientTubeAssemblerContext context) {
+                                assembled.incrementAndGet();
+                                return new CopyableEchoTube();
+                            }
+                            public Tube createServer(ServerTubeAssemblerContext context) { return null; }
+                        };
+                    }
+                };
+                return null;
+            }
+        }));
+
+        // proxies without features of their own copy the tubeline of the first one
+        Echo echo = srv.getEchoPort();
+        Echo copied = srv.getEchoPort();
+        srv.getEchoPort();
+        assertEquals(1, assembled.get());
+
+        // and keep using it when they are invoked
+        for (Echo proxy : new Echo[] {echo, copied, copied}) {
+            try {
+                proxy.add(new NumbersRequest());
+                fail();
+            } catch (WebServiceException e) {
+                // no response
+            }
+        }
+        assertEquals(1, assembled.get());
+
+        // proxies with features of their own can't share it
+        srv.getEchoPort(new RespectBindingFeature(false));
+        assertEquals(2, assembled.get());
+
+        // nor can proxies whose features are changed later, such as MTOM
+        Echo mtom = srv.getEchoPort();
+        assertEquals(2, assembled.get());
+        ((SOAPBinding) ((BindingProvider) mtom).getBinding()).setMTOMEnabled(true);
+        try {
+            mtom.add(new NumbersRequest());
+            fail();
+        } catch (WebServiceException e) {
+            // no response
+        }
+        assertEquals(3, assembled.get());
+
+        // handlers can't run in a copied tubeline
+        List<Handler> handlers = new ArrayList<Handler>();
+        handlers.add(new LogicalHandler<LogicalMessageContext>() {
+            public boolean handleMessage(LogicalMessageContext context) { return true; }
+            public boolean handleFault(LogicalMessageContext context) { return true; }
+            public void close(MessageContext context) {}
+        });
+        ((BindingProvider) echo).getBinding().setHandlerChain(handlers);
+        try {
+            echo.add(new NumbersRequest());
+            fail();
+        } catch (WebServiceException e) {
+            // no response
+        }
+        assertEquals(4, assembled.get());
+    }
+
+    static class CopyableEchoTube extends EchoTube {
+        @Override
+        public NextAction processRequest(Packet request) {
+            NextAction na = new NextAction();
+            na.returnWith(new Packet());
+            return na;
+        }
+        @Override
+        public AbstractTubeImpl copy(TubeCloner cloner) {
+            CopyableEchoTube copy = new CopyableEchoTube();
+            cloner.add(this, copy);
+            return copy;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,113 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.client;
+
+import com.sun.xml.ws.api.message.Packet;
+import junit.framework.TestCase;
+
+import javax.xml.ws.BindingProvider;
+import javax.xml.ws.handler.MessageContext;
+import java.util.Map;
+
+/**
+ * @author WS Development Team
+ */
+public class RequestContextTest extends TestCase {
+
+    public void testFill() {
+        RequestContext rc = new RequestContext();
+        rc.put(BindingProvider.ENDPOINT_ADDRESS_PROPERTY, "http://localhost/echo");
+        rc.put("custom", "a");
+
+        Packet packet = new Packet();
+        rc.fill(packet, false);
+        assertEquals("http://localhost/echo", packet.endpointAddress.toString());
+        assertEquals("a", packet.invocationProperties.get("custom"));
+        assertTrue(packet.getHandlerScopePropertyNames(true).contains("custom"));
+        assertFalse(packet.getHandlerScopePropertyNames(true).contains(BindingProvider.ENDPOINT_ADDRESS_PROPERTY));
+
+        // changes made after a fill are picked up by the next one
+        Map<String, Object> map = rc.asMap();
+        map.put("custom", "b");
+        map.put(MessageContext.PATH_INFO, "/path");
+        packet = new Packet();
+        rc.fill(packet, false);
+        assertEquals("b", packet.invocationProperties.get("custom"));
+        assertEquals("/path", packet.invocationProperties.get(MessageContext.PATH_INFO));
+
+        map.remove("custom");
+        packet = new Packet();
+        rc.fill(packet, false);
+        assertFalse(packet.invocationProperties.containsKey("custom"));
+        assertFalse(packet.getHandlerScopePropertyNames(true).contains("custom"));
+    }
+
+    public void testCopy() {
+        RequestContext rc = new RequestContext();
+        rc.put(BindingProvider.ENDPOINT_ADDRESS_PROPERTY, "http://localhost/echo");
+        rc.put("custom", "a");
+
+        RequestContext copy = rc.copy();
+        assertEquals("a", copy.get("custom"));
+        assertTrue(copy.containsKey("custom"));
+        assertFalse(copy.containsKey("other"));
+        assertEquals("http://localhost/echo", copy.getEndpointAddress().toString());
+
+        // the original and the copy don't see each other's changes
+        rc.put("custom", "b");
+        copy.put("other", "c");
+        assertEquals("a", copy.get("custom"));
+        assertEquals("b", rc.get("custom"));
+        assertNull(rc.get("other"));
+        assertEquals("a", copy.asMap().get("custom"));
+        assertEquals("c", copy.asMap().get("other"));
+
+        Packet packet = new Packet();
+        copy.fill(packet, false);
+        assertEquals("a", packet.invocationProperties.get("custom"));
+        assertEquals("c", packet.invocationProperties.get("other"));
+
+        RequestContext second = copy.copy();
+        second.asMap().remove("custom");
+        assertNull(second.get("custom"));
+        assertEquals("a", copy.get("custom"));
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.encoding;
+
+import com.sun.xml.ws.api.message.Attachment;
+import com.sun.xml.ws.developer.StreamingAttachmentFeature;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * @author WS Development Team
+ */
+public class AttachmentStoreTest extends TestCase {
+
+    private static final String CONTENT_TYPE = "multipart/related; type=\"text/xml\"; boundary=\"uuid\"";
+    private static final int THRESHOLD = 1024;
+
+    private final byte[] small = content(100);
+    private final byte[] large = content(5000);
+
+    public void testDirectBuffers() throws Exception {
+        MimeMultipartParser mpp = parse(true);
+        AttachmentStore store = mpp.getAttachmentStore();
+        Attachment att = mpp.getAttachmentPart("small");
+        assertEquals(0, store.getDirectBytes());
+
+        assertContent(small, att.asInputStream());
+        assertTrue(store.getDirectBytes() >= small.length);
+        assertEquals(0, store.getFileBytes());
+
+        AttachmentStore.PartDataHandler dh = (AttachmentStore.PartDataHandler) att.asDataHandler();
+        assertEquals(small.length, dh.getSize());
+        ReadableByteChannel ch = dh.getChannel();
+        assertFalse(ch instanceof FileChannel);
+        assertContent(small, Channels.newInputStream(ch));
+        // streams are independent
+        assertContent(small, dh.readOnce());
+        assertContent(small, dh.getInputStream());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        att.writeTo(out);
+        assertContent(small, new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    public void testFile() throws Exception {
+        MimeMultipartParser mpp = parse(true);
+        AttachmentStore store = mpp.getAttachmentStore();
+        AttachmentStore.PartDataHandler dh = (AttachmentStore.PartDataHandler) mpp.getAttachmentPart("large").asDataHandler();
+
+        assertEquals(large.length, store.getFileBytes());
+        assertEquals(0, store.getDirectBytes());
+        assertEquals(large.length, dh.getSize());
+        ReadableByteChannel ch = dh.getChannel();
+        assertTrue(ch instanceof FileChannel);
+        assertEquals(large.length, ((FileChannel) ch).size());
+        ch.close();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        dh.transferTo(Channels.newChannel(out));
+        assertContent(large, new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    public void testMoveTo() throws Exception {
+        MimeMultipartParser mpp = parse(true);
+        AttachmentStore store = mpp.getAttachmentStore();
+        File file = File.createTempFile("jaxws", ".test");
+        try {
+            AttachmentStore.PartDataHandler dh = (AttachmentStore.PartDataHandler) mpp.getAttachmentPart("large").asDataHandler();
+            dh.moveTo(file);
+            assertEquals(0, store.getFileBytes());
+            assertContent(large, new FileInputStream(file));
+            assertContent(large, dh.readOnce());
+
+            dh = (AttachmentStore.PartDataHandler) mpp.getAttachmentPart("small").asDataHandler();
+            dh.moveTo(file);
+            assertEquals(0, store.getDirectBytes());
+            assertContent(small, new FileInputStream(file));
+
+            // the application's file is left alone
+            store.close();
+            assertTrue(file.exists());
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testHeapBytes() throws Exception {
+        MimeMultipartParser mpp = parse(true);
+        AttachmentStore store = mpp.getAttachmentStore();
+        byte[] b = mpp.getAttachmentPart("small").asByteArray();
+        assertContent(small, new ByteArrayInputStream(b));
+        assertEquals(small.length, store.getHeapBytes());
+    }
+
+    public void testClose() throws Exception {
+        MimeMultipartParser mpp = parse(true);
+        AttachmentStore store = mpp.getAttachmentStore();
+        AttachmentStore.PartDataHandler smallHandler = (AttachmentStore.PartDataHandler) mpp.getAttachmentPart("small").asDataHandler();
+        AttachmentStore.PartDataHandler largeHandler = (AttachmentStore.PartDataHandler) mpp.getAttachmentPart("large").asDataHandler();
+        assertTrue(store.getDirectBytes() > 0);
+        assertTrue(store.getFileBytes() > 0);
+
+        store.close();
+        assertEquals(0, store.getDirectBytes());
+        assertEquals(0, store.getFileBytes());
+        try {
+            smallHandler.readOnce();
+            fail();
+        } catch (IOException e) {
+            // released
+        }
+        try {
+            largeHandler.getChannel();
+            fail();
+        } catch (IOException e) {
+            // released
+        }
+    }
+
+    public void testDisabled() throws Exception {
+        MimeMultipartParser mpp = parse(false);
+        assertNull(mpp.getAttachmentStore());
+        Attachment att = mpp.getAttachmentPart("small");
+        assertTrue(att.asDataHandler() instanceof MIMEPartStreamingDataHandler);
+        assertContent(small, att.asInputStream());
+    }
+
+    private MimeMultipartParser parse(boolean offHeap) throws IOException {
+        ByteArrayOutputStream msg = new ByteArrayOutputStream();
+        part(msg, "root", "<S:Envelope xmlns:S=\"http://schemas.xmlsoap.org/soap/envelope/\"><S:Body/></S:Envelope>".getBytes("US-ASCII"));
+        part(msg, "small", small);
+        part(msg, "large", large);
+        msg.write("--uuid--\r\n".getBytes("US-ASCII"));
+
+        StreamingAttachmentFeature feature = new StreamingAttachmentFeature(null, false, THRESHOLD);
+        feature.setOffHeap(offHeap);
+        return new MimeMultipartParser(new ByteArrayInputStream(msg.toByteArray()), CONTENT_TYPE, feature);
+    }
+
+    private static void part(ByteArrayOutputStream msg, String cid, byte[] content) throws IOException {
+        msg.write(("--uuid\r\nContent-Type: application/octet-stream\r\nContent-Id: <" + cid + ">\r\n\r\n").getBytes("US-ASCII"));
+        msg.write(content);
+        msg.write("\r\n".getBytes("US-ASCII"));
+    }
+
+    private static byte[] content(int size) {
+        byte[] b = new byte[size];
+        for (int i = 0; i < size; i++) {
+            b[i] = (byte) ('a' + i % 26);
+        }
+        return b;
+    }
+
+    private static void assertContent(byte[] expected, InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] b = new byte[1000];
+        int len;
+        while ((len = in.read(b)) != -1) {
+            out.write(b, 0, len);
+        }
+        in.close();
+        byte[] actual = out.toByteArray();
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < actual.length; i++) {
+            assertEquals(expected[i], actual[i]);
+        }
+    }
+}
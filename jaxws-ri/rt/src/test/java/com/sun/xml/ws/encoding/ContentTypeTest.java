@@ -0,0 +1,126 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.encoding;
+
+import junit.framework.TestCase;
+
+import javax.xml.ws.WebServiceException;
+
+/**
+ * @author WS Development Team
+ */
+public class ContentTypeTest extends TestCase {
+
+    public void testParseIsCached() {
+        String s = "text/xml; charset=utf-8";
+        ContentType ct = ContentType.parse(s);
+        assertSame(ct, ContentType.parse(s));
+        assertEquals("text/xml", ct.getBaseType());
+        assertEquals("utf-8", ct.getParameter("charset"));
+        assertNull(ct.getParameter("boundary"));
+
+        ContentType plain = ContentType.parse("application/soap+xml");
+        assertSame(plain, ContentType.parse("application/soap+xml"));
+        assertNull(plain.getParameter("charset"));
+    }
+
+    public void testMessageParameters() {
+        String first = "multipart/related;start=\"<rootpart*1@example.jaxws.sun.com>\";type=\"application/xop+xml\";"
+                + "boundary=\"uuid:1\";start-info=\"application/soap+xml;action=\\\"urn:a\\\"\"";
+        String second = "multipart/related;start=\"<rootpart*2@example.jaxws.sun.com>\";type=\"application/xop+xml\";"
+                + "boundary=\"uuid:2\";start-info=\"application/soap+xml;action=\\\"urn:a\\\"\"";
+        ContentType ct1 = ContentType.parse(first);
+        ContentType ct2 = ContentType.parse(second);
+        assertEquals("multipart/related", ct1.getBaseType());
+        assertEquals("uuid:1", ct1.getParameter("boundary"));
+        assertEquals("uuid:2", ct2.getParameter("BOUNDARY"));
+        assertEquals("<rootpart*1@example.jaxws.sun.com>", ct1.getParameter("start"));
+        assertEquals("<rootpart*2@example.jaxws.sun.com>", ct2.getParameter("start"));
+        assertEquals("application/xop+xml", ct2.getParameter("type"));
+        assertEquals("application/soap+xml;action=\"urn:a\"", ct2.getParameter("start-info"));
+        assertEquals("uuid:2", ct2.getParameterList().get("boundary"));
+        assertEquals(4, ct2.getParameterList().size());
+        assertSame(ct1.getParameterList(), ct1.getParameterList());
+
+        assertEquals(new ContentType(first).getParameter("start-info"), ct1.getParameter("start-info"));
+    }
+
+    public void testUnquotedBoundary() {
+        ContentType ct = ContentType.parse("multipart/related; type=\"text/xml\"; boundary=abc123");
+        assertEquals("abc123", ct.getParameter("boundary"));
+        assertNull(ct.getParameter("start"));
+        assertEquals(2, ct.getParameterList().size());
+        assertEquals("text/xml", ct.getParameter("type"));
+    }
+
+    public void testSameAsConstructor() {
+        String[] types = {
+            "text/xml",
+            "text/xml;charset=\"UTF-8\"",
+            "multipart/related; boundary=\"----=_Part_0\"; type=\"text/xml\"; start=\"<root>\"",
+            "multipart/related; type=\"text/xml\"; x-start=1; boundary=b",
+            "multipart/related; boundary=\"a\\\"b\"",
+            "multipart/related; boundary = b ; start = c",
+        };
+        for (String s : types) {
+            ContentType expected = new ContentType(s);
+            ContentType ct = ContentType.parse(s);
+            assertEquals(expected.getBaseType(), ct.getBaseType());
+            for (String name : new String[] {"boundary", "start", "type", "charset", "x-start"}) {
+                assertEquals(expected.getParameter(name), ct.getParameter(name));
+            }
+        }
+    }
+
+    public void testParseError() {
+        try {
+            ContentType.parse("text");
+            fail();
+        } catch (WebServiceException e) {
+            // expected
+        }
+        try {
+            ContentType.parse("multipart/related; boundary=\"a\"; boundary=\"b\"");
+        } catch (WebServiceException e) {
+            fail();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.encoding;
+
+import com.sun.xml.ws.util.ChannelOutputStream;
+import junit.framework.TestCase;
+
+import javax.activation.DataHandler;
+import javax.activation.FileDataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+
+/**
+ * @author WS Development Team
+ */
+public class DataHandlerWriterTest extends TestCase {
+
+    private final byte[] content = content(100000);
+    private File in;
+    private File out;
+
+    @Override
+    protected void setUp() throws Exception {
+        in = File.createTempFile("jaxws", ".in");
+        out = File.createTempFile("jaxws", ".out");
+        OutputStream os = new FileOutputStream(in);
+        os.write(content);
+        os.close();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        in.delete();
+        out.delete();
+    }
+
+    public void testGetFile() throws Exception {
+        assertEquals(in, DataHandlerWriter.getFile(new DataHandler(new FileDataSource(in))));
+        assertNull(DataHandlerWriter.getFile(new DataHandler("text", "text/plain")));
+        assertNull(DataHandlerWriter.getFile(new DataHandler(new FileDataSource(new File(in.getPath() + ".missing")))));
+    }
+
+    public void testChannelOutputStream() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChannelOutputStream os = new ChannelOutputStream(Channels.newChannel(bytes));
+        os.write('[');
+        DataHandlerWriter.writeTo(new DataHandler(new FileDataSource(in)), os);
+        os.write(']');
+        os.close();
+
+        byte[] b = bytes.toByteArray();
+        assertEquals(content.length + 2, b.length);
+        assertEquals('[', b[0]);
+        assertEquals(']', b[b.length - 1]);
+        for (int i = 0; i < content.length; i++) {
+            assertEquals(content[i], b[i + 1]);
+        }
+    }
+
+    public void testFileOutputStream() throws Exception {
+        FileOutputStream os = new FileOutputStream(out);
+        os.write('[');
+        DataHandlerWriter.writeTo(new DataHandler(new FileDataSource(in)), os);
+        os.close();
+
+        InputStream is = new FileInputStream(out);
+        assertEquals('[', is.read());
+        assertContent(is);
+    }
+
+    public void testFallback() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        DataHandlerWriter.writeTo(new DataHandler(new FileDataSource(in)), os);
+        assertContent(new ByteArrayInputStream(os.toByteArray()));
+
+        os.reset();
+        ChannelOutputStream cos = new ChannelOutputStream(Channels.newChannel(os));
+        DataHandlerWriter.writeTo(new DataHandler("text", "text/plain"), cos);
+        cos.close();
+        assertEquals("text", os.toString("US-ASCII"));
+    }
+
+    private void assertContent(InputStream is) throws IOException {
+        for (byte b : content) {
+            assertEquals(b, (byte) is.read());
+        }
+        assertEquals(-1, is.read());
+        is.close();
+    }
+
+    private static byte[] content(int size) {
+        byte[] b = new byte[size];
+        for (int i = 0; i < size; i++) {
+            b[i] = (byte) i;
+        }
+        return b;
+    }
+}
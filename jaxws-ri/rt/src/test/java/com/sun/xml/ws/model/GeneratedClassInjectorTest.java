@@ -0,0 +1,119 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2012 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.xml.ws.model;
+
+import com.sun.xml.ws.org.objectweb.asm.ClassWriter;
+import com.sun.xml.ws.server.sei.MethodBridge;
+import junit.framework.TestCase;
+
+import javax.xml.ws.WebServiceException;
+
+import static com.sun.xml.ws.org.objectweb.asm.Opcodes.*;
+
+/**
+ * @author WS Development Team
+ */
+public class GeneratedClassInjectorTest extends TestCase {
+
+    public void testForeignImage() throws Exception {
+        // the name is the one WrapperAccessorCompiler would define, but the image isn't its own
+        String name = Target.class.getName() + "$$WrapperAccessor";
+        reject(Target.class, name);
+        try {
+            Class.forName(name, false, Target.class.getClassLoader());
+            fail(name);
+        } catch (ClassNotFoundException e) {
+            // expected
+        }
+    }
+
+    public void testGeneratorImage() throws Exception {
+        if (!GeneratedClassInjector.isAvailable()) {
+            return;
+        }
+        MethodBridge bridge = MethodBridge.create(Target.class.getMethod("name"));
+        assertNotNull(bridge);
+        assertTrue(bridge.getClass().getName().startsWith(Target.class.getName() + "$$MethodBridge$"));
+        assertSame(Target.class.getClassLoader(), bridge.getClass().getClassLoader());
+        assertEquals("target", bridge.invoke(new Target(), null));
+    }
+
+    public void testOtherNames() throws Exception {
+        reject(Target.class, "com.sun.xml.ws.model.Evil");
+        reject(Target.class, Target.class.getName() + "$$Evil");
+        reject(Target.class, Target.class.getName() + "$$WrapperAccessorX");
+        reject(Target.class, Target.class.getName() + "$$MethodBridge$");
+        reject(GeneratedClassInjectorTest.class, Target.class.getName() + "$$MethodBridge$x");
+        // bootstrap classes
+        reject(String.class, "java.lang.String$$PropertyAccessor$F$hash");
+    }
+
+    public void testImageName() throws Exception {
+        String name = Target.class.getName() + "$$PropertyAccessor$F$x";
+        try {
+            GeneratedClassInjector.inject(Target.class, name, image(Target.class.getName() + "$$Other"));
+            fail();
+        } catch (WebServiceException e) {
+            // expected
+        }
+    }
+
+    private static void reject(Class<?> target, String name) {
+        try {
+            GeneratedClassInjector.inject(target, name, image(name));
+            fail(name);
+        } catch (WebServiceException e) {
+            // expected
+        }
+    }
+
+    private static byte[] image(String className) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(V1_5, ACC_PUBLIC + ACC_SUPER, className.replace('.', '/'), null, "java/lang/Object", null);
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    public static class Target {
+        public String name() {
+            return "target";
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.server.sei;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * @author WS Development Team
+ */
+public class MethodBridgeTest extends TestCase {
+
+    public void testReference() throws Exception {
+        assertEquals("hello", bridge("echo", String.class).invoke(new Impl(), new Object[] {"hello"}));
+    }
+
+    public void testPrimitives() throws Exception {
+        assertEquals(3, bridge("add", Integer.TYPE, Integer.TYPE).invoke(new Impl(), new Object[] {1, 2}));
+        assertEquals(104L, bridge("mix", Long.TYPE, Double.TYPE, Boolean.TYPE, Character.TYPE)
+                .invoke(new Impl(), new Object[] {5L, 2.5, true, 'a'}));
+    }
+
+    public void testVoid() throws Exception {
+        Impl impl = new Impl();
+        assertNull(bridge("touch").invoke(impl, null));
+        assertTrue(impl.touched);
+    }
+
+    public void testPackagePrivate() throws Exception {
+        Method m = Impl.class.getDeclaredMethod("sum", Short.TYPE, Byte.TYPE);
+        assertEquals(3, MethodBridge.create(m).invoke(new Impl(), new Object[] {(short) 1, (byte) 2}));
+    }
+
+    public void testException() throws Exception {
+        try {
+            bridge("fail").invoke(new Impl(), new Object[0]);
+            fail();
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    public void testArgumentMismatch() throws Exception {
+        try {
+            bridge("echo", String.class).invoke(new Impl(), new Object[] {1});
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            bridge("add", Integer.TYPE, Integer.TYPE).invoke(new Impl(), new Object[] {1, null});
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            bridge("touch").invoke("not an Impl", null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testArgumentCount() throws Exception {
+        try {
+            bridge("add", Integer.TYPE, Integer.TYPE).invoke(new Impl(), new Object[] {1});
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            bridge("echo", String.class).invoke(new Impl(), new Object[] {"a", "b"});
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            bridge("echo", String.class).invoke(new Impl(), null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            bridge("touch").invoke(new Impl(), new Object[] {"extra"});
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertNull(bridge("touch").invoke(new Impl(), new Object[0]));
+    }
+
+    public void testSameClass() throws Exception {
+        assertSame(bridge("add", Integer.TYPE, Integer.TYPE).getClass(),
+                bridge("add", Integer.TYPE, Integer.TYPE).getClass());
+    }
+
+    public void testOverloads() throws Exception {
+        MethodBridge echo = bridge("echo", String.class);
+        MethodBridge echoInt = bridge("echo", Integer.TYPE);
+        assertNotSame(echo.getClass(), echoInt.getClass());
+        assertEquals("hello", echo.invoke(new Impl(), new Object[] {"hello"}));
+        assertEquals(7, echoInt.invoke(new Impl(), new Object[] {7}));
+    }
+
+    public void testMangle() throws Exception {
+        assertEquals("_3Ljava_lang_String_2", MethodBridge.mangle("[Ljava/lang/String;"));
+        assertFalse(MethodBridge.mangle("a_b").equals(MethodBridge.mangle("a/b")));
+        assertFalse(MethodBridge.mangle("a$b").equals(MethodBridge.mangle("a_0024b")));
+        assertEquals(-1, MethodBridge.mangle("(La$b;)V").indexOf('$'));
+    }
+
+    public void testReflective() throws Exception {
+        // static methods, and classes of the bootstrap class loader
+        assertNull(MethodBridge.create(Impl.class.getMethod("create")));
+        assertNull(MethodBridge.create(String.class.getMethod("length")));
+    }
+
+    private static MethodBridge bridge(String name, Class<?>... params) throws NoSuchMethodException {
+        MethodBridge bridge = MethodBridge.create(Impl.class.getMethod(name, params));
+        assertNotNull(bridge);
+        return bridge;
+    }
+
+    public static class Impl {
+        boolean touched;
+
+        public String echo(String text) {
+            return text;
+        }
+
+        public int echo(int i) {
+            return i;
+        }
+
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        public long mix(long a, double d, boolean b, char c) {
+            return b ? a + (long) d + c : 0;
+        }
+
+        public void touch() {
+            touched = true;
+        }
+
+        int sum(short a, byte b) {
+            return a + b;
+        }
+
+        public void fail() throws IOException {
+            throw new IOException();
+        }
+
+        public static Impl create() {
+            return new Impl();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.spi.db;
+
+import junit.framework.TestCase;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementRef;
+import javax.xml.namespace.QName;
+import java.util.List;
+
+/**
+ * @author WS Development Team
+ */
+public class WrapperAccessorCompilerTest extends TestCase {
+
+    public void testFields() {
+        JAXBWrapperAccessor wa = new JAXBWrapperAccessor(Request.class);
+        Request bean = new Request();
+
+        PropertyAccessor text = wa.getPropertyAccessor("", "text");
+        text.set(bean, "hello");
+        assertEquals("hello", bean.text);
+        assertEquals("hello", text.get(bean));
+
+        PropertyAccessor count = wa.getPropertyAccessor("", "count");
+        count.set(bean, 42);
+        assertEquals(42, bean.count);
+        assertEquals(42, count.get(bean));
+
+        assertTrue(wa.getPropertyGetter(new QName("text")) instanceof WrapperAccessorCompiler.Getter);
+        assertTrue(wa.getPropertySetter(new QName("count")) instanceof WrapperAccessorCompiler.Setter);
+    }
+
+    public void testNullPrimitive() {
+        JAXBWrapperAccessor wa = new JAXBWrapperAccessor(Request.class);
+        Request bean = new Request();
+        bean.count = 7;
+        wa.getPropertyAccessor("", "count").set(bean, null);
+        assertEquals(7, bean.count);
+    }
+
+    public void testMethods() {
+        JAXBWrapperAccessor wa = new JAXBWrapperAccessor(Response.class);
+        Response bean = new Response();
+
+        PropertyAccessor ret = wa.getPropertyAccessor("", "return");
+        ret.set(bean, 3L);
+        assertEquals(3L, bean.getReturn());
+        assertEquals(3L, ret.get(bean));
+        assertTrue(wa.getPropertyGetter(new QName("return")) instanceof WrapperAccessorCompiler.Getter);
+
+        // lists are created on first access
+        List<?> items = (List<?>) wa.getPropertyAccessor("", "item").get(bean);
+        assertNotNull(items);
+        assertSame(items, bean.getItem());
+    }
+
+    public void testJAXBElement() {
+        JAXBWrapperAccessor wa = new JAXBWrapperAccessor(Response.class);
+        Response bean = new Response();
+
+        PropertyAccessor detail = wa.getPropertyAccessor("urn:test", "detail");
+        detail.set(bean, "d");
+        assertEquals(new QName("urn:test", "detail"), bean.getDetail().getName());
+        assertEquals(String.class, bean.getDetail().getDeclaredType());
+        assertEquals("d", detail.get(bean));
+    }
+
+    public void testReflective() {
+        JAXBWrapperAccessor wa = new JAXBWrapperAccessor(Request.class);
+        // private fields without accessor methods
+        assertTrue(wa.getPropertyGetter(new QName("hidden")) instanceof FieldGetter);
+        assertTrue(wa.getPropertySetter(new QName("hidden")) instanceof FieldSetter);
+
+        Request bean = new Request();
+        PropertyAccessor hidden = wa.getPropertyAccessor("", "hidden");
+        hidden.set(bean, "h");
+        assertEquals("h", hidden.get(bean));
+    }
+
+    public static class Request {
+        @XmlElement(name = "text")
+        public String text;
+        public int count;
+        private String hidden;
+    }
+
+    public static class Response {
+        @XmlElement(name = "return")
+        private long _return;
+        private List<String> item;
+        @XmlElementRef(name = "detail", namespace = "urn:test")
+        private JAXBElement<String> detail;
+
+        public long getReturn() {
+            return _return;
+        }
+
+        public void setReturn(long value) {
+            this._return = value;
+        }
+
+        public List<String> getItem() {
+            return item;
+        }
+
+        public void setItem(List<String> item) {
+            this.item = item;
+        }
+
+        public JAXBElement<String> getDetail() {
+            return detail;
+        }
+
+        public void setDetail(JAXBElement<String> detail) {
+            this.detail = detail;
+        }
+    }
+}
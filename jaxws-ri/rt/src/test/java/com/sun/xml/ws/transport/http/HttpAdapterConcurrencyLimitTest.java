@@ -0,0 +1,292 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http;
+
+import com.sun.xml.ws.api.BindingID;
+import com.sun.xml.ws.api.server.WSEndpoint;
+import com.sun.xml.ws.api.server.WebServiceContextDelegate;
+import com.sun.xml.ws.binding.BindingImpl;
+import com.sun.xml.ws.developer.ConcurrencyLimitFeature;
+import com.sun.xml.ws.transport.Headers;
+import junit.framework.TestCase;
+import org.xml.sax.EntityResolver;
+
+import javax.jws.WebService;
+import javax.xml.ws.WebServiceFeature;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks that {@link HttpAdapter} gives back the permit of a request limited
+ * by {@link ConcurrencyLimitFeature} however the request ends.
+ *
+ * @author WS Development Team
+ */
+public class HttpAdapterConcurrencyLimitTest extends TestCase {
+
+    @WebService(targetNamespace = "urn:test")
+    public static class EchoImpl {
+        public String echo(String text) {
+            return text;
+        }
+    }
+
+    private WSEndpoint<EchoImpl> endpoint;
+    private HttpAdapter adapter;
+
+    @Override
+    protected void setUp() throws Exception {
+        endpoint = WSEndpoint.create(EchoImpl.class, false, null, null, null, null,
+                BindingImpl.create(BindingID.SOAP11_HTTP, new WebServiceFeature[] {new ConcurrencyLimitFeature(1)}),
+                null, null, (EntityResolver) null, true);
+        adapter = HttpAdapter.createAlone(endpoint);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        endpoint.dispose();
+    }
+
+    public void testHandle() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            Connection con = new Connection(false);
+            adapter.handle(con);
+            assertEquals(WSHTTPConnection.UNSUPPORTED_MEDIA, con.status);
+        }
+    }
+
+    public void testInvokeAsync() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            Connection con = new Connection(false);
+            Completion completion = new Completion();
+            adapter.invokeAsync(con, completion);
+            assertEquals(WSHTTPConnection.UNSUPPORTED_MEDIA, con.status);
+            assertEquals(1, completion.count);
+        }
+    }
+
+    public void testInvokeAsyncEncodeFailure() throws Exception {
+        Connection failing = new Connection(true);
+        try {
+            adapter.invokeAsync(failing, new Completion());
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+        assertEquals(WSHTTPConnection.UNSUPPORTED_MEDIA, failing.status);
+
+        // the next request isn't rejected for lack of a permit
+        Connection con = new Connection(false);
+        adapter.invokeAsync(con, new Completion());
+        assertEquals(WSHTTPConnection.UNSUPPORTED_MEDIA, con.status);
+    }
+
+    public void testLimit() throws Exception {
+        final Connection[] inner = new Connection[1];
+        Connection outer = new Connection(false) {
+            @Override
+            public InputStream getInput() {
+                // a second request arrives while this one is being processed
+                if (inner[0] == null) {
+                    inner[0] = new Connection(false);
+                    try {
+                        adapter.handle(inner[0]);
+                    } catch (IOException e) {
+                        throw new AssertionError(e);
+                    }
+                }
+                return super.getInput();
+            }
+        };
+        adapter.handle(outer);
+        assertEquals(HttpURLConnection.HTTP_UNAVAILABLE, inner[0].status);
+        assertEquals("close", inner[0].responseHeaders.getFirst("Connection"));
+        assertEquals(WSHTTPConnection.UNSUPPORTED_MEDIA, outer.status);
+    }
+
+    private static final class Completion implements HttpAdapter.CompletionCallback {
+        int count;
+
+        public void onCompletion() {
+            count++;
+        }
+    }
+
+    /**
+     * Sends a request with a content type that the SOAP 1.1 binding doesn't accept.
+     */
+    private static class Connection extends WSHTTPConnection {
+        private final boolean failOutput;
+        private final Headers requestHeaders = new Headers();
+        private final Headers responseHeaders = new Headers();
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        int status;
+
+        Connection(boolean failOutput) {
+            this.failOutput = failOutput;
+            requestHeaders.put("Content-Type", Collections.singletonList("application/x-unknown"));
+        }
+
+        @Override
+        public OutputStream getOutput() throws IOException {
+            if (failOutput) {
+                throw new IOException("connection reset");
+            }
+            return body;
+        }
+
+        @Override
+        public Map<String, List<String>> getRequestHeaders() {
+            return requestHeaders;
+        }
+
+        @Override
+        public Map<String, List<String>> getResponseHeaders() {
+            return responseHeaders;
+        }
+
+        @Override
+        public void setResponseHeaders(Map<String, List<String>> headers) {
+            responseHeaders.clear();
+            responseHeaders.putAll(headers);
+        }
+
+        @Override
+        public void setResponseHeader(String key, List<String> value) {
+            responseHeaders.put(key, value);
+        }
+
+        @Override
+        public Set<String> getRequestHeaderNames() {
+            return requestHeaders.keySet();
+        }
+
+        @Override
+        public String getRequestHeader(String headerName) {
+            List<String> values = requestHeaders.get(headerName);
+            return (values != null) ? values.get(0) : null;
+        }
+
+        @Override
+        public List<String> getRequestHeaderValues(String headerName) {
+            return requestHeaders.get(headerName);
+        }
+
+        @Override
+        public void setContentTypeResponseHeader(String value) {
+        }
+
+        @Override
+        public void setStatus(int status) {
+            this.status = status;
+        }
+
+        @Override
+        public int getStatus() {
+            return status;
+        }
+
+        @Override
+        public InputStream getInput() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public WebServiceContextDelegate getWebServiceContextDelegate() {
+            return null;
+        }
+
+        @Override
+        public String getRequestMethod() {
+            return "POST";
+        }
+
+        @Override
+        public String getQueryString() {
+            return null;
+        }
+
+        @Override
+        public String getPathInfo() {
+            return null;
+        }
+
+        @Override
+        public String getRequestURI() {
+            return "/";
+        }
+
+        @Override
+        public String getRequestScheme() {
+            return "http";
+        }
+
+        @Override
+        public String getServerName() {
+            return "localhost";
+        }
+
+        @Override
+        public int getServerPort() {
+            return 80;
+        }
+
+        @Override
+        public boolean isSecure() {
+            return false;
+        }
+
+        @Override
+        protected PropertyMap getPropertyMap() {
+            return model;
+        }
+
+        private static final PropertyMap model = parse(Connection.class);
+    }
+}
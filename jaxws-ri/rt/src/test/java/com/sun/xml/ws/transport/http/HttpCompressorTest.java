@@ -0,0 +1,306 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http;
+
+import com.sun.xml.ws.api.server.WebServiceContextDelegate;
+import com.sun.xml.ws.developer.ResponseCompressionFeature;
+import com.sun.xml.ws.transport.Headers;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * @author WS Development Team
+ */
+public class HttpCompressorTest extends TestCase {
+
+    private static final int THRESHOLD = 1000;
+
+    private final HttpCompressor compressor = new HttpCompressor(new ResponseCompressionFeature(THRESHOLD));
+    private final byte[] content = content(100000);
+
+    public void testNegotiate() {
+        assertNull(HttpCompressor.negotiate(null));
+        assertNull(HttpCompressor.negotiate(list("identity")));
+        assertEquals("gzip", HttpCompressor.negotiate(list("gzip, deflate")));
+        assertEquals("gzip", HttpCompressor.negotiate(list("deflate", "x-gzip")));
+        assertEquals("deflate", HttpCompressor.negotiate(list("deflate")));
+        assertEquals("deflate", HttpCompressor.negotiate(list("gzip;q=0.5, deflate")));
+        assertEquals("deflate", HttpCompressor.negotiate(list("gzip;q=0, *")));
+        assertEquals("gzip", HttpCompressor.negotiate(list("*")));
+        assertNull(HttpCompressor.negotiate(list("*;q=0")));
+        assertNull(HttpCompressor.negotiate(list("GZIP; Q=0")));
+    }
+
+    public void testGetEncoding() {
+        Connection con = new Connection("HTTP/1.1", "gzip");
+        assertEquals("gzip", compressor.getEncoding(con));
+        con.setResponseHeader("Content-Encoding", "br");
+        assertNull(compressor.getEncoding(con));
+        assertNull(compressor.getEncoding(new Connection("HTTP/1.1", null)));
+    }
+
+    public void testBelowThreshold() throws Exception {
+        Connection con = new Connection("HTTP/1.1", "gzip");
+        OutputStream os = compressor.getOutput(con, "gzip");
+        os.write(content, 0, THRESHOLD);
+        os.close();
+
+        assertNull(con.getResponseHeaders().get("Content-Encoding"));
+        assertEquals(THRESHOLD, con.contentLength);
+        assertContent(THRESHOLD, new ByteArrayInputStream(con.body.toByteArray()));
+    }
+
+    public void testGzip() throws Exception {
+        Connection con = new Connection("HTTP/1.1", "gzip");
+        write(compressor.getOutput(con, "gzip"));
+
+        assertEquals(Collections.singletonList("gzip"), con.getResponseHeaders().get("Content-Encoding"));
+        assertEquals(Collections.singletonList("Accept-Encoding"), con.getResponseHeaders().get("Vary"));
+        assertEquals(-1, con.contentLength);
+        assertTrue(con.body.size() < content.length);
+        assertContent(content.length, new GZIPInputStream(new ByteArrayInputStream(con.body.toByteArray())));
+    }
+
+    public void testDeflate() throws Exception {
+        Connection con = new Connection("HTTP/1.1", "deflate");
+        con.setResponseHeader("Vary", "Cookie");
+        write(compressor.getOutput(con, "deflate"));
+
+        assertEquals(Collections.singletonList("deflate"), con.getResponseHeaders().get("Content-Encoding"));
+        assertEquals(Arrays.asList("Cookie", "Accept-Encoding"), con.getResponseHeaders().get("Vary"));
+        assertContent(content.length, new InflaterInputStream(new ByteArrayInputStream(con.body.toByteArray())));
+    }
+
+    public void testHttp10() throws Exception {
+        Connection con = new Connection("HTTP/1.0", "gzip");
+        write(compressor.getOutput(con, "gzip"));
+
+        assertEquals(con.body.size(), con.contentLength);
+        assertContent(content.length, new GZIPInputStream(new ByteArrayInputStream(con.body.toByteArray())));
+    }
+
+    public void testDeflaterRecycled() throws Exception {
+        write(compressor.getOutput(new Connection("HTTP/1.1", "gzip"), "gzip"));
+        assertEquals(1, compressor.getPool("gzip").getIdleCount());
+
+        Connection con = new Connection("HTTP/1.1", "gzip");
+        write(compressor.getOutput(con, "gzip"));
+        assertEquals(1, compressor.getPool("gzip").getCreates());
+        assertEquals(1, compressor.getPool("gzip").getHits());
+        assertContent(content.length, new GZIPInputStream(new ByteArrayInputStream(con.body.toByteArray())));
+    }
+
+    private void write(OutputStream os) throws IOException {
+        for (int i = 0; i < content.length; i += 3000) {
+            os.write(content, i, Math.min(3000, content.length - i));
+        }
+        os.close();
+    }
+
+    private void assertContent(int length, InputStream in) throws IOException {
+        for (int i = 0; i < length; i++) {
+            assertEquals(content[i], (byte) in.read());
+        }
+        assertEquals(-1, in.read());
+        in.close();
+    }
+
+    private static List<String> list(String... values) {
+        return Arrays.asList(values);
+    }
+
+    private static byte[] content(int size) {
+        byte[] b = new byte[size];
+        for (int i = 0; i < size; i++) {
+            b[i] = (byte) ('a' + (i * 7) % 26);
+        }
+        return b;
+    }
+
+    private static final class Connection extends WSHTTPConnection {
+        private final String protocol;
+        private final Headers requestHeaders = new Headers();
+        private final Headers responseHeaders = new Headers();
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        int contentLength = -1;
+
+        Connection(String protocol, String acceptEncoding) {
+            this.protocol = protocol;
+            if (acceptEncoding != null) {
+                requestHeaders.put("Accept-Encoding", Collections.singletonList(acceptEncoding));
+            }
+        }
+
+        @Override
+        public String getProtocol() {
+            return protocol;
+        }
+
+        @Override
+        public void setContentLengthResponseHeader(int value) {
+            contentLength = value;
+        }
+
+        @Override
+        public OutputStream getOutput() {
+            return body;
+        }
+
+        @Override
+        public Map<String, List<String>> getRequestHeaders() {
+            return requestHeaders;
+        }
+
+        @Override
+        public Map<String, List<String>> getResponseHeaders() {
+            return responseHeaders;
+        }
+
+        @Override
+        public void setResponseHeaders(Map<String, List<String>> headers) {
+            responseHeaders.clear();
+            responseHeaders.putAll(headers);
+        }
+
+        @Override
+        public void setResponseHeader(String key, List<String> value) {
+            responseHeaders.put(key, value);
+        }
+
+        @Override
+        public Set<String> getRequestHeaderNames() {
+            return requestHeaders.keySet();
+        }
+
+        @Override
+        public String getRequestHeader(String headerName) {
+            List<String> values = requestHeaders.get(headerName);
+            return (values != null) ? values.get(0) : null;
+        }
+
+        @Override
+        public List<String> getRequestHeaderValues(String headerName) {
+            return requestHeaders.get(headerName);
+        }
+
+        @Override
+        public void setContentTypeResponseHeader(String value) {
+        }
+
+        @Override
+        public void setStatus(int status) {
+        }
+
+        @Override
+        public int getStatus() {
+            return OK;
+        }
+
+        @Override
+        public InputStream getInput() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public WebServiceContextDelegate getWebServiceContextDelegate() {
+            return null;
+        }
+
+        @Override
+        public String getRequestMethod() {
+            return "POST";
+        }
+
+        @Override
+        public String getQueryString() {
+            return null;
+        }
+
+        @Override
+        public String getPathInfo() {
+            return null;
+        }
+
+        @Override
+        public String getRequestURI() {
+            return "/";
+        }
+
+        @Override
+        public String getRequestScheme() {
+            return "http";
+        }
+
+        @Override
+        public String getServerName() {
+            return "localhost";
+        }
+
+        @Override
+        public int getServerPort() {
+            return 80;
+        }
+
+        @Override
+        public boolean isSecure() {
+            return false;
+        }
+
+        @Override
+        protected PropertyMap getPropertyMap() {
+            return model;
+        }
+
+        private static final PropertyMap model = parse(Connection.class);
+    }
+}
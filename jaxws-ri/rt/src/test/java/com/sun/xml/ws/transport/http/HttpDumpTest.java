@@ -0,0 +1,204 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http;
+
+import com.sun.xml.ws.api.message.Packet;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * @author WS Development Team
+ */
+public class HttpDumpTest extends TestCase {
+
+    private static final Map<String, List<String>> HEADERS =
+            Collections.singletonMap("Content-Type", Collections.singletonList("text/xml"));
+
+    private final BlockingQueue<String> dumps = new LinkedBlockingQueue<String>();
+    private Logger logger;
+    private int sampleRate;
+    private boolean perOperation;
+    private int threshold;
+
+    @Override
+    protected void setUp() throws Exception {
+        sampleRate = HttpDump.sampleRate;
+        perOperation = HttpDump.perOperation;
+        threshold = HttpAdapter.dump_threshold;
+        logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.setLevel(Level.FINER);
+        logger.addHandler(new Handler() {
+            public void publish(LogRecord record) {
+                dumps.add(record.getMessage());
+            }
+
+            public void flush() {
+            }
+
+            public void close() {
+            }
+        });
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        HttpDump.sampleRate = sampleRate;
+        HttpDump.perOperation = perOperation;
+        HttpAdapter.dump_threshold = threshold;
+    }
+
+    private String nextDump() throws InterruptedException {
+        String dump = dumps.poll(10, TimeUnit.SECONDS);
+        assertNotNull("nothing was dumped", dump);
+        return dump;
+    }
+
+    private static Packet request(String soapAction) {
+        Packet packet = new Packet();
+        packet.soapAction = soapAction;
+        return packet;
+    }
+
+    public void testSampleAll() {
+        HttpDump.sampleRate = 1;
+        Packet request = request(null);
+        assertTrue(HttpDump.sample(request));
+        assertTrue(HttpDump.isSampled(request));
+    }
+
+    public void testSampleRate() {
+        HttpDump.sampleRate = 3;
+        HttpDump.perOperation = false;
+        int sampled = 0;
+        for (int i = 0; i < 9; i++) {
+            Packet request = request(null);
+            boolean s = HttpDump.sample(request);
+            assertEquals(s, HttpDump.isSampled(request));
+            // the decision is carried over to the response
+            assertEquals(s, HttpDump.isSampled(request.createClientResponse(null)));
+            // but not shown to the application
+            assertTrue(request.invocationProperties.isEmpty());
+            if (s) {
+                sampled++;
+            }
+        }
+        assertEquals(3, sampled);
+    }
+
+    public void testSamplePerOperation() {
+        HttpDump.sampleRate = 2;
+        HttpDump.perOperation = true;
+        // the first exchange of each operation is dumped
+        assertTrue(HttpDump.sample(request("\"testSamplePerOperation.a\"")));
+        assertTrue(HttpDump.sample(request("\"testSamplePerOperation.b\"")));
+        assertFalse(HttpDump.sample(request("\"testSamplePerOperation.a\"")));
+        assertFalse(HttpDump.sample(request("\"testSamplePerOperation.b\"")));
+        assertTrue(HttpDump.sample(request("\"testSamplePerOperation.a\"")));
+    }
+
+    public void testTeeOutput() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HttpDump.DumpOutputStream tee = HttpDump.tee(out, "Outbound", HEADERS, false, logger);
+        tee.write("<hello/>".getBytes("UTF-8"));
+        tee.done();
+        assertEquals("<hello/>", out.toString("UTF-8"));
+        String dump = nextDump();
+        assertTrue(dump.contains("---[Outbound]---"));
+        assertTrue(dump.contains("Content-Type: text/xml"));
+        assertTrue(dump.contains("<hello/>"));
+        // nothing is dumped twice
+        tee.close();
+        assertNull(dumps.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    public void testTeeInput() throws Exception {
+        InputStream in = HttpDump.tee(new ByteArrayInputStream("<hello/>".getBytes("UTF-8")),
+                "Inbound", HEADERS, false, logger);
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        for (int b = in.read(); b >= 0; b = in.read()) {
+            read.write(b);
+        }
+        assertEquals("<hello/>", read.toString("UTF-8"));
+        String dump = nextDump();
+        assertTrue(dump.contains("---[Inbound]---"));
+        assertTrue(dump.contains("<hello/>"));
+    }
+
+    public void testTeeUnreadRequest() throws Exception {
+        Packet request = request(null);
+        InputStream in = HttpDump.tee(new ByteArrayInputStream("<hello/>".getBytes("UTF-8")),
+                request, "Inbound", HEADERS, false, logger);
+        assertEquals('<', in.read());
+        // the codec didn't read the rest, the request is dumped as far as it was read
+        HttpDump.isSampled(request);
+        String dump = nextDump();
+        assertTrue(dump.contains("---[Inbound]---"));
+        assertFalse(dump.contains("<hello/>"));
+    }
+
+    public void testTruncated() throws Exception {
+        HttpAdapter.dump_threshold = 4;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HttpDump.DumpOutputStream tee = HttpDump.tee(out, "Outbound", HEADERS, false, logger);
+        tee.write("<hello/>".getBytes("UTF-8"));
+        assertEquals("<hello/>", out.toString("UTF-8"));
+        // submitted as soon as it's too long
+        String dump = nextDump();
+        assertTrue(dump.contains("<hel"));
+        assertFalse(dump.contains("<hello/>"));
+        tee.done();
+        assertNull(dumps.poll(100, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http.client;
+
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class HttpConnectionPoolTest extends TestCase {
+
+    private ServerSocket server;
+    private Thread acceptor;
+    private final List<Socket> accepted = new ArrayList<Socket>();
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        server = new ServerSocket(0);
+        acceptor = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        Socket s = server.accept();
+                        synchronized (accepted) {
+                            accepted.add(s);
+                        }
+                    }
+                } catch (Exception e) {
+                    // server closed
+                }
+            }
+        };
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.close();
+        synchronized (accepted) {
+            for (Socket s : accepted) {
+                s.close();
+            }
+        }
+        super.tearDown();
+    }
+
+    private URI address() throws Exception {
+        return new URI("http://localhost:" + server.getLocalPort() + "/echo");
+    }
+
+    public void testReuse() throws Exception {
+        HttpConnectionPool pool = new HttpConnectionPool(2, 0);
+        HttpConnectionPool.Connection first = pool.lease(address(), 5000);
+        assertFalse(first.isReused());
+        pool.release(first, true);
+        assertEquals(1, pool.getIdleConnections());
+
+        HttpConnectionPool.Connection second = pool.lease(address(), 5000);
+        assertSame(first, second);
+        assertTrue(second.isReused());
+        assertEquals(1, pool.getLeasedConnections());
+        pool.release(second, false);
+
+        assertEquals(1, pool.getConnectionsCreated());
+        assertEquals(1, pool.getConnectionsReused());
+        assertEquals(1, pool.getConnectionsClosed());
+        assertEquals(0, pool.getLeasedConnections());
+        assertEquals(0, pool.getIdleConnections());
+    }
+
+    public void testMaxConnectionsPerHost() throws Exception {
+        HttpConnectionPool pool = new HttpConnectionPool(1, 0);
+        HttpConnectionPool.Connection con = pool.lease(address(), 1000);
+        try {
+            pool.lease(address(), 100);
+            fail("Pool should be exhausted");
+        } catch (SocketTimeoutException e) {
+            // expected
+        }
+        assertEquals(1, pool.getLeaseWaits());
+        pool.release(con, true);
+        assertSame(con, pool.lease(address(), 100));
+    }
+
+    public void testIdleTimeout() throws Exception {
+        HttpConnectionPool pool = new HttpConnectionPool(0, 10);
+        pool.release(pool.lease(address(), 1000), true);
+        Thread.sleep(50);
+        pool.closeIdleConnections();
+        assertEquals(0, pool.getIdleConnections());
+        assertEquals(1, pool.getConnectionsClosed());
+    }
+
+    public void testClose() throws Exception {
+        HttpConnectionPool pool = new HttpConnectionPool(0, 0);
+        HttpConnectionPool.Connection con = pool.lease(address(), 1000);
+        pool.close();
+        pool.release(con, true);
+        assertEquals(0, pool.getIdleConnections());
+        assertEquals(1, pool.getConnectionsClosed());
+    }
+}
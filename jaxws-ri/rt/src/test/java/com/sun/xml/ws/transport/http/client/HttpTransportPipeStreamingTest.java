@@ -0,0 +1,163 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sun.xml.ws.api.EndpointAddress;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.util.ByteArrayBuffer;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that only requests beyond the streaming threshold are streamed,
+ * and that smaller ones are left to the connection to buffer.
+ *
+ * @author WS Development Team
+ */
+public class HttpTransportPipeStreamingTest extends TestCase {
+
+    private static final int THRESHOLD = 16;
+
+    public void testSmallEncodedRequestIsBuffered() throws Exception {
+        RecordingTransport con = new RecordingTransport();
+        HttpTransportPipe.StreamingRequestOutputStream os =
+                new HttpTransportPipe.StreamingRequestOutputStream(con, THRESHOLD);
+        os.write(bytes(10), 0, 10);
+        os.write('x');
+        assertFalse(con.outputTaken);
+        os.finish();
+
+        assertNull(con.chunkSize);
+        assertEquals(-1, con.fixedLength);
+        assertEquals(11, con.out.size());
+    }
+
+    public void testLargeEncodedRequestIsStreamed() throws Exception {
+        RecordingTransport con = new RecordingTransport();
+        HttpTransportPipe.StreamingRequestOutputStream os =
+                new HttpTransportPipe.StreamingRequestOutputStream(con, THRESHOLD);
+        byte[] data = bytes(40);
+        os.write(data, 0, 10);
+        assertFalse(con.outputTaken);
+        os.write(data, 10, 10);
+        assertTrue(con.outputTaken);
+        assertNotNull(con.chunkSize);
+        os.write(data, 20, 20);
+        os.finish();
+
+        assertEquals(-1, con.fixedLength);
+        assertEquals(new String(data, "US-ASCII"), con.out.toString("US-ASCII"));
+    }
+
+    public void testSmallBufferedRequestIsBuffered() throws Exception {
+        RecordingTransport con = new RecordingTransport();
+        HttpTransportPipe.writeBuffered(con, buffer(THRESHOLD), THRESHOLD);
+
+        assertNull(con.chunkSize);
+        assertEquals(-1, con.fixedLength);
+        assertEquals(THRESHOLD, con.out.size());
+    }
+
+    public void testLargeBufferedRequestIsStreamed() throws Exception {
+        RecordingTransport con = new RecordingTransport();
+        HttpTransportPipe.writeBuffered(con, buffer(THRESHOLD + 1), THRESHOLD);
+
+        assertNull(con.chunkSize);
+        assertEquals(THRESHOLD + 1, con.fixedLength);
+        assertEquals(THRESHOLD + 1, con.out.size());
+    }
+
+    private static byte[] bytes(int size) {
+        byte[] b = new byte[size];
+        for (int i = 0; i < size; i++) {
+            b[i] = (byte) ('a' + i % 26);
+        }
+        return b;
+    }
+
+    private static ByteArrayBuffer buffer(int size) throws Exception {
+        ByteArrayBuffer buf = new ByteArrayBuffer();
+        buf.write(bytes(size));
+        return buf;
+    }
+
+    /**
+     * Records the streaming mode instead of opening a connection.
+     */
+    private static final class RecordingTransport extends HttpClientTransport {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        boolean outputTaken;
+
+        RecordingTransport() {
+            super(packet(), new HashMap<String, List<String>>());
+        }
+
+        private static Packet packet() {
+            Packet packet = new Packet();
+            packet.endpointAddress = EndpointAddress.create("http://localhost/echo");
+            return packet;
+        }
+
+        @Override
+        void setChunkedStreamingMode(int chunkSize) {
+            assertFalse("streaming mode set after the output was taken", outputTaken);
+            super.setChunkedStreamingMode(chunkSize);
+        }
+
+        @Override
+        void setFixedLengthStreamingMode(int length) {
+            assertFalse("streaming mode set after the output was taken", outputTaken);
+            super.setFixedLengthStreamingMode(length);
+        }
+
+        @Override
+        OutputStream getOutput() {
+            outputTaken = true;
+            return out;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.xml.ws.transport.http.client;
+
+import com.sun.xml.ws.api.EndpointAddress;
+import com.sun.xml.ws.api.message.Packet;
+import junit.framework.TestCase;
+
+import javax.xml.ws.handler.MessageContext;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Checks when a response stream gives its pooled connection back.
+ */
+public class PooledHttpClientTransportTest extends TestCase {
+
+    // beyond the size that is read before the message is decoded
+    private static final int BODY_SIZE = 100 * 1024;
+
+    private ServerSocket server;
+    private Thread responder;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        server = new ServerSocket(0);
+        responder = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        respond(server.accept());
+                    }
+                } catch (Exception e) {
+                    // server closed
+                }
+            }
+        };
+        responder.setDaemon(true);
+        responder.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.close();
+        super.tearDown();
+    }
+
+    /**
+     * Answers each GET request on a connection with a large body.
+     */
+    private static void respond(final Socket s) {
+        Thread t = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    InputStream in = s.getInputStream();
+                    OutputStream out = s.getOutputStream();
+                    byte[] body = new byte[BODY_SIZE];
+                    while (readRequestHead(in)) {
+                        out.write(("HTTP/1.1 200 OK\r\nContent-Length: " + BODY_SIZE + "\r\n\r\n").getBytes("ISO-8859-1"));
+                        out.write(body);
+                        out.flush();
+                    }
+                    s.close();
+                } catch (Exception e) {
+                    // client went away
+                }
+            }
+        };
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private static boolean readRequestHead(InputStream in) throws Exception {
+        int matched = 0;
+        int b;
+        while ((b = in.read()) != -1) {
+            matched = (b == "\r\n\r\n".charAt(matched)) ? matched + 1 : (b == '\r' ? 1 : 0);
+            if (matched == 4) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private PooledHttpClientTransport transport(HttpConnectionPool pool) {
+        Packet packet = new Packet();
+        packet.endpointAddress = EndpointAddress.create("http://localhost:" + server.getLocalPort() + "/echo");
+        packet.invocationProperties.put(MessageContext.HTTP_REQUEST_METHOD, "GET");
+        return new PooledHttpClientTransport(packet, new HashMap<String, List<String>>(), pool);
+    }
+
+    private static int skip(InputStream in, int max) throws Exception {
+        int n = 0;
+        byte[] buf = new byte[8192];
+        int read;
+        while (n < max && (read = in.read(buf, 0, Math.min(buf.length, max - n))) != -1) {
+            n += read;
+        }
+        return n;
+    }
+
+    public void testReleaseResponse() throws Exception {
+        HttpConnectionPool pool = new HttpConnectionPool(1, 0);
+        PooledHttpClientTransport con = transport(pool);
+        con.readResponseCodeAndMessage();
+        InputStream in = con.getInput();
+        int n = skip(in, BODY_SIZE / 2);
+        assertEquals(1, pool.getLeasedConnections());
+
+        // the message may still read the small rest of the body after the connection went back
+        con.releaseResponse();
+        assertEquals(0, pool.getLeasedConnections());
+        assertEquals(1, pool.getIdleConnections());
+        n += skip(in, Integer.MAX_VALUE);
+        assertEquals(BODY_SIZE, n);
+
+        con = transport(pool);
+        con.readResponseCodeAndMessage();
+        assertEquals(1, pool.getConnectionsReused());
+    }
+
+    public void testReleaseLargeResponse() throws Exception {
+        HttpConnectionPool pool = new HttpConnectionPool(1, 0);
+        PooledHttpClientTransport con = transport(pool);
+        con.readResponseCodeAndMessage();
+        InputStream in = con.getInput();
+        assertEquals(0, in.read());
+
+        // a large rest isn't read into memory, the connection goes back at the end of the body
+        con.releaseResponse();
+        assertEquals(1, pool.getLeasedConnections());
+        int n = 1 + skip(in, Integer.MAX_VALUE);
+        assertEquals(BODY_SIZE, n);
+        assertEquals(0, pool.getLeasedConnections());
+        assertEquals(1, pool.getIdleConnections());
+
+        // or when the stream is closed
+        con = transport(pool);
+        con.readResponseCodeAndMessage();
+        assertEquals(1, pool.getConnectionsReused());
+        in = con.getInput();
+        con.releaseResponse();
+        assertEquals(1, pool.getLeasedConnections());
+        in.close();
+        assertEquals(0, pool.getLeasedConnections());
+        assertEquals(1, pool.getIdleConnections());
+    }
+
+    public void testAbort() throws Exception {
+        HttpConnectionPool pool = new HttpConnectionPool(1, 0);
+        PooledHttpClientTransport con = transport(pool);
+        con.readResponseCodeAndMessage();
+        InputStream in = con.getInput();
+        con.abort();
+        assertEquals(0, pool.getLeasedConnections());
+        assertEquals(1, pool.getConnectionsClosed());
+        assertEquals(-1, in.read());
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import junit.framework.TestCase;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author WS Development Team
+ */
+public class ServerExecutorTest extends TestCase {
+
+    private ServerExecutor executor;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Override
+    protected void tearDown() throws Exception {
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    public void testThreadsBeforeQueue() throws Exception {
+        executor = new ServerExecutor(0, 2, 1, 1000);
+        CountDownLatch started = new CountDownLatch(2);
+        executor.execute(block(started));
+        executor.execute(block(started));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertEquals(2, executor.getPoolSize());
+        assertEquals(0, executor.getQueuedCount());
+
+        executor.execute(block(null));
+        assertEquals(2, executor.getPoolSize());
+        assertEquals(1, executor.getQueuedCount());
+        assertEquals(0, executor.getRejectedCount());
+    }
+
+    public void testOverload() throws Exception {
+        executor = new ServerExecutor(0, 1, 1, 1000);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(block(started));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        executor.execute(block(null));
+
+        final AtomicBoolean overloaded = new AtomicBoolean();
+        final CountDownLatch done = new CountDownLatch(1);
+        final Thread caller = Thread.currentThread();
+        executor.execute(new Runnable() {
+            public void run() {
+                // not on the server's dispatcher thread
+                overloaded.set(Thread.currentThread() != caller && ServerExecutor.isOverloaded());
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(overloaded.get());
+        assertFalse(ServerExecutor.isOverloaded());
+        assertEquals(1, executor.getRejectedCount());
+        assertEquals(0, executor.getOverflowCount());
+    }
+
+    public void testOverloadDoesNotBlockCaller() throws Exception {
+        executor = new ServerExecutor(0, 1, 1, 10, 1000);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(block(started));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        executor.execute(block(null));
+
+        // rejected requests that block, e.g. on a slow client, only hold up
+        // each other; once enough of them wait, the others are answered by the caller
+        CountDownLatch rejected = new CountDownLatch(1);
+        executor.execute(block(rejected));
+        assertTrue(rejected.await(10, TimeUnit.SECONDS));
+        final Thread caller = Thread.currentThread();
+        final AtomicInteger onCaller = new AtomicInteger();
+        for (int i = 0; i < 20; i++) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    if (Thread.currentThread() == caller && ServerExecutor.isOverloaded()) {
+                        onCaller.incrementAndGet();
+                    }
+                }
+            });
+        }
+        assertFalse(ServerExecutor.isOverloaded());
+        assertEquals(21, executor.getRejectedCount());
+        assertEquals(10, executor.getOverflowCount());
+        assertEquals(10, onCaller.get());
+    }
+
+    public void testOverflowClosesConnection() throws Exception {
+        executor = new ServerExecutor(0, 1, 1, 1, 1000);
+        final CountDownLatch started = new CountDownLatch(2);
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange msg) throws IOException {
+                try {
+                    if (!ServerExecutor.isOverloaded() || Thread.currentThread().getName().contains("rejections")) {
+                        // the worker thread and the rejection thread are busy
+                        started.countDown();
+                        release.await();
+                    }
+                    // what WSHttpHandler does in overload mode
+                    msg.getResponseHeaders().set("Connection", "close");
+                    msg.sendResponseHeaders(503, -1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    msg.close();
+                }
+            }
+        });
+        server.start();
+        Socket[] sockets = new Socket[5];
+        try {
+            for (int i = 0; i < sockets.length; i++) {
+                sockets[i] = request(server.getAddress().getPort());
+                if (i == 2) {
+                    // one request runs, one is queued, one runs in overload mode
+                    assertTrue(started.await(10, TimeUnit.SECONDS));
+                }
+                while (executor.getRejectedCount() < i - 1) {
+                    Thread.sleep(1);
+                }
+            }
+            // the last one doesn't fit in the rejection queue, yet it is answered
+            InputStream in = sockets[4].getInputStream();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, "ISO-8859-1"));
+            assertTrue(reader.readLine().startsWith("HTTP/1.1 503"));
+            while (reader.readLine() != null) {
+                // headers
+            }
+            assertEquals(1, executor.getOverflowCount());
+        } finally {
+            release.countDown();
+            for (Socket s : sockets) {
+                if (s != null) {
+                    s.close();
+                }
+            }
+            server.stop(0);
+        }
+    }
+
+    private static Socket request(int port) throws IOException {
+        Socket s = new Socket("localhost", port);
+        // reading fails rather than hangs if the connection is left open
+        s.setSoTimeout(10000);
+        OutputStream out = s.getOutputStream();
+        out.write("GET / HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n".getBytes("ISO-8859-1"));
+        out.flush();
+        return s;
+    }
+
+    public void testIdleThreadIsReused() throws Exception {
+        executor = new ServerExecutor(1, 4, 1, 1000);
+        final CountDownLatch done = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    done.countDown();
+                }
+            });
+            // let the thread finish before the next request
+            while (executor.getCompletedTaskCount() <= i) {
+                Thread.sleep(1);
+            }
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(1, executor.getPoolSize());
+    }
+
+    public void testQueueWaitTime() throws Exception {
+        executor = new ServerExecutor(0, 1, 1, 1000);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(block(started));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        final CountDownLatch done = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            public void run() {
+                done.countDown();
+            }
+        });
+        Thread.sleep(50);
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(executor.getMaxQueueWaitTime() >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(executor.getQueueWaitTime() >= executor.getMaxQueueWaitTime());
+        assertTrue(executor.getAverageQueueWaitTime() > 0);
+    }
+
+    private Runnable block(final CountDownLatch started) {
+        return new Runnable() {
+            public void run() {
+                if (started != null) {
+                    started.countDown();
+                }
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+}
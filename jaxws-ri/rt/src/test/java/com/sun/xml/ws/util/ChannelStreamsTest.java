@@ -0,0 +1,140 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.util;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests {@link ChannelOutputStream} and {@link ChannelInputStream}.
+ *
+ * @author WS Development Team
+ */
+public class ChannelStreamsTest extends TestCase {
+
+    private final Pool.DirectByteBuffer pool = new Pool.DirectByteBuffer(16);
+
+    public void testOutput() throws IOException {
+        byte[] data = data(100);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChannelOutputStream out = new ChannelOutputStream(Channels.newChannel(bytes), pool);
+        out.write(data[0]);
+        out.write(data, 1, 9);
+        assertEquals(0, bytes.size());
+        out.write(data, 10, 40);
+        out.flush();
+        assertEquals(50, bytes.size());
+        out.write(data, 50, 50);
+        out.close();
+        assertTrue(Arrays.equals(data, bytes.toByteArray()));
+        assertEquals(1, pool.getIdleCount());
+
+        out.close();
+        try {
+            out.write(0);
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    public void testRecycle() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChannelOutputStream out = new ChannelOutputStream(Channels.newChannel(bytes), pool);
+        out.write(data(10));
+        out.recycle();
+        out.close();
+        assertEquals(0, bytes.size());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    public void testInput() throws IOException {
+        byte[] data = data(100);
+        ChannelInputStream in = new ChannelInputStream(Channels.newChannel(new ByteArrayInputStream(data)), pool);
+        assertEquals(0, in.available());
+        byte[] read = new byte[data.length];
+        read[0] = (byte) in.read();
+        assertEquals(15, in.available());
+        int n = 1;
+        while (n < read.length) {
+            int r = in.read(read, n, Math.min(7, read.length - n));
+            assertTrue(r > 0);
+            n += r;
+        }
+        assertTrue(Arrays.equals(data, read));
+        assertEquals(0, pool.getIdleCount());
+        // the buffer goes back to the pool at the end of the channel
+        assertEquals(-1, in.read());
+        assertEquals(1, pool.getIdleCount());
+        assertEquals(-1, in.read(read, 0, 1));
+        in.close();
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    public void testPooledBufferIsCleared() throws IOException {
+        ByteBuffer buffer = pool.take();
+        buffer.put(data(5));
+        pool.recycle(buffer);
+        byte[] data = data(20);
+        ChannelInputStream in = new ChannelInputStream(Channels.newChannel(new ByteArrayInputStream(data)), pool);
+        byte[] read = new byte[20];
+        int n = 0;
+        int r;
+        while ((r = in.read(read, n, read.length - n)) > 0) {
+            n += r;
+        }
+        assertEquals(20, n);
+        assertTrue(Arrays.equals(data, read));
+    }
+
+    private static byte[] data(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.util;
+
+import junit.framework.TestCase;
+
+public class PoolTest extends TestCase {
+
+    private static final class CountingPool extends Pool<Object> {
+        CountingPool(int minSize, int maxSize, long idleTimeout) {
+            super(minSize, maxSize, idleTimeout);
+        }
+
+        @Override
+        protected Object create() {
+            return new Object();
+        }
+    }
+
+    public void testReuse() {
+        Pool<Object> pool = new CountingPool(0, 4, 0);
+        Object o = pool.take();
+        pool.recycle(o);
+        assertSame(o, pool.take());
+        assertEquals(1, pool.getCreates());
+        assertEquals(1, pool.getMisses());
+        assertEquals(1, pool.getHits());
+    }
+
+    public void testMaxSize() {
+        Pool<Object> pool = new CountingPool(0, 2, 0);
+        Object[] taken = new Object[5];
+        for (int i = 0; i < taken.length; i++) {
+            taken[i] = pool.take();
+        }
+        for (Object o : taken) {
+            pool.recycle(o);
+        }
+        assertEquals(2, pool.getIdleCount());
+    }
+
+    public void testMaxSizeAcrossStripes() {
+        // a size that doesn't divide evenly into the stripes
+        Pool<Object> pool = new CountingPool(0, 3, 0);
+        Object[] taken = new Object[10];
+        for (int i = 0; i < taken.length; i++) {
+            taken[i] = pool.take();
+        }
+        for (Object o : taken) {
+            pool.recycle(o);
+        }
+        assertEquals(3, pool.getIdleCount());
+    }
+
+    public void testIdleEviction() throws Exception {
+        Pool<Object> pool = new CountingPool(0, 64, 50);
+        Object a = pool.take();
+        Object b = pool.take();
+        Object c = pool.take();
+        pool.recycle(a);
+        pool.recycle(b);
+        pool.recycle(c);
+        assertEquals(3, pool.getIdleCount());
+
+        Thread.sleep(200);
+        pool.recycle(pool.take());
+        // the idle objects went before one could be taken
+        assertEquals(3, pool.getEvictions());
+        assertEquals(4, pool.getCreates());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    public void testIdleEvictionOnTake() throws Exception {
+        Pool<Object> pool = new CountingPool(0, 64, 50);
+        pool.recycle(pool.take());
+        pool.recycle(pool.take());
+        assertEquals(1, pool.getIdleCount());
+
+        Thread.sleep(200);
+        // a pool that is only taken from still drops its idle objects
+        pool.take();
+        assertEquals(1, pool.getEvictions());
+        assertEquals(0, pool.getIdleCount());
+    }
+
+    public void testMinSize() throws Exception {
+        Pool<Object> pool = new CountingPool(64, 64, 50);
+        Object a = pool.take();
+        pool.recycle(a);
+
+        Thread.sleep(200);
+        assertSame(a, pool.take());
+        assertEquals(0, pool.getEvictions());
+    }
+
+    public void testConcurrentUse() throws Exception {
+        final Pool<Object> pool = new CountingPool(0, 16, 0);
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        pool.recycle(pool.take());
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(80000, pool.getHits() + pool.getMisses());
+        assertTrue(pool.getCreates() <= threads.length * 2);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.util.pipe;
+
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.message.Message;
+import com.sun.xml.ws.api.message.Messages;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.developer.ValidationErrorHandler;
+import junit.framework.TestCase;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import java.io.StringReader;
+import java.lang.ref.SoftReference;
+
+/**
+ * @author WS Development Team
+ */
+public class ValidatingMessageTest extends TestCase {
+
+    private static final String XSD =
+        "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' targetNamespace='urn:test' elementFormDefault='qualified'>" +
+        "<xs:element name='add'><xs:complexType><xs:sequence>" +
+        "<xs:element name='a' type='xs:int'/><xs:element name='b' type='xs:int'/>" +
+        "</xs:sequence></xs:complexType></xs:element></xs:schema>";
+
+    private static final class ThrowingErrorHandler extends ValidationErrorHandler {
+        public void warning(SAXParseException e) {
+        }
+
+        public void error(SAXParseException e) throws SAXException {
+            throw e;
+        }
+
+        public void fatalError(SAXParseException e) throws SAXException {
+            throw e;
+        }
+    }
+
+    private Schema schema;
+
+    @Override
+    protected void setUp() throws Exception {
+        schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(
+            new StreamSource(new StringReader(XSD)));
+    }
+
+    private static Message payload(String xml) throws XMLStreamException {
+        XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(xml));
+        reader.nextTag();
+        return Messages.createUsingPayload(reader, SOAPVersion.SOAP_11);
+    }
+
+    private static void readAll(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            reader.next();
+        }
+    }
+
+    public void testValidPayload() throws Exception {
+        Packet packet = new Packet();
+        Message msg = new ValidatingMessage(
+            payload("<add xmlns='urn:test'><a>1</a><b>2</b></add>"), schema, new ThrowingErrorHandler(), packet);
+        XMLStreamReader reader = msg.readPayload();
+        assertEquals("add", reader.getLocalName());
+        readAll(reader);
+        assertFalse(packet.invocationProperties.containsKey(AbstractSchemaValidationTube.STREAMING_VALIDATION_ERROR));
+    }
+
+    public void testInvalidPayload() throws Exception {
+        Packet packet = new Packet();
+        Message msg = new ValidatingMessage(
+            payload("<add xmlns='urn:test'><a>one</a><b>2</b></add>"), schema, new ThrowingErrorHandler(), packet);
+        try {
+            readAll(msg.readPayload());
+            fail("invalid payload was read without an error");
+        } catch (XMLStreamException e) {
+            Object error = packet.invocationProperties.get(AbstractSchemaValidationTube.STREAMING_VALIDATION_ERROR);
+            assertTrue(error instanceof SAXParseException);
+        }
+    }
+
+    public void testSchemaCacheHit() {
+        String key = "testSchemaCacheHit";
+        assertNull(AbstractSchemaValidationTube.getCachedSchema(key));
+        AbstractSchemaValidationTube.cacheSchema(key, schema);
+        assertSame(schema, AbstractSchemaValidationTube.getCachedSchema(key));
+    }
+
+    public void testSchemaCachePrunesClearedEntries() {
+        String cleared = "testSchemaCachePrunes.cleared";
+        SoftReference<Schema> ref = new SoftReference<Schema>(schema);
+        ref.clear();
+        synchronized (AbstractSchemaValidationTube.SCHEMA_CACHE) {
+            AbstractSchemaValidationTube.SCHEMA_CACHE.put(cleared, ref);
+        }
+        AbstractSchemaValidationTube.cacheSchema("testSchemaCachePrunes", schema);
+        synchronized (AbstractSchemaValidationTube.SCHEMA_CACHE) {
+            assertFalse(AbstractSchemaValidationTube.SCHEMA_CACHE.containsKey(cleared));
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.wsdl;
+
+import com.sun.xml.ws.api.BindingID;
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.message.Message;
+import com.sun.xml.ws.api.message.Messages;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.model.WSDLOperationMapping;
+import com.sun.xml.ws.api.server.WSEndpoint;
+import com.sun.xml.ws.binding.BindingImpl;
+import junit.framework.TestCase;
+import org.xml.sax.EntityResolver;
+
+import javax.jws.WebMethod;
+import javax.jws.WebParam;
+import javax.jws.WebService;
+import javax.jws.soap.SOAPBinding;
+import javax.xml.transform.stream.StreamSource;
+import java.io.StringReader;
+
+/**
+ * @author WS Development Team
+ */
+public class OperationDispatcherTest extends TestCase {
+
+    /**
+     * ping and pong have the same (empty) payload, so only the SOAPAction tells them apart.
+     */
+    @WebService(targetNamespace = "urn:test")
+    @SOAPBinding(parameterStyle = SOAPBinding.ParameterStyle.BARE)
+    public static class BareImpl {
+        @WebMethod(action = "ping")
+        public void ping() {
+        }
+
+        @WebMethod(action = "pong")
+        public void pong() {
+        }
+
+        @WebMethod
+        public String echo(@WebParam(name = "text", targetNamespace = "urn:test") String text) {
+            return text;
+        }
+    }
+
+    private WSEndpoint<BareImpl> endpoint;
+    private OperationDispatcher dispatcher;
+
+    @Override
+    protected void setUp() throws Exception {
+        endpoint = WSEndpoint.create(BareImpl.class, false, null, null, null, null,
+                BindingImpl.create(BindingID.SOAP11_HTTP), null, null, (EntityResolver) null, true);
+        dispatcher = endpoint.getOperationDispatcher();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        endpoint.dispose();
+    }
+
+    private static Packet request(String payload, String soapAction) {
+        Message msg = (payload == null) ? Messages.createEmpty(SOAPVersion.SOAP_11)
+                : Messages.createUsingPayload(new StreamSource(new StringReader(payload)), SOAPVersion.SOAP_11);
+        Packet packet = new Packet(msg);
+        packet.soapAction = soapAction;
+        return packet;
+    }
+
+    private static String faultString(DispatchException e) throws Exception {
+        return e.fault.readAsSOAPMessage().getSOAPBody().getFault().getFaultString();
+    }
+
+    public void testPayloadHit() throws Exception {
+        WSDLOperationMapping m = dispatcher.getWSDLOperationMapping(request("<text xmlns='urn:test'>hi</text>", null));
+        assertEquals("echo", m.getOperationName().getLocalPart());
+        assertEquals("echo", m.getJavaMethod().getMethod().getName());
+    }
+
+    public void testSOAPActionHit() throws Exception {
+        assertEquals("ping", dispatcher.getWSDLOperationMapping(request(null, "\"ping\"")).getOperationName().getLocalPart());
+        assertEquals("pong", dispatcher.getWSDLOperationMapping(request(null, "\"pong\"")).getOperationName().getLocalPart());
+    }
+
+    public void testPayloadMiss() throws Exception {
+        Packet request = request("<unknown xmlns='urn:test'/>", null);
+        assertNull(dispatcher.findWSDLOperationMapping(request));
+        try {
+            dispatcher.getWSDLOperationMapping(request);
+            fail();
+        } catch (DispatchException e) {
+            assertTrue(faultString(e).contains("{urn:test}unknown"));
+        }
+    }
+
+    public void testSOAPActionMiss() throws Exception {
+        Packet request = request(null, null);
+        assertNull(dispatcher.findWSDLOperationMapping(request));
+        try {
+            dispatcher.getWSDLOperationMapping(request);
+            fail();
+        } catch (DispatchException e) {
+            // the payload QName of an empty body is reported as null
+            assertTrue(faultString(e).contains("Request=[SOAPAction=null,Payload={null}null]"));
+        }
+    }
+
+    public void testRepeatedMiss() throws Exception {
+        DispatchException first = null;
+        DispatchException second = null;
+        try {
+            dispatcher.getWSDLOperationMapping(request("<unknown xmlns='urn:test'/>", null));
+        } catch (DispatchException e) {
+            first = e;
+        }
+        try {
+            dispatcher.getWSDLOperationMapping(request("<unknown xmlns='urn:test'/>", null));
+        } catch (DispatchException e) {
+            second = e;
+        }
+        assertNotNull(first);
+        assertNotNull(second);
+        // each miss gets its own fault message, with the remembered fault string
+        assertNotSame(first.fault, second.fault);
+        assertEquals(faultString(first), faultString(second));
+        synchronized (dispatcher.recentMisses) {
+            assertEquals(1, dispatcher.recentMisses.size());
+            assertTrue(dispatcher.recentMisses.containsKey("{urn:test}unknown"));
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http.servlet;
+
+import com.sun.istack.NotNull;
+import com.sun.xml.ws.transport.http.HttpAdapter.CompletionCallback;
+import com.sun.xml.ws.util.ByteArrayBuffer;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link ServletConnectionImpl} that transfers the request and response
+ * bodies with the non-blocking I/O of Servlet 3.1, so that no container
+ * thread waits for a slow client.
+ *
+ * <p>
+ * The request body is read into memory by a {@link ReadListener} before the
+ * request is decoded, and the response is encoded into memory and then
+ * written by a {@link WriteListener}. The listeners run on container threads
+ * only when the client is ready. A request body that is larger than the
+ * configured limit is rejected with 413 (Request Entity Too Large) instead of
+ * being read. This class must only be used after the request is put into
+ * asynchronous mode.
+ *
+ * @author WS Development Team
+ */
+final class NonBlockingConnectionImpl extends ServletConnectionImpl {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+    private ByteArrayBuffer requestBody;
+    private InputStream in;
+    private ResponseBuffer out;
+    private boolean blocking;
+    private boolean rejected;
+    private boolean written;
+    private CompletionCallback onWritten;
+
+    NonBlockingConnectionImpl(@NotNull ServletAdapter adapter, ServletContext context, HttpServletRequest request, HttpServletResponse response) {
+        super(adapter, context, request, response);
+        this.request = request;
+        this.response = response;
+    }
+
+    /**
+     * Starts reading the request body.
+     *
+     * @param maxSize
+     *      the largest body that is read, in bytes. A larger body is rejected
+     *      with 413 and {@code onError} is called.
+     * @param onRead
+     *      called once the whole body is read.
+     * @param onError
+     *      called instead if the body cannot be read.
+     */
+    void readRequest(final long maxSize, final CompletionCallback onRead, final CompletionCallback onError) throws IOException {
+        // the length is only the client's word, so it's never used to size the buffer
+        if (request.getContentLength() > maxSize) {
+            reject();
+            onError.onCompletion();
+            return;
+        }
+        requestBody = new ByteArrayBuffer();
+        final ServletInputStream sin = request.getInputStream();
+        sin.setReadListener(new ReadListener() {
+            private final byte[] buf = new byte[CHUNK_SIZE];
+
+            public void onDataAvailable() throws IOException {
+                int len;
+                while (!rejected && sin.isReady() && (len = sin.read(buf)) != -1) {
+                    if (requestBody.size() + len > maxSize) {
+                        reject();
+                        onError.onCompletion();
+                        return;
+                    }
+                    requestBody.write(buf, 0, len);
+                }
+            }
+
+            public void onAllDataRead() throws IOException {
+                if (!rejected) {
+                    onRead.onCompletion();
+                }
+            }
+
+            public void onError(Throwable t) {
+                if (rejected) {
+                    return;
+                }
+                LOGGER.log(Level.FINE, "Error reading request: " + request.getRequestURL(), t);
+                close();
+                onError.onCompletion();
+            }
+        });
+    }
+
+    /**
+     * Answers 413 without reading the rest of the request body.
+     */
+    private void reject() {
+        rejected = true;
+        requestBody = null;
+        LOGGER.log(Level.FINE, "Request body is too large: {0}", request.getRequestURL());
+        if (!response.isCommitted()) {
+            response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            response.setHeader("Connection", "close");
+            response.setContentLength(0);
+        }
+        close();
+    }
+
+    /**
+     * Transfers the bodies with blocking I/O instead, for a container that
+     * doesn't implement the non-blocking I/O of Servlet 3.1.
+     */
+    void useBlockingIO() {
+        blocking = true;
+        requestBody = null;
+    }
+
+    @Override
+    public @NotNull InputStream getInput() throws IOException {
+        if (requestBody == null) {
+            return super.getInput();
+        }
+        if (in == null) {
+            in = requestBody.newInputStream();
+        }
+        return in;
+    }
+
+    @Override
+    public @NotNull OutputStream getOutput() throws IOException {
+        if (blocking) {
+            return super.getOutput();
+        }
+        if (out == null) {
+            super.getOutput();      // sets the status and the headers
+            out = new ResponseBuffer();
+        }
+        return out;
+    }
+
+    /**
+     * Calls back once the response is written, or right away if there is
+     * no response being written.
+     */
+    void whenWritten(CompletionCallback callback) {
+        synchronized (this) {
+            if (out != null && out.closed && !written) {
+                onWritten = callback;
+                return;
+            }
+        }
+        callback.onCompletion();
+    }
+
+    private void written() {
+        CompletionCallback callback;
+        synchronized (this) {
+            if (written) {
+                return;
+            }
+            written = true;
+            callback = onWritten;
+            onWritten = null;
+        }
+        if (callback != null) {
+            callback.onCompletion();
+        }
+    }
+
+    /**
+     * Holds the response until it is complete, then writes it whenever
+     * the client can take more.
+     */
+    private final class ResponseBuffer extends ByteArrayBuffer {
+        boolean closed;
+
+        @Override
+        public void close() throws IOException {
+            synchronized (NonBlockingConnectionImpl.this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            if (!response.isCommitted()) {
+                response.setContentLength(size());
+            }
+            final ServletOutputStream sout = response.getOutputStream();
+            sout.setWriteListener(new WriteListener() {
+                private int pos;
+
+                public void onWritePossible() throws IOException {
+                    byte[] data = getRawData();
+                    int size = size();
+                    while (sout.isReady()) {
+                        if (pos == size) {
+                            written();
+                            return;
+                        }
+                        int len = Math.min(size - pos, CHUNK_SIZE);
+                        sout.write(data, pos, len);
+                        pos += len;
+                    }
+                }
+
+                public void onError(Throwable t) {
+                    LOGGER.log(Level.FINE, "Error writing response: " + request.getRequestURL(), t);
+                    NonBlockingConnectionImpl.this.close();
+                    written();
+                }
+            });
+        }
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(NonBlockingConnectionImpl.class.getName());
+}
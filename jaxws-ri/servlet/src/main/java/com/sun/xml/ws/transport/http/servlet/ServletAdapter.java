@@ -207,9 +207,7 @@ public class ServletAdapter extends HttpAdapter implements BoundEndpoint {
             if (asyncRequest) {
                 final javax.servlet.AsyncContext asyncContext = request.startAsync(request, response);
                 final AsyncCompletionCheck completionCheck = new AsyncCompletionCheck();
-                new WSAsyncListener(connection, callback).addListenerTo(asyncContext,completionCheck);
-                //asyncContext.setTimeout(10000L);// TODO get it from @ or config file
-                super.invokeAsync(connection, new CompletionCallback() {
+                final CompletionCallback complete = new CompletionCallback() {
                     @Override
                     public void onCompletion() {
                         synchronized (completionCheck) {
@@ -219,8 +217,33 @@ public class ServletAdapter extends HttpAdapter implements BoundEndpoint {
                             }
                         }
                     }
-                });
+                };
+                NonBlockingConnectionImpl nonBlocking = null;
+                if (nonBlockingIO) {
+                    nonBlocking = new NonBlockingConnectionImpl(this, context, request, response);
+                    connection = nonBlocking;
+                }
+                // the listener must be added before the request can complete
+                new WSAsyncListener(connection, callback).addListenerTo(asyncContext,completionCheck);
                 asyncStarted = true;
+                //asyncContext.setTimeout(10000L);// TODO get it from @ or config file
+                if (nonBlocking != null) {
+                    try {
+                        invokeNonBlocking(nonBlocking, complete);
+                    } catch (IOException e) {
+                        complete.onCompletion();
+                        throw e;
+                    } catch (AbstractMethodError e) {
+                        //the loaded Servlet API is 3.1, but the impl is not
+                        LOGGER.log(Level.INFO, request.getClass().getName() + " does not support non-blocking I/O, Continuing with blocking I/O", e);
+                        nonBlockingIO = false;
+                        nonBlocking.useBlockingIO();
+                        nonBlocking = null;
+                    }
+                }
+                if (nonBlocking == null) {
+                    super.invokeAsync(connection, complete);
+                }
             } else {
                 super.handle(connection);
             }
@@ -231,6 +254,82 @@ public class ServletAdapter extends HttpAdapter implements BoundEndpoint {
         }
     }
 
+    /**
+     * Reads the request with a {@link javax.servlet.ReadListener}, and invokes
+     * the endpoint once it is all read. The request must be in asynchronous mode.
+     *
+     * @param complete
+     *      completes the asynchronous request, called once the response is written.
+     */
+    private void invokeNonBlocking(final NonBlockingConnectionImpl connection, final CompletionCallback complete) throws IOException {
+        final CompletionCallback written = new CompletionCallback() {
+            @Override
+            public void onCompletion() {
+                connection.whenWritten(complete);
+            }
+        };
+        connection.readRequest(maxRequestSize, new CompletionCallback() {
+            @Override
+            public void onCompletion() {
+                try {
+                    ServletAdapter.super.invokeAsync(connection, written);
+                } catch (IOException e) {
+                    LOGGER.log(Level.SEVERE, e.getMessage(), e);
+                    connection.close();
+                    complete.onCompletion();
+                }
+            }
+        }, complete);
+    }
+
+    /**
+     * Whether the request and response bodies are transferred with the
+     * non-blocking I/O of Servlet 3.1.
+     */
+    public boolean isNonBlockingIO() {
+        return nonBlockingIO;
+    }
+
+    /**
+     * Turns on the non-blocking I/O of Servlet 3.1 for the requests that can
+     * be processed asynchronously. The request body is read into memory as
+     * it arrives and the response is encoded into memory and written as the
+     * client takes it, so no container thread waits for a slow client.
+     * Has no effect if the Servlet API is older than 3.1.
+     *
+     * @see WSServlet#JAXWS_RI_PROPERTY_NON_BLOCKING_IO
+     */
+    public void setNonBlockingIO(boolean nonBlockingIO) {
+        if (nonBlockingIO && !ServletUtil.isServlet31Based()) {
+            LOGGER.log(Level.INFO, "Servlet 3.1 API is not available, Continuing with blocking I/O for {0}", name);
+            return;
+        }
+        this.nonBlockingIO = nonBlockingIO;
+    }
+
+    /**
+     * The largest request body, in bytes, that is read with non-blocking I/O.
+     */
+    public long getMaxRequestSize() {
+        return maxRequestSize;
+    }
+
+    /**
+     * Sets the largest request body, in bytes, that is read into memory with
+     * non-blocking I/O. A larger request is answered with 413 (Request Entity
+     * Too Large). Defaults to the value of the
+     * <tt>com.sun.xml.ws.transport.http.servlet.ServletAdapter.maxRequestSize</tt>
+     * system property, or 16MB.
+     *
+     * @see WSServlet#JAXWS_RI_PROPERTY_MAX_REQUEST_SIZE
+     */
+    public void setMaxRequestSize(long maxRequestSize) {
+        if (maxRequestSize <= 0) {
+            throw new IllegalArgumentException("maxRequestSize must be positive: " + maxRequestSize);
+        }
+        this.maxRequestSize = maxRequestSize;
+    }
+
     /**
      * Synchronizes the CompletionHandler action and Container's timeout action.
      */
@@ -268,4 +367,20 @@ public class ServletAdapter extends HttpAdapter implements BoundEndpoint {
 
     private boolean isServlet30Based = ServletUtil.isServlet30Based();
 
+    private volatile boolean nonBlockingIO;
+
+    private volatile long maxRequestSize = DEFAULT_MAX_REQUEST_SIZE;
+
+    private static final long DEFAULT_MAX_REQUEST_SIZE;
+
+    static {
+        long size = 16L * 1024 * 1024;
+        try {
+            size = Long.getLong(ServletAdapter.class.getName() + ".maxRequestSize", size);
+        } catch (SecurityException e) {
+            // use the default
+        }
+        DEFAULT_MAX_REQUEST_SIZE = size;
+    }
+
 }
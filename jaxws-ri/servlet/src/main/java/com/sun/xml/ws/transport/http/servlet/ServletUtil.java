@@ -55,4 +55,17 @@ public class ServletUtil {
         }
         return false;        
     }
+
+    /**
+     * Checks if the Servlet 3.1 API, with non-blocking I/O, is available.
+     */
+    public static boolean isServlet31Based() {
+        try {
+            Class.forName("javax.servlet.ReadListener");
+            return true;
+        } catch (Throwable t) {
+            // Not Servlet 3.1 API
+        }
+        return false;
+    }
 }
@@ -122,5 +122,21 @@ public class WSServlet extends HttpServlet {
         "com.sun.xml.ws.server.http.publishWSDL";
     public static final String JAXWS_RI_PROPERTY_PUBLISH_STATUS_PAGE =
         "com.sun.xml.ws.server.http.publishStatusPage";
+    /**
+     * Context parameter that turns on the Servlet 3.1 non-blocking I/O for
+     * the request and response bodies.
+     *
+     * @see ServletAdapter#setNonBlockingIO(boolean)
+     */
+    public static final String JAXWS_RI_PROPERTY_NON_BLOCKING_IO =
+        "com.sun.xml.ws.server.http.nonBlockingIO";
+    /**
+     * Context parameter that sets the largest request body, in bytes, that
+     * is read with non-blocking I/O.
+     *
+     * @see ServletAdapter#setMaxRequestSize(long)
+     */
+    public static final String JAXWS_RI_PROPERTY_MAX_REQUEST_SIZE =
+        "com.sun.xml.ws.server.http.maxRequestSize";
 
 }
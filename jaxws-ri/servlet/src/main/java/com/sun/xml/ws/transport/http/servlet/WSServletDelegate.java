@@ -105,6 +105,23 @@ public class WSServletDelegate {
         if (publishStatusPageParam != null) {
             HttpAdapter.setPublishStatus(Boolean.parseBoolean(publishStatusPageParam));
         }
+
+        String nonBlockingIOParam =
+            context.getInitParameter(WSServlet.JAXWS_RI_PROPERTY_NON_BLOCKING_IO);
+        if (nonBlockingIOParam != null && Boolean.parseBoolean(nonBlockingIOParam)) {
+            for (ServletAdapter info : adapters) {
+                info.setNonBlockingIO(true);
+            }
+        }
+
+        String maxRequestSizeParam =
+            context.getInitParameter(WSServlet.JAXWS_RI_PROPERTY_MAX_REQUEST_SIZE);
+        if (maxRequestSizeParam != null) {
+            long maxRequestSize = Long.parseLong(maxRequestSizeParam.trim());
+            for (ServletAdapter info : adapters) {
+                info.setMaxRequestSize(maxRequestSize);
+            }
+        }
     }
 
     public void destroy() {
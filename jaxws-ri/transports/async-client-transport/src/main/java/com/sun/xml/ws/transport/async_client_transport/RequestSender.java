@@ -77,10 +77,12 @@ public class RequestSender implements Closeable {
                         throw new WebServiceException("close method has already been invoked"); // TODO: i18n
         
         final Tube tubeline = tubelinePool.take();
+        final Fiber fiber = engine.createFiber();
         try {
-            return engine.createFiber().runSync(tubeline, request);
+            return fiber.runSync(tubeline, request);
         } finally {
             tubelinePool.recycle(tubeline);
+            engine.recycleFiber(fiber);
         }
     }
 
@@ -0,0 +1,213 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.local;
+
+import com.sun.istack.NotNull;
+import com.sun.istack.Nullable;
+import com.sun.xml.ws.api.message.Message;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.pipe.NextAction;
+import com.sun.xml.ws.api.pipe.Tube;
+import com.sun.xml.ws.api.pipe.TubeCloner;
+import com.sun.xml.ws.api.pipe.helper.AbstractTubeImpl;
+import com.sun.xml.ws.api.server.TransportBackChannel;
+import com.sun.xml.ws.api.server.WSEndpoint;
+import com.sun.xml.ws.transport.http.HttpAdapter;
+import com.sun.xml.ws.transport.local.InVmServer.MessagePassing;
+
+import javax.xml.ws.WebServiceException;
+import javax.xml.ws.handler.MessageContext;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transport {@link Tube} that hands {@link Message} objects straight to
+ * the server tubeline of an {@link InVmServer}, without encoding them.
+ *
+ * <p>
+ * Unlike {@link LocalTransportTube}, messages are neither encoded nor processed
+ * by an {@link HttpAdapter}, so a JAXB-backed request reaches the service as a
+ * JAXB-backed message and the same is true for the response. Depending on
+ * {@link MessagePassing}, each side sees either a {@link Message#copy() copy}
+ * of the other side's message or the very same instance.
+ *
+ * @author WS Development Team
+ * @see InVmServer#setMessagePassing(MessagePassing)
+ */
+final class InVmDirectTransportTube extends AbstractTubeImpl {
+
+    /**
+     * The address of the endpoint deployed in this tube.
+     */
+    private final URI baseURI;
+
+    private final WSEndpoint endpoint;
+
+    /**
+     * Not used to process requests; it is the {@link Packet#component} of
+     * the server side packets, as it is with {@link LocalTransportTube}.
+     */
+    private final HttpAdapter adapter;
+
+    /**
+     * Either {@link MessagePassing#COPY} or {@link MessagePassing#REFERENCE}.
+     */
+    private final MessagePassing passing;
+
+    private final boolean checkIsolation;
+
+    /**
+     * Server tubeline owned by this tube. {@link WSEndpoint.PipeHead} isn't
+     * thread-safe, so every copy of this tube gets its own.
+     */
+    private final WSEndpoint.PipeHead head;
+
+    InVmDirectTransportTube(URI baseURI, WSEndpoint endpoint, MessagePassing passing, boolean checkIsolation) {
+        this(baseURI, endpoint, HttpAdapter.createAlone(endpoint), passing, checkIsolation);
+    }
+
+    private InVmDirectTransportTube(URI baseURI, WSEndpoint endpoint, HttpAdapter adapter, MessagePassing passing, boolean checkIsolation) {
+        assert passing!=MessagePassing.SERIALIZE;
+        this.baseURI = baseURI;
+        this.endpoint = endpoint;
+        this.adapter = adapter;
+        this.passing = passing;
+        this.checkIsolation = checkIsolation;
+        this.head = endpoint.createPipeHead();
+    }
+
+    /**
+     * Copy constructor for {@link Tube#copy(TubeCloner)}.
+     */
+    private InVmDirectTransportTube(InVmDirectTransportTube that, TubeCloner cloner) {
+        this(that.baseURI, that.endpoint, that.adapter, that.passing, that.checkIsolation);
+        cloner.add(that,this);
+    }
+
+    public @NotNull NextAction processException(@NotNull Throwable t) {
+        return doThrow(t);
+    }
+
+    public Packet process(Packet request) {
+        Message requestMessage = request.getMessage();
+
+        Map<String, List<String>> reqHeaders = new HashMap<String, List<String>>();
+        Map<String, List<String>> rh = (Map<String, List<String>>) request.invocationProperties.get(MessageContext.HTTP_REQUEST_HEADERS);
+        if(rh != null){
+            reqHeaders.putAll(rh);
+        }
+        LocalConnectionImpl con = new LocalConnectionImpl(baseURI,reqHeaders);
+
+        // set up the server side packet the same way HttpAdapter does after decoding
+        Packet serverRequest = new Packet(handOver(requestMessage, null));
+        serverRequest.soapAction = request.soapAction;
+        serverRequest.wasTransportSecure = con.isSecure();
+        serverRequest.addSatellite(con);
+        serverRequest.component = adapter;
+        serverRequest.setState(Packet.State.ServerRequest);
+
+        Packet serverResponse;
+        try {
+            serverResponse = head.process(serverRequest, con, NO_BACK_CHANNEL);
+        } catch (WebServiceException wex) {
+            throw wex;
+        } catch (RuntimeException ex) {
+            throw new WebServiceException(ex);
+        }
+
+        Message responseMessage = serverResponse.getMessage();
+        if (responseMessage == null) {
+            return request.createClientResponse(null);    // one way. no response given.
+        }
+        return request.createClientResponse(handOver(responseMessage, requestMessage));
+    }
+
+    /**
+     * Passes a message from one side to the other according to {@link #passing}.
+     *
+     * @param sent
+     *      The message as it was produced by the sending side.
+     * @param held
+     *      The message the receiving side already holds, if any.
+     *      With isolation checks on, the receiving side must not get it back.
+     */
+    private Message handOver(@NotNull Message sent, @Nullable Message held) {
+        Message received = passing == MessagePassing.COPY ? sent.copy() : sent;
+        if (checkIsolation) {
+            if (passing == MessagePassing.COPY && received == sent) {
+                throw new WebServiceException(sent.getClass().getName()+".copy() returned the same instance, cannot isolate "+baseURI);
+            }
+            if (held != null && received == held) {
+                throw new WebServiceException("Service at "+baseURI+" returned the request message as the response");
+            }
+        }
+        return received;
+    }
+
+    @NotNull
+    public NextAction processRequest(@NotNull Packet request) {
+        return doReturnWith(process(request));
+    }
+
+    @NotNull
+    public NextAction processResponse(@NotNull Packet response) {
+        throw new IllegalStateException("InVmDirectTransportTube's processResponse shouldn't be called.");
+    }
+
+    public void preDestroy() {
+        // Nothing to do here. Intentionally left empty
+    }
+
+    public InVmDirectTransportTube copy(TubeCloner cloner) {
+        return new InVmDirectTransportTube(this, cloner);
+    }
+
+    /**
+     * Calls are synchronous, so there's nobody to release early
+     * when a one-way service closes the back channel.
+     */
+    private static final TransportBackChannel NO_BACK_CHANNEL = new TransportBackChannel() {
+        public void close() {
+        }
+    };
+}
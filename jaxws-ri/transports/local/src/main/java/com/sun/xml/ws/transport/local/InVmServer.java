@@ -42,6 +42,7 @@ package com.sun.xml.ws.transport.local;
 
 import com.sun.istack.NotNull;
 import com.sun.istack.Nullable;
+import com.sun.xml.ws.api.message.Message;
 import com.sun.xml.ws.api.server.WSEndpoint;
 
 import java.io.File;
@@ -52,6 +53,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -69,6 +71,12 @@ import java.util.Map;
  * For this reason, in-VM transport requires explicit "deploy"
  * and "undeploy" operations.
  *
+ * <p>
+ * By default messages are encoded and decoded just like they would be
+ * over HTTP. Services that are co-located with their clients only for
+ * speed can {@link #setMessagePassing(MessagePassing) skip that}, and
+ * have the {@link Message} objects handed over directly.
+ *
  * @author Kohsuke Kawaguchi
  */
 public final class InVmServer {
@@ -82,6 +90,37 @@ public final class InVmServer {
      */
     private final String id;
 
+    private volatile MessagePassing messagePassing = DEFAULT_MESSAGE_PASSING;
+
+    private volatile boolean checkIsolation = DEFAULT_CHECK_ISOLATION;
+
+    /**
+     * How "in-vm" requests and responses get from the client to the service and back.
+     */
+    public enum MessagePassing {
+        /**
+         * Encode the message with the codec of the binding, and decode it on the other side.
+         * This exercises the same code as the HTTP transport.
+         */
+        SERIALIZE,
+        /**
+         * Hand a {@link Message#copy() copy} of the message to the other side.
+         * Each side may read, consume or replace its message, its headers and
+         * its attachments without affecting the other one. The copy is shallow
+         * though: a JAXB-backed message or header shares its JAXB object with
+         * the copy, so a service that changes such an object changes the
+         * client's too. Use {@link #SERIALIZE} when the two sides must not
+         * share any object.
+         */
+        COPY,
+        /**
+         * Hand the message itself to the other side. This is the fastest,
+         * but the client must not look at a request message after sending it,
+         * since the service may have consumed or modified it.
+         */
+        REFERENCE
+    }
+
     /**
      * Running servers.
      *
@@ -140,6 +179,52 @@ public final class InVmServer {
         return Collections.unmodifiableList(endpoints);
     }
 
+    /**
+     * Gets how messages are passed to the services of this server.
+     */
+    public @NotNull MessagePassing getMessagePassing() {
+        return messagePassing;
+    }
+
+    /**
+     * Sets how messages are passed to the services of this server.
+     *
+     * <p>
+     * The default is {@link MessagePassing#SERIALIZE}, unless the
+     * <tt>com.sun.xml.ws.transport.local.InVmServer.messagePassing</tt>
+     * system property says otherwise. The setting is read when a proxy or
+     * {@link javax.xml.ws.Dispatch} is created, and only applies to the
+     * "in-vm" scheme; "in-vm-async" always serializes.
+     */
+    public void setMessagePassing(@NotNull MessagePassing messagePassing) {
+        this.messagePassing = messagePassing;
+    }
+
+    /**
+     * Whether to check that the client and the service don't end up
+     * sharing a {@link Message} when messages aren't serialized.
+     */
+    public boolean isCheckIsolation() {
+        return checkIsolation;
+    }
+
+    /**
+     * Turns the isolation checks on or off. When on, a {@link Message#copy()}
+     * that returns the same instance, and a service returning the very
+     * request message it received, fail the call with a
+     * {@link javax.xml.ws.WebServiceException}. Objects shared by a message
+     * and its copy, such as the JAXB object of a JAXB-backed message, aren't
+     * checked.
+     *
+     * <p>
+     * Off by default, unless the
+     * <tt>com.sun.xml.ws.transport.local.InVmServer.checkIsolation</tt>
+     * system property is set to true.
+     */
+    public void setCheckIsolation(boolean checkIsolation) {
+        this.checkIsolation = checkIsolation;
+    }
+
     /**
      * Returns the URI that identifies this server. Use this
      * as the endpoint address of the JAX-WS RI to talk to services in this server
@@ -192,4 +277,25 @@ public final class InVmServer {
     }
     private static int iotaGen=0;
 
+    private static final MessagePassing DEFAULT_MESSAGE_PASSING;
+    private static final boolean DEFAULT_CHECK_ISOLATION;
+
+    static {
+        MessagePassing m = MessagePassing.SERIALIZE;
+        boolean b = false;
+        try {
+            String v = System.getProperty(InVmServer.class.getName()+".messagePassing");
+            if (v != null) {
+                m = MessagePassing.valueOf(v.toUpperCase(Locale.ENGLISH));
+            }
+            b = Boolean.getBoolean(InVmServer.class.getName()+".checkIsolation");
+        } catch (SecurityException e) {
+            // use the defaults
+        } catch (IllegalArgumentException e) {
+            // unknown mode, use the default
+        }
+        DEFAULT_MESSAGE_PASSING = m;
+        DEFAULT_CHECK_ISOLATION = b;
+    }
+
 }
@@ -52,6 +52,10 @@ import java.net.URI;
 /**
  * {@link TransportTubeFactory} that recognizes
  * "in-vm://<i>inVmServerId</i>[?<i>portLocalName</i>]".
+ *
+ * <p>
+ * Messages are serialized unless the {@link InVmServer} is told
+ * otherwise by {@link InVmServer#setMessagePassing}.
  */
 public final class InVmTransportFactory extends TransportTubeFactory {
     public Tube doCreate(@NotNull ClientTubeAssemblerContext context) {
@@ -72,8 +76,12 @@ public final class InVmTransportFactory extends TransportTubeFactory {
             throw new WebServiceException("No such port exists: "+adrs);
 
         // maybe I should be passing in my custom adapter
-        if(adrs.getScheme().equals("in-vm"))
+        if(adrs.getScheme().equals("in-vm")) {
+            InVmServer.MessagePassing passing = server.getMessagePassing();
+            if(passing != InVmServer.MessagePassing.SERIALIZE)
+                return new InVmDirectTransportTube(adrs,endpoint,passing,server.isCheckIsolation());
             return new LocalTransportTube(adrs,endpoint,context.getCodec());
+        }
         else
             return new LocalAsyncTransportTube(adrs,endpoint,context.getCodec());
     }
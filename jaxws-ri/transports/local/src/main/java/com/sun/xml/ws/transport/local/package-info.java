@@ -62,5 +62,7 @@
  * application by using {@link com.sun.xml.ws.transport.local.InVmServer},
  * {@link com.sun.xml.ws.transport.local.InVmServer#getAddress() obtain its address}, configure the JAX-WS RI
  * with that endpoint, then use that to talk to the running service.
+ * {@link com.sun.xml.ws.transport.local.InVmServer#setMessagePassing Message passing}
+ * lets the "in-vm" transport skip encoding altogether.
  */
 package com.sun.xml.ws.transport.local;
@@ -0,0 +1,192 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.local;
+
+import com.sun.xml.ws.api.BindingID;
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.message.FilterMessageImpl;
+import com.sun.xml.ws.api.message.Message;
+import com.sun.xml.ws.api.message.Messages;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.server.Invoker;
+import com.sun.xml.ws.api.server.WSEndpoint;
+import com.sun.xml.ws.api.server.WSWebServiceContext;
+import com.sun.xml.ws.binding.BindingImpl;
+import com.sun.xml.ws.transport.http.HttpAdapter;
+import com.sun.xml.ws.transport.local.InVmServer.MessagePassing;
+import junit.framework.TestCase;
+import org.xml.sax.EntityResolver;
+
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.ws.Provider;
+import javax.xml.ws.Service;
+import javax.xml.ws.ServiceMode;
+import javax.xml.ws.WebServiceException;
+import javax.xml.ws.WebServiceProvider;
+import java.io.StringReader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URI;
+
+/**
+ * @author WS Development Team
+ */
+public class InVmDirectTransportTubeTest extends TestCase {
+
+    private static final URI ADDRESS = URI.create("in-vm://test/echo");
+
+    @WebServiceProvider(serviceName="EchoService", portName="EchoPort", targetNamespace="urn:test")
+    @ServiceMode(Service.Mode.MESSAGE)
+    public static class EchoProvider implements Provider<Message> {
+        /**
+         * Echoes the request message, except for "notify" which is one-way.
+         */
+        public Message invoke(Message request) {
+            return "notify".equals(request.getPayloadLocalPart()) ? null : request;
+        }
+    }
+
+    /**
+     * Records the server side packets.
+     */
+    private static final class RecordingInvoker extends Invoker {
+        private final EchoProvider impl = new EchoProvider();
+        Packet request;
+
+        @Override
+        public void start(WSWebServiceContext wsc, WSEndpoint endpoint) {
+        }
+
+        public Object invoke(Packet p, Method m, Object... args) throws InvocationTargetException, IllegalAccessException {
+            request = p;
+            return m.invoke(impl, args);
+        }
+    }
+
+    private RecordingInvoker invoker;
+    private WSEndpoint<EchoProvider> endpoint;
+
+    @Override
+    protected void setUp() throws Exception {
+        invoker = new RecordingInvoker();
+        endpoint = WSEndpoint.create(EchoProvider.class, false, invoker, null, null, null,
+                BindingImpl.create(BindingID.SOAP11_HTTP), null, null, (EntityResolver) null, true);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        endpoint.dispose();
+    }
+
+    private static Message payload(String localName) {
+        return Messages.createUsingPayload(
+                new StreamSource(new StringReader("<" + localName + " xmlns='urn:test'>hello</" + localName + ">")),
+                SOAPVersion.SOAP_11);
+    }
+
+    private Packet send(MessagePassing passing, boolean checkIsolation, Message request) {
+        InVmDirectTransportTube tube = new InVmDirectTransportTube(ADDRESS, endpoint, passing, checkIsolation);
+        return tube.process(new Packet(request));
+    }
+
+    public void testCopy() throws Exception {
+        Message request = payload("echo");
+        Packet response = send(MessagePassing.COPY, true, request);
+        Message serverRequest = invoker.request.getMessage();
+        assertNotSame(request, serverRequest);
+        assertNotSame(request, response.getMessage());
+        assertNotSame(serverRequest, response.getMessage());
+        assertEquals("echo", response.getMessage().getPayloadLocalPart());
+        assertEquals("hello", response.getMessage().readPayload().getElementText());
+        // the client's request is still readable
+        assertEquals("hello", request.readPayload().getElementText());
+    }
+
+    public void testReference() throws Exception {
+        Message request = payload("echo");
+        Packet response = send(MessagePassing.REFERENCE, false, request);
+        assertSame(request, invoker.request.getMessage());
+        assertSame(request, response.getMessage());
+        assertEquals("hello", response.getMessage().readPayload().getElementText());
+    }
+
+    public void testServerPacket() {
+        send(MessagePassing.REFERENCE, false, payload("echo"));
+        Packet serverRequest = invoker.request;
+        assertEquals(Packet.State.ServerRequest, serverRequest.getState());
+        assertFalse(serverRequest.wasTransportSecure);
+        assertTrue(serverRequest.component instanceof HttpAdapter);
+        assertNotNull(serverRequest.getSatellite(LocalConnectionImpl.class));
+    }
+
+    public void testOneWay() {
+        for (MessagePassing passing : new MessagePassing[] {MessagePassing.COPY, MessagePassing.REFERENCE}) {
+            Packet response = send(passing, true, payload("notify"));
+            assertEquals("notify", invoker.request.getMessage().getPayloadLocalPart());
+            assertNull(response.getMessage());
+        }
+    }
+
+    public void testCopyIsolationFailure() {
+        Message request = new FilterMessageImpl(payload("echo")) {
+            @Override
+            public Message copy() {
+                return this;
+            }
+        };
+        try {
+            send(MessagePassing.COPY, true, request);
+            fail("a copy that returns the same instance was accepted");
+        } catch (WebServiceException e) {
+            assertTrue(e.getMessage().contains("copy() returned the same instance"));
+        }
+        assertNull(invoker.request);
+    }
+
+    public void testReferenceIsolationFailure() {
+        try {
+            send(MessagePassing.REFERENCE, true, payload("echo"));
+            fail("the request message was returned as the response");
+        } catch (WebServiceException e) {
+            assertTrue(e.getMessage().contains("returned the request message"));
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.nio.client;
+
+import com.sun.xml.ws.api.FeatureConstructor;
+
+import javax.net.ssl.SSLContext;
+import javax.xml.ws.WebServiceFeature;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Proxy needs to be created with this feature to send its requests with the
+ * non-blocking NIO transport.
+ *
+ * <p>
+ * With this transport, a request doesn't hold a thread while it waits for
+ * the response: the {@link com.sun.xml.ws.api.pipe.Fiber} is suspended and
+ * a single selector thread per feature instance does the network I/O of all
+ * in-flight requests. This matters for {@code Dispatch.invokeAsync} and
+ * async proxy calls, where thousands of concurrent requests would otherwise
+ * need as many executor threads.
+ *
+ * <pre>
+ * for e.g.:
+ * <p>
+ *
+ * NioClientTransportFeature feature = new NioClientTransportFeature();
+ * proxy = HelloService().getHelloPort(feature);
+ *
+ * </pre>
+ *
+ * <p>
+ * The same feature instance can be passed to many proxies so that they share
+ * the selector thread and the keep-alive connections.
+ *
+ * <p>
+ * The selector thread is a daemon thread. It is started by the first request
+ * and stops by itself once no request is in flight and all the keep-alive
+ * connections have been closed after {@link #getIdleTimeout() idle timeout}
+ * for a minute; the next request starts it again. With a non-positive idle
+ * timeout the connections stay open, and so does the thread, until
+ * {@link #close()} is called.
+ *
+ * @author WS Development Team
+ */
+public final class NioClientTransportFeature extends WebServiceFeature {
+    /**
+     * Constant value identifying the {@link NioClientTransportFeature} feature.
+     */
+    public static final String ID = "http://jax-ws.java.net/features/nio-client-transport";
+
+    private static final AtomicInteger iota = new AtomicInteger();
+
+    private int maxConnectionsPerHost = 20;
+    private long idleTimeout = 30000;
+    private SSLContext sslContext;
+
+    private NioHttpClient client;      // shared object among the tubes
+
+    public NioClientTransportFeature() {
+        this.enabled = true;
+    }
+
+    @FeatureConstructor({"enabled","maxConnectionsPerHost","idleTimeout"})
+    public NioClientTransportFeature(boolean enabled, int maxConnectionsPerHost, long idleTimeout) {
+        this.enabled = enabled;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.idleTimeout = idleTimeout;
+    }
+
+    public String getID() {
+        return ID;
+    }
+
+    /**
+     * Maximum number of connections kept to one host. Requests beyond that
+     * wait for a connection. Non-positive value means no limit.
+     */
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    /**
+     * Time in milliseconds after which an idle connection is closed.
+     */
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * {@link SSLContext} for HTTPS endpoints. If not set, the JDK default is used.
+     */
+    public SSLContext getSSLContext() {
+        return sslContext;
+    }
+
+    public void setSSLContext(SSLContext sslContext) {
+        this.sslContext = sslContext;
+    }
+
+    /**
+     * Stops the selector thread and closes the connections. Proxies created
+     * with this feature can't be used afterwards.
+     */
+    public synchronized void close() {
+        if (client != null) {
+            client.close();
+        }
+    }
+
+    /**
+     * Returns the client shared by all the proxies created with this feature.
+     * Once this is called, you cannot change the configuration.
+     */
+    synchronized NioHttpClient getClient() {
+        if (client == null) {
+            client = new NioHttpClient("jaxws-nio-client-" + iota.incrementAndGet(), maxConnectionsPerHost, idleTimeout);
+        }
+        return client;
+    }
+
+}
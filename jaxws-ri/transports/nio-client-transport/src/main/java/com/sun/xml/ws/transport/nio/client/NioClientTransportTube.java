@@ -0,0 +1,416 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.nio.client;
+
+import com.sun.istack.NotNull;
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.WSBinding;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.pipe.Codec;
+import com.sun.xml.ws.api.pipe.ContentType;
+import com.sun.xml.ws.api.pipe.Fiber;
+import com.sun.xml.ws.api.pipe.NextAction;
+import com.sun.xml.ws.api.pipe.Tube;
+import com.sun.xml.ws.api.pipe.TubeCloner;
+import com.sun.xml.ws.api.pipe.helper.AbstractTubeImpl;
+import com.sun.xml.ws.client.BindingProviderProperties;
+import com.sun.xml.ws.client.ClientTransportException;
+import com.sun.xml.ws.developer.HttpConfigFeature;
+import com.sun.xml.ws.developer.JAXWSProperties;
+import com.sun.xml.ws.resources.ClientMessages;
+import com.sun.xml.ws.transport.Headers;
+import com.sun.xml.ws.transport.http.client.HttpTransportPipe;
+import com.sun.xml.ws.util.ByteArrayBuffer;
+import com.sun.xml.ws.util.RuntimeVersion;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.xml.bind.DatatypeConverter;
+import javax.xml.ws.BindingProvider;
+import javax.xml.ws.WebServiceException;
+import javax.xml.ws.handler.MessageContext;
+import javax.xml.ws.soap.SOAPBinding;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.CookieHandler;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@link Tube} that sends a request to a remote HTTP server without blocking
+ * the calling thread.
+ *
+ * <p>
+ * {@link #processRequest(Packet)} encodes the message, hands it to the shared
+ * {@link NioHttpClient} and suspends the {@link Fiber}. Once the selector
+ * thread has read the whole response, it resumes the fiber, and
+ * {@link #processResponse(Packet)} decodes the response on whatever thread
+ * the engine runs the fiber on.
+ *
+ * <p>
+ * Requests the NIO client cannot handle, those that go through a proxy server
+ * or configure a {@link javax.net.ssl.SSLSocketFactory}, are sent with a
+ * regular {@link HttpTransportPipe} instead.
+ *
+ * @author WS Development Team
+ */
+final class NioClientTransportTube extends AbstractTubeImpl {
+
+    private static final List<String> USER_AGENT = Collections.singletonList(RuntimeVersion.VERSION.toString());
+
+    private static final HostnameVerifier NO_VERIFICATION = new HostnameVerifier() {
+        public boolean verify(String s, SSLSession sslSession) {
+            return true;
+        }
+    };
+
+    private final Codec codec;
+    private final WSBinding binding;
+    private final NioHttpClient client;
+    private final SSLContext sslContext;
+    private final CookieHandler cookieJar;      // shared object among the tubes
+    private final HttpTransportPipe fallback;
+
+    NioClientTransportTube(Codec codec, WSBinding binding, NioHttpClient client, SSLContext sslContext) {
+        this.codec = codec;
+        this.binding = binding;
+        this.client = client;
+        this.sslContext = sslContext;
+        HttpConfigFeature configFeature = binding.getFeature(HttpConfigFeature.class);
+        if (configFeature == null) {
+            configFeature = new HttpConfigFeature();
+        }
+        this.cookieJar = configFeature.getCookieHandler();
+        this.fallback = new HttpTransportPipe(codec, binding);
+    }
+
+    /**
+     * Copy constructor for {@link Tube#copy(TubeCloner)}.
+     */
+    private NioClientTransportTube(NioClientTransportTube that, TubeCloner cloner) {
+        this(that.codec.copy(), that.binding, that.client, that.sslContext);
+        cloner.add(that, this);
+    }
+
+    @Override
+    public @NotNull NextAction processRequest(@NotNull final Packet request) {
+        URI uri = request.endpointAddress.getURI();
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        if (!isSupported(request, uri, secure)) {
+            return doReturnWith(fallback.process(request));
+        }
+        try {
+            Map<String, List<String>> reqHeaders = createHeaders(request);
+
+            ByteArrayBuffer buf = new ByteArrayBuffer();
+            ContentType ct = codec.encode(request, buf);
+            reqHeaders.put("Content-Type", Collections.singletonList(ct.getContentType()));
+            if (ct.getAcceptHeader() != null) {
+                reqHeaders.put("Accept", Collections.singletonList(ct.getAcceptHeader()));
+            }
+            if (binding instanceof SOAPBinding) {
+                writeSOAPAction(reqHeaders, ct.getSOAPActionHeader());
+            }
+            List<String> contentEncoding = reqHeaders.get("Content-Encoding");
+            if (contentEncoding != null && contentEncoding.get(0).contains("gzip")) {
+                ByteArrayBuffer gzipped = new ByteArrayBuffer();
+                GZIPOutputStream gzos = new GZIPOutputStream(gzipped);
+                buf.writeTo(gzos);
+                gzos.close();
+                buf = gzipped;
+            }
+
+            String method = (String) request.invocationProperties.get(MessageContext.HTTP_REQUEST_METHOD);
+            if (method == null) {
+                method = "POST";
+            }
+            boolean hasBody = !(method.equalsIgnoreCase("GET") || method.equalsIgnoreCase("HEAD")
+                    || method.equalsIgnoreCase("DELETE"));
+            ByteBuffer body = hasBody ? ByteBuffer.wrap(buf.getRawData(), 0, buf.size()) : null;
+
+            int port = uri.getPort();
+            if (port == -1) {
+                port = secure ? 443 : 80;
+            }
+            NioHttpRequest req = new NioHttpRequest(uri.getHost(), new InetSocketAddress(uri.getHost(), port), method,
+                    writeHead(method, uri, port, secure, reqHeaders, hasBody ? buf.size() : -1), body,
+                    getTimeout(request, JAXWSProperties.CONNECT_TIMEOUT),
+                    getTimeout(request, BindingProviderProperties.REQUEST_TIMEOUT));
+            if (secure) {
+                req.sslContext = (sslContext != null) ? sslContext : SSLContext.getDefault();
+                req.hostnameVerifier = getHostnameVerifier(request);
+            }
+
+            final NioResponseProperties props = new NioResponseProperties();
+            request.addSatellite(props);
+            final Fiber fiber = Fiber.current();
+            client.send(req, new NioHttpClient.ResponseHandler() {
+                public void onResponse(NioHttpResponse response) {
+                    props.setResponse(response);
+                    fiber.resume(request);
+                }
+
+                public void onFailure(Throwable t) {
+                    fiber.resume(new ClientTransportException(ClientMessages.localizableHTTP_CLIENT_FAILED(t), t));
+                }
+            });
+            return doSuspend();
+        } catch (WebServiceException wex) {
+            throw wex;
+        } catch (IOException ex) {
+            throw new ClientTransportException(ClientMessages.localizableHTTP_CLIENT_FAILED(ex), ex);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new ClientTransportException(ClientMessages.localizableHTTP_CLIENT_FAILED(ex), ex);
+        }
+    }
+
+    @Override
+    public @NotNull NextAction processResponse(@NotNull Packet response) {
+        NioResponseProperties props = response.getSatellite(NioResponseProperties.class);
+        if (props == null || props.getResponse() == null) {
+            // the request went through the fallback pipe
+            return doReturnWith(response);
+        }
+        NioHttpResponse res = props.getResponse();
+        try {
+            recordCookies(response, res);
+
+            InputStream in = (res.body.size() > 0) ? res.body.newInputStream() : null;
+            String contentEncoding = res.getHeader("Content-Encoding");
+            if (in != null && contentEncoding != null && contentEncoding.contains("gzip")) {
+                in = new GZIPInputStream(in);
+            }
+            checkStatusCode(in, res);
+
+            Packet reply = response.createClientResponse(null);
+            reply.wasTransportSecure = "https".equalsIgnoreCase(response.endpointAddress.getURI().getScheme());
+            if (in != null) {
+                String contentType = res.getHeader("Content-Type");
+                if (contentType != null && contentType.contains("text/html") && binding instanceof SOAPBinding) {
+                    throw new ClientTransportException(ClientMessages.localizableHTTP_STATUS_CODE(res.status, res.message));
+                }
+                codec.decode(in, contentType, reply);
+            }
+            return doReturnWith(reply);
+        } catch (WebServiceException wex) {
+            return doThrow(wex);
+        } catch (IOException ex) {
+            return doThrow(new WebServiceException(ex));
+        }
+    }
+
+    @Override
+    public @NotNull NextAction processException(@NotNull Throwable t) {
+        return doThrow(t);
+    }
+
+    @Override
+    public void preDestroy() {
+        fallback.preDestroy();
+    }
+
+    @Override
+    public NioClientTransportTube copy(TubeCloner cloner) {
+        return new NioClientTransportTube(this, cloner);
+    }
+
+    private boolean isSupported(Packet request, URI uri, boolean secure) {
+        if (secure) {
+            if (request.invocationProperties.get(JAXWSProperties.SSL_SOCKET_FACTORY) != null) {
+                // only usable with blocking sockets
+                return false;
+            }
+            if (getHostnameVerifier(request) == null && !SslLayer.supportsEndpointIdentification()) {
+                return false;
+            }
+        }
+        ProxySelector selector = ProxySelector.getDefault();
+        if (selector != null) {
+            List<Proxy> proxies = selector.select(uri);
+            if (proxies != null && !proxies.isEmpty() && proxies.get(0).type() != Proxy.Type.DIRECT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Same semantics as the HTTPS settings of {@link HttpTransportPipe}.
+     */
+    private HostnameVerifier getHostnameVerifier(Packet request) {
+        HostnameVerifier verifier = (HostnameVerifier) request.invocationProperties.get(JAXWSProperties.HOSTNAME_VERIFIER);
+        if (verifier != null) {
+            return verifier;
+        }
+        String verificationProperty = (String) request.invocationProperties.get(BindingProviderProperties.HOSTNAME_VERIFICATION_PROPERTY);
+        if ("true".equalsIgnoreCase(verificationProperty)) {
+            return NO_VERIFICATION;
+        }
+        return null;
+    }
+
+    private static int getTimeout(Packet request, String property) {
+        Integer timeout = (Integer) request.invocationProperties.get(property);
+        return (timeout != null) ? timeout : 0;
+    }
+
+    private Map<String, List<String>> createHeaders(Packet request) throws IOException {
+        Map<String, List<String>> reqHeaders = new Headers();
+        @SuppressWarnings("unchecked")
+        Map<String, List<String>> userHeaders = (Map<String, List<String>>) request.invocationProperties.get(MessageContext.HTTP_REQUEST_HEADERS);
+        if (userHeaders != null) {
+            reqHeaders.putAll(userHeaders);
+        }
+        if (reqHeaders.get("User-Agent") == null) {
+            reqHeaders.put("User-Agent", USER_AGENT);
+        }
+        String user = (String) request.invocationProperties.get(BindingProvider.USERNAME_PROPERTY);
+        if (user != null) {
+            String pw = (String) request.invocationProperties.get(BindingProvider.PASSWORD_PROPERTY);
+            if (pw != null) {
+                String creds = DatatypeConverter.printBase64Binary((user + ":" + pw).getBytes());
+                reqHeaders.put("Authorization", Collections.singletonList("Basic " + creds));
+            }
+        }
+        if (isSessionMaintained(request)) {
+            Map<String, List<String>> cookies = cookieJar.get(request.endpointAddress.getURI(), reqHeaders);
+            for (String name : new String[]{"Cookie", "Cookie2"}) {
+                List<String> values = cookies.get(name);
+                if (values != null && !values.isEmpty() && reqHeaders.get(name) == null) {
+                    reqHeaders.put(name, values);
+                }
+            }
+        }
+        return reqHeaders;
+    }
+
+    private void recordCookies(Packet request, NioHttpResponse response) throws IOException {
+        if (isSessionMaintained(request)) {
+            cookieJar.put(request.endpointAddress.getURI(), response.headers);
+        }
+    }
+
+    private static boolean isSessionMaintained(Packet request) {
+        Boolean maintain = (Boolean) request.invocationProperties.get(BindingProvider.SESSION_MAINTAIN_PROPERTY);
+        return maintain != null && maintain;
+    }
+
+    private static ByteBuffer writeHead(String method, URI uri, int port, boolean secure,
+                                        Map<String, List<String>> reqHeaders, int length) throws IOException {
+        StringBuilder head = new StringBuilder(256);
+        head.append(method).append(' ');
+        String path = uri.getRawPath();
+        head.append((path == null || path.length() == 0) ? "/" : path);
+        if (uri.getRawQuery() != null) {
+            head.append('?').append(uri.getRawQuery());
+        }
+        head.append(" HTTP/1.1\r\nHost: ").append(uri.getHost());
+        if (port != (secure ? 443 : 80)) {
+            head.append(':').append(port);
+        }
+        head.append("\r\n");
+        for (Map.Entry<String, List<String>> entry : reqHeaders.entrySet()) {
+            String name = entry.getKey();
+            if ("Content-Length".equalsIgnoreCase(name) || "Transfer-Encoding".equalsIgnoreCase(name)
+                    || "Host".equalsIgnoreCase(name)) {
+                continue;
+            }
+            for (String value : entry.getValue()) {
+                head.append(name).append(": ").append(value).append("\r\n");
+            }
+        }
+        if (length >= 0) {
+            head.append("Content-Length: ").append(length).append("\r\n");
+        }
+        head.append("\r\n");
+        return ByteBuffer.wrap(head.toString().getBytes("ISO-8859-1"));
+    }
+
+    /*
+     * write SOAPAction header if the soapAction parameter is non-null or BindingProvider properties set.
+     * BindingProvider properties take precedence.
+     */
+    private void writeSOAPAction(Map<String, List<String>> reqHeaders, String soapAction) {
+        //dont write SOAPAction HTTP header for SOAP 1.2 messages.
+        if (SOAPVersion.SOAP_12.equals(binding.getSOAPVersion())) {
+            return;
+        }
+        if (soapAction != null) {
+            reqHeaders.put("SOAPAction", Collections.singletonList(soapAction));
+        } else {
+            reqHeaders.put("SOAPAction", Collections.singletonList("\"\""));
+        }
+    }
+
+    /*
+     * Same status codes as HttpTransportPipe:
+     * SOAP 1.1/HTTP - 200, 202, 500
+     * SOAP 1.2/HTTP - 200, 202, 400, 500
+     * XML/HTTP - all
+     */
+    private void checkStatusCode(InputStream in, NioHttpResponse response) throws IOException {
+        if (!(binding instanceof SOAPBinding)) {
+            return;
+        }
+        int statusCode = response.status;
+        boolean fault = (binding.getSOAPVersion() == SOAPVersion.SOAP_12)
+                ? statusCode == HttpURLConnection.HTTP_INTERNAL_ERROR || statusCode == HttpURLConnection.HTTP_BAD_REQUEST
+                : statusCode == HttpURLConnection.HTTP_INTERNAL_ERROR;
+        if (statusCode == HttpURLConnection.HTTP_OK || statusCode == HttpURLConnection.HTTP_ACCEPTED || (fault && in != null)) {
+            return;
+        }
+        if (in != null) {
+            in.close();
+        }
+        throw new ClientTransportException(ClientMessages.localizableHTTP_STATUS_CODE(statusCode, response.message));
+    }
+}
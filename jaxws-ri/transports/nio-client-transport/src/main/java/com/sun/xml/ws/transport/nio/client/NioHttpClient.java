@@ -0,0 +1,657 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.nio.client;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Selector based HTTP/1.1 client. A single thread connects, writes the
+ * requests and reads the responses of all the in-flight exchanges, so the
+ * number of threads doesn't grow with the number of concurrent calls.
+ *
+ * <p>
+ * Connections are kept alive and reused per host, bounded by the maximum
+ * number of connections per host; requests beyond that limit wait in a
+ * queue. The response body is read completely before the
+ * {@link ResponseHandler} is notified, so the handler never blocks on the
+ * network.
+ *
+ * <p>
+ * Handlers are called on the selector thread and must return quickly,
+ * typically by resuming a {@link com.sun.xml.ws.api.pipe.Fiber}.
+ *
+ * <p>
+ * The selector thread is a daemon thread that is started by the first
+ * request. It stops by itself once there has been no request in flight and
+ * no open connection for a while, so a client that is no longer used doesn't
+ * keep a thread; the next request starts it again. {@link #close()} stops it
+ * for good.
+ *
+ * @author WS Development Team
+ */
+final class NioHttpClient implements Runnable {
+
+    private static final Logger LOGGER = Logger.getLogger(NioHttpClient.class.getName());
+
+    // how often the timeouts are checked, in milliseconds
+    private static final long TIMEOUT_CHECK_INTERVAL = 100;
+
+    // how long the selector thread waits for work before it stops, in milliseconds
+    private static final long THREAD_LINGER = 60000;
+
+    /**
+     * Receives the outcome of a request. Exactly one of the methods is called.
+     */
+    interface ResponseHandler {
+        void onResponse(NioHttpResponse response);
+        void onFailure(Throwable t);
+    }
+
+    private final String name;
+    private final int maxConnectionsPerHost;
+    private final long idleTimeout;
+    private final long threadLinger;
+
+    private final Queue<Exchange> submitted = new ConcurrentLinkedQueue<Exchange>();
+    private Selector selector;
+    private Thread thread;
+    private volatile boolean closed;
+
+    // the following are only touched by the selector thread
+    private final Map<String, Host> hosts = new HashMap<String, Host>();
+    private final Set<Exchange> inFlight = new LinkedHashSet<Exchange>();
+    // plain connections are read into this buffer, the parsers copy what they need
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(16 * 1024);
+    private long lastTimeoutCheck;
+    // when the selector thread ran out of exchanges and connections, 0 while it has some
+    private long unusedSince;
+
+    private final AtomicLong connectionsCreated = new AtomicLong();
+    private final AtomicLong requestsSent = new AtomicLong();
+
+    /**
+     * @param maxConnectionsPerHost
+     *      non-positive value means no limit.
+     * @param idleTimeout
+     *      milliseconds after which an idle connection is closed. Non-positive
+     *      value means idle connections are kept open.
+     */
+    NioHttpClient(String name, int maxConnectionsPerHost, long idleTimeout) {
+        this(name, maxConnectionsPerHost, idleTimeout, THREAD_LINGER);
+    }
+
+    /**
+     * @param threadLinger
+     *      milliseconds the selector thread waits without any request in flight
+     *      and without any open connection before it stops.
+     */
+    NioHttpClient(String name, int maxConnectionsPerHost, long idleTimeout, long threadLinger) {
+        this.name = name;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.idleTimeout = idleTimeout;
+        this.threadLinger = threadLinger;
+    }
+
+    /**
+     * Queues the request and returns immediately.
+     */
+    void send(NioHttpRequest request, ResponseHandler handler) {
+        Selector s;
+        try {
+            synchronized (this) {
+                start();
+                // queued while holding the lock, so that the thread can't stop in between
+                submitted.add(new Exchange(request, handler));
+                s = selector;
+            }
+        } catch (IOException e) {
+            handler.onFailure(e);
+            return;
+        }
+        s.wakeup();
+    }
+
+    /**
+     * Stops the selector thread. In-flight and queued requests fail.
+     */
+    synchronized void close() {
+        closed = true;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    long getConnectionsCreated() {
+        return connectionsCreated.get();
+    }
+
+    long getRequestsSent() {
+        return requestsSent.get();
+    }
+
+    /**
+     * True while the selector thread is running.
+     */
+    synchronized boolean isRunning() {
+        return thread != null;
+    }
+
+    private synchronized void start() throws IOException {
+        if (closed) {
+            throw new IOException(name + " is closed");
+        }
+        if (thread == null) {
+            selector = Selector.open();
+            thread = new Thread(this, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    public void run() {
+        boolean stopped = false;
+        try {
+            while (!closed && !stopped) {
+                try {
+                    selector.select(TIMEOUT_CHECK_INTERVAL);
+                    Exchange e;
+                    while ((e = submitted.poll()) != null) {
+                        dispatch(e);
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (key.isValid()) {
+                            process((Connection) key.attachment(), key);
+                        }
+                    }
+                    checkTimeouts();
+                    stopped = stopIfUnused();
+                } catch (ClosedSelectorException e) {
+                    break;
+                } catch (Throwable t) {
+                    // keep the selector thread alive, whatever happens
+                    LOGGER.log(Level.SEVERE, name + " selector loop failure", t);
+                }
+            }
+        } finally {
+            if (!stopped) {
+                shutdown();
+            }
+        }
+    }
+
+    /**
+     * Stops the selector thread if it had nothing to do for {@link #threadLinger}.
+     *
+     * @return true if the thread is to stop.
+     */
+    private boolean stopIfUnused() {
+        if (!inFlight.isEmpty() || !selector.keys().isEmpty()) {
+            unusedSince = 0;
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (unusedSince == 0) {
+            unusedSince = now;
+            return false;
+        }
+        if (now - unusedSince < threadLinger) {
+            return false;
+        }
+        synchronized (this) {
+            if (closed || !submitted.isEmpty()) {
+                return false;
+            }
+            unusedSince = 0;
+            hosts.clear();
+            try {
+                selector.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to close selector", e);
+            }
+            selector = null;
+            thread = null;
+        }
+        return true;
+    }
+
+    private void dispatch(Exchange e) {
+        Host host = hosts.get(e.request.getConnectionKey());
+        if (host == null) {
+            host = new Host();
+            hosts.put(e.request.getConnectionKey(), host);
+        }
+        e.host = host;
+        inFlight.add(e);
+        e.deadline = deadline(e.request.connectTimeout);
+
+        Connection c = host.idle.pollLast();
+        if (c != null) {
+            start(e, c);
+        } else if (maxConnectionsPerHost <= 0 || host.open < maxConnectionsPerHost) {
+            connect(e);
+        } else {
+            host.waiting.add(e);
+        }
+    }
+
+    private void connect(Exchange e) {
+        Connection c = null;
+        try {
+            SocketChannel channel = SocketChannel.open();
+            c = new Connection(e.host, channel);
+            e.host.open++;
+            connectionsCreated.incrementAndGet();
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            c.key = channel.register(selector, 0, c);
+            c.exchange = e;
+            e.connection = c;
+            if (e.request.isSecure()) {
+                SSLEngine engine = e.request.sslContext.createSSLEngine(e.request.host, e.request.address.getPort());
+                engine.setUseClientMode(true);
+                if (e.request.hostnameVerifier == null) {
+                    SslLayer.enableEndpointIdentification(engine);
+                }
+                c.ssl = new SslLayer(engine, channel);
+            }
+            if (channel.connect(e.request.address)) {
+                connected(c);
+            } else {
+                c.key.interestOps(SelectionKey.OP_CONNECT);
+            }
+        } catch (Exception ex) {
+            fail(e, ex);
+            if (c != null) {
+                close(c);
+            }
+        }
+    }
+
+    private void connected(Connection c) throws IOException {
+        if (c.ssl != null) {
+            handshake(c);
+        } else {
+            start(c.exchange, c);
+        }
+    }
+
+    private void handshake(Connection c) throws IOException {
+        if (c.ssl.handshake()) {
+            NioHttpRequest request = c.exchange.request;
+            if (request.hostnameVerifier != null
+                    && !request.hostnameVerifier.verify(request.host, c.ssl.getEngine().getSession())) {
+                throw new SSLPeerUnverifiedException("Host name " + request.host + " doesn't match the server certificate");
+            }
+            start(c.exchange, c);
+        } else {
+            c.key.interestOps(c.ssl.needsWrite() ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Starts sending the request on a connected (and TLS handshaked) connection.
+     */
+    private void start(Exchange e, Connection c) {
+        c.exchange = e;
+        e.connection = c;
+        e.reused = c.used;
+        c.used = true;
+        e.parser = new ResponseParser(e.request.expectsBody());
+        e.toWrite = new ByteBuffer[]{e.request.head.duplicate(), e.request.body.duplicate()};
+        e.deadline = deadline(e.request.readTimeout);
+        requestsSent.incrementAndGet();
+        try {
+            write(c);
+        } catch (IOException ex) {
+            failOrRetry(c, ex);
+        }
+    }
+
+    private void process(Connection c, SelectionKey key) {
+        Exchange e = c.exchange;
+        if (e == null) {
+            // idle connection became readable: the server closed it
+            c.host.idle.remove(c);
+            close(c);
+            return;
+        }
+        try {
+            if (key.isConnectable()) {
+                c.channel.finishConnect();
+                connected(c);
+            } else if (c.ssl != null && !c.ssl.isHandshakeDone()) {
+                handshake(c);
+            } else if (e.toWrite != null) {
+                write(c);
+            } else if (key.isReadable()) {
+                read(c);
+            }
+        } catch (Exception ex) {
+            failOrRetry(c, ex);
+        }
+    }
+
+    private void write(Connection c) throws IOException {
+        Exchange e = c.exchange;
+        boolean done;
+        if (c.ssl != null) {
+            done = c.ssl.write(e.toWrite);
+        } else {
+            c.channel.write(e.toWrite);
+            done = !e.toWrite[0].hasRemaining() && !e.toWrite[1].hasRemaining();
+        }
+        if (done) {
+            e.toWrite = null;
+            c.key.interestOps(SelectionKey.OP_READ);
+            e.deadline = deadline(e.request.readTimeout);
+        } else {
+            c.key.interestOps((c.ssl != null && !c.ssl.needsWrite()) ? SelectionKey.OP_READ : SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void read(Connection c) throws IOException {
+        Exchange e = c.exchange;
+        boolean complete;
+        if (c.ssl != null) {
+            ByteBuffer buf = c.ssl.read();
+            if (buf == null) {
+                complete = e.parser.endOfStream();
+            } else {
+                try {
+                    complete = e.parser.parse(buf);
+                } finally {
+                    c.ssl.consumed();
+                }
+            }
+        } else {
+            readBuffer.clear();
+            int n = c.channel.read(readBuffer);
+            if (n < 0) {
+                complete = e.parser.endOfStream();
+            } else {
+                readBuffer.flip();
+                complete = e.parser.parse(readBuffer);
+                if (complete && readBuffer.hasRemaining()) {
+                    // unsolicited data, don't reuse the connection
+                    c.dirty = true;
+                }
+            }
+        }
+        e.deadline = deadline(e.request.readTimeout);
+        if (complete) {
+            boolean keepAlive = e.parser.isKeepAlive() && !c.dirty;
+            complete(e, e.parser.getResponse());
+            release(c, keepAlive);
+        }
+    }
+
+    /**
+     * A request that fails on a reused connection before any byte of the
+     * response arrived is sent once more on a new connection, as the server
+     * has probably closed the idle connection meanwhile.
+     */
+    private void failOrRetry(Connection c, Throwable t) {
+        Exchange e = c.exchange;
+        if (e != null && e.reused && !e.retried && (e.parser == null || !e.parser.isStarted())) {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE, "Reused connection failed, sending the request again", t);
+            }
+            e.retried = true;
+            e.connection = null;
+            e.parser = null;
+            e.toWrite = null;
+            e.deadline = deadline(e.request.connectTimeout);
+            // first in line for the connection slot freed below
+            e.host.waiting.addFirst(e);
+            close(c);
+        } else {
+            close(c);
+            if (e != null) {
+                fail(e, t);
+            }
+        }
+    }
+
+    private void release(Connection c, boolean keepAlive) {
+        c.exchange = null;
+        if (!keepAlive || closed) {
+            close(c);
+            return;
+        }
+        c.idleSince = System.currentTimeMillis();
+        c.host.idle.addLast(c);
+        // stays registered for reads to find out when the server closes it
+        c.key.interestOps(SelectionKey.OP_READ);
+        dispatchWaiting(c.host);
+    }
+
+    /**
+     * Starts the queued exchanges of the host as far as the connection limit allows.
+     */
+    private void dispatchWaiting(Host host) {
+        while (!host.waiting.isEmpty()) {
+            Connection c = host.idle.pollLast();
+            if (c != null) {
+                start(host.waiting.poll(), c);
+            } else if (maxConnectionsPerHost <= 0 || host.open < maxConnectionsPerHost) {
+                connect(host.waiting.poll());
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void close(Connection c) {
+        c.exchange = null;
+        if (c.key != null) {
+            c.key.cancel();
+        }
+        try {
+            c.channel.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to close connection", e);
+        }
+        if (!c.closed) {
+            c.closed = true;
+            c.host.open--;
+            dispatchWaiting(c.host);
+        }
+    }
+
+    private void complete(Exchange e, NioHttpResponse response) {
+        inFlight.remove(e);
+        e.connection = null;
+        try {
+            e.handler.onResponse(response);
+        } catch (Throwable t) {
+            LOGGER.log(Level.WARNING, "Response handler failed", t);
+        }
+    }
+
+    private void fail(Exchange e, Throwable t) {
+        inFlight.remove(e);
+        e.connection = null;
+        try {
+            e.handler.onFailure(t);
+        } catch (Throwable t2) {
+            LOGGER.log(Level.WARNING, "Response handler failed", t2);
+        }
+    }
+
+    private void checkTimeouts() {
+        long now = System.currentTimeMillis();
+        if (now - lastTimeoutCheck < TIMEOUT_CHECK_INTERVAL) {
+            return;
+        }
+        lastTimeoutCheck = now;
+        List<Exchange> expired = null;
+        for (Exchange e : inFlight) {
+            if (e.deadline != 0 && e.deadline <= now) {
+                if (expired == null) {
+                    expired = new ArrayList<Exchange>();
+                }
+                expired.add(e);
+            }
+        }
+        if (expired != null) {
+            for (Exchange e : expired) {
+                Connection c = e.connection;
+                e.host.waiting.remove(e);
+                fail(e, new SocketTimeoutException("HTTP request to " + e.request.getConnectionKey() + " timed out"));
+                if (c != null) {
+                    close(c);
+                }
+            }
+        }
+        if (idleTimeout > 0) {
+            for (Host host : hosts.values()) {
+                Iterator<Connection> it = host.idle.iterator();
+                while (it.hasNext()) {
+                    Connection c = it.next();
+                    if (now - c.idleSince >= idleTimeout) {
+                        it.remove();
+                        close(c);
+                    }
+                }
+            }
+        }
+    }
+
+    private static long deadline(int timeout) {
+        return (timeout > 0) ? System.currentTimeMillis() + timeout : 0;
+    }
+
+    private void shutdown() {
+        IOException closedException = new IOException(name + " is closed");
+        Exchange e;
+        while ((e = submitted.poll()) != null) {
+            fail(e, closedException);
+        }
+        for (Exchange inflight : new ArrayList<Exchange>(inFlight)) {
+            fail(inflight, closedException);
+        }
+        for (Host host : hosts.values()) {
+            host.waiting.clear();
+            for (Connection c : new ArrayList<Connection>(host.idle)) {
+                close(c);
+            }
+            host.idle.clear();
+        }
+        for (SelectionKey key : selector.keys()) {
+            close((Connection) key.attachment());
+        }
+        try {
+            selector.close();
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINE, "Failed to close selector", ex);
+        }
+    }
+
+    /**
+     * Connections and queued exchanges of one host.
+     */
+    private static final class Host {
+        final Deque<Connection> idle = new ArrayDeque<Connection>();
+        final Deque<Exchange> waiting = new ArrayDeque<Exchange>();
+        // connections open or being opened
+        int open;
+    }
+
+    private static final class Connection {
+        final Host host;
+        final SocketChannel channel;
+        SelectionKey key;
+        SslLayer ssl;
+        Exchange exchange;
+        long idleSince;
+        // true once the connection carried a request
+        boolean used;
+        boolean dirty;
+        boolean closed;
+
+        Connection(Host host, SocketChannel channel) {
+            this.host = host;
+            this.channel = channel;
+        }
+    }
+
+    private static final class Exchange {
+        final NioHttpRequest request;
+        final ResponseHandler handler;
+        Host host;
+        Connection connection;
+        ResponseParser parser;
+        ByteBuffer[] toWrite;
+        long deadline;
+        boolean reused;
+        boolean retried;
+
+        Exchange(NioHttpRequest request, ResponseHandler handler) {
+            this.request = request;
+            this.handler = handler;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.nio.client;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * An HTTP request handed to {@link NioHttpClient}. The request line, headers
+ * and body are already serialized, so the selector thread only has to
+ * write the bytes.
+ *
+ * @author WS Development Team
+ */
+final class NioHttpRequest {
+    final String host;
+    /**
+     * Resolved by the caller, so that DNS lookups never block the selector thread.
+     */
+    final InetSocketAddress address;
+    final String method;
+    final ByteBuffer head;
+    final ByteBuffer body;
+    final int connectTimeout;
+    final int readTimeout;
+
+    // TLS, null for plain HTTP
+    SSLContext sslContext;
+    // null means the JDK endpoint identification is used
+    HostnameVerifier hostnameVerifier;
+
+    NioHttpRequest(String host, InetSocketAddress address, String method, ByteBuffer head, ByteBuffer body,
+                   int connectTimeout, int readTimeout) {
+        this.host = host;
+        this.address = address;
+        this.method = method;
+        this.head = head;
+        this.body = (body != null) ? body : ByteBuffer.allocate(0);
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    boolean isSecure() {
+        return sslContext != null;
+    }
+
+    /**
+     * Connections are only shared among requests with the same key.
+     */
+    String getConnectionKey() {
+        return (isSecure() ? "https://" : "http://") + host + ':' + address.getPort();
+    }
+
+    boolean expectsBody() {
+        return !"HEAD".equalsIgnoreCase(method);
+    }
+}
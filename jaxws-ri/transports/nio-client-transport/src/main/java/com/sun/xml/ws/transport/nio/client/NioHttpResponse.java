@@ -0,0 +1,100 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.nio.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A complete HTTP response read by {@link NioHttpClient}.
+ *
+ * @author WS Development Team
+ */
+final class NioHttpResponse {
+    final int status;
+    final String message;
+    /**
+     * Case-insensitive map of the response headers.
+     */
+    final Map<String, List<String>> headers;
+    final Body body;
+
+    NioHttpResponse(int status, String message, Map<String, List<String>> headers, Body body) {
+        this.status = status;
+        this.message = message;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    String getHeader(String name) {
+        List<String> values = headers.get(name);
+        return (values == null || values.isEmpty()) ? null : values.get(0);
+    }
+
+    /**
+     * Growable buffer for the response body that can be read back without
+     * copying.
+     */
+    static final class Body extends ByteArrayOutputStream {
+        Body() {
+            super(1024);
+        }
+
+        void write(ByteBuffer src, int len) {
+            if (src.hasArray()) {
+                write(src.array(), src.arrayOffset() + src.position(), len);
+                src.position(src.position() + len);
+            } else {
+                byte[] b = new byte[len];
+                src.get(b);
+                write(b, 0, len);
+            }
+        }
+
+        InputStream newInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.nio.client;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Incremental HTTP/1.1 response parser. It is fed with whatever bytes the
+ * selector thread read and keeps its state between the calls, so it never
+ * blocks.
+ *
+ * @author WS Development Team
+ */
+final class ResponseParser {
+
+    private static final int STATUS_LINE = 0;
+    private static final int HEADERS = 1;
+    private static final int LENGTH_BODY = 2;
+    private static final int CHUNK_SIZE = 3;
+    private static final int CHUNK_DATA = 4;
+    private static final int CHUNK_END = 5;
+    private static final int TRAILERS = 6;
+    private static final int EOF_BODY = 7;
+    private static final int DONE = 8;
+
+    // guards against a server that never ends a line
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    private final boolean expectBody;
+    private final StringBuilder line = new StringBuilder(128);
+
+    private int state = STATUS_LINE;
+    private boolean started;
+    private int status;
+    private String message;
+    private boolean http11;
+    private Map<String, List<String>> headers;
+    private long remaining;
+    // the body ends with the connection
+    private boolean closeDelimited;
+    private final NioHttpResponse.Body body = new NioHttpResponse.Body();
+
+    ResponseParser(boolean expectBody) {
+        this.expectBody = expectBody;
+    }
+
+    /**
+     * Consumes the available bytes.
+     *
+     * @return true once the complete response has been read.
+     */
+    boolean parse(ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining() && state != DONE) {
+            started = true;
+            switch (state) {
+            case LENGTH_BODY:
+            case CHUNK_DATA: {
+                int n = (int) Math.min(remaining, buf.remaining());
+                body.write(buf, n);
+                remaining -= n;
+                if (remaining == 0) {
+                    state = (state == LENGTH_BODY) ? DONE : CHUNK_END;
+                }
+                break;
+            }
+            case EOF_BODY:
+                body.write(buf, buf.remaining());
+                break;
+            default:
+                String l = readLine(buf);
+                if (l != null) {
+                    onLine(l);
+                }
+            }
+        }
+        return state == DONE;
+    }
+
+    /**
+     * Called when the server closed the connection.
+     *
+     * @return true if the end of the connection completes the response.
+     */
+    boolean endOfStream() throws IOException {
+        if (state == EOF_BODY) {
+            state = DONE;
+            return true;
+        }
+        if (state == DONE) {
+            return true;
+        }
+        throw new EOFException("Connection closed before the complete HTTP response was received");
+    }
+
+    /**
+     * True if no byte of the response has been received yet, so the request
+     * can safely be sent again.
+     */
+    boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * True if the connection can carry another request after this response.
+     */
+    boolean isKeepAlive() {
+        if (state != DONE || closeDelimited) {
+            return false;
+        }
+        String connection = getFirst("Connection");
+        return http11
+                ? connection == null || !connection.toLowerCase().contains("close")
+                : connection != null && connection.toLowerCase().contains("keep-alive");
+    }
+
+    NioHttpResponse getResponse() {
+        return new NioHttpResponse(status, message, headers, body);
+    }
+
+    private void onLine(String l) throws IOException {
+        switch (state) {
+        case STATUS_LINE:
+            // HTTP/1.1 200 OK
+            int sp = l.indexOf(' ');
+            if (!l.startsWith("HTTP/") || sp < 0 || l.length() < sp + 4) {
+                throw new IOException("Invalid HTTP status line: " + l);
+            }
+            try {
+                status = Integer.parseInt(l.substring(sp + 1, sp + 4));
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid HTTP status line: " + l);
+            }
+            message = (l.length() > sp + 5) ? l.substring(sp + 5) : "";
+            http11 = l.startsWith("HTTP/1.1");
+            headers = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+            state = HEADERS;
+            break;
+        case HEADERS:
+            if (l.length() > 0) {
+                addHeader(l);
+            } else {
+                endOfHeaders();
+            }
+            break;
+        case CHUNK_SIZE:
+            int ext = l.indexOf(';');
+            try {
+                remaining = Long.parseLong(((ext < 0) ? l : l.substring(0, ext)).trim(), 16);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid chunk size: " + l);
+            }
+            state = (remaining == 0) ? TRAILERS : CHUNK_DATA;
+            break;
+        case CHUNK_END:
+            state = CHUNK_SIZE;
+            break;
+        case TRAILERS:
+            if (l.length() == 0) {
+                state = DONE;
+            }
+            break;
+        default:
+            throw new AssertionError();
+        }
+    }
+
+    private void endOfHeaders() throws IOException {
+        if (status / 100 == 1) {
+            // 100-continue and other interim responses
+            state = STATUS_LINE;
+            return;
+        }
+        String transferEncoding = getFirst("Transfer-Encoding");
+        String length = getFirst("Content-Length");
+        if (!expectBody || status == 204 || status == 304) {
+            state = DONE;
+        } else if (transferEncoding != null && transferEncoding.toLowerCase().contains("chunked")) {
+            state = CHUNK_SIZE;
+        } else if (length != null) {
+            try {
+                remaining = Long.parseLong(length.trim());
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid Content-Length: " + length);
+            }
+            state = (remaining == 0) ? DONE : LENGTH_BODY;
+        } else {
+            // body is delimited by the end of the connection
+            closeDelimited = true;
+            state = EOF_BODY;
+        }
+    }
+
+    private void addHeader(String l) {
+        int colon = l.indexOf(':');
+        if (colon > 0) {
+            String name = l.substring(0, colon).trim();
+            List<String> values = headers.get(name);
+            if (values == null) {
+                values = new ArrayList<String>(1);
+                headers.put(name, values);
+            }
+            values.add(l.substring(colon + 1).trim());
+        }
+    }
+
+    private String getFirst(String name) {
+        List<String> values = headers.get(name);
+        return (values == null || values.isEmpty()) ? null : values.get(0);
+    }
+
+    /**
+     * Returns the next ISO-8859-1 line without CRLF, or null if the line
+     * isn't complete yet.
+     */
+    private String readLine(ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            char c = (char) (buf.get() & 0xff);
+            if (c == '\n') {
+                int len = line.length();
+                if (len > 0 && line.charAt(len - 1) == '\r') {
+                    line.setLength(len - 1);
+                }
+                String l = line.toString();
+                line.setLength(0);
+                return l;
+            }
+            if (line.length() >= MAX_LINE_LENGTH) {
+                throw new IOException("HTTP response line too long");
+            }
+            line.append(c);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.nio.client;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Non-blocking TLS on top of a {@link SocketChannel}, driven by the
+ * {@link NioHttpClient} selector thread. All the methods return instead of
+ * waiting when the channel isn't ready; the caller then registers for the
+ * operation given by {@link #needsWrite()}.
+ *
+ * @author WS Development Team
+ */
+final class SslLayer {
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    /**
+     * {@code SSLParameters.setEndpointIdentificationAlgorithm} exists only
+     * from JDK 7 on, so it is looked up reflectively.
+     */
+    private static final Method SET_ENDPOINT_IDENTIFICATION;
+
+    static {
+        Method m;
+        try {
+            m = SSLParameters.class.getMethod("setEndpointIdentificationAlgorithm", String.class);
+        } catch (Exception e) {
+            m = null;
+        }
+        SET_ENDPOINT_IDENTIFICATION = m;
+    }
+
+    private final SSLEngine engine;
+    private final SocketChannel channel;
+
+    // network data waiting to be written, in read mode
+    private ByteBuffer netOut;
+    // network data read from the channel, in write mode
+    private ByteBuffer netIn;
+    // decrypted data, in write mode
+    private ByteBuffer appIn;
+
+    private boolean handshakeDone;
+    private boolean blockedOnWrite;
+
+    SslLayer(SSLEngine engine, SocketChannel channel) throws SSLException {
+        this.engine = engine;
+        this.channel = channel;
+        int packetSize = engine.getSession().getPacketBufferSize();
+        netOut = ByteBuffer.allocate(packetSize);
+        netOut.flip();
+        netIn = ByteBuffer.allocate(packetSize);
+        appIn = ByteBuffer.allocate(engine.getSession().getApplicationBufferSize());
+        engine.beginHandshake();
+    }
+
+    /**
+     * Returns true if the JDK can check the server host name itself, without
+     * an application provided {@link javax.net.ssl.HostnameVerifier}.
+     */
+    static boolean supportsEndpointIdentification() {
+        return SET_ENDPOINT_IDENTIFICATION != null;
+    }
+
+    /**
+     * Lets the JDK verify that the server certificate matches the host name.
+     */
+    static void enableEndpointIdentification(SSLEngine engine) throws SSLException {
+        try {
+            SSLParameters params = engine.getSSLParameters();
+            SET_ENDPOINT_IDENTIFICATION.invoke(params, "HTTPS");
+            engine.setSSLParameters(params);
+        } catch (Exception e) {
+            throw new SSLException("Cannot enable host name verification", e);
+        }
+    }
+
+    boolean isHandshakeDone() {
+        return handshakeDone;
+    }
+
+    SSLEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * True if the last call returned because the channel couldn't take more
+     * data, false if it returned because more data has to be read.
+     */
+    boolean needsWrite() {
+        return blockedOnWrite;
+    }
+
+    /**
+     * Drives the handshake.
+     *
+     * @return true once the handshake is complete.
+     */
+    boolean handshake() throws IOException {
+        if (handshakeDone) {
+            return true;
+        }
+        while (true) {
+            if (!flush()) {
+                return false;
+            }
+            switch (engine.getHandshakeStatus()) {
+            case NEED_TASK:
+                runTasks();
+                break;
+            case NEED_WRAP:
+                wrap(EMPTY);
+                break;
+            case NEED_UNWRAP:
+                if (!unwrap()) {
+                    return false;
+                }
+                break;
+            default:
+                // FINISHED, NOT_HANDSHAKING
+                if (!flush()) {
+                    return false;
+                }
+                handshakeDone = true;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Encrypts and writes the given data.
+     *
+     * @return true once all the data has been written to the channel.
+     */
+    boolean write(ByteBuffer[] srcs) throws IOException {
+        while (true) {
+            if (!flush()) {
+                return false;
+            }
+            if (!hasRemaining(srcs)) {
+                return true;
+            }
+            wrap(srcs);
+        }
+    }
+
+    /**
+     * Reads and decrypts the available data. The caller consumes the returned
+     * buffer (in read mode) and gives it back with {@link #consumed()}.
+     *
+     * @return null if the server closed the connection.
+     */
+    ByteBuffer read() throws IOException {
+        boolean eof = false;
+        try {
+            // drain all the complete records, the selector won't report them again
+            while (unwrap()) {
+                // post-handshake messages, e.g. TLS 1.3 session tickets
+                while (engine.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                    runTasks();
+                }
+                if (engine.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+                    wrap(EMPTY);
+                    flush();
+                }
+            }
+        } catch (EOFException e) {
+            eof = true;
+        }
+        if (appIn.position() == 0 && eof) {
+            return null;
+        }
+        appIn.flip();
+        return appIn;
+    }
+
+    void consumed() {
+        appIn.compact();
+    }
+
+    /**
+     * Writes pending network data.
+     *
+     * @return false if the channel couldn't take all of it.
+     */
+    private boolean flush() throws IOException {
+        while (netOut.hasRemaining()) {
+            if (channel.write(netOut) == 0) {
+                blockedOnWrite = true;
+                return false;
+            }
+        }
+        blockedOnWrite = false;
+        return true;
+    }
+
+    private void wrap(ByteBuffer src) throws IOException {
+        wrap(new ByteBuffer[]{src});
+    }
+
+    private void wrap(ByteBuffer[] srcs) throws IOException {
+        while (true) {
+            netOut.compact();
+            SSLEngineResult result;
+            try {
+                result = engine.wrap(srcs, netOut);
+            } finally {
+                netOut.flip();
+            }
+            switch (result.getStatus()) {
+            case OK:
+                return;
+            case BUFFER_OVERFLOW:
+                netOut = enlarge(netOut, engine.getSession().getPacketBufferSize(), true);
+                break;
+            case CLOSED:
+                throw new EOFException("SSL connection closed");
+            default:
+                throw new SSLException("Unexpected wrap result " + result);
+            }
+        }
+    }
+
+    /**
+     * Unwraps one TLS record, reading from the channel if needed.
+     *
+     * @return false if more network data is needed but not available yet.
+     */
+    private boolean unwrap() throws IOException {
+        while (true) {
+            netIn.flip();
+            SSLEngineResult result;
+            try {
+                result = engine.unwrap(netIn, appIn);
+            } finally {
+                netIn.compact();
+            }
+            switch (result.getStatus()) {
+            case OK:
+                return true;
+            case BUFFER_OVERFLOW:
+                appIn = enlarge(appIn, engine.getSession().getApplicationBufferSize(), false);
+                break;
+            case BUFFER_UNDERFLOW:
+                if (!netIn.hasRemaining()) {
+                    netIn = enlarge(netIn, engine.getSession().getPacketBufferSize(), false);
+                }
+                int n = channel.read(netIn);
+                if (n < 0) {
+                    throw new EOFException("Connection closed by the server");
+                }
+                if (n == 0) {
+                    blockedOnWrite = false;
+                    return false;
+                }
+                break;
+            case CLOSED:
+                throw new EOFException("SSL connection closed");
+            default:
+                throw new SSLException("Unexpected unwrap result " + result);
+            }
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = engine.getDelegatedTask()) != null) {
+            task.run();
+        }
+    }
+
+    private static boolean hasRemaining(ByteBuffer[] srcs) {
+        for (ByteBuffer src : srcs) {
+            if (src.hasRemaining()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param readMode
+     *      true if the buffer is in read mode (flipped).
+     */
+    private static ByteBuffer enlarge(ByteBuffer buf, int minSize, boolean readMode) {
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.capacity() + minSize));
+        if (!readMode) {
+            buf.flip();
+        }
+        bigger.put(buf);
+        if (readMode) {
+            bigger.flip();
+        }
+        return bigger;
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.nio.client;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Runs {@link NioHttpClient} against a scripted HTTP server.
+ *
+ * @author WS Development Team
+ */
+public class NioHttpClientTest extends TestCase {
+
+    private ServerSocket server;
+    private final List<Socket> accepted = new ArrayList<Socket>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile Script script;
+    private NioHttpClient client;
+
+    /**
+     * Answers the n-th request the server received, counting from 1.
+     */
+    private interface Script {
+        void reply(int n, String requestBody, OutputStream out, Socket socket) throws IOException;
+    }
+
+    private static final Script OK = new Script() {
+        public void reply(int n, String requestBody, OutputStream out, Socket socket) throws IOException {
+            respond(out, "HTTP/1.1 200 OK\r\nContent-Length: " + requestBody.length() + "\r\n\r\n" + requestBody);
+        }
+    };
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        script = OK;
+        server = new ServerSocket(0);
+        Thread acceptor = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        final Socket s = server.accept();
+                        synchronized (accepted) {
+                            accepted.add(s);
+                        }
+                        Thread t = new Thread() {
+                            @Override
+                            public void run() {
+                                serve(s);
+                            }
+                        };
+                        t.setDaemon(true);
+                        t.start();
+                    }
+                } catch (IOException e) {
+                    // server closed
+                }
+            }
+        };
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (client != null) {
+            client.close();
+        }
+        server.close();
+        synchronized (accepted) {
+            for (Socket s : accepted) {
+                s.close();
+            }
+        }
+        super.tearDown();
+    }
+
+    private void serve(Socket s) {
+        try {
+            InputStream in = new BufferedInputStream(s.getInputStream());
+            OutputStream out = s.getOutputStream();
+            String line;
+            while ((line = readLine(in)) != null) {
+                int length = 0;
+                while ((line = readLine(in)) != null && line.length() > 0) {
+                    if (line.toLowerCase().startsWith("content-length:")) {
+                        length = Integer.parseInt(line.substring(15).trim());
+                    }
+                }
+                byte[] body = new byte[length];
+                for (int off = 0; off < length; ) {
+                    int n = in.read(body, off, length - off);
+                    if (n < 0) {
+                        return;
+                    }
+                    off += n;
+                }
+                script.reply(requests.incrementAndGet(), new String(body, "ISO-8859-1"), out, s);
+                if (s.isClosed()) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // connection closed
+        } finally {
+            try {
+                s.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                int len = sb.length();
+                return (len > 0 && sb.charAt(len - 1) == '\r') ? sb.substring(0, len - 1) : sb.toString();
+            }
+            sb.append((char) c);
+        }
+        return null;
+    }
+
+    private static void respond(OutputStream out, String response) throws IOException {
+        out.write(response.getBytes("ISO-8859-1"));
+        out.flush();
+    }
+
+    private NioHttpRequest request(String body) throws Exception {
+        byte[] b = body.getBytes("ISO-8859-1");
+        String head = "POST /echo HTTP/1.1\r\nHost: localhost:" + server.getLocalPort()
+                + "\r\nContent-Length: " + b.length + "\r\n\r\n";
+        return new NioHttpRequest("localhost", new InetSocketAddress("localhost", server.getLocalPort()), "POST",
+                ByteBuffer.wrap(head.getBytes("ISO-8859-1")), ByteBuffer.wrap(b), 5000, 5000);
+    }
+
+    private Object call(String body) throws Exception {
+        final BlockingQueue<Object> result = new LinkedBlockingQueue<Object>();
+        client.send(request(body), new NioHttpClient.ResponseHandler() {
+            public void onResponse(NioHttpResponse response) {
+                result.add(response);
+            }
+            public void onFailure(Throwable t) {
+                result.add(t);
+            }
+        });
+        Object r = result.poll(10, TimeUnit.SECONDS);
+        assertNotNull("no outcome", r);
+        return r;
+    }
+
+    private String callForBody(String body) throws Exception {
+        Object r = call(body);
+        if (r instanceof Throwable) {
+            throw new AssertionError(r);
+        }
+        NioHttpResponse response = (NioHttpResponse) r;
+        assertEquals(200, response.status);
+        return response.body.toString("ISO-8859-1");
+    }
+
+    public void testKeepAliveReuse() throws Exception {
+        client = new NioHttpClient("test", 2, 0);
+        assertEquals("one", callForBody("one"));
+        assertEquals("two", callForBody("two"));
+        assertEquals("three", callForBody("three"));
+        assertEquals(1, client.getConnectionsCreated());
+        assertEquals(3, client.getRequestsSent());
+    }
+
+    public void testConnectionClose() throws Exception {
+        script = new Script() {
+            public void reply(int n, String requestBody, OutputStream out, Socket socket) throws IOException {
+                respond(out, "HTTP/1.1 200 OK\r\nConnection: close\r\nContent-Length: 2\r\n\r\nok");
+                socket.close();
+            }
+        };
+        client = new NioHttpClient("test", 2, 0);
+        assertEquals("ok", callForBody("one"));
+        assertEquals("ok", callForBody("two"));
+        assertEquals(2, client.getConnectionsCreated());
+    }
+
+    public void testRetryBeforeFirstResponseByte() throws Exception {
+        script = new Script() {
+            public void reply(int n, String requestBody, OutputStream out, Socket socket) throws IOException {
+                if (n == 2) {
+                    // the server dropped the keep-alive connection
+                    socket.close();
+                } else {
+                    OK.reply(n, requestBody, out, socket);
+                }
+            }
+        };
+        client = new NioHttpClient("test", 2, 0);
+        assertEquals("one", callForBody("one"));
+        assertEquals("two", callForBody("two"));
+        assertEquals(2, client.getConnectionsCreated());
+        assertEquals(3, requests.get());
+    }
+
+    public void testNoRetryAfterResponseStarted() throws Exception {
+        script = new Script() {
+            public void reply(int n, String requestBody, OutputStream out, Socket socket) throws IOException {
+                if (n == 2) {
+                    respond(out, "HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\nhal");
+                    socket.close();
+                } else {
+                    OK.reply(n, requestBody, out, socket);
+                }
+            }
+        };
+        client = new NioHttpClient("test", 2, 0);
+        assertEquals("one", callForBody("one"));
+        assertTrue(call("two") instanceof IOException);
+        assertEquals(2, requests.get());
+    }
+
+    public void testQueuedBeyondConnectionLimit() throws Exception {
+        client = new NioHttpClient("test", 1, 0);
+        final BlockingQueue<Object> result = new LinkedBlockingQueue<Object>();
+        NioHttpClient.ResponseHandler handler = new NioHttpClient.ResponseHandler() {
+            public void onResponse(NioHttpResponse response) {
+                result.add(response);
+            }
+            public void onFailure(Throwable t) {
+                result.add(t);
+            }
+        };
+        for (int i = 0; i < 5; i++) {
+            client.send(request("r" + i), handler);
+        }
+        for (int i = 0; i < 5; i++) {
+            Object r = result.poll(10, TimeUnit.SECONDS);
+            assertTrue(String.valueOf(r), r instanceof NioHttpResponse);
+        }
+        assertEquals(1, client.getConnectionsCreated());
+    }
+
+    public void testSelectorThreadStopsWhenUnused() throws Exception {
+        client = new NioHttpClient("test", 2, 50, 100);
+        assertFalse(client.isRunning());
+        assertEquals("one", callForBody("one"));
+        assertTrue(client.isRunning());
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (client.isRunning() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(client.isRunning());
+
+        // started again by the next request
+        assertEquals("two", callForBody("two"));
+        assertTrue(client.isRunning());
+        assertEquals(2, client.getConnectionsCreated());
+    }
+
+    public void testClose() throws Exception {
+        client = new NioHttpClient("test", 2, 0);
+        assertEquals("one", callForBody("one"));
+        client.close();
+        assertTrue(call("two") instanceof IOException);
+    }
+}
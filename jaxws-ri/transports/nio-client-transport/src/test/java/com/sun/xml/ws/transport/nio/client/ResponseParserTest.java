@@ -0,0 +1,185 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.nio.client;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import junit.framework.TestCase;
+
+/**
+ * @author WS Development Team
+ */
+public class ResponseParserTest extends TestCase {
+
+    public void testContentLength() throws Exception {
+        ResponseParser p = new ResponseParser(true);
+        assertTrue(p.parse(bytes("HTTP/1.1 200 OK\r\nContent-Length: 5\r\nContent-Type: text/xml\r\n\r\nhello")));
+        NioHttpResponse r = p.getResponse();
+        assertEquals(200, r.status);
+        assertEquals("OK", r.message);
+        assertEquals("text/xml", r.getHeader("content-type"));
+        assertEquals("hello", body(r));
+        assertTrue(p.isKeepAlive());
+    }
+
+    public void testContentLengthByteByByte() throws Exception {
+        ResponseParser p = new ResponseParser(true);
+        byte[] response = "HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nhello".getBytes("ISO-8859-1");
+        for (int i = 0; i < response.length - 1; i++) {
+            assertFalse(p.parse(ByteBuffer.wrap(response, i, 1)));
+        }
+        assertTrue(p.parse(ByteBuffer.wrap(response, response.length - 1, 1)));
+        assertEquals("hello", body(p.getResponse()));
+    }
+
+    public void testChunked() throws Exception {
+        ResponseParser p = new ResponseParser(true);
+        assertFalse(p.parse(bytes("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n5;ext=1\r\nhello\r\n")));
+        assertFalse(p.parse(bytes("6\r\n world\r\n0\r\n")));
+        assertTrue(p.parse(bytes("Trailer: x\r\n\r\n")));
+        assertEquals("hello world", body(p.getResponse()));
+        assertTrue(p.isKeepAlive());
+    }
+
+    public void testEndOfStreamDelimitsBody() throws Exception {
+        ResponseParser p = new ResponseParser(true);
+        assertFalse(p.parse(bytes("HTTP/1.1 200 OK\r\n\r\nhello")));
+        assertFalse(p.parse(bytes(" world")));
+        assertTrue(p.endOfStream());
+        assertEquals("hello world", body(p.getResponse()));
+        assertFalse(p.isKeepAlive());
+    }
+
+    public void testEndOfStreamBeforeResponse() throws Exception {
+        ResponseParser p = new ResponseParser(true);
+        assertFalse(p.parse(bytes("HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\nhello")));
+        try {
+            p.endOfStream();
+            fail();
+        } catch (EOFException e) {
+            // truncated body
+        }
+    }
+
+    public void testInterimResponse() throws Exception {
+        ResponseParser p = new ResponseParser(true);
+        assertFalse(p.parse(bytes("HTTP/1.1 100 Continue\r\n\r\n")));
+        assertTrue(p.parse(bytes("HTTP/1.1 500 Internal Server Error\r\nContent-Length: 2\r\n\r\nno")));
+        NioHttpResponse r = p.getResponse();
+        assertEquals(500, r.status);
+        assertEquals("Internal Server Error", r.message);
+        assertEquals("no", body(r));
+    }
+
+    public void testHead() throws Exception {
+        ResponseParser p = new ResponseParser(false);
+        assertTrue(p.parse(bytes("HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\n")));
+        assertEquals("", body(p.getResponse()));
+        assertTrue(p.isKeepAlive());
+    }
+
+    public void testNoContent() throws Exception {
+        ResponseParser p = new ResponseParser(true);
+        assertTrue(p.parse(bytes("HTTP/1.1 204 No Content\r\n\r\n")));
+        assertEquals(204, p.getResponse().status);
+        assertEquals("", body(p.getResponse()));
+
+        p = new ResponseParser(true);
+        assertTrue(p.parse(bytes("HTTP/1.1 304 Not Modified\r\nContent-Length: 5\r\n\r\n")));
+        assertEquals(304, p.getResponse().status);
+        assertEquals("", body(p.getResponse()));
+    }
+
+    public void testKeepAlive() throws Exception {
+        ResponseParser p = new ResponseParser(true);
+        p.parse(bytes("HTTP/1.1 200 OK\r\nConnection: close\r\nContent-Length: 0\r\n\r\n"));
+        assertFalse(p.isKeepAlive());
+
+        p = new ResponseParser(true);
+        p.parse(bytes("HTTP/1.0 200 OK\r\nContent-Length: 0\r\n\r\n"));
+        assertFalse(p.isKeepAlive());
+
+        p = new ResponseParser(true);
+        p.parse(bytes("HTTP/1.0 200 OK\r\nConnection: Keep-Alive\r\nContent-Length: 0\r\n\r\n"));
+        assertTrue(p.isKeepAlive());
+    }
+
+    public void testLineTooLong() throws Exception {
+        ResponseParser p = new ResponseParser(true);
+        p.parse(bytes("HTTP/1.1 200 OK\r\nX-Long: "));
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 64 * 1024; i++) {
+            sb.append('x');
+        }
+        try {
+            p.parse(bytes(sb.toString()));
+            fail();
+        } catch (IOException e) {
+            // no end of line in sight
+        }
+    }
+
+    public void testInvalidStatusLine() throws Exception {
+        try {
+            new ResponseParser(true).parse(bytes("SSH-2.0-OpenSSH\r\n"));
+            fail();
+        } catch (IOException e) {
+            // not HTTP
+        }
+    }
+
+    public void testStarted() throws Exception {
+        ResponseParser p = new ResponseParser(true);
+        assertFalse(p.isStarted());
+        p.parse(bytes("H"));
+        assertTrue(p.isStarted());
+    }
+
+    private static ByteBuffer bytes(String s) throws Exception {
+        return ByteBuffer.wrap(s.getBytes("ISO-8859-1"));
+    }
+
+    private static String body(NioHttpResponse r) throws Exception {
+        return r.body.toString("ISO-8859-1");
+    }
+}